@@ -1,10 +1,17 @@
 package ch.interlis.generator;
 
 import ch.interlis.generator.generator.GenerationConfig;
+import ch.interlis.generator.generator.PerformanceProfile;
 import ch.interlis.generator.generator.GrailsCrudGenerator;
+import ch.interlis.generator.metadata.ChangeSet;
+import ch.interlis.generator.metadata.MetadataDiff;
 import ch.interlis.generator.metadata.MetadataReader;
+import ch.interlis.generator.metadata.MetadataSerializer;
 import ch.interlis.generator.metadata.MetadataPrinter;
+import ch.interlis.generator.metadata.SchemaBatchReader;
+import ch.interlis.generator.model.ClassSelection;
 import ch.interlis.generator.model.ModelMetadata;
+import ch.interlis.generator.reader.Ili2cModelReader;
 import ch.interlis.ili2c.Ili2cFailure;
 
 import java.io.File;
@@ -17,8 +24,10 @@ import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 
 public class MetadataReaderApp {
     
@@ -49,21 +58,40 @@ public class MetadataReaderApp {
         System.out.println("JDBC URL:    " + options.jdbcUrl);
         System.out.println("Model File:  " + (modelFile != null ? modelFile.getAbsolutePath() : "(repository lookup)"));
         System.out.println("Model Name:  " + options.modelName);
-        System.out.println("Schema:      " + formatSchema(options.schema));
+        if (options.batchSchemas.isEmpty()) {
+            System.out.println("Schema:      " + formatSchema(options.schema));
+        } else {
+            System.out.println("Schemas:     " + String.join(", ", options.batchSchemas)
+                + " (parallel: " + options.parallelism + ")");
+        }
         System.out.println("Model Repos: " + String.join(", ", modelRepositories));
+        if (!options.classSelection.isAll()) {
+            System.out.println("Classes:     " + formatSelection(options.classSelection));
+        }
         System.out.println();
+
+        if (!options.batchSchemas.isEmpty()) {
+            System.exit(runBatch(options, modelFile, modelRepositories));
+        }
         
         try (Connection conn = DriverManager.getConnection(options.jdbcUrl)) {
             System.out.println("Database connection established.");
             System.out.println();
             
-            // Metadata Reader erstellen
-            MetadataReader reader = new MetadataReader(
-                conn, 
-                modelFile, 
-                options.schema,
-                modelRepositories
-            );
+            // Metadata Reader erstellen (beim Vergleich teilen sich beide Stände das Modell)
+            Ili2cModelReader sharedModelReader = options.diffSchema != null
+                ? new Ili2cModelReader(modelFile, modelRepositories)
+                : null;
+            MetadataReader reader = sharedModelReader != null
+                ? MetadataReader.withSharedModel(conn, sharedModelReader, options.schema,
+                    options.classSelection)
+                : new MetadataReader(
+                    conn, 
+                    modelFile, 
+                    options.schema,
+                    modelRepositories,
+                    options.classSelection
+                );
             
             // Metadaten lesen
             ModelMetadata metadata = reader.readMetadata(options.modelName);
@@ -72,12 +100,52 @@ public class MetadataReaderApp {
             System.out.println("Metadata reading completed successfully!");
             System.out.println();
             
-            // Metadaten ausgeben
-            MetadataPrinter printer = new MetadataPrinter();
-            printer.print(metadata);
+            if (options.metamodelOut != null) {
+                long writeStart = System.nanoTime();
+                MetadataSerializer.write(metadata, options.metamodelOut);
+                System.out.printf("Metamodel written to: %s (%d bytes, %d ms)%n",
+                    options.metamodelOut.toAbsolutePath(), Files.size(options.metamodelOut),
+                    (System.nanoTime() - writeStart) / 1_000_000L);
+                System.out.println();
+            }
+            
+            // nach einem Schemavergleich nur die Artefakte der betroffenen Klassen neu schreiben
+            ClassSelection generationSelection = ClassSelection.all();
+            Set<String> removedClasses = Set.of();
+            if (options.diffSchema != null || options.diffAgainst != null) {
+                ModelMetadata previous;
+                String previousLabel;
+                if (options.diffAgainst != null) {
+                    previous = MetadataSerializer.read(options.diffAgainst);
+                    previousLabel = options.diffAgainst.toString();
+                } else {
+                    previous = MetadataReader.withSharedModel(conn, sharedModelReader,
+                        options.diffSchema, options.classSelection).readMetadata(options.modelName);
+                    previousLabel = options.diffSchema;
+                }
+                ChangeSet changeSet = MetadataDiff.compare(previous, metadata);
+                printChangeSet(changeSet, previousLabel, formatSchema(options.schema));
+                if (options.diffOutput != null) {
+                    Files.writeString(options.diffOutput, changeSet.toJson(), StandardCharsets.UTF_8);
+                    System.out.println("Change set written to: " + options.diffOutput.toAbsolutePath());
+                }
+                generationSelection = changeSet.getAffectedClasses().isEmpty()
+                    ? null
+                    : changeSet.toClassSelection();
+                removedClasses = changeSet.getRemovedClasses();
+            } else {
+                // Metadaten ausgeben
+                MetadataPrinter printer = new MetadataPrinter();
+                printer.print(metadata);
+            }
 
             if (options.grailsOutputDir != null) {
-                generateGrailsCrud(metadata, options);
+                if (generationSelection == null && removedClasses.isEmpty()) {
+                    System.out.println("No generated artifacts affected by the changes; skipping generation.");
+                } else {
+                    generateGrailsCrud(metadata, options, options.schema, options.grailsOutputDir,
+                        generationSelection, removedClasses);
+                }
             }
             
             System.out.println();
@@ -98,6 +166,105 @@ public class MetadataReaderApp {
         }
     }
     
+    /**
+     * Batch-Modus: kompiliert das Modell einmal, liest alle Schemas parallel und erzeugt
+     * pro Schema eine Ausgabe in {@code <grails-output>/<schema>}.
+     *
+     * @return Exit-Code (0, wenn alle Schemas erfolgreich verarbeitet wurden)
+     */
+    private static int runBatch(CliOptions options, File modelFile, List<String> modelRepositories) {
+        List<String> schemas;
+        try (Connection conn = DriverManager.getConnection(options.jdbcUrl)) {
+            schemas = SchemaBatchReader.resolveSchemas(conn, options.batchSchemas);
+        } catch (SQLException e) {
+            System.err.println("Database error: " + e.getMessage());
+            e.printStackTrace();
+            return 1;
+        }
+        if (schemas.isEmpty()) {
+            System.err.println("No schema matches: " + String.join(", ", options.batchSchemas));
+            return 1;
+        }
+        System.out.println("Resolved schemas: " + String.join(", ", schemas));
+        System.out.println();
+
+        Ili2cModelReader ili2cReader = new Ili2cModelReader(modelFile, modelRepositories);
+        SchemaBatchReader batchReader = new SchemaBatchReader(
+            options.jdbcUrl, ili2cReader, options.classSelection, options.parallelism);
+
+        long batchStart = System.nanoTime();
+        List<SchemaBatchReader.SchemaResult> results;
+        try {
+            results = batchReader.readAll(options.modelName, schemas);
+        } catch (Ili2cFailure e) {
+            System.err.println("INTERLIS model compilation error: " + e.getMessage());
+            e.printStackTrace();
+            return 1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("Batch interrupted.");
+            return 1;
+        }
+
+        int failures = 0;
+        List<String> report = new ArrayList<>();
+        for (SchemaBatchReader.SchemaResult result : results) {
+            if (!result.isSuccess()) {
+                failures++;
+                report.add(String.format("  %-30s FAILED after %d ms: %s",
+                    result.getSchema(), result.getReadMillis(), result.getError().getMessage()));
+                continue;
+            }
+            ModelMetadata metadata = result.getMetadata();
+            long generateMillis = 0;
+            if (options.grailsOutputDir != null) {
+                long generateStart = System.nanoTime();
+                try {
+                    generateGrailsCrud(metadata, options, result.getSchema(),
+                        options.grailsOutputDir.resolve(result.getSchema()), ClassSelection.all(),
+                        Set.of());
+                } catch (IOException | InterruptedException | RuntimeException e) {
+                    failures++;
+                    report.add(String.format("  %-30s read %d ms, generation FAILED: %s",
+                        result.getSchema(), result.getReadMillis(), e.getMessage()));
+                    continue;
+                }
+                generateMillis = (System.nanoTime() - generateStart) / 1_000_000L;
+            }
+            report.add(String.format("  %-30s %4d classes %4d enums  read %6d ms  generate %6d ms",
+                result.getSchema(), metadata.getClasses().size(), metadata.getEnums().size(),
+                result.getReadMillis(), generateMillis));
+        }
+
+        System.out.println();
+        System.out.println("Batch summary");
+        System.out.println("-------------");
+        report.forEach(System.out::println);
+        System.out.println();
+        System.out.printf("%d schema(s), %d failed, total %d ms%n",
+            results.size(), failures, (System.nanoTime() - batchStart) / 1_000_000L);
+        System.out.println("===================================================");
+        return failures == 0 ? 0 : 1;
+    }
+
+    private static void printChangeSet(ChangeSet changeSet, String oldSchema, String newSchema) {
+        System.out.println("Changes " + oldSchema + " -> " + newSchema);
+        System.out.println("---------------------------------------------------");
+        if (changeSet.isEmpty()) {
+            System.out.println("No structural changes (hash " + changeSet.getNewHash() + ").");
+            return;
+        }
+        for (ChangeSet.Change change : changeSet.getChanges()) {
+            System.out.println("  " + change);
+        }
+        System.out.printf("%d added, %d removed, %d modified; %d class(es) affected%n",
+            changeSet.count(ChangeSet.ChangeType.ADDED),
+            changeSet.count(ChangeSet.ChangeType.REMOVED),
+            changeSet.count(ChangeSet.ChangeType.MODIFIED),
+            changeSet.getAffectedClasses().size());
+        System.out.println();
+    }
+
     private static void printUsage() {
         System.out.println("Usage:");
         System.out.println("  MetadataReaderApp <jdbcUrl> <modelFile> <modelName> [schema] [options]");
@@ -112,6 +279,14 @@ public class MetadataReaderApp {
         System.out.println("Options:");
         System.out.println("  --model-file <file>               - Explicit model file path (overrides positional model file)");
         System.out.println("  --model-repos <r1;r2>             - Repository list (e.g., https://models.interlis.ch/;file:/repo)");
+        System.out.println("  --include-classes <p1;p2>         - Only read/generate matching classes or topics (e.g., Model.Topic.*)");
+        System.out.println("  --exclude-classes <p1;p2>         - Skip matching classes or topics");
+        System.out.println("  --schemas <s1;s2>                 - Batch mode: read several schemas (patterns with * allowed)");
+        System.out.println("  --parallel <n>                    - Concurrent schema reads in batch mode (default: 4)");
+        System.out.println("  --diff-schema <schema>            - Compare with the model version in another schema; generate only changed classes");
+        System.out.println("  --diff-against <file>             - Compare with a metamodel written by --metamodel-out");
+        System.out.println("  --diff-output <file>              - Write the change set of --diff-schema/--diff-against as JSON");
+        System.out.println("  --metamodel-out <file>            - Write the merged metamodel (binary, or JSON for *.json)");
         System.out.println("  --grails-output <dir>             - Output directory for Grails CRUD artifacts");
         System.out.println("  --grails-init [appName]           - Initialize a Grails app in the output directory");
         System.out.println("  --grails-version <x.y>            - Grails version for --grails-init");
@@ -120,6 +295,15 @@ public class MetadataReaderApp {
         System.out.println("  --grails-controller-package <package> - Package for controllers (default: <base>)");
         System.out.println("  --grails-enum-package <package>   - Package for enums (default: <base>.enums)");
         System.out.println("  --grails-generate-all             - Run ./grailsw generate-all for each domain (requires --grails-init)");
+        System.out.println("  --grails-batch-size <n>           - Hibernate batch size for lazy associations (default: "
+            + GenerationConfig.DEFAULT_ASSOCIATION_BATCH_SIZE + ", 0 = off)");
+        System.out.println("  --grails-profile <name>           - Performance settings in application.yml: standard (default), bulk, none");
+        System.out.println("  --grails-child-counts             - Show child counts on detail pages from materialized views");
+        System.out.println("  --grails-metrics                  - Add Micrometer timers and Hibernate statistics to the app");
+        System.out.println("  --grails-prometheus               - Like --grails-metrics, and expose /actuator/prometheus");
+        System.out.println("  --grails-no-full-text-search      - Do not generate the full-text search action and GIN indexes");
+        System.out.println("  --grails-no-xtf-export            - Do not generate the XTF export (no ili2c/iox-ili dependencies)");
+        System.out.println("  --grails-no-load-test             - Do not generate loadtest/LoadTest.java");
         System.out.println();
         System.out.println("Examples:");
         System.out.println("  PostgreSQL:");
@@ -134,6 +318,11 @@ public class MetadataReaderApp {
         System.out.println("    MetadataReaderApp \"jdbc:postgresql://localhost:5432/mydb?user=u&password=p\" \\");
         System.out.println("                      models/Simple.ili SimpleModel public \\");
         System.out.println("      --grails-output ./generated-grails --grails-package com.example");
+        System.out.println();
+        System.out.println("  Batch mode (one output per schema in <grails-output>/<schema>):");
+        System.out.println("    MetadataReaderApp \"jdbc:postgresql://localhost:5432/mydb?user=u&password=p\" \\");
+        System.out.println("                      models/Simple.ili SimpleModel --schemas \"gemeinde_*\" \\");
+        System.out.println("      --grails-output ./generated-grails");
     }
     
     private static List<String> getDefaultModelDirs() {
@@ -143,9 +332,12 @@ public class MetadataReaderApp {
         );
     }
 
-    private static void generateGrailsCrud(ModelMetadata metadata, CliOptions options)
+    private static void generateGrailsCrud(ModelMetadata metadata, CliOptions options,
+                                           String schema, Path grailsOutputDir,
+                                           ClassSelection regeneratedClasses,
+                                           Collection<String> removedClasses)
         throws IOException, InterruptedException {
-        Path outputDir = Objects.requireNonNull(options.grailsOutputDir, "grailsOutputDir");
+        Path outputDir = Objects.requireNonNull(grailsOutputDir, "grailsOutputDir");
         Path grailsProjectDir = outputDir;
         if (options.grailsInitRequested) {
             grailsProjectDir = scaffoldGrailsProjectIfNeeded(options, outputDir);
@@ -154,7 +346,20 @@ public class MetadataReaderApp {
         String basePackage = options.grailsBasePackage != null ? options.grailsBasePackage : "com.example";
         GenerationConfig.Builder builder = GenerationConfig.builder(grailsProjectDir, basePackage);
         builder.jdbcUrl(options.jdbcUrl);
-        builder.schema(options.schema);
+        builder.schema(schema);
+        builder.classSelection(options.classSelection);
+        // Gesamtartefakte (XTF-Export, SQL-Skripte, Cache, Metriken) immer über die ganze Auswahl
+        builder.regeneratedClasses(regeneratedClasses);
+        builder.associationBatchSize(options.grailsBatchSize);
+        builder.performanceProfile(options.grailsProfile);
+        // generate-all erzeugt eigene Controller und Views
+        builder.controllersAndViews(!options.grailsGenerateAll);
+        builder.childCounts(options.grailsChildCounts);
+        builder.metrics(options.grailsMetrics || options.grailsPrometheus);
+        builder.prometheusEndpoint(options.grailsPrometheus);
+        builder.fullTextSearch(!options.grailsNoFullTextSearch);
+        builder.xtfExport(!options.grailsNoXtfExport);
+        builder.loadTest(!options.grailsNoLoadTest);
         if (options.grailsDomainPackage != null) {
             builder.domainPackage(options.grailsDomainPackage);
         }
@@ -165,9 +370,16 @@ public class MetadataReaderApp {
             builder.enumPackage(options.grailsEnumPackage);
         }
         GenerationConfig config = builder.build();
-        new GrailsCrudGenerator().generate(metadata, config);
-        if (options.grailsGenerateAll) {
-            runGrailsGenerateAll(metadata, config, grailsProjectDir);
+        GrailsCrudGenerator generator = new GrailsCrudGenerator();
+        // ohne Auswahl sind nur entfernte Klassen zu bereinigen
+        if (regeneratedClasses != null) {
+            generator.generate(metadata, config);
+            if (options.grailsGenerateAll) {
+                runGrailsGenerateAll(metadata, config, grailsProjectDir);
+            }
+        }
+        for (Path removed : generator.removeArtifacts(removedClasses, metadata, config)) {
+            System.out.println("Removed artifact of deleted class: " + removed);
         }
         System.out.println();
         System.out.println("===================================================");
@@ -178,6 +390,8 @@ public class MetadataReaderApp {
         List<String> positional = new ArrayList<>();
         CliOptions cliOptions = new CliOptions();
         cliOptions.modelRepositories = new ArrayList<>();
+        List<String> includeClasses = new ArrayList<>();
+        List<String> excludeClasses = new ArrayList<>();
 
         for (int i = 0; i < args.length; i++) {
             String arg = args[i];
@@ -213,6 +427,70 @@ public class MetadataReaderApp {
                     }
                     cliOptions.modelRepositories.addAll(splitRepositories(repoValue));
                     break;
+                case "--include-classes":
+                    String includeValue = readOptionValue(args, arg, ++i);
+                    if (includeValue == null) {
+                        return null;
+                    }
+                    includeClasses.add(includeValue);
+                    break;
+                case "--exclude-classes":
+                    String excludeValue = readOptionValue(args, arg, ++i);
+                    if (excludeValue == null) {
+                        return null;
+                    }
+                    excludeClasses.add(excludeValue);
+                    break;
+                case "--schemas":
+                    String schemasValue = readOptionValue(args, arg, ++i);
+                    if (schemasValue == null) {
+                        return null;
+                    }
+                    cliOptions.batchSchemas.addAll(splitRepositories(schemasValue));
+                    break;
+                case "--parallel":
+                    String parallelValue = readOptionValue(args, arg, ++i);
+                    if (parallelValue == null) {
+                        return null;
+                    }
+                    try {
+                        cliOptions.parallelism = Integer.parseInt(parallelValue);
+                    } catch (NumberFormatException e) {
+                        cliOptions.parallelism = 0;
+                    }
+                    if (cliOptions.parallelism < 1) {
+                        System.err.println("Option --parallel requires a positive number.");
+                        printUsage();
+                        return null;
+                    }
+                    break;
+                case "--diff-schema":
+                    cliOptions.diffSchema = readOptionValue(args, arg, ++i);
+                    if (cliOptions.diffSchema == null) {
+                        return null;
+                    }
+                    break;
+                case "--diff-against":
+                    String diffAgainstValue = readOptionValue(args, arg, ++i);
+                    if (diffAgainstValue == null) {
+                        return null;
+                    }
+                    cliOptions.diffAgainst = Path.of(diffAgainstValue);
+                    break;
+                case "--metamodel-out":
+                    String metamodelValue = readOptionValue(args, arg, ++i);
+                    if (metamodelValue == null) {
+                        return null;
+                    }
+                    cliOptions.metamodelOut = Path.of(metamodelValue);
+                    break;
+                case "--diff-output":
+                    String diffOutputValue = readOptionValue(args, arg, ++i);
+                    if (diffOutputValue == null) {
+                        return null;
+                    }
+                    cliOptions.diffOutput = Path.of(diffOutputValue);
+                    break;
                 case "--grails-version":
                     String versionValue = readOptionValue(args, arg, ++i);
                     if (versionValue == null) {
@@ -247,6 +525,53 @@ public class MetadataReaderApp {
                 case "--grails-generate-all":
                     cliOptions.grailsGenerateAll = true;
                     break;
+                case "--grails-child-counts":
+                    cliOptions.grailsChildCounts = true;
+                    break;
+                case "--grails-metrics":
+                    cliOptions.grailsMetrics = true;
+                    break;
+                case "--grails-prometheus":
+                    cliOptions.grailsPrometheus = true;
+                    break;
+                case "--grails-no-full-text-search":
+                    cliOptions.grailsNoFullTextSearch = true;
+                    break;
+                case "--grails-no-xtf-export":
+                    cliOptions.grailsNoXtfExport = true;
+                    break;
+                case "--grails-no-load-test":
+                    cliOptions.grailsNoLoadTest = true;
+                    break;
+                case "--grails-profile":
+                    String profileValue = readOptionValue(args, arg, ++i);
+                    if (profileValue == null) {
+                        return null;
+                    }
+                    try {
+                        cliOptions.grailsProfile = PerformanceProfile.fromName(profileValue);
+                    } catch (IllegalArgumentException e) {
+                        System.err.println(e.getMessage());
+                        printUsage();
+                        return null;
+                    }
+                    break;
+                case "--grails-batch-size":
+                    String batchSizeValue = readOptionValue(args, arg, ++i);
+                    if (batchSizeValue == null) {
+                        return null;
+                    }
+                    try {
+                        cliOptions.grailsBatchSize = Integer.parseInt(batchSizeValue);
+                    } catch (NumberFormatException e) {
+                        cliOptions.grailsBatchSize = -1;
+                    }
+                    if (cliOptions.grailsBatchSize < 0) {
+                        System.err.println("Option --grails-batch-size requires a non-negative number.");
+                        printUsage();
+                        return null;
+                    }
+                    break;
                 default:
                     System.err.println("Unknown option: " + arg);
                     printUsage();
@@ -259,6 +584,10 @@ public class MetadataReaderApp {
             return null;
         }
 
+        cliOptions.classSelection = ClassSelection.parse(
+            String.join(";", includeClasses),
+            String.join(";", excludeClasses)
+        );
         cliOptions.jdbcUrl = positional.get(0);
         if (cliOptions.modelFilePath != null) {
             if (positional.size() < 2 || positional.size() > 3) {
@@ -300,6 +629,32 @@ public class MetadataReaderApp {
             printUsage();
             return null;
         }
+        if (!cliOptions.batchSchemas.isEmpty() && cliOptions.schema != null) {
+            System.err.println("Option --schemas cannot be combined with a positional schema.");
+            printUsage();
+            return null;
+        }
+        if (!cliOptions.batchSchemas.isEmpty() && cliOptions.grailsInitRequested) {
+            System.err.println("Option --grails-init is not supported in batch mode (--schemas).");
+            printUsage();
+            return null;
+        }
+        boolean diffRequested = cliOptions.diffSchema != null || cliOptions.diffAgainst != null;
+        if ((diffRequested || cliOptions.metamodelOut != null) && !cliOptions.batchSchemas.isEmpty()) {
+            System.err.println("Options --diff-schema, --diff-against and --metamodel-out are not supported in batch mode (--schemas).");
+            printUsage();
+            return null;
+        }
+        if (cliOptions.diffSchema != null && cliOptions.diffAgainst != null) {
+            System.err.println("Use either --diff-schema or --diff-against.");
+            printUsage();
+            return null;
+        }
+        if (cliOptions.diffOutput != null && !diffRequested) {
+            System.err.println("Option --diff-output requires --diff-schema or --diff-against.");
+            printUsage();
+            return null;
+        }
         if (cliOptions.grailsInitRequested && cliOptions.grailsOutputDir == null) {
             System.err.println("Option --grails-init requires --grails-output.");
             printUsage();
@@ -418,6 +773,8 @@ public class MetadataReaderApp {
         }
         List<String> domainClasses = metadata.getAllClasses().stream()
             .filter(classMetadata -> !classMetadata.isAbstract())
+            .filter(classMetadata -> metadata.getInheritanceIndex().hasOwnTable(classMetadata))
+            .filter(classMetadata -> config.isRegenerated(classMetadata.getName()))
             .map(classMetadata -> config.getDomainPackage() + "." + classMetadata.getSimpleName())
             .sorted()
             .toList();
@@ -451,6 +808,13 @@ public class MetadataReaderApp {
         private String modelName;
         private String schema;
         private List<String> modelRepositories;
+        private ClassSelection classSelection = ClassSelection.all();
+        private final List<String> batchSchemas = new ArrayList<>();
+        private int parallelism = 4;
+        private String diffSchema;
+        private Path diffOutput;
+        private Path diffAgainst;
+        private Path metamodelOut;
         private Path grailsOutputDir;
         private boolean grailsInitRequested;
         private String grailsInitAppName;
@@ -460,6 +824,14 @@ public class MetadataReaderApp {
         private String grailsControllerPackage;
         private String grailsEnumPackage;
         private boolean grailsGenerateAll;
+        private boolean grailsChildCounts;
+        private boolean grailsMetrics;
+        private boolean grailsPrometheus;
+        private boolean grailsNoFullTextSearch;
+        private boolean grailsNoXtfExport;
+        private boolean grailsNoLoadTest;
+        private int grailsBatchSize = GenerationConfig.DEFAULT_ASSOCIATION_BATCH_SIZE;
+        private PerformanceProfile grailsProfile = PerformanceProfile.STANDARD;
     }
 
     private static String formatSchema(String schema) {
@@ -469,6 +841,20 @@ public class MetadataReaderApp {
         return schema;
     }
 
+    private static String formatSelection(ClassSelection selection) {
+        StringBuilder sb = new StringBuilder();
+        if (selection.hasIncludes()) {
+            sb.append("include ").append(String.join(", ", selection.getIncludes()));
+        }
+        if (!selection.getExcludes().isEmpty()) {
+            if (sb.length() > 0) {
+                sb.append("; ");
+            }
+            sb.append("exclude ").append(String.join(", ", selection.getExcludes()));
+        }
+        return sb.toString();
+    }
+
     private static boolean looksLikeModelFile(String value) {
         if (value == null || value.isBlank()) {
             return false;
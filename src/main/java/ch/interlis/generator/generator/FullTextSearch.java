@@ -0,0 +1,84 @@
+package ch.interlis.generator.generator;
+
+import ch.interlis.generator.model.AttributeMetadata;
+import ch.interlis.generator.model.ClassMetadata;
+import ch.interlis.generator.model.InheritanceIndex;
+import ch.interlis.generator.model.ModelMetadata;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Auswahl der Attribute für die Volltextsuche und der {@code tsvector}-Ausdruck darüber.
+ *
+ * Durchsucht werden TEXT- und MTEXT-Attribute ohne Aufzählung; sehr kurze Texte (Codes,
+ * Kürzel) bleiben aussen vor. Kurze Texte (Namen, Bezeichnungen) werden höher gewichtet als
+ * lange. Der GIN-Index in {@code indexes.sql} und die Abfrage des {@code FullTextSearchService}
+ * verwenden denselben Ausdruck, damit PostgreSQL den Index nutzt.
+ */
+final class FullTextSearch {
+
+    /**
+     * Texte mit kleinerer Maximallänge werden nicht durchsucht.
+     */
+    static final int MIN_SEARCH_LENGTH = 20;
+
+    private static final Set<String> TEXT_TYPES = Set.of("TEXT", "MTEXT", "TEXTTYPE");
+
+    private FullTextSearch() {
+    }
+
+    /**
+     * Klassen mit durchsuchbaren Attributen erhalten eine {@code search}-Action und benötigen
+     * den FullTextSearchService.
+     */
+    static boolean hasSearchableClasses(ModelMetadata metadata, GenerationConfig config) {
+        if (!config.isFullTextSearch()) {
+            return false;
+        }
+        InheritanceIndex inheritance = metadata.getInheritanceIndex();
+        return metadata.getAllClasses().stream()
+            .anyMatch(classMetadata -> !classMetadata.isAbstract()
+                && inheritance.hasOwnTable(classMetadata)
+                && config.getClassSelection().matches(classMetadata.getName())
+                && !searchableAttributes(classMetadata).isEmpty());
+    }
+
+    static List<AttributeMetadata> searchableAttributes(ClassMetadata classMetadata) {
+        List<AttributeMetadata> attributes = new ArrayList<>();
+        for (AttributeMetadata attr : classMetadata.getNonGeometryAttributes()) {
+            if (isSearchable(attr)) {
+                attributes.add(attr);
+            }
+        }
+        return attributes;
+    }
+
+    static boolean isSearchable(AttributeMetadata attr) {
+        if (attr.isPrimaryKey() || attr.isForeignKey() || attr.getEnumType() != null || attr.getIliType() == null
+            || !TEXT_TYPES.contains(attr.getIliType().toUpperCase(Locale.ROOT))) {
+            return false;
+        }
+        Integer maxLength = attr.getMaxLength();
+        return maxLength == null || maxLength >= MIN_SEARCH_LENGTH;
+    }
+
+    /**
+     * {@code setweight(to_tsvector(...), 'A') || ...}: Gewicht A für kurze, B für lange Texte.
+     */
+    static String document(List<AttributeMetadata> attributes, GenerationConfig config) {
+        StringBuilder sb = new StringBuilder();
+        for (AttributeMetadata attr : attributes) {
+            if (sb.length() > 0) {
+                sb.append(" || ");
+            }
+            // Explizite regconfig: to_tsvector ist dann IMMUTABLE und indexierbar
+            sb.append("setweight(to_tsvector('").append(config.getTextSearchConfig())
+                .append("'::regconfig, coalesce(").append(NameUtils.columnName(attr)).append(", '')), '")
+                .append(ListColumns.isLongText(attr) || attr.getMaxLength() == null ? 'B' : 'A').append("')");
+        }
+        return sb.toString();
+    }
+}
@@ -1,6 +1,12 @@
 package ch.interlis.generator.generator;
 
+import ch.interlis.generator.model.ClassSelection;
+
 import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 /**
@@ -8,6 +14,21 @@ import java.util.Objects;
  */
 public class GenerationConfig {
 
+    public static final int DEFAULT_ASSOCIATION_BATCH_SIZE = 25;
+    public static final int DEFAULT_PAGE_SIZE = 25;
+    public static final int DEFAULT_MAX_PAGE_SIZE = 100;
+    public static final long DEFAULT_EXACT_COUNT_THRESHOLD = 100_000L;
+    public static final int DEFAULT_LIST_COLUMN_BUDGET = 8;
+    public static final int DEFAULT_CACHE_REGION_SIZE = 1000;
+    public static final int DEFAULT_MAX_FEATURES = 5000;
+    public static final String DEFAULT_TEXT_SEARCH_CONFIG = "simple";
+    public static final int DEFAULT_CHILD_COUNT_REFRESH_SECONDS = 300;
+    public static final int DEFAULT_TYPEAHEAD_THRESHOLD = 500;
+    /**
+     * Environments, für die ohne weitere Angabe das Standard-Profil geschrieben wird.
+     */
+    public static final List<String> DEFAULT_ENVIRONMENTS = List.of("development", "production");
+
     private final Path outputDir;
     private final String basePackage;
     private final String domainPackage;
@@ -15,6 +36,33 @@ public class GenerationConfig {
     private final String enumPackage;
     private final String jdbcUrl;
     private final String schema;
+    private final ClassSelection classSelection;
+    private final ClassSelection regeneratedClasses;
+    private final int associationBatchSize;
+    private final boolean joinFetchMandatoryReferences;
+    private final boolean lazyCollections;
+    private final boolean controllersAndViews;
+    private final boolean restApi;
+    private final boolean xtfExport;
+    private final boolean conditionalRequests;
+    private final boolean fullTextSearch;
+    private final boolean metrics;
+    private final boolean prometheusEndpoint;
+    private final boolean loadTest;
+    private final boolean childCounts;
+    private final int childCountRefreshSeconds;
+    private final int typeaheadThreshold;
+    private final String textSearchConfig;
+    private final int pageSize;
+    private final int maxPageSize;
+    private final long exactCountThreshold;
+    private final int listColumnBudget;
+    private final boolean cacheCatalogues;
+    private final ClassSelection cachedClasses;
+    private final boolean readOnlyCache;
+    private final int cacheRegionSize;
+    private final Map<String, PerformanceProfile> performanceProfiles;
+    private final int maxFeatures;
 
     private GenerationConfig(Builder builder) {
         this.outputDir = builder.outputDir;
@@ -24,6 +72,33 @@ public class GenerationConfig {
         this.enumPackage = builder.enumPackage;
         this.jdbcUrl = builder.jdbcUrl;
         this.schema = builder.schema;
+        this.classSelection = builder.classSelection;
+        this.regeneratedClasses = builder.regeneratedClasses;
+        this.associationBatchSize = builder.associationBatchSize;
+        this.joinFetchMandatoryReferences = builder.joinFetchMandatoryReferences;
+        this.lazyCollections = builder.lazyCollections;
+        this.controllersAndViews = builder.controllersAndViews;
+        this.restApi = builder.restApi;
+        this.xtfExport = builder.xtfExport;
+        this.conditionalRequests = builder.conditionalRequests;
+        this.fullTextSearch = builder.fullTextSearch;
+        this.metrics = builder.metrics;
+        this.prometheusEndpoint = builder.prometheusEndpoint;
+        this.loadTest = builder.loadTest;
+        this.childCounts = builder.childCounts;
+        this.childCountRefreshSeconds = builder.childCountRefreshSeconds;
+        this.typeaheadThreshold = builder.typeaheadThreshold;
+        this.textSearchConfig = builder.textSearchConfig;
+        this.pageSize = builder.pageSize;
+        this.maxPageSize = builder.maxPageSize;
+        this.exactCountThreshold = builder.exactCountThreshold;
+        this.listColumnBudget = builder.listColumnBudget;
+        this.cacheCatalogues = builder.cacheCatalogues;
+        this.cachedClasses = builder.cachedClasses;
+        this.readOnlyCache = builder.readOnlyCache;
+        this.cacheRegionSize = builder.cacheRegionSize;
+        this.performanceProfiles = Collections.unmodifiableMap(new LinkedHashMap<>(builder.performanceProfiles));
+        this.maxFeatures = builder.maxFeatures;
     }
 
     public Path getOutputDir() {
@@ -54,6 +129,211 @@ public class GenerationConfig {
         return schema;
     }
 
+    public ClassSelection getClassSelection() {
+        return classSelection;
+    }
+
+    /**
+     * Klassen, deren eigene Artefakte (Domain, Controller, Views, REST-Controller, Enums) neu
+     * geschrieben werden, z. B. nach einem Schemavergleich nur die geänderten. Gesamtartefakte
+     * (XTF-Export, SQL-Skripte, Cache-Konfiguration, Metriken, Lasttest) umfassen immer die ganze
+     * {@link #getClassSelection() Klassenauswahl}.
+     */
+    public ClassSelection getRegeneratedClasses() {
+        return regeneratedClasses;
+    }
+
+    /**
+     * Ob die Artefakte der Klasse in diesem Lauf geschrieben werden.
+     */
+    public boolean isRegenerated(String className) {
+        return classSelection.matches(className) && regeneratedClasses.matches(className);
+    }
+
+    /**
+     * Anzahl Proxies bzw. Collections, die Hibernate pro Abfrage gemeinsam nachlädt
+     * ({@code batchSize} im Mapping); 0 deaktiviert Batch-Fetching.
+     */
+    public int getAssociationBatchSize() {
+        return associationBatchSize;
+    }
+
+    /**
+     * Obligatorische To-one-Referenzen per Join mitladen ({@code fetch: 'join'}).
+     */
+    public boolean isJoinFetchMandatoryReferences() {
+        return joinFetchMandatoryReferences;
+    }
+
+    /**
+     * {@code hasMany}-Collections explizit lazy mappen.
+     */
+    public boolean isLazyCollections() {
+        return lazyCollections;
+    }
+
+    /**
+     * Controller und Views selbst generieren (sonst z. B. per {@code grails generate-all}).
+     */
+    public boolean isControllersAndViews() {
+        return controllersAndViews;
+    }
+
+    /**
+     * JSON-REST-Controller ({@code <Klasse>ApiController}) mit gestreamten Collections generieren.
+     */
+    public boolean isRestApi() {
+        return restApi;
+    }
+
+    /**
+     * XTF-Export (Service und Controller, benötigt ili2c und iox-ili in der Grails-App) generieren.
+     */
+    public boolean isXtfExport() {
+        return xtfExport;
+    }
+
+    /**
+     * Listen und Detailseiten mit ETag/Last-Modified ausliefern und mit 304 beantworten,
+     * solange sich die Tabelle nicht geändert hat.
+     */
+    public boolean isConditionalRequests() {
+        return conditionalRequests;
+    }
+
+    /**
+     * Volltextsuche (GIN-Index und {@code search}-Action) für Klassen mit TEXT/MTEXT-Attributen.
+     */
+    public boolean isFullTextSearch() {
+        return fullTextSearch;
+    }
+
+    /**
+     * Micrometer-Timer für Controller-Actions und Services sowie Hibernate-Statistiken in der
+     * generierten App (Default: aus).
+     */
+    public boolean isMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Metriken über den ungeschützten Endpoint {@code /actuator/prometheus} exponieren
+     * (nur mit {@link #isMetrics()}, Default: aus).
+     */
+    public boolean isPrometheusEndpoint() {
+        return prometheusEndpoint;
+    }
+
+    /**
+     * Lasttest ({@code loadtest/LoadTest.java}) für die generierten Controller schreiben.
+     */
+    public boolean isLoadTest() {
+        return loadTest;
+    }
+
+    /**
+     * Anzahl Kind-Objekte auf den Detailseiten aus Materialized Views
+     * ({@code db/ili2grails/child_counts.sql}) statt aus den Kind-Tabellen (Default: aus).
+     */
+    public boolean isChildCounts() {
+        return childCounts;
+    }
+
+    /**
+     * Abstand zwischen zwei Aktualisierungen der Materialized Views (Default; zur Laufzeit
+     * über {@code ili2grails.child-counts.refresh-millis} änderbar).
+     */
+    public int getChildCountRefreshSeconds() {
+        return childCountRefreshSeconds;
+    }
+
+    /**
+     * Referenzen auf Klassen mit mehr (geschätzten) Zeilen erhalten in Formularen ein
+     * Typeahead-Feld über die {@code lookup}-Action statt einer Auswahlliste.
+     */
+    public int getTypeaheadThreshold() {
+        return typeaheadThreshold;
+    }
+
+    /**
+     * PostgreSQL-Textsuchkonfiguration für {@code to_tsvector}; {@code simple} ohne Stemming
+     * passt für mehrsprachige Daten und Eigennamen.
+     */
+    public String getTextSearchConfig() {
+        return textSearchConfig;
+    }
+
+    /**
+     * Standard-Seitengrösse der generierten Listen.
+     */
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Obergrenze für den {@code max}-Parameter der generierten Listen.
+     */
+    public int getMaxPageSize() {
+        return maxPageSize;
+    }
+
+    /**
+     * Ab dieser geschätzten Zeilenzahl zeigen Listen eine Schätzung statt {@code count(*)}.
+     */
+    public long getExactCountThreshold() {
+        return exactCountThreshold;
+    }
+
+    /**
+     * Höchstzahl der Attribute, die Listen anzeigen und dafür aus der Datenbank laden.
+     */
+    public int getListColumnBudget() {
+        return listColumnBudget;
+    }
+
+    /**
+     * Katalog-Klassen (CatalogueObjects_V1.Catalogues.Item) im Second-Level-Cache halten.
+     */
+    public boolean isCacheCatalogues() {
+        return cacheCatalogues;
+    }
+
+    /**
+     * Zusätzlich gecachte Klassen oder {@code null}.
+     */
+    public ClassSelection getCachedClasses() {
+        return cachedClasses;
+    }
+
+    /**
+     * Gecachte Klassen werden von der Anwendung nicht geändert ({@code read-only} statt
+     * {@code nonstrict-read-write}).
+     */
+    public boolean isReadOnlyCache() {
+        return readOnlyCache;
+    }
+
+    /**
+     * Maximale Anzahl Einträge pro Cache-Region.
+     */
+    public int getCacheRegionSize() {
+        return cacheRegionSize;
+    }
+
+    /**
+     * Performance-Profil pro Grails-Environment (z. B. {@code development}).
+     */
+    public Map<String, PerformanceProfile> getPerformanceProfiles() {
+        return performanceProfiles;
+    }
+
+    /**
+     * Höchstzahl der Objekte, die eine Bounding-Box-Abfrage als GeoJSON liefert.
+     */
+    public int getMaxFeatures() {
+        return maxFeatures;
+    }
+
     public static Builder builder(Path outputDir, String basePackage) {
         return new Builder(outputDir, basePackage);
     }
@@ -66,6 +346,33 @@ public class GenerationConfig {
         private String enumPackage;
         private String jdbcUrl;
         private String schema;
+        private ClassSelection classSelection = ClassSelection.all();
+        private ClassSelection regeneratedClasses = ClassSelection.all();
+        private int associationBatchSize = DEFAULT_ASSOCIATION_BATCH_SIZE;
+        private boolean joinFetchMandatoryReferences = true;
+        private boolean lazyCollections = true;
+        private boolean controllersAndViews = true;
+        private boolean restApi = true;
+        private boolean xtfExport = true;
+        private boolean conditionalRequests = true;
+        private boolean fullTextSearch = true;
+        private boolean metrics;
+        private boolean prometheusEndpoint;
+        private boolean loadTest = true;
+        private boolean childCounts;
+        private int childCountRefreshSeconds = DEFAULT_CHILD_COUNT_REFRESH_SECONDS;
+        private int typeaheadThreshold = DEFAULT_TYPEAHEAD_THRESHOLD;
+        private String textSearchConfig = DEFAULT_TEXT_SEARCH_CONFIG;
+        private int pageSize = DEFAULT_PAGE_SIZE;
+        private int maxPageSize = DEFAULT_MAX_PAGE_SIZE;
+        private long exactCountThreshold = DEFAULT_EXACT_COUNT_THRESHOLD;
+        private int listColumnBudget = DEFAULT_LIST_COLUMN_BUDGET;
+        private boolean cacheCatalogues = true;
+        private ClassSelection cachedClasses;
+        private boolean readOnlyCache;
+        private int cacheRegionSize = DEFAULT_CACHE_REGION_SIZE;
+        private int maxFeatures = DEFAULT_MAX_FEATURES;
+        private final Map<String, PerformanceProfile> performanceProfiles = new LinkedHashMap<>();
 
         public Builder(Path outputDir, String basePackage) {
             this.outputDir = Objects.requireNonNull(outputDir, "outputDir");
@@ -73,6 +380,7 @@ public class GenerationConfig {
             this.domainPackage = basePackage;
             this.controllerPackage = basePackage;
             this.enumPackage = basePackage + ".enums";
+            performanceProfile(PerformanceProfile.STANDARD);
         }
 
         public Builder jdbcUrl(String jdbcUrl) {
@@ -100,7 +408,189 @@ public class GenerationConfig {
             return this;
         }
 
+        public Builder classSelection(ClassSelection classSelection) {
+            this.classSelection = classSelection != null ? classSelection : ClassSelection.all();
+            return this;
+        }
+
+        public Builder regeneratedClasses(ClassSelection regeneratedClasses) {
+            this.regeneratedClasses = regeneratedClasses != null ? regeneratedClasses : ClassSelection.all();
+            return this;
+        }
+
+        public Builder associationBatchSize(int associationBatchSize) {
+            if (associationBatchSize < 0) {
+                throw new IllegalArgumentException("associationBatchSize must not be negative");
+            }
+            this.associationBatchSize = associationBatchSize;
+            return this;
+        }
+
+        public Builder joinFetchMandatoryReferences(boolean joinFetchMandatoryReferences) {
+            this.joinFetchMandatoryReferences = joinFetchMandatoryReferences;
+            return this;
+        }
+
+        public Builder lazyCollections(boolean lazyCollections) {
+            this.lazyCollections = lazyCollections;
+            return this;
+        }
+
+        public Builder controllersAndViews(boolean controllersAndViews) {
+            this.controllersAndViews = controllersAndViews;
+            return this;
+        }
+
+        public Builder restApi(boolean restApi) {
+            this.restApi = restApi;
+            return this;
+        }
+
+        public Builder xtfExport(boolean xtfExport) {
+            this.xtfExport = xtfExport;
+            return this;
+        }
+
+        public Builder conditionalRequests(boolean conditionalRequests) {
+            this.conditionalRequests = conditionalRequests;
+            return this;
+        }
+
+        public Builder fullTextSearch(boolean fullTextSearch) {
+            this.fullTextSearch = fullTextSearch;
+            return this;
+        }
+
+        public Builder metrics(boolean metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        public Builder prometheusEndpoint(boolean prometheusEndpoint) {
+            this.prometheusEndpoint = prometheusEndpoint;
+            return this;
+        }
+
+        public Builder loadTest(boolean loadTest) {
+            this.loadTest = loadTest;
+            return this;
+        }
+
+        public Builder childCounts(boolean childCounts) {
+            this.childCounts = childCounts;
+            return this;
+        }
+
+        public Builder childCountRefreshSeconds(int childCountRefreshSeconds) {
+            if (childCountRefreshSeconds < 1) {
+                throw new IllegalArgumentException("childCountRefreshSeconds must be positive");
+            }
+            this.childCountRefreshSeconds = childCountRefreshSeconds;
+            return this;
+        }
+
+        public Builder typeaheadThreshold(int typeaheadThreshold) {
+            if (typeaheadThreshold < 0) {
+                throw new IllegalArgumentException("typeaheadThreshold must not be negative");
+            }
+            this.typeaheadThreshold = typeaheadThreshold;
+            return this;
+        }
+
+        public Builder textSearchConfig(String textSearchConfig) {
+            if (textSearchConfig == null || !textSearchConfig.matches("[a-z_][a-z0-9_]*")) {
+                throw new IllegalArgumentException("textSearchConfig must be a lower-case identifier: "
+                    + textSearchConfig);
+            }
+            this.textSearchConfig = textSearchConfig;
+            return this;
+        }
+
+        public Builder pageSize(int pageSize) {
+            if (pageSize < 1) {
+                throw new IllegalArgumentException("pageSize must be positive");
+            }
+            this.pageSize = pageSize;
+            return this;
+        }
+
+        public Builder maxPageSize(int maxPageSize) {
+            if (maxPageSize < 1) {
+                throw new IllegalArgumentException("maxPageSize must be positive");
+            }
+            this.maxPageSize = maxPageSize;
+            return this;
+        }
+
+        public Builder exactCountThreshold(long exactCountThreshold) {
+            if (exactCountThreshold < 0) {
+                throw new IllegalArgumentException("exactCountThreshold must not be negative");
+            }
+            this.exactCountThreshold = exactCountThreshold;
+            return this;
+        }
+
+        public Builder listColumnBudget(int listColumnBudget) {
+            if (listColumnBudget < 0) {
+                throw new IllegalArgumentException("listColumnBudget must not be negative");
+            }
+            this.listColumnBudget = listColumnBudget;
+            return this;
+        }
+
+        public Builder cacheCatalogues(boolean cacheCatalogues) {
+            this.cacheCatalogues = cacheCatalogues;
+            return this;
+        }
+
+        public Builder cachedClasses(ClassSelection cachedClasses) {
+            this.cachedClasses = cachedClasses;
+            return this;
+        }
+
+        public Builder readOnlyCache(boolean readOnlyCache) {
+            this.readOnlyCache = readOnlyCache;
+            return this;
+        }
+
+        public Builder cacheRegionSize(int cacheRegionSize) {
+            if (cacheRegionSize < 1) {
+                throw new IllegalArgumentException("cacheRegionSize must be positive");
+            }
+            this.cacheRegionSize = cacheRegionSize;
+            return this;
+        }
+
+        public Builder maxFeatures(int maxFeatures) {
+            if (maxFeatures < 1) {
+                throw new IllegalArgumentException("maxFeatures must be positive");
+            }
+            this.maxFeatures = maxFeatures;
+            return this;
+        }
+
+        /**
+         * Setzt das Profil für alle {@link #DEFAULT_ENVIRONMENTS}.
+         */
+        public Builder performanceProfile(PerformanceProfile profile) {
+            Objects.requireNonNull(profile, "profile");
+            DEFAULT_ENVIRONMENTS.forEach(environment -> performanceProfiles.put(environment, profile));
+            return this;
+        }
+
+        public Builder performanceProfile(String environment, PerformanceProfile profile) {
+            performanceProfiles.put(Objects.requireNonNull(environment, "environment"),
+                Objects.requireNonNull(profile, "profile"));
+            return this;
+        }
+
         public GenerationConfig build() {
+            if (pageSize > maxPageSize) {
+                throw new IllegalArgumentException("pageSize must not exceed maxPageSize");
+            }
+            if (prometheusEndpoint && !metrics) {
+                throw new IllegalArgumentException("prometheusEndpoint requires metrics");
+            }
             return new GenerationConfig(this);
         }
     }
@@ -24,6 +24,11 @@ class GrailsApplicationYamlUpdater {
     );
     private static final String POSTGRES_DIALECT = "org.hibernate.dialect.PostgreSQLDialect";
     private static final String H2_DRIVER = "org.h2.Driver";
+    private static final String JCACHE_REGION_FACTORY = "jcache";
+    private static final String EHCACHE_PROVIDER = "org.ehcache.jsr107.EhcacheCachingProvider";
+    private static final String POSTGRES_URL_PREFIX = "jdbc:postgresql:";
+    private static final String PROMETHEUS_ENDPOINT = "prometheus";
+    private static final String METRICS_PREFIX = "ili2grails";
     void ensureDevelopmentDataSourceUrl(Path applicationYamlPath, String jdbcUrl, String schema) throws IOException {
         if (!Files.exists(applicationYamlPath)) {
             return;
@@ -39,6 +44,148 @@ class GrailsApplicationYamlUpdater {
         }
     }
 
+    /**
+     * Aktiviert Second-Level- und Query-Cache mit Ehcache (JCache) und der Regionskonfiguration
+     * aus {@code ehcache.xml}. {@code hibernate.cache.queries} bleibt {@code false}: nur Abfragen
+     * mit explizitem {@code cache true} (Katalog-Lookups) landen im Query-Cache.
+     */
+    void ensureSecondLevelCache(Path applicationYamlPath) throws IOException {
+        if (!Files.exists(applicationYamlPath)) {
+            return;
+        }
+        List<Object> documents = readDocuments(applicationYamlPath);
+        boolean changed = false;
+        for (Object document : documents) {
+            Map<String, Object> root = asMap(document);
+            if (root == null || asMap(root.get("hibernate")) == null) {
+                continue;
+            }
+            Map<String, Object> hibernate = asMap(root.get("hibernate"));
+            Map<String, Object> cache = childMap(hibernate, "cache");
+            changed |= putIfDifferent(cache, "use_second_level_cache", true);
+            changed |= putIfDifferent(cache, "use_query_cache", true);
+            changed |= putIfDifferent(cache, "queries", false);
+            changed |= putIfDifferent(childMap(cache, "region"), "factory_class", JCACHE_REGION_FACTORY);
+            Map<String, Object> jcache = childMap(childMap(hibernate, "javax"), "cache");
+            changed |= putIfDifferent(jcache, "provider", EHCACHE_PROVIDER);
+            changed |= putIfDifferent(jcache, "uri", "classpath:" + GrailsCacheConfigGenerator.CONFIG_FILE);
+            // Regionen ohne Eintrag in ehcache.xml mit Defaults anlegen statt beim Start abzubrechen
+            changed |= putIfDifferent(jcache, "missing_cache_strategy", "create");
+        }
+        if (changed) {
+            writeDocuments(applicationYamlPath, documents);
+        }
+    }
+
+    /**
+     * Schreibt pro Environment Batching-, Fetch- und Pool-Einstellungen des Profils; bei
+     * PostgreSQL zusätzlich {@code reWriteBatchedInserts} und Statement-Cache in die URL.
+     * Es werden nur bestehende Environments angepasst.
+     */
+    void ensurePerformanceSettings(Path applicationYamlPath, Map<String, PerformanceProfile> profiles)
+        throws IOException {
+        if (!Files.exists(applicationYamlPath)) {
+            return;
+        }
+        List<Object> documents = readDocuments(applicationYamlPath);
+        boolean changed = false;
+        for (Object document : documents) {
+            Map<String, Object> root = asMap(document);
+            Map<String, Object> environments = root != null ? asMap(root.get("environments")) : null;
+            if (environments == null) {
+                continue;
+            }
+            for (Map.Entry<String, PerformanceProfile> entry : profiles.entrySet()) {
+                Map<String, Object> environment = asMap(environments.get(entry.getKey()));
+                if (environment != null && entry.getValue() != PerformanceProfile.NONE) {
+                    changed |= applyProfile(environment, entry.getValue());
+                }
+            }
+        }
+        if (changed) {
+            writeDocuments(applicationYamlPath, documents);
+        }
+    }
+
+    /**
+     * Aktiviert die Hibernate-Statistiken und publiziert Histogramme für die Timer der
+     * generierten Controller und Services; den Prometheus-Endpoint nur mit {@code prometheus}.
+     */
+    void ensureMetricsSettings(Path applicationYamlPath, boolean prometheus) throws IOException {
+        if (!Files.exists(applicationYamlPath)) {
+            return;
+        }
+        List<Object> documents = readDocuments(applicationYamlPath);
+        boolean changed = false;
+        Map<String, Object> managementRoot = null;
+        for (Object document : documents) {
+            Map<String, Object> root = asMap(document);
+            if (root == null) {
+                continue;
+            }
+            if (asMap(root.get("hibernate")) != null) {
+                changed |= putIfDifferent(asMap(root.get("hibernate")), "generate_statistics", true);
+            }
+            if (managementRoot == null || root.containsKey("management")
+                || (!managementRoot.containsKey("management") && root.containsKey("grails"))) {
+                managementRoot = root;
+            }
+        }
+        if (managementRoot != null) {
+            Map<String, Object> management = childMap(managementRoot, "management");
+            if (prometheus) {
+                Map<String, Object> exposure = childMap(childMap(childMap(management, "endpoints"), "web"), "exposure");
+                Object include = exposure.get("include");
+                if (!(include instanceof String value) || !(value.contains("prometheus") || value.contains("*"))) {
+                    String merged = include instanceof String value && !value.isBlank()
+                        ? value + "," + PROMETHEUS_ENDPOINT
+                        : "health," + PROMETHEUS_ENDPOINT;
+                    changed |= putIfDifferent(exposure, "include", merged);
+                }
+                // Grails-Vorlagen deaktivieren Endpoints per Default (enabled-by-default: false)
+                changed |= putIfDifferent(childMap(childMap(management, "endpoint"), PROMETHEUS_ENDPOINT),
+                    "access", "read-only");
+            }
+            Map<String, Object> histograms = childMap(childMap(childMap(management, "metrics"), "distribution"),
+                "percentiles-histogram");
+            changed |= putIfDifferent(histograms, METRICS_PREFIX, true);
+        }
+        if (changed) {
+            writeDocuments(applicationYamlPath, documents);
+        }
+    }
+
+    private boolean applyProfile(Map<String, Object> environment, PerformanceProfile profile) {
+        boolean changed = false;
+        Map<String, Object> hibernate = childMap(environment, "hibernate");
+        // Inserts/Updates nach Entity sortieren, damit Hibernate sie zu Batches zusammenfassen kann
+        changed |= putIfDifferent(hibernate, "order_inserts", true);
+        changed |= putIfDifferent(hibernate, "order_updates", true);
+        Map<String, Object> jdbc = childMap(hibernate, "jdbc");
+        changed |= putIfDifferent(jdbc, "batch_size", profile.getBatchSize());
+        changed |= putIfDifferent(jdbc, "batch_versioned_data", true);
+        changed |= putIfDifferent(jdbc, "fetch_size", profile.getFetchSize());
+
+        Map<String, Object> dataSource = asMap(environment.get("dataSource"));
+        if (dataSource == null) {
+            return changed;
+        }
+        Map<String, Object> pool = childMap(dataSource, "properties");
+        changed |= putIfDifferent(pool, "maxActive", profile.getMaxPoolSize());
+        changed |= putIfDifferent(pool, "maxIdle", profile.getMaxPoolSize());
+        changed |= putIfDifferent(pool, "minIdle", profile.getMinIdle());
+        changed |= putIfDifferent(pool, "initialSize", profile.getMinIdle());
+
+        if (dataSource.get("url") instanceof String url && url.startsWith(POSTGRES_URL_PREFIX)) {
+            String tuned = appendUrlParameter(url, "reWriteBatchedInserts", "true");
+            tuned = appendUrlParameter(tuned, "preparedStatementCacheQueries",
+                String.valueOf(profile.getStatementCacheSize()));
+            tuned = appendUrlParameter(tuned, "defaultRowFetchSize", String.valueOf(profile.getFetchSize()));
+            changed |= putIfDifferent(dataSource, "url", tuned);
+        }
+        return changed;
+    }
+
     private List<Object> readDocuments(Path applicationYamlPath) throws IOException {
         List<Object> documents = new ArrayList<>();
         try (Reader reader = Files.newBufferedReader(applicationYamlPath, StandardCharsets.UTF_8)) {
@@ -162,11 +309,32 @@ class GrailsApplicationYamlUpdater {
         if (jdbcUrl == null || schema == null || schema.isBlank()) {
             return jdbcUrl;
         }
-        if (jdbcUrl.contains("currentSchema=")) {
+        return appendUrlParameter(jdbcUrl, "currentSchema", schema);
+    }
+
+    private String appendUrlParameter(String jdbcUrl, String name, String value) {
+        if (jdbcUrl.contains(name + "=")) {
             return jdbcUrl;
         }
         char separator = jdbcUrl.contains("?") ? '&' : '?';
-        return jdbcUrl + separator + "currentSchema=" + schema;
+        return jdbcUrl + separator + name + "=" + value;
+    }
+
+    private Map<String, Object> childMap(Map<String, Object> parent, String key) {
+        Map<String, Object> child = asMap(parent.get(key));
+        if (child == null) {
+            child = new java.util.LinkedHashMap<>();
+            parent.put(key, child);
+        }
+        return child;
+    }
+
+    private boolean putIfDifferent(Map<String, Object> map, String key, Object value) {
+        if (Objects.equals(value, map.get(key))) {
+            return false;
+        }
+        map.put(key, value);
+        return true;
     }
 
     @SuppressWarnings("unchecked")
@@ -11,6 +11,18 @@ class GrailsBuildGradleUpdater {
     private static final String JTS_DEPENDENCY = "implementation \"org.locationtech.jts:jts-core:1.19.0\"";
     private static final String POSTGRES_JDBC_DEPENDENCY =
         "implementation \"org.postgresql:postgresql:42.7.7\"";
+    // hibernate-jcache zieht sonst das javax-hibernate-core neben hibernate-core-jakarta ein
+    private static final String HIBERNATE_JCACHE_DEPENDENCY =
+        "implementation(\"org.hibernate:hibernate-jcache:5.6.15.Final\") { exclude group: \"org.hibernate\", module: \"hibernate-core\" }";
+    private static final String EHCACHE_DEPENDENCY = "implementation \"org.ehcache:ehcache:3.10.8:jakarta\"";
+    private static final String INTERLIS_REPOSITORY = "maven { url \"https://jars.interlis.ch/\" }";
+    private static final String ILI2C_DEPENDENCY = "implementation \"ch.interlis:ili2c-core:5.6.8\"";
+    private static final String IOX_ILI_DEPENDENCY = "implementation \"ch.interlis:iox-ili:1.24.4\"";
+    // Versionen aus der Spring-Boot-BOM der Grails-App
+    private static final String ACTUATOR_DEPENDENCY =
+        "implementation \"org.springframework.boot:spring-boot-starter-actuator\"";
+    private static final String AOP_DEPENDENCY = "implementation \"org.springframework.boot:spring-boot-starter-aop\"";
+    private static final String PROMETHEUS_DEPENDENCY = "runtimeOnly \"io.micrometer:micrometer-registry-prometheus\"";
 
     void ensureJtsDependency(Path buildGradlePath) throws IOException {
         if (!Files.exists(buildGradlePath)) {
@@ -23,6 +35,57 @@ class GrailsBuildGradleUpdater {
         }
     }
 
+    /**
+     * Ergänzt die Dependencies für den Second-Level-Cache (JCache mit Ehcache).
+     */
+    void ensureCacheDependencies(Path buildGradlePath) throws IOException {
+        if (!Files.exists(buildGradlePath)) {
+            return;
+        }
+        List<String> lines = Files.readAllLines(buildGradlePath, StandardCharsets.UTF_8);
+        List<String> updated = insertDependencyIfMissing(lines, "org.hibernate:hibernate-jcache",
+            HIBERNATE_JCACHE_DEPENDENCY);
+        updated = insertDependencyIfMissing(updated, "org.ehcache:ehcache", EHCACHE_DEPENDENCY);
+        if (!updated.equals(lines)) {
+            Files.write(buildGradlePath, updated, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Ergänzt ili2c und iox-ili samt dem Maven-Repository von interlis.ch (XTF-Export).
+     */
+    void ensureInterlisDependencies(Path buildGradlePath) throws IOException {
+        if (!Files.exists(buildGradlePath)) {
+            return;
+        }
+        List<String> lines = Files.readAllLines(buildGradlePath, StandardCharsets.UTF_8);
+        List<String> updated = insertIntoBlockIfMissing(lines, "repositories", "jars.interlis.ch",
+            INTERLIS_REPOSITORY);
+        updated = insertDependencyIfMissing(updated, "ch.interlis:ili2c-core", ILI2C_DEPENDENCY);
+        updated = insertDependencyIfMissing(updated, "ch.interlis:iox-ili", IOX_ILI_DEPENDENCY);
+        if (!updated.equals(lines)) {
+            Files.write(buildGradlePath, updated, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Ergänzt Actuator, AOP (für {@code @Timed}) und die Prometheus-Registry (Micrometer).
+     */
+    void ensureMetricsDependencies(Path buildGradlePath, boolean prometheus) throws IOException {
+        if (!Files.exists(buildGradlePath)) {
+            return;
+        }
+        List<String> lines = Files.readAllLines(buildGradlePath, StandardCharsets.UTF_8);
+        List<String> updated = insertDependencyIfMissing(lines, "spring-boot-starter-actuator", ACTUATOR_DEPENDENCY);
+        updated = insertDependencyIfMissing(updated, "spring-boot-starter-aop", AOP_DEPENDENCY);
+        if (prometheus) {
+            updated = insertDependencyIfMissing(updated, "micrometer-registry-prometheus", PROMETHEUS_DEPENDENCY);
+        }
+        if (!updated.equals(lines)) {
+            Files.write(buildGradlePath, updated, StandardCharsets.UTF_8);
+        }
+    }
+
     private List<String> ensureDependencies(List<String> lines) {
         List<String> updated = new java.util.ArrayList<>(lines);
         updated = insertDependencyIfMissing(updated, "org.locationtech.jts:jts-core", JTS_DEPENDENCY);
@@ -31,17 +94,21 @@ class GrailsBuildGradleUpdater {
     }
 
     private List<String> insertDependencyIfMissing(List<String> lines, String marker, String dependency) {
+        return insertIntoBlockIfMissing(lines, "dependencies", marker, dependency);
+    }
+
+    private List<String> insertIntoBlockIfMissing(List<String> lines, String blockName, String marker, String entry) {
         if (lines.stream().anyMatch(line -> line.contains(marker))) {
             return lines;
         }
         int[] buildscriptRange = findBlockRange(lines, "buildscript", null);
-        int[] dependenciesRange = findBlockRange(lines, "dependencies", buildscriptRange);
-        if (dependenciesRange == null) {
+        int[] blockRange = findBlockRange(lines, blockName, buildscriptRange);
+        if (blockRange == null) {
             return lines;
         }
-        String indent = detectIndent(lines, dependenciesRange[0]);
+        String indent = detectIndent(lines, blockRange[0]);
         List<String> updated = new java.util.ArrayList<>(lines);
-        updated.add(dependenciesRange[1], indent + dependency);
+        updated.add(blockRange[1], indent + entry);
         return updated;
     }
 
@@ -73,8 +140,8 @@ class GrailsBuildGradleUpdater {
         return null;
     }
 
-    private String detectIndent(List<String> lines, int dependenciesBlockStart) {
-        for (int i = dependenciesBlockStart + 1; i < lines.size(); i++) {
+    private String detectIndent(List<String> lines, int blockStart) {
+        for (int i = blockStart + 1; i < lines.size(); i++) {
             String line = lines.get(i);
             if (line.isBlank()) {
                 continue;
@@ -0,0 +1,51 @@
+package ch.interlis.generator.generator;
+
+import ch.interlis.generator.model.ClassMetadata;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Schreibt {@code grails-app/conf/ehcache.xml} mit einer Region pro gecachter Domain sowie
+ * den Regionen des Query-Caches.
+ */
+class GrailsCacheConfigGenerator {
+
+    static final String CONFIG_FILE = "ehcache.xml";
+    private static final String QUERY_RESULTS_REGION = "default-query-results-region";
+    private static final String UPDATE_TIMESTAMPS_REGION = "default-update-timestamps-region";
+
+    void generate(List<ClassMetadata> cachedClasses, GenerationConfig config) throws IOException {
+        Path confDir = config.getOutputDir().resolve("grails-app/conf");
+        Files.createDirectories(confDir);
+        Files.writeString(confDir.resolve(CONFIG_FILE), render(cachedClasses, config), StandardCharsets.UTF_8);
+    }
+
+    private String render(List<ClassMetadata> cachedClasses, GenerationConfig config) {
+        int regionSize = config.getCacheRegionSize();
+        StringBuilder sb = new StringBuilder();
+        sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        sb.append("<config xmlns=\"http://www.ehcache.org/v3\">\n");
+        for (ClassMetadata classMetadata : cachedClasses) {
+            // Region-Name = Entity-Name (Hibernate-Default)
+            appendRegion(sb, config.getDomainPackage() + "." + classMetadata.getSimpleName(), regionSize);
+        }
+        appendRegion(sb, QUERY_RESULTS_REGION, regionSize);
+        // Zeitstempel dürfen nicht verdrängt werden, sonst liefert der Query-Cache veraltete Resultate
+        sb.append("    <cache alias=\"").append(UPDATE_TIMESTAMPS_REGION).append("\">\n");
+        sb.append("        <expiry><none/></expiry>\n");
+        sb.append("        <heap unit=\"entries\">").append(Math.max(regionSize, 1000)).append("</heap>\n");
+        sb.append("    </cache>\n");
+        sb.append("</config>\n");
+        return sb.toString();
+    }
+
+    private void appendRegion(StringBuilder sb, String alias, int size) {
+        sb.append("    <cache alias=\"").append(alias).append("\">\n");
+        sb.append("        <heap unit=\"entries\">").append(size).append("</heap>\n");
+        sb.append("    </cache>\n");
+    }
+}
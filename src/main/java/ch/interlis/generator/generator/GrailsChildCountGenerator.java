@@ -0,0 +1,225 @@
+package ch.interlis.generator.generator;
+
+import ch.interlis.generator.model.AttributeMetadata;
+import ch.interlis.generator.model.ClassMetadata;
+import ch.interlis.generator.model.InheritanceIndex;
+import ch.interlis.generator.model.ModelMetadata;
+import ch.interlis.generator.model.RelationshipGraph;
+import ch.interlis.generator.model.RelationshipMetadata;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Schreibt {@code db/ili2grails/child_counts.sql}: pro eingehendem Fremdschlüssel einer Klasse
+ * eine Materialized View mit der Anzahl Kind-Objekte pro Eltern-Objekt.
+ *
+ * Die Detailseiten der Eltern-Klassen lesen die Anzahl über den {@code ChildCountService} aus
+ * der View statt die Kind-Tabelle zu zählen oder die {@code hasMany}-Collection zu laden. Der
+ * Service aktualisiert die Views periodisch ({@code REFRESH MATERIALIZED VIEW CONCURRENTLY});
+ * bis dahin können die Zahlen veraltet sein. Ohne Views wird direkt gezählt.
+ */
+class GrailsChildCountGenerator {
+
+    static final String MIGRATION_FILE = "db/ili2grails/child_counts.sql";
+    static final String VIEW_PREFIX = "ili2grails_cc_";
+    static final String SCHEDULING_CONFIGURATION = "SchedulingConfiguration";
+
+    /**
+     * Beziehung zu einer Kind-Tabelle: {@code property} ist der Schlüssel im Model der
+     * Detailseite, {@code view} die Materialized View, {@code table}/{@code column} die
+     * Kind-Tabelle und ihr Fremdschlüssel (Fallback ohne View).
+     */
+    record ChildRelation(String property, String table, String column, String view) {
+    }
+
+    void generate(ModelMetadata metadata, GenerationConfig config) throws IOException {
+        List<ChildRelation> relations = new ArrayList<>();
+        for (ClassMetadata parent : parents(metadata, config)) {
+            relations.addAll(relations(parent, metadata, config));
+        }
+        if (relations.isEmpty()) {
+            return;
+        }
+        Path file = config.getOutputDir().resolve(MIGRATION_FILE);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, render(relations, config), StandardCharsets.UTF_8);
+
+        Path sourceDir = config.getOutputDir()
+            .resolve("src/main/groovy")
+            .resolve(NameUtils.packageToPath(config.getBasePackage()));
+        Files.createDirectories(sourceDir);
+        Files.writeString(sourceDir.resolve(SCHEDULING_CONFIGURATION + ".groovy"),
+            renderSchedulingConfiguration(config.getBasePackage()), StandardCharsets.UTF_8);
+        GrailsMetricsGenerator.registerAutoConfiguration(
+            config.getOutputDir().resolve(GrailsMetricsGenerator.AUTO_CONFIGURATION_IMPORTS),
+            config.getBasePackage() + "." + SCHEDULING_CONFIGURATION);
+    }
+
+    private String render(List<ChildRelation> relations, GenerationConfig config) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("-- Generiert von ili2grails: Anzahl Kind-Objekte pro Eltern-Objekt für die Detailseiten.\n");
+        sb.append("-- Der ChildCountService aktualisiert die Views alle ").append(config.getChildCountRefreshSeconds())
+            .append(" Sekunden per REFRESH MATERIALIZED VIEW CONCURRENTLY;\n");
+        sb.append("-- der eindeutige Index ist dafür Voraussetzung.\n\n");
+        List<String> seen = new ArrayList<>();
+        for (ChildRelation relation : relations) {
+            if (seen.contains(relation.view())) {
+                continue;
+            }
+            seen.add(relation.view());
+            sb.append("CREATE MATERIALIZED VIEW IF NOT EXISTS ").append(relation.view()).append(" AS\n");
+            sb.append("    SELECT ").append(relation.column()).append(" AS parent_id, count(*) AS child_count\n");
+            sb.append("    FROM ").append(relation.table()).append("\n");
+            sb.append("    WHERE ").append(relation.column()).append(" IS NOT NULL\n");
+            sb.append("    GROUP BY ").append(relation.column()).append(";\n");
+            sb.append("CREATE UNIQUE INDEX IF NOT EXISTS ")
+                .append(GrailsIndexMigrationGenerator.indexName(unqualified(relation.view()), "parent_id"))
+                .append(" ON ").append(relation.view()).append(" (parent_id);\n\n");
+        }
+        return sb.toString();
+    }
+
+    private String renderSchedulingConfiguration(String packageName) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("package ").append(packageName).append("\n\n");
+        sb.append("import org.springframework.boot.autoconfigure.AutoConfiguration\n");
+        sb.append("import org.springframework.scheduling.annotation.EnableScheduling\n\n");
+        sb.append("/**\n");
+        sb.append(" * Aktiviert @Scheduled für die Aktualisierung der Materialized Views (ChildCountService).\n");
+        sb.append(" * Eingebunden über META-INF/spring/org.springframework.boot.autoconfigure.AutoConfiguration.imports.\n");
+        sb.append(" */\n");
+        sb.append("@AutoConfiguration\n");
+        sb.append("@EnableScheduling\n");
+        sb.append("class ").append(SCHEDULING_CONFIGURATION).append(" {\n");
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    /**
+     * Zeigt ein Fremdschlüssel auf eine Klasse der generierten Controller?
+     */
+    static boolean hasChildCounts(ModelMetadata metadata, GenerationConfig config) {
+        if (!config.isChildCounts()) {
+            return false;
+        }
+        for (ClassMetadata parent : parents(metadata, config)) {
+            if (!relations(parent, metadata, config).isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Materialized Views aller Beziehungen, für die Aktualisierung im Service.
+     */
+    static List<String> views(ModelMetadata metadata, GenerationConfig config) {
+        List<String> views = new ArrayList<>();
+        for (ClassMetadata parent : parents(metadata, config)) {
+            for (ChildRelation relation : relations(parent, metadata, config)) {
+                if (!views.contains(relation.view())) {
+                    views.add(relation.view());
+                }
+            }
+        }
+        return views;
+    }
+
+    /**
+     * Eingehende Fremdschlüssel der Klasse aus Tabellen generierter Klassen. Der Schlüssel
+     * entspricht dem {@code hasMany}-Property; zeigen mehrere Fremdschlüssel derselben Klasse
+     * auf die Eltern-Klasse, wird das Attribut angehängt.
+     */
+    static List<ChildRelation> relations(ClassMetadata parent, ModelMetadata metadata, GenerationConfig config) {
+        if (!config.isChildCounts()) {
+            return List.of();
+        }
+        InheritanceIndex inheritance = metadata.getInheritanceIndex();
+        RelationshipGraph relationships = metadata.getRelationshipGraph();
+        Map<String, ChildRelation> relations = new LinkedHashMap<>();
+        for (RelationshipGraph.Edge edge : relationships.getIncoming(parent)) {
+            AttributeMetadata attr = edge.getAttribute();
+            ClassMetadata child = edge.getSource();
+            if (attr == null || attr.getColumnName() == null
+                || edge.getType() == RelationshipMetadata.RelationType.ONE_TO_ONE
+                || child.getTableName() == null
+                || !inheritance.hasOwnTable(child)
+                || !config.getClassSelection().matches(child.getName())) {
+                continue;
+            }
+            String tableName = child.getTableName().toLowerCase(Locale.ROOT);
+            String column = attr.getColumnName().toLowerCase(Locale.ROOT);
+            String property = NameUtils.pluralize(NameUtils.toLowerCamel(child.getSimpleName()));
+            if (relations.containsKey(property)) {
+                property = property + "_" + NameUtils.propertyName(attr);
+            }
+            String view = qualify(GrailsIndexMigrationGenerator.identifier(VIEW_PREFIX + tableName + "_" + column),
+                config);
+            relations.putIfAbsent(property, new ChildRelation(property,
+                GrailsControllerGenerator.qualifiedTableName(child, config), column, view));
+        }
+        return new ArrayList<>(relations.values());
+    }
+
+    /**
+     * Groovy-Konstanten {@code CHILD_COUNTS} und (mit bedingten Requests) {@code SHOW_VERSION_TABLES}
+     * für die Controller: Änderungen der Kind-Tabellen ändern auch das ETag der Detailseite.
+     */
+    static void appendConstants(StringBuilder sb, List<ChildRelation> relations, boolean conditional) {
+        sb.append("    // Anzahl Kind-Objekte der Detailseite: Materialized View bzw. Kind-Tabelle und Fremdschlüssel\n");
+        sb.append("    static final List<Map<String, String>> CHILD_COUNTS = [\n");
+        for (int i = 0; i < relations.size(); i++) {
+            ChildRelation relation = relations.get(i);
+            sb.append("        [property: '").append(relation.property())
+                .append("', view: '").append(relation.view())
+                .append("', table: '").append(relation.table())
+                .append("', column: '").append(relation.column()).append("']")
+                .append(i < relations.size() - 1 ? ",\n" : "\n");
+        }
+        sb.append("    ]\n");
+        if (conditional) {
+            List<String> tables = new ArrayList<>();
+            for (ChildRelation relation : relations) {
+                if (!tables.contains(relation.table())) {
+                    tables.add(relation.table());
+                }
+            }
+            sb.append("    static final List<String> SHOW_VERSION_TABLES = VERSION_TABLES + [");
+            for (int i = 0; i < tables.size(); i++) {
+                sb.append(i > 0 ? ", " : "").append("'").append(tables.get(i)).append("'");
+            }
+            sb.append("]\n");
+        }
+    }
+
+    private static List<ClassMetadata> parents(ModelMetadata metadata, GenerationConfig config) {
+        InheritanceIndex inheritance = metadata.getInheritanceIndex();
+        List<ClassMetadata> parents = new ArrayList<>();
+        for (ClassMetadata classMetadata : metadata.getAllClasses()) {
+            if (classMetadata.isAbstract()
+                || !inheritance.hasOwnTable(classMetadata)
+                || !config.getClassSelection().matches(classMetadata.getName())) {
+                continue;
+            }
+            parents.add(classMetadata);
+        }
+        return parents;
+    }
+
+    private static String unqualified(String name) {
+        return name.substring(name.lastIndexOf('.') + 1);
+    }
+
+    private static String qualify(String name, GenerationConfig config) {
+        String schema = config.getSchema();
+        return schema != null && !schema.isBlank() ? schema + "." + name : name;
+    }
+}
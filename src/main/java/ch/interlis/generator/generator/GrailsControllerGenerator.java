@@ -1,45 +1,403 @@
 package ch.interlis.generator.generator;
 
+import ch.interlis.generator.model.AttributeMetadata;
 import ch.interlis.generator.model.ClassMetadata;
+import ch.interlis.generator.model.InheritanceIndex;
 import ch.interlis.generator.model.ModelMetadata;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
 
 /**
  * Generiert Grails Controller für CRUD-Operationen.
+ *
+ * Die {@code index}-Action paginiert immer: Offset-Paging für sortierte Listen und
+ * Keyset-Paging auf {@code t_id} für tiefe Seiten. Klassen mit Geometrien erhalten zusätzlich
+ * eine {@code bbox}-Action, die GeoJSON liefert. Liste und Detailseite beantworten bedingte
+ * Requests über die Änderungsmarken der Tabelle mit 304. Klassen mit TEXT/MTEXT-Attributen
+ * erhalten eine Volltextsuche ({@code search}). Die Detailseite zeigt die Anzahl Kind-Objekte
+ * aus Materialized Views. Übrige Actions liefert das Scaffolding.
  */
 public class GrailsControllerGenerator {
 
+    /**
+     * Obergrenze für Offset-Paging; tiefere Seiten sind nur per Keyset ({@code afterId}) erreichbar.
+     */
+    static final int MAX_OFFSET = 10_000;
+
+    static final String DEFAULT_SRS_CODE_SETTING = "ch.ehi.ili2db.defaultSrsCode";
+    static final int DEFAULT_SRID = 2056;
+
     public void generate(ModelMetadata metadata, GenerationConfig config) throws IOException {
         Path baseDir = config.getOutputDir()
             .resolve("grails-app/controllers")
             .resolve(NameUtils.packageToPath(config.getControllerPackage()));
         Files.createDirectories(baseDir);
 
+        InheritanceIndex inheritance = metadata.getInheritanceIndex();
         for (ClassMetadata classMetadata : metadata.getAllClasses()) {
-            if (classMetadata.isAbstract()) {
+            if (classMetadata.isAbstract()
+                || !inheritance.hasOwnTable(classMetadata)
+                || !config.isRegenerated(classMetadata.getName())) {
                 continue;
             }
-            String content = renderController(classMetadata, config);
+            String content = renderController(classMetadata, metadata, config);
             Path target = baseDir.resolve(classMetadata.getSimpleName() + "Controller.groovy");
             Files.writeString(target, content, StandardCharsets.UTF_8);
         }
     }
 
-    private String renderController(ClassMetadata classMetadata, GenerationConfig config) {
+    private String renderController(ClassMetadata classMetadata, ModelMetadata metadata,
+                                    GenerationConfig config) {
         String className = classMetadata.getSimpleName();
+        String listName = NameUtils.toLowerCamel(className) + "List";
+        String sortable = sortableProperties(classMetadata).stream()
+            .map(property -> "'" + property + "'")
+            .collect(Collectors.joining(", "));
+        String listColumns = ListColumns.projections(classMetadata, metadata, config).entrySet().stream()
+            .map(entry -> entry.getKey() + ": '" + entry.getValue() + "'")
+            .collect(Collectors.joining(", "));
+
+        boolean spatial = !classMetadata.getGeometryAttributes().isEmpty();
+        boolean conditional = config.isConditionalRequests();
+        List<AttributeMetadata> searchable = config.isFullTextSearch()
+            ? FullTextSearch.searchableAttributes(classMetadata)
+            : List.of();
+        List<GrailsChildCountGenerator.ChildRelation> children =
+            GrailsChildCountGenerator.relations(classMetadata, metadata, config);
+
         StringBuilder sb = new StringBuilder();
         sb.append("package ").append(config.getControllerPackage()).append("\n\n");
         if (!config.getDomainPackage().equals(config.getControllerPackage())) {
             sb.append("import ").append(config.getDomainPackage()).append(".")
-                .append(className).append("\n\n");
+                .append(className).append("\n");
+        }
+        if (!config.getBasePackage().equals(config.getControllerPackage())) {
+            sb.append("import ").append(config.getBasePackage()).append(".")
+                .append(GrailsServiceGenerator.ROW_COUNT_SERVICE).append("\n");
+            if (spatial) {
+                sb.append("import ").append(config.getBasePackage()).append(".")
+                    .append(GrailsServiceGenerator.SPATIAL_QUERY_SERVICE).append("\n");
+            }
+            if (conditional) {
+                sb.append("import ").append(config.getBasePackage()).append(".")
+                    .append(GrailsServiceGenerator.TABLE_VERSION_SERVICE).append("\n");
+            }
+            if (!searchable.isEmpty()) {
+                sb.append("import ").append(config.getBasePackage()).append(".")
+                    .append(GrailsServiceGenerator.FULL_TEXT_SEARCH_SERVICE).append("\n");
+            }
+            if (!children.isEmpty()) {
+                sb.append("import ").append(config.getBasePackage()).append(".")
+                    .append(GrailsServiceGenerator.CHILD_COUNT_SERVICE).append("\n");
+            }
+        }
+        sb.append("import grails.converters.JSON\n");
+        sb.append("import grails.gorm.transactions.ReadOnly\n\n");
+        sb.append("class ").append(className).append("Controller {\n\n");
+        sb.append("    static scaffold = ").append(className).append("\n\n");
+        sb.append("    static final int DEFAULT_MAX = ").append(config.getPageSize()).append("\n");
+        sb.append("    static final int MAX_LIMIT = ").append(config.getMaxPageSize()).append("\n");
+        sb.append("    static final int MAX_OFFSET = ").append(MAX_OFFSET).append("\n");
+        sb.append("    static final String TABLE = '").append(qualifiedTableName(classMetadata, config)).append("'\n");
+        sb.append("    // Nur indexierte Spalten, damit die Datenbank nicht die ganze Tabelle sortiert\n");
+        sb.append("    static final List<String> SORTABLE = [").append(sortable).append("]\n");
+        sb.append("    // Projektion der Liste: keine Geometrien und langen Texte, Referenzen nur als Id\n");
+        sb.append("    static final Map<String, String> LIST_COLUMNS = [").append(listColumns).append("]\n");
+        if (conditional) {
+            GrailsTableVersionGenerator.appendVersionTables(sb, classMetadata, metadata, config);
+        }
+        if (!searchable.isEmpty()) {
+            appendSearchConstants(sb, searchable, config);
+        }
+        if (!children.isEmpty()) {
+            GrailsChildCountGenerator.appendConstants(sb, children, conditional);
+        }
+        sb.append("\n");
+        if (spatial) {
+            appendSpatialConstants(sb, classMetadata, metadata, config);
         }
-        sb.append("class ").append(className).append("Controller {\n");
-        sb.append("    static scaffold = ").append(className).append("\n");
+        sb.append("    ").append(GrailsServiceGenerator.ROW_COUNT_SERVICE).append(" rowCountService\n");
+        if (spatial) {
+            sb.append("    ").append(GrailsServiceGenerator.SPATIAL_QUERY_SERVICE).append(" spatialQueryService\n");
+        }
+        if (conditional) {
+            sb.append("    ").append(GrailsServiceGenerator.TABLE_VERSION_SERVICE).append(" tableVersionService\n");
+        }
+        if (!searchable.isEmpty()) {
+            sb.append("    ").append(GrailsServiceGenerator.FULL_TEXT_SEARCH_SERVICE).append(" fullTextSearchService\n");
+        }
+        if (!children.isEmpty()) {
+            sb.append("    ").append(GrailsServiceGenerator.CHILD_COUNT_SERVICE).append(" childCountService\n");
+        }
+        sb.append("\n");
+        sb.append("    @ReadOnly\n");
+        sb.append("    def index(Integer max, Long afterId) {\n");
+        if (conditional) {
+            GrailsTableVersionGenerator.appendNotModified(sb, "request.queryString");
+        }
+        sb.append("        int limit = Math.min(Math.max(max ?: DEFAULT_MAX, 1), MAX_LIMIT)\n");
+        sb.append("        String sort = params.sort in SORTABLE ? params.sort : 'id'\n");
+        sb.append("        String direction = params.order == 'desc' ? 'desc' : 'asc'\n");
+        sb.append("        int offset = afterId != null && sort == 'id'\n");
+        sb.append("            ? 0\n");
+        sb.append("            : Math.min(Math.max(params.int('offset') ?: 0, 0), MAX_OFFSET)\n");
+        sb.append("        List rows = ").append(className)
+            .append(".createCriteria().list(max: limit + 1, offset: offset) {\n");
+        sb.append("            projections {\n");
+        sb.append("                LIST_COLUMNS.values().each { property it }\n");
+        sb.append("            }\n");
+        sb.append("            if (sort == 'id' && afterId != null) {\n");
+        sb.append("                // Keyset-Paging auf t_id: konstante Laufzeit auch für tiefe Seiten\n");
+        sb.append("                if (direction == 'desc') {\n");
+        sb.append("                    lt 'id', afterId\n");
+        sb.append("                } else {\n");
+        sb.append("                    gt 'id', afterId\n");
+        sb.append("                }\n");
+        sb.append("            }\n");
+        sb.append("            order sort, direction\n");
+        sb.append("            if (sort != 'id') {\n");
+        sb.append("                order 'id', direction\n");
+        sb.append("            }\n");
+        sb.append("        }\n");
+        sb.append("        List<Map> items = rows.collect { toListRow(it) }\n");
+        sb.append("        // Eine Zeile mehr lesen, damit das Blättern nicht von der Anzahl abhängt\n");
+        sb.append("        boolean hasNext = items.size() > limit\n");
+        sb.append("        if (hasNext) {\n");
+        sb.append("            items = items.subList(0, limit)\n");
+        sb.append("        }\n");
+        // Grosse Tabellen werden nur geschätzt (pg_class.reltuples)
+        sb.append("        Map rowCount = rowCountService.count(").append(className).append(", '")
+            .append(qualifiedTableName(classMetadata, config)).append("')\n");
+        sb.append("        render view: 'list', model: [\n");
+        sb.append("            ").append(listName).append(": items,\n");
+        sb.append("            ").append(NameUtils.toLowerCamel(className)).append("Count: rowCount.total,\n");
+        sb.append("            countApproximate: rowCount.approximate,\n");
+        sb.append("            max: limit,\n");
+        sb.append("            offset: offset,\n");
+        sb.append("            sort: sort,\n");
+        sb.append("            order: direction,\n");
+        sb.append("            hasNext: hasNext,\n");
+        sb.append("            nextAfterId: hasNext && sort == 'id' ? items.last().id : null\n");
+        sb.append("        ]\n");
+        sb.append("    }\n\n");
+        if (conditional || !children.isEmpty()) {
+            appendShow(sb, className, conditional, !children.isEmpty());
+        }
+        if (!searchable.isEmpty()) {
+            appendSearch(sb, className, conditional);
+        }
+        appendLookup(sb, className, ListColumns.labelAttribute(classMetadata, metadata, config),
+            SecondLevelCache.isCached(classMetadata, metadata, config));
+        if (spatial) {
+            appendBbox(sb);
+        }
+        sb.append("    private static Map toListRow(Object row) {\n");
+        sb.append("        List values = row instanceof Object[] ? (row as List) : [row]\n");
+        sb.append("        [LIST_COLUMNS.keySet().toList(), values].transpose().collectEntries()\n");
+        sb.append("    }\n");
         sb.append("}\n");
         return sb.toString();
     }
+
+    /**
+     * Detailseite; mit Kind-Beziehungen zusätzlich {@code childCounts} im Model. Deren ETag
+     * umfasst die Kind-Tabellen und den Stand der Materialized Views.
+     */
+    private void appendShow(StringBuilder sb, String className, boolean conditional, boolean childCounts) {
+        sb.append("    @ReadOnly\n");
+        sb.append("    def show(Long id) {\n");
+        if (conditional && childCounts) {
+            GrailsTableVersionGenerator.appendNotModified(sb, "SHOW_VERSION_TABLES",
+                "'show:' + id + ':' + childCountService.generation");
+        } else if (conditional) {
+            GrailsTableVersionGenerator.appendNotModified(sb, "'show:' + id");
+        }
+        sb.append("        respond ").append(className).append(".get(id)");
+        if (childCounts) {
+            sb.append(", model: [childCounts: childCountService.counts(CHILD_COUNTS, id)]");
+        }
+        sb.append("\n");
+        sb.append("    }\n\n");
+    }
+
+    /**
+     * JSON-Lookup für Auswahllisten: nur {@code id} und Bezeichnung, optional per Präfix gefiltert.
+     */
+    private void appendLookup(StringBuilder sb, String className, AttributeMetadata label, boolean cached) {
+        String labelProperty = label != null ? NameUtils.propertyName(label) : "id";
+        sb.append("    @ReadOnly\n");
+        sb.append("    def lookup(String q, Integer max) {\n");
+        sb.append("        int limit = Math.min(Math.max(max ?: DEFAULT_MAX, 1), MAX_LIMIT)\n");
+        sb.append("        List rows = ").append(className).append(".createCriteria().list(max: limit) {\n");
+        sb.append("            projections {\n");
+        sb.append("                property 'id'\n");
+        if (label != null) {
+            sb.append("                property '").append(labelProperty).append("'\n");
+        }
+        sb.append("            }\n");
+        if (label != null) {
+            sb.append("            if (q) {\n");
+            // % und _ aus der Eingabe sind keine Platzhalter (Backslash: Standard-Escape von PostgreSQL/H2)
+            sb.append("                ilike '").append(labelProperty)
+                .append("', q.replace('\\\\', '\\\\\\\\').replace('%', '\\\\%').replace('_', '\\\\_') + '%'\n");
+            sb.append("            }\n");
+        }
+        sb.append("            order '").append(labelProperty).append("', 'asc'\n");
+        if (cached) {
+            // Katalogdaten: Ergebnis im Query-Cache halten
+            sb.append("            cache true\n");
+        }
+        sb.append("        }\n");
+        if (label != null) {
+            sb.append("        render(rows.collect { [id: it[0], label: it[1]] } as JSON)\n");
+        } else {
+            sb.append("        render(rows.collect { [id: it, label: it as String] } as JSON)\n");
+        }
+        sb.append("    }\n\n");
+    }
+
+    private void appendSearchConstants(StringBuilder sb, List<AttributeMetadata> searchable, GenerationConfig config) {
+        sb.append("    // Volltextsuche: derselbe Ausdruck wie der GIN-Index in indexes.sql\n");
+        sb.append("    static final String SEARCH_DOCUMENT = \"")
+            .append(FullTextSearch.document(searchable, config)).append("\"\n");
+        sb.append("    static final List<String> SEARCH_COLUMNS = [")
+            .append(searchable.stream()
+                .map(attr -> "'" + NameUtils.columnName(attr) + "'")
+                .collect(Collectors.joining(", ")))
+            .append("]\n");
+    }
+
+    /**
+     * Volltextsuche über die Textattribute: Treffer-Ids nach Relevanz vom FullTextSearchService,
+     * danach nur die Listenspalten dieser Zeilen in derselben Reihenfolge.
+     */
+    private void appendSearch(StringBuilder sb, String className, boolean conditional) {
+        String instanceName = NameUtils.toLowerCamel(className);
+        sb.append("    @ReadOnly\n");
+        sb.append("    def search(String q, Integer max) {\n");
+        sb.append("        if (!q?.trim()) {\n");
+        sb.append("            redirect action: 'index'\n");
+        sb.append("            return\n");
+        sb.append("        }\n");
+        if (conditional) {
+            GrailsTableVersionGenerator.appendNotModified(sb, "'search:' + request.queryString");
+        }
+        sb.append("        int limit = Math.min(Math.max(max ?: DEFAULT_MAX, 1), MAX_LIMIT)\n");
+        sb.append("        List<Long> ids = fullTextSearchService.search(TABLE, SEARCH_DOCUMENT, SEARCH_COLUMNS, q.trim(), limit)\n");
+        sb.append("        Map<Object, Map> rowsById = ids ? ").append(className).append(".createCriteria().list {\n");
+        sb.append("            projections {\n");
+        sb.append("                LIST_COLUMNS.values().each { property it }\n");
+        sb.append("            }\n");
+        sb.append("            'in' 'id', ids\n");
+        sb.append("        }.collect { toListRow(it) }.collectEntries { [it.id, it] } : [:]\n");
+        sb.append("        List<Map> items = ids.collect { rowsById[it] }.findAll()\n");
+        sb.append("        render view: 'list', model: [\n");
+        sb.append("            ").append(instanceName).append("List: items,\n");
+        sb.append("            ").append(instanceName).append("Count: items.size(),\n");
+        sb.append("            countApproximate: false,\n");
+        sb.append("            max: limit,\n");
+        sb.append("            offset: 0,\n");
+        sb.append("            sort: 'id',\n");
+        sb.append("            order: 'asc',\n");
+        sb.append("            hasNext: false,\n");
+        sb.append("            nextAfterId: null,\n");
+        sb.append("            q: q\n");
+        sb.append("        ]\n");
+        sb.append("    }\n\n");
+    }
+
+    private void appendSpatialConstants(StringBuilder sb, ClassMetadata classMetadata, ModelMetadata metadata,
+                                        GenerationConfig config) {
+        String geometryColumns = classMetadata.getGeometryAttributes().stream()
+            .filter(attr -> attr.getColumnName() != null)
+            .map(attr -> NameUtils.propertyName(attr) + ": '" + attr.getColumnName().toLowerCase(Locale.ROOT) + "'")
+            .collect(Collectors.joining(", "));
+        String featureColumns = ListColumns.select(classMetadata, config).stream()
+            .filter(attr -> attr.getColumnName() != null)
+            .map(attr -> NameUtils.propertyName(attr) + ": '" + attr.getColumnName().toLowerCase(Locale.ROOT) + "'")
+            .collect(Collectors.joining(", "));
+        sb.append("    static final int SRID = ").append(srid(metadata)).append("\n");
+        sb.append("    static final Map<String, String> GEOMETRY_COLUMNS = [")
+            .append(geometryColumns.isEmpty() ? ":" : geometryColumns).append("]\n");
+        sb.append("    // GeoJSON-Properties: dieselben Spalten wie die Liste\n");
+        sb.append("    static final Map<String, String> FEATURE_COLUMNS = [")
+            .append(featureColumns.isEmpty() ? ":" : featureColumns).append("]\n\n");
+    }
+
+    /**
+     * GeoJSON für Kartenausschnitte: {@code bbox=minx,miny,maxx,maxy} im Bezugsrahmen der Daten,
+     * optional {@code zoom} (vereinfacht auf ca. ein Pixel) und {@code geometry} (Property-Name).
+     */
+    private void appendBbox(StringBuilder sb) {
+        sb.append("    def bbox(String bbox, Integer zoom, String geometry, Integer max) {\n");
+        sb.append("        List<Double> envelope = SpatialQueryService.parseBbox(bbox)\n");
+        sb.append("        String column = GEOMETRY_COLUMNS[geometry ?: GEOMETRY_COLUMNS.keySet().find()]\n");
+        sb.append("        if (envelope == null || column == null) {\n");
+        sb.append("            render status: 400, text: 'Expected bbox=minx,miny,maxx,maxy and a geometry of ' + GEOMETRY_COLUMNS.keySet()\n");
+        sb.append("            return\n");
+        sb.append("        }\n");
+        sb.append("        response.contentType = 'application/geo+json;charset=UTF-8'\n");
+        sb.append("        Writer out = response.writer\n");
+        sb.append("        spatialQueryService.writeFeatures(out, TABLE, column, SRID, FEATURE_COLUMNS, envelope,\n");
+        sb.append("            SpatialQueryService.tolerance(zoom), max ?: SpatialQueryService.MAX_FEATURES)\n");
+        sb.append("        out.flush()\n");
+        sb.append("    }\n\n");
+    }
+
+    /**
+     * Klassen mit Geometrien erhalten eine {@code bbox}-Action und benötigen den SpatialQueryService.
+     */
+    static boolean hasSpatialQueries(ModelMetadata metadata, GenerationConfig config) {
+        InheritanceIndex inheritance = metadata.getInheritanceIndex();
+        return metadata.getAllClasses().stream()
+            .anyMatch(classMetadata -> !classMetadata.isAbstract()
+                && inheritance.hasOwnTable(classMetadata)
+                && config.getClassSelection().matches(classMetadata.getName())
+                && !classMetadata.getGeometryAttributes().isEmpty());
+    }
+
+    /**
+     * SRID der Geometriespalten aus {@code ch.ehi.ili2db.defaultSrsCode}, sonst LV95.
+     */
+    static int srid(ModelMetadata metadata) {
+        String setting = metadata.getSettings().get(DEFAULT_SRS_CODE_SETTING);
+        if (setting != null) {
+            try {
+                return Integer.parseInt(setting.trim());
+            } catch (NumberFormatException e) {
+                // ungültiger Eintrag: Default verwenden
+            }
+        }
+        return DEFAULT_SRID;
+    }
+
+    static String qualifiedTableName(ClassMetadata classMetadata, GenerationConfig config) {
+        String tableName = classMetadata.getTableName() != null
+            ? classMetadata.getTableName()
+            : classMetadata.getSimpleName().toLowerCase(Locale.ROOT);
+        String schema = config.getSchema();
+        return schema != null && !schema.isBlank() ? schema + "." + tableName : tableName;
+    }
+
+    /**
+     * Properties, nach denen die Liste sortiert werden darf: {@code id} sowie Attribute, deren
+     * Spalte führende Spalte eines Index ist (ohne Geometrien und Fremdschlüssel).
+     */
+    static List<String> sortableProperties(ClassMetadata classMetadata) {
+        List<String> properties = new ArrayList<>();
+        properties.add("id");
+        for (AttributeMetadata attr : classMetadata.getAllAttributes()) {
+            if (attr.isIndexed() && !attr.isPrimaryKey() && !attr.isGeometry() && !attr.isForeignKey()) {
+                properties.add(NameUtils.propertyName(attr));
+            }
+        }
+        return properties;
+    }
 }
@@ -1,9 +1,14 @@
 package ch.interlis.generator.generator;
 
+import ch.interlis.generator.model.ClassMetadata;
 import ch.interlis.generator.model.ModelMetadata;
 
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 
 /**
  * Orchestriert die Generierung von Grails Domains, Controllern und Views.
@@ -13,21 +18,119 @@ public class GrailsCrudGenerator {
     private final GrailsDomainGenerator domainGenerator = new GrailsDomainGenerator();
     private final GrailsControllerGenerator controllerGenerator = new GrailsControllerGenerator();
     private final GrailsViewGenerator viewGenerator = new GrailsViewGenerator();
+    private final GrailsRestControllerGenerator restControllerGenerator = new GrailsRestControllerGenerator();
+    private final GrailsServiceGenerator serviceGenerator = new GrailsServiceGenerator();
     private final GrailsEnumGenerator enumGenerator = new GrailsEnumGenerator();
     private final GrailsBuildGradleUpdater buildGradleUpdater = new GrailsBuildGradleUpdater();
     private final GrailsApplicationYamlUpdater applicationYamlUpdater = new GrailsApplicationYamlUpdater();
+    private final GrailsCacheConfigGenerator cacheConfigGenerator = new GrailsCacheConfigGenerator();
+    private final GrailsXtfExportGenerator xtfExportGenerator = new GrailsXtfExportGenerator();
+    private final GrailsIndexMigrationGenerator indexMigrationGenerator = new GrailsIndexMigrationGenerator();
+    private final GrailsTableVersionGenerator tableVersionGenerator = new GrailsTableVersionGenerator();
+    private final GrailsMetricsGenerator metricsGenerator = new GrailsMetricsGenerator();
+    private final GrailsLoadTestGenerator loadTestGenerator = new GrailsLoadTestGenerator();
+    private final GrailsChildCountGenerator childCountGenerator = new GrailsChildCountGenerator();
 
     public void generate(ModelMetadata metadata, GenerationConfig config) throws IOException {
         Files.createDirectories(config.getOutputDir());
         enumGenerator.generate(metadata, config);
         domainGenerator.generate(metadata, config);
-        //controllerGenerator.generate(metadata, config);
-        //viewGenerator.generate(metadata, config);
+        indexMigrationGenerator.generate(metadata, config);
+        if (config.isControllersAndViews()) {
+            serviceGenerator.generate(metadata, config);
+            controllerGenerator.generate(metadata, config);
+            viewGenerator.generate(metadata, config);
+            if (GrailsChildCountGenerator.hasChildCounts(metadata, config)) {
+                serviceGenerator.generateChildCounts(metadata, config);
+                childCountGenerator.generate(metadata, config);
+            }
+            if (config.isLoadTest()) {
+                loadTestGenerator.generate(metadata, config);
+            }
+        }
+        if (config.isRestApi()) {
+            serviceGenerator.generateBulkTransfer(config);
+            restControllerGenerator.generate(metadata, config);
+        }
+        if (config.isConditionalRequests() && (config.isControllersAndViews() || config.isRestApi())) {
+            serviceGenerator.generateTableVersion(metadata, config);
+            tableVersionGenerator.generate(metadata, config);
+        }
         buildGradleUpdater.ensureJtsDependency(config.getOutputDir().resolve("build.gradle"));
+        if (config.isXtfExport() && xtfExportGenerator.generate(metadata, config)) {
+            buildGradleUpdater.ensureInterlisDependencies(config.getOutputDir().resolve("build.gradle"));
+        }
+        if (config.isMetrics()) {
+            metricsGenerator.generate(metadata, config);
+            buildGradleUpdater.ensureMetricsDependencies(config.getOutputDir().resolve("build.gradle"),
+                config.isPrometheusEndpoint());
+            applicationYamlUpdater.ensureMetricsSettings(
+                config.getOutputDir().resolve("grails-app/conf/application.yml"), config.isPrometheusEndpoint());
+        }
         applicationYamlUpdater.ensureDevelopmentDataSourceUrl(
             config.getOutputDir().resolve("grails-app/conf/application.yml"),
             config.getJdbcUrl(),
             config.getSchema()
         );
+        applicationYamlUpdater.ensurePerformanceSettings(
+            config.getOutputDir().resolve("grails-app/conf/application.yml"),
+            config.getPerformanceProfiles()
+        );
+        List<ClassMetadata> cachedClasses = SecondLevelCache.cachedClasses(metadata, config);
+        if (!cachedClasses.isEmpty()) {
+            cacheConfigGenerator.generate(cachedClasses, config);
+            buildGradleUpdater.ensureCacheDependencies(config.getOutputDir().resolve("build.gradle"));
+            applicationYamlUpdater.ensureSecondLevelCache(
+                config.getOutputDir().resolve("grails-app/conf/application.yml"));
+        }
+    }
+
+    /**
+     * Löscht Domain-Klasse, Controller, REST-Controller und Views entfernter Klassen.
+     * Artefakte, deren Name noch von einer Klasse in {@code metadata} verwendet wird
+     * (gleicher einfacher Name in einem anderen Topic), bleiben erhalten.
+     *
+     * @return die gelöschten Dateien
+     */
+    public List<Path> removeArtifacts(Collection<String> removedClasses, ModelMetadata metadata,
+                                      GenerationConfig config) throws IOException {
+        List<Path> removed = new ArrayList<>();
+        Path domainDir = config.getOutputDir()
+            .resolve("grails-app/domain")
+            .resolve(NameUtils.packageToPath(config.getDomainPackage()));
+        Path controllerDir = config.getOutputDir()
+            .resolve("grails-app/controllers")
+            .resolve(NameUtils.packageToPath(config.getControllerPackage()));
+        for (String className : removedClasses) {
+            String simpleName = className.substring(className.lastIndexOf('.') + 1);
+            boolean stillUsed = metadata.getAllClasses().stream()
+                .anyMatch(classMetadata -> simpleName.equals(classMetadata.getSimpleName()));
+            if (stillUsed) {
+                continue;
+            }
+            List<Path> candidates = new ArrayList<>(List.of(
+                domainDir.resolve(simpleName + ".groovy"),
+                controllerDir.resolve(simpleName + "Controller.groovy"),
+                controllerDir.resolve(simpleName + GrailsRestControllerGenerator.CONTROLLER_SUFFIX + ".groovy")));
+            Path viewDir = config.getOutputDir()
+                .resolve("grails-app/views")
+                .resolve(NameUtils.toLowerCamel(simpleName));
+            for (String view : List.of("list.gsp", "show.gsp", "create.gsp", "edit.gsp")) {
+                candidates.add(viewDir.resolve(view));
+            }
+            for (Path candidate : candidates) {
+                if (Files.deleteIfExists(candidate)) {
+                    removed.add(candidate);
+                }
+            }
+            if (Files.isDirectory(viewDir)) {
+                try (var entries = Files.list(viewDir)) {
+                    if (entries.findAny().isEmpty()) {
+                        Files.delete(viewDir);
+                    }
+                }
+            }
+        }
+        return removed;
     }
 }
@@ -3,15 +3,19 @@ package ch.interlis.generator.generator;
 import ch.interlis.generator.model.AttributeMetadata;
 import ch.interlis.generator.model.ClassMetadata;
 import ch.interlis.generator.model.EnumMetadata;
+import ch.interlis.generator.model.InheritanceIndex;
 import ch.interlis.generator.model.ModelMetadata;
+import ch.interlis.generator.model.RelationshipGraph;
 import ch.interlis.generator.model.RelationshipMetadata;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.Deque;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -30,28 +34,83 @@ public class GrailsDomainGenerator {
             .resolve(NameUtils.packageToPath(config.getDomainPackage()));
         Files.createDirectories(baseDir);
 
-        Map<String, List<ClassMetadata>> incomingRelationships = indexIncomingRelations(metadata);
+        RelationshipGraph relationships = metadata.getRelationshipGraph();
+        InheritanceIndex inheritance = metadata.getInheritanceIndex();
+        Set<String> domainClasses = domainClasses(metadata, config);
 
         for (ClassMetadata classMetadata : metadata.getAllClasses()) {
-            if (classMetadata.isAbstract()) {
+            if (classMetadata.isAbstract()
+                || !inheritance.hasOwnTable(classMetadata)
+                || !domainClasses.contains(classMetadata.getName())
+                || !config.getRegeneratedClasses().matches(classMetadata.getName())) {
                 continue;
             }
-            String content = renderDomain(classMetadata, metadata, config, incomingRelationships);
+            String content = renderDomain(classMetadata, metadata, config, relationships, inheritance,
+                domainClasses);
             Path target = baseDir.resolve(classMetadata.getSimpleName() + ".groovy");
             Files.writeString(target, content, StandardCharsets.UTF_8);
         }
     }
 
+    /**
+     * Klassen, für die eine Domain-Klasse entsteht: die ausgewählten und alle, auf die sie über
+     * Referenzen oder als joined Basisklasse angewiesen sind (sonst fehlten Typen bzw. geerbte
+     * Attribute). Controller und Views gibt es weiterhin nur für die ausgewählten Klassen.
+     */
+    static Set<String> domainClasses(ModelMetadata metadata, GenerationConfig config) {
+        InheritanceIndex inheritance = metadata.getInheritanceIndex();
+        RelationshipGraph relationships = metadata.getRelationshipGraph();
+        Set<String> names = new LinkedHashSet<>();
+        Deque<ClassMetadata> pending = new ArrayDeque<>();
+        for (ClassMetadata classMetadata : metadata.getAllClasses()) {
+            if (config.getClassSelection().matches(classMetadata.getName())) {
+                pending.add(classMetadata);
+            }
+        }
+        while (!pending.isEmpty()) {
+            ClassMetadata classMetadata = pending.poll();
+            if (!names.add(classMetadata.getName())) {
+                continue;
+            }
+            ClassMetadata superclass = inheritance.getJoinedSuperclass(classMetadata);
+            if (superclass != null) {
+                pending.add(superclass);
+            }
+            for (AttributeMetadata attr : classMetadata.getAllAttributes()) {
+                ClassMetadata referenced = attr.isForeignKey() && attr.getReferencedClass() != null
+                    ? metadata.getClass(attr.getReferencedClass()) : null;
+                if (referenced != null) {
+                    pending.add(referenced);
+                }
+            }
+            for (RelationshipGraph.Edge edge : relationships.getOutgoing(classMetadata)) {
+                if (edge.getTarget() != null) {
+                    pending.add(edge.getTarget());
+                }
+            }
+        }
+        return names;
+    }
+
     private String renderDomain(ClassMetadata classMetadata,
                                 ModelMetadata metadata,
                                 GenerationConfig config,
-                                Map<String, List<ClassMetadata>> incomingRelations) {
+                                RelationshipGraph relationships,
+                                InheritanceIndex inheritance,
+                                Set<String> domainClasses) {
         String className = classMetadata.getSimpleName();
+        // Ohne smart2 liegen geerbte Attribute in der Tabelle der Basisklasse (joined subclass);
+        // diese ist immer Teil der Domain-Klassen, auch wenn sie nicht ausgewählt wurde
+        ClassMetadata superclass = inheritance.getJoinedSuperclass(classMetadata);
+        if (superclass != null && superclass.isAbstract()) {
+            superclass = null;
+        }
         String packageName = config.getDomainPackage();
 
         Set<String> imports = new LinkedHashSet<>();
         List<String> properties = new ArrayList<>();
         Map<String, String> columnMappings = new LinkedHashMap<>();
+        Map<String, String> typeMappings = new LinkedHashMap<>();
         boolean hasIdAttribute = false;
         boolean hasPrimaryKeyTId = false;
         boolean hasTIdColumn = false;
@@ -69,7 +128,7 @@ public class GrailsDomainGenerator {
             if (attr.isPrimaryKey()) {
                 continue;
             }
-            String propertyName = resolvePropertyName(attr);
+            String propertyName = NameUtils.propertyName(attr);
             String type = resolveType(attr, metadata, config, imports);
             properties.add("    " + type + " " + propertyName);
 
@@ -77,6 +136,10 @@ public class GrailsDomainGenerator {
                 && (attr.isForeignKey() || !attr.getColumnName().equalsIgnoreCase(propertyName))) {
                 columnMappings.put(propertyName, attr.getColumnName());
             }
+            String userType = resolveUserType(attr, metadata, config, imports);
+            if (userType != null) {
+                typeMappings.put(propertyName, "type: " + userType);
+            }
         }
 
         StringBuilder sb = new StringBuilder();
@@ -85,25 +148,31 @@ public class GrailsDomainGenerator {
             imports.forEach(imp -> sb.append("import ").append(imp).append("\n"));
             sb.append("\n");
         }
-        sb.append("class ").append(className).append(" {\n\n");
+        sb.append("class ").append(className);
+        if (superclass != null) {
+            sb.append(" extends ").append(superclass.getSimpleName());
+        }
+        sb.append(" {\n\n");
 
         for (String property : properties) {
             sb.append(property).append("\n");
         }
 
-        List<ClassMetadata> ownedBy = incomingRelations.getOrDefault(classMetadata.getName(), List.of());
+        Map<String, String> associationMappings = resolveToOneFetch(classMetadata, metadata, relationships, config);
+        List<ClassMetadata> ownedBy = resolveHasMany(classMetadata, relationships, domainClasses);
         if (!ownedBy.isEmpty()) {
-            String hasManyBlock = ownedBy.stream()
-                .sorted(Comparator.comparing(ClassMetadata::getSimpleName))
-                .map(source -> {
-                    String propName = NameUtils.pluralize(NameUtils.toLowerCamel(source.getSimpleName()));
-                    return propName + ": " + source.getSimpleName();
-                })
-                .collect(Collectors.joining(", "));
-            sb.append("\n    static hasMany = [").append(hasManyBlock).append("]\n");
+            ownedBy.sort(Comparator.comparing(ClassMetadata::getSimpleName));
+            String collectionMapping = collectionFetch(config);
+            List<String> hasManyEntries = new ArrayList<>();
+            for (ClassMetadata source : ownedBy) {
+                String propName = NameUtils.pluralize(NameUtils.toLowerCamel(source.getSimpleName()));
+                hasManyEntries.add(propName + ": " + source.getSimpleName());
+                associationMappings.put(propName, collectionMapping);
+            }
+            sb.append("\n    static hasMany = [").append(String.join(", ", hasManyEntries)).append("]\n");
         }
 
-        Map<String, String> belongsTo = resolveBelongsTo(classMetadata, metadata);
+        Map<String, String> belongsTo = resolveBelongsTo(classMetadata, relationships);
         if (!belongsTo.isEmpty()) {
             String belongsToBlock = belongsTo.entrySet().stream()
                 .map(entry -> entry.getKey() + ": " + entry.getValue())
@@ -115,19 +184,46 @@ public class GrailsDomainGenerator {
         if (classMetadata.getTableName() != null) {
             sb.append("        table '").append(classMetadata.getTableName()).append("'\n");
         }
-        boolean requiresTIdMapping = hasPrimaryKeyTId || (!hasIdAttribute && hasTIdColumn);
-        if (requiresTIdMapping) {
-            sb.append("        id column: 't_id', generator: 'identity'\n");
+        if (superclass == null) {
+            if (inheritance.hasJoinedSubclasses(classMetadata)) {
+                sb.append("        tablePerHierarchy false\n");
+            }
+            boolean requiresTIdMapping = hasPrimaryKeyTId || (!hasIdAttribute && hasTIdColumn);
+            if (requiresTIdMapping) {
+                sb.append("        id column: 't_id', generator: 'identity'\n");
+            }
+
+            sb.append("        version false\n");
+            // Cache-Strategie gilt für die ganze Hierarchie und steht daher nur an der Wurzel
+            String cacheUsage = SecondLevelCache.usage(classMetadata, metadata, config);
+            if (cacheUsage != null) {
+                sb.append("        cache usage: '").append(cacheUsage).append("'\n");
+            }
+            // Proxies dieser Klasse gesammelt nachladen statt einzeln (N+1)
+            if (config.getAssociationBatchSize() > 0) {
+                sb.append("        batchSize ").append(config.getAssociationBatchSize()).append("\n");
+            }
         }
         
-        sb.append("        version false\n");
-        
-        if (!columnMappings.isEmpty()) {
+        Set<String> mappedProperties = new LinkedHashSet<>(columnMappings.keySet());
+        mappedProperties.addAll(typeMappings.keySet());
+        mappedProperties.addAll(associationMappings.keySet());
+        if (!mappedProperties.isEmpty()) {
             sb.append("        columns {\n");
-            columnMappings.forEach((propertyName, columnName) ->
-                sb.append("            ").append(propertyName).append(" column: '")
-                    .append(columnName).append("'\n")
-            );
+            for (String propertyName : mappedProperties) {
+                List<String> options = new ArrayList<>(2);
+                if (columnMappings.containsKey(propertyName)) {
+                    options.add("column: '" + columnMappings.get(propertyName) + "'");
+                }
+                if (typeMappings.containsKey(propertyName)) {
+                    options.add(typeMappings.get(propertyName));
+                }
+                if (associationMappings.containsKey(propertyName)) {
+                    options.add(associationMappings.get(propertyName));
+                }
+                sb.append("            ").append(propertyName).append(" ")
+                    .append(String.join(", ", options)).append("\n");
+            }
             sb.append("        }\n");
         }
         sb.append("    }\n");
@@ -137,7 +233,7 @@ public class GrailsDomainGenerator {
             if (attr.isPrimaryKey()) {
                 continue;
             }
-            String propertyName = resolvePropertyName(attr);
+            String propertyName = NameUtils.propertyName(attr);
             List<String> constraintParts = new ArrayList<>();
             if (!attr.isMandatory()) {
                 constraintParts.add("nullable: true");
@@ -165,18 +261,95 @@ public class GrailsDomainGenerator {
         return sb.toString();
     }
 
-    private Map<String, List<ClassMetadata>> indexIncomingRelations(ModelMetadata metadata) {
-        Map<String, List<ClassMetadata>> incoming = new LinkedHashMap<>();
-        for (ClassMetadata source : metadata.getAllClasses()) {
-            for (RelationshipMetadata rel : source.getRelationships()) {
-                if (rel.getType() == RelationshipMetadata.RelationType.MANY_TO_ONE
-                    && rel.getTargetClass() != null) {
-                    incoming.computeIfAbsent(rel.getTargetClass(), key -> new ArrayList<>())
-                        .add(source);
-                }
+    /**
+     * Klassen, die auf diese Klasse verweisen; nur solche mit eigener Domain-Klasse.
+     */
+    private List<ClassMetadata> resolveHasMany(ClassMetadata classMetadata, RelationshipGraph relationships,
+                                               Set<String> domainClasses) {
+        List<ClassMetadata> sources = new ArrayList<>();
+        for (RelationshipGraph.Edge edge : relationships.getIncoming(classMetadata)) {
+            if (edge.getRelationship() != null
+                && edge.getType() == RelationshipMetadata.RelationType.MANY_TO_ONE
+                && domainClasses.contains(edge.getSource().getName())
+                && !sources.contains(edge.getSource())) {
+                sources.add(edge.getSource());
             }
         }
-        return incoming;
+        return sources;
+    }
+
+    /**
+     * Fetch-Strategie der To-one-Referenzen: obligatorische Referenzen werden per Join geladen,
+     * optionale und gecachte bleiben lazy und profitieren vom {@code batchSize} der Zielklasse.
+     */
+    private Map<String, String> resolveToOneFetch(ClassMetadata classMetadata,
+                                                  ModelMetadata metadata,
+                                                  RelationshipGraph relationships,
+                                                  GenerationConfig config) {
+        Map<String, String> mappings = new LinkedHashMap<>();
+        if (!config.isJoinFetchMandatoryReferences()) {
+            return mappings;
+        }
+        for (RelationshipGraph.Edge edge : relationships.getOutgoing(classMetadata)) {
+            AttributeMetadata attr = edge.getAttribute();
+            // Selbstreferenzen nicht joinen, sonst lädt Hibernate ganze Ketten mit
+            if (attr == null || edge.getTarget() == null || edge.getTarget() == classMetadata
+                || !isToOne(edge) || !isMandatoryReference(edge)) {
+                continue;
+            }
+            // Gecachte Ziele kommen aus dem Second-Level-Cache, ein Join würde ihn umgehen
+            if (SecondLevelCache.isCached(edge.getTarget(), metadata, config)) {
+                continue;
+            }
+            mappings.put(NameUtils.propertyName(attr), "fetch: 'join'");
+        }
+        return mappings;
+    }
+
+    private String collectionFetch(GenerationConfig config) {
+        String mapping = "lazy: " + config.isLazyCollections();
+        if (config.getAssociationBatchSize() > 0) {
+            mapping += ", batchSize: " + config.getAssociationBatchSize();
+        }
+        return mapping;
+    }
+
+    private boolean isToOne(RelationshipGraph.Edge edge) {
+        RelationshipMetadata.RelationType type = edge.getType();
+        if (type == RelationshipMetadata.RelationType.MANY_TO_ONE
+            || type == RelationshipMetadata.RelationType.ONE_TO_ONE) {
+            return true;
+        }
+        RelationshipMetadata.Cardinality cardinality = cardinality(edge);
+        return cardinality != null && cardinality.getMaxTarget() == 1;
+    }
+
+    private boolean isMandatoryReference(RelationshipGraph.Edge edge) {
+        if (edge.isMandatory()) {
+            return true;
+        }
+        RelationshipMetadata.Cardinality cardinality = cardinality(edge);
+        return cardinality != null && cardinality.getMinTarget() >= 1;
+    }
+
+    private RelationshipMetadata.Cardinality cardinality(RelationshipGraph.Edge edge) {
+        return edge.getRelationship() != null ? edge.getRelationship().getCardinality() : null;
+    }
+
+    /**
+     * Enums werden über den generierten Hibernate-Typ in der Darstellung von ili2db gespeichert
+     * (iliCode bzw. ITF-Code), nicht über den Konstantennamen.
+     */
+    private String resolveUserType(AttributeMetadata attr,
+                                   ModelMetadata metadata,
+                                   GenerationConfig config,
+                                   Set<String> imports) {
+        EnumMetadata enumMetadata = attr.getEnumType() != null ? metadata.getEnums().get(attr.getEnumType()) : null;
+        String userType = enumMetadata != null ? GrailsEnumGenerator.userType(attr, enumMetadata) : null;
+        if (userType != null) {
+            imports.add(config.getEnumPackage() + "." + userType);
+        }
+        return userType;
     }
 
     private String resolveType(AttributeMetadata attr,
@@ -224,29 +397,21 @@ public class GrailsDomainGenerator {
         return "t_id".equalsIgnoreCase(attr.getName());
     }
 
-    private Map<String, String> resolveBelongsTo(ClassMetadata classMetadata, ModelMetadata metadata) {
+    private Map<String, String> resolveBelongsTo(ClassMetadata classMetadata, RelationshipGraph relationships) {
         Map<String, String> belongsTo = new LinkedHashMap<>();
-        for (AttributeMetadata attr : classMetadata.getAllAttributes()) {
-            if (!attr.isForeignKey() || attr.getReferencedClass() == null) {
+        for (RelationshipGraph.Edge edge : relationships.getOutgoing(classMetadata)) {
+            AttributeMetadata attr = edge.getAttribute();
+            if (attr == null) {
                 continue;
             }
-            String propertyName = resolvePropertyName(attr);
+            String propertyName = NameUtils.propertyName(attr);
             if (propertyName == null || propertyName.isBlank()) {
                 continue;
             }
-            ClassMetadata referenced = metadata.getClass(attr.getReferencedClass());
-            String targetName = referenced != null ? referenced.getSimpleName()
-                : NameUtils.simpleType(attr.getReferencedClass());
+            String targetName = edge.getTarget() != null ? edge.getTarget().getSimpleName()
+                : NameUtils.simpleType(edge.getTargetName());
             belongsTo.put(propertyName, targetName);
         }
         return belongsTo;
     }
-
-    private String resolvePropertyName(AttributeMetadata attr) {
-        String propertyName = attr.getSqlName();
-        if (propertyName == null || propertyName.isBlank()) {
-            propertyName = attr.getName();
-        }
-        return propertyName;
-    }
 }
@@ -1,5 +1,7 @@
 package ch.interlis.generator.generator;
 
+import ch.interlis.generator.model.AttributeMetadata;
+import ch.interlis.generator.model.ClassMetadata;
 import ch.interlis.generator.model.EnumMetadata;
 import ch.interlis.generator.model.ModelMetadata;
 
@@ -7,13 +9,26 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.stream.Collectors;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 
 /**
  * Generiert Enum-Klassen aus INTERLIS Enumerationen.
+ *
+ * Jede Konstante trägt iliCode, ITF-Code ({@code seq}), dispName und die Labels pro Sprache;
+ * die Umrechnungen laufen über beim Laden der Klasse aufgebaute Nachschlagetabellen statt über
+ * {@code values()}. Dazu kommt pro Enum ein Hibernate-Typ, der die Darstellung von ili2db
+ * liest und schreibt (iliCode in Textspalten, ITF-Code in Zahlspalten).
  */
 public class GrailsEnumGenerator {
 
+    static final String BASE_TYPE = "IliEnumType";
+    static final String ENUM_INTERFACE = "IliEnum";
+
     public void generate(ModelMetadata metadata, GenerationConfig config) throws IOException {
         if (metadata.getAllEnums().isEmpty()) {
             return;
@@ -23,28 +38,343 @@ public class GrailsEnumGenerator {
             .resolve(NameUtils.packageToPath(config.getEnumPackage()));
         Files.createDirectories(baseDir);
 
+        Set<String> selectedEnums = resolveSelectedEnums(metadata, config);
+        Set<String> codeEnums = resolveCodeEnums(metadata);
+        boolean typed = false;
         for (EnumMetadata enumMetadata : metadata.getAllEnums()) {
+            if (selectedEnums != null && !selectedEnums.contains(enumMetadata.getName())) {
+                continue;
+            }
             String content = renderEnum(enumMetadata, config.getEnumPackage());
             Path target = baseDir.resolve(enumMetadata.getSimpleName() + ".groovy");
             Files.writeString(target, content, StandardCharsets.UTF_8);
+            if (enumMetadata.getValues().isEmpty()) {
+                continue;
+            }
+            typed = true;
+            Files.writeString(baseDir.resolve(enumMetadata.getSimpleName() + "Type.groovy"),
+                renderType(enumMetadata, config.getEnumPackage()), StandardCharsets.UTF_8);
+            if (codeEnums.contains(enumMetadata.getName())) {
+                Files.writeString(baseDir.resolve(enumMetadata.getSimpleName() + "CodeType.groovy"),
+                    renderCodeType(enumMetadata, config.getEnumPackage()), StandardCharsets.UTF_8);
+            }
+        }
+        if (typed) {
+            Files.writeString(baseDir.resolve(ENUM_INTERFACE + ".groovy"),
+                renderInterface(config.getEnumPackage()), StandardCharsets.UTF_8);
+            Files.writeString(baseDir.resolve(BASE_TYPE + ".groovy"),
+                renderBaseType(config.getEnumPackage()), StandardCharsets.UTF_8);
         }
     }
 
-    private String renderEnum(EnumMetadata enumMetadata, String packageName) {
-        String values = enumMetadata.getValues().stream()
-            .map(EnumMetadata.EnumValue::getIliCode)
-            .map(value -> value.replace('.', '_'))
-            .collect(Collectors.joining(", "));
+    /**
+     * Hibernate-Typ eines Enum-Attributs oder {@code null}, wenn das Enum keine Werte hat.
+     * Zahlspalten (ili2db {@code --createEnumColAsItfCode}) speichern den ITF-Code.
+     */
+    static String userType(AttributeMetadata attr, EnumMetadata enumMetadata) {
+        if (enumMetadata.getValues().isEmpty()) {
+            return null;
+        }
+        return enumMetadata.getSimpleName() + (isCodeColumn(attr) ? "CodeType" : "Type");
+    }
+
+    private static boolean isCodeColumn(AttributeMetadata attr) {
+        return attr.getDbType() != null && attr.getDbType().toUpperCase(Locale.ROOT).contains("INT");
+    }
+
+    private Set<String> resolveCodeEnums(ModelMetadata metadata) {
+        Set<String> codeEnums = new HashSet<>();
+        for (ClassMetadata classMetadata : metadata.getAllClasses()) {
+            for (AttributeMetadata attr : classMetadata.getAllAttributes()) {
+                if (attr.getEnumType() != null && isCodeColumn(attr)) {
+                    codeEnums.add(attr.getEnumType());
+                }
+            }
+        }
+        return codeEnums;
+    }
+
+    /**
+     * Bei einer Klassenauswahl nur die von den (neu) generierten Domain-Klassen verwendeten Enums
+     * (sonst {@code null}).
+     */
+    private Set<String> resolveSelectedEnums(ModelMetadata metadata, GenerationConfig config) {
+        if (config.getClassSelection().isAll() && config.getRegeneratedClasses().isAll()) {
+            return null;
+        }
+        Set<String> domainClasses = GrailsDomainGenerator.domainClasses(metadata, config);
+        Set<String> selected = new HashSet<>();
+        for (ClassMetadata classMetadata : metadata.getAllClasses()) {
+            if (!domainClasses.contains(classMetadata.getName())
+                || !config.getRegeneratedClasses().matches(classMetadata.getName())) {
+                continue;
+            }
+            for (AttributeMetadata attr : classMetadata.getAllAttributes()) {
+                String enumName = attr.getEnumType();
+                while (enumName != null && selected.add(enumName)) {
+                    EnumMetadata enumMetadata = metadata.getEnums().get(enumName);
+                    enumName = enumMetadata != null ? enumMetadata.getBaseEnum() : null;
+                }
+            }
+        }
+        return selected;
+    }
 
+    private String renderEnum(EnumMetadata enumMetadata, String packageName) {
+        String name = enumMetadata.getSimpleName();
         StringBuilder sb = new StringBuilder();
         sb.append("package ").append(packageName).append("\n\n");
-        sb.append("enum ").append(enumMetadata.getSimpleName()).append(" {\n");
-        if (values.isEmpty()) {
+        if (enumMetadata.getValues().isEmpty()) {
+            sb.append("enum ").append(name).append(" {\n");
             sb.append("}\n");
             return sb.toString();
         }
-        sb.append("    ").append(values).append("\n");
+        sb.append("import groovy.transform.CompileStatic\n\n");
+        sb.append("/**\n");
+        sb.append(" * INTERLIS-Aufzählung ").append(enumMetadata.getName()).append(" (generiert von ili2grails).\n");
+        sb.append(" */\n");
+        sb.append("@CompileStatic\n");
+        sb.append("enum ").append(name).append(" implements ").append(ENUM_INTERFACE).append(" {\n");
+        List<EnumMetadata.EnumValue> values = enumMetadata.getValues();
+        for (int i = 0; i < values.size(); i++) {
+            EnumMetadata.EnumValue value = values.get(i);
+            sb.append("    ").append(value.getIliCode().replace('.', '_'))
+                .append("('").append(escapeGroovy(value.getIliCode())).append("', ").append(value.getSeq())
+                .append(", '").append(escapeGroovy(value.getDispName() != null ? value.getDispName() : value.getIliCode()))
+                .append("', ").append(renderLabels(value.getLabels()))
+                .append(i < values.size() - 1 ? "),\n" : ")\n");
+        }
+        sb.append("\n");
+        sb.append("    // Nachschlagetabellen, einmal beim Laden der Klasse aufgebaut\n");
+        sb.append("    private static final Map<String, ").append(name).append("> BY_ILI_CODE = new HashMap<>()\n");
+        sb.append("    private static final Map<Integer, ").append(name).append("> BY_SEQ = new HashMap<>()\n");
+        sb.append("    private static final Map<String, ").append(name).append("> BY_DISP_NAME = new HashMap<>()\n");
+        sb.append("    private static final Map<String, Map<String, ").append(name).append(">> BY_LABEL = new HashMap<>()\n\n");
+        sb.append("    static {\n");
+        sb.append("        for (").append(name).append(" value : values()) {\n");
+        sb.append("            BY_ILI_CODE.put(value.iliCode, value)\n");
+        sb.append("            BY_SEQ.put(value.seq, value)\n");
+        sb.append("            BY_DISP_NAME.put(value.dispName, value)\n");
+        sb.append("            for (Map.Entry<String, String> label : value.labels.entrySet()) {\n");
+        sb.append("                Map<String, ").append(name).append("> byLabel = BY_LABEL.get(label.key)\n");
+        sb.append("                if (byLabel == null) {\n");
+        sb.append("                    byLabel = new HashMap<>()\n");
+        sb.append("                    BY_LABEL.put(label.key, byLabel)\n");
+        sb.append("                }\n");
+        sb.append("                byLabel.put(label.value, value)\n");
+        sb.append("            }\n");
+        sb.append("        }\n");
+        sb.append("    }\n\n");
+        sb.append("    final String iliCode\n");
+        sb.append("    final int seq\n");
+        sb.append("    final String dispName\n");
+        sb.append("    final Map<String, String> labels\n\n");
+        sb.append("    ").append(name).append("(String iliCode, int seq, String dispName, Map<String, String> labels) {\n");
+        sb.append("        this.iliCode = iliCode\n");
+        sb.append("        this.seq = seq\n");
+        sb.append("        this.dispName = dispName\n");
+        sb.append("        this.labels = Collections.unmodifiableMap(labels)\n");
+        sb.append("    }\n\n");
+        sb.append("    /**\n");
+        sb.append("     * Label in der Sprache {@code language}, sonst der dispName.\n");
+        sb.append("     */\n");
+        sb.append("    String label(String language) {\n");
+        sb.append("        String label = language != null ? labels.get(language) : null\n");
+        sb.append("        label != null ? label : dispName\n");
+        sb.append("    }\n\n");
+        sb.append("    static ").append(name).append(" fromIliCode(String iliCode) {\n");
+        sb.append("        iliCode != null ? BY_ILI_CODE.get(iliCode) : null\n");
+        sb.append("    }\n\n");
+        sb.append("    static ").append(name).append(" fromSeq(Integer seq) {\n");
+        sb.append("        seq != null ? BY_SEQ.get(seq) : null\n");
+        sb.append("    }\n\n");
+        sb.append("    /**\n");
+        sb.append("     * Wert zum Label in der Sprache {@code language}; ohne Treffer (oder ohne Sprache) per dispName.\n");
+        sb.append("     */\n");
+        sb.append("    static ").append(name).append(" fromDispName(String dispName, String language = null) {\n");
+        sb.append("        if (dispName == null) {\n");
+        sb.append("            return null\n");
+        sb.append("        }\n");
+        sb.append("        Map<String, ").append(name).append("> byLabel = language != null ? BY_LABEL.get(language) : null\n");
+        sb.append("        ").append(name).append(" value = byLabel != null ? byLabel.get(dispName) : null\n");
+        sb.append("        value != null ? value : BY_DISP_NAME.get(dispName)\n");
+        sb.append("    }\n");
         sb.append("}\n");
         return sb.toString();
     }
+
+    private String renderLabels(Map<String, String> labels) {
+        if (labels.isEmpty()) {
+            return "[:]";
+        }
+        StringBuilder sb = new StringBuilder("[");
+        // Sortiert, damit die Ausgabe stabil bleibt
+        for (Map.Entry<String, String> label : new TreeMap<>(labels).entrySet()) {
+            if (sb.length() > 1) {
+                sb.append(", ");
+            }
+            sb.append("'").append(escapeGroovy(label.getKey())).append("': '")
+                .append(escapeGroovy(label.getValue())).append("'");
+        }
+        return sb.append("]").toString();
+    }
+
+    private String renderType(EnumMetadata enumMetadata, String packageName) {
+        String name = enumMetadata.getSimpleName();
+        StringBuilder sb = new StringBuilder();
+        sb.append("package ").append(packageName).append("\n\n");
+        sb.append("import groovy.transform.CompileStatic\n\n");
+        sb.append("/**\n");
+        sb.append(" * Hibernate-Typ für ").append(name).append(": iliCode in der Spalte.\n");
+        sb.append(" */\n");
+        sb.append("@CompileStatic\n");
+        sb.append("class ").append(name).append("Type extends ").append(BASE_TYPE).append("<").append(name).append("> {\n\n");
+        sb.append("    ").append(name).append("Type() {\n");
+        sb.append("        this(false)\n");
+        sb.append("    }\n\n");
+        sb.append("    protected ").append(name).append("Type(boolean code) {\n");
+        sb.append("        super(").append(name).append(", code)\n");
+        sb.append("    }\n\n");
+        sb.append("    @Override\n");
+        sb.append("    protected ").append(name).append(" fromIliCode(String iliCode) {\n");
+        sb.append("        ").append(name).append(".fromIliCode(iliCode)\n");
+        sb.append("    }\n\n");
+        sb.append("    @Override\n");
+        sb.append("    protected ").append(name).append(" fromSeq(int seq) {\n");
+        sb.append("        ").append(name).append(".fromSeq(seq)\n");
+        sb.append("    }\n");
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    private String renderCodeType(EnumMetadata enumMetadata, String packageName) {
+        String name = enumMetadata.getSimpleName();
+        StringBuilder sb = new StringBuilder();
+        sb.append("package ").append(packageName).append("\n\n");
+        sb.append("import groovy.transform.CompileStatic\n\n");
+        sb.append("/**\n");
+        sb.append(" * Hibernate-Typ für ").append(name).append(": ITF-Code in der Spalte (ili2db --createEnumColAsItfCode).\n");
+        sb.append(" */\n");
+        sb.append("@CompileStatic\n");
+        sb.append("class ").append(name).append("CodeType extends ").append(name).append("Type {\n\n");
+        sb.append("    ").append(name).append("CodeType() {\n");
+        sb.append("        super(true)\n");
+        sb.append("    }\n");
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    private String renderInterface(String packageName) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("package ").append(packageName).append("\n\n");
+        sb.append("/**\n");
+        sb.append(" * Gemeinsame Sicht auf die generierten INTERLIS-Aufzählungen.\n");
+        sb.append(" */\n");
+        sb.append("interface ").append(ENUM_INTERFACE).append(" {\n\n");
+        sb.append("    String getIliCode()\n\n");
+        sb.append("    int getSeq()\n\n");
+        sb.append("    String getDispName()\n");
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    private String renderBaseType(String packageName) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("package ").append(packageName).append("\n\n");
+        sb.append("import groovy.transform.CompileStatic\n");
+        sb.append("import org.hibernate.HibernateException\n");
+        sb.append("import org.hibernate.engine.spi.SharedSessionContractImplementor\n");
+        sb.append("import org.hibernate.usertype.UserType\n\n");
+        sb.append("import java.sql.PreparedStatement\n");
+        sb.append("import java.sql.ResultSet\n");
+        sb.append("import java.sql.SQLException\n");
+        sb.append("import java.sql.Types\n\n");
+        sb.append("/**\n");
+        sb.append(" * Bildet INTERLIS-Aufzählungen auf die Spalten von ili2db ab: Textspalten enthalten den\n");
+        sb.append(" * iliCode ('rot.hell'), Zahlspalten den ITF-Code. Die Umrechnung läuft über die\n");
+        sb.append(" * Nachschlagetabellen der Enums.\n");
+        sb.append(" */\n");
+        sb.append("@CompileStatic\n");
+        sb.append("abstract class ").append(BASE_TYPE).append("<E extends Enum<E>> implements UserType {\n\n");
+        sb.append("    private final Class<E> enumClass\n");
+        sb.append("    private final boolean code\n\n");
+        sb.append("    protected ").append(BASE_TYPE).append("(Class<E> enumClass, boolean code) {\n");
+        sb.append("        this.enumClass = enumClass\n");
+        sb.append("        this.code = code\n");
+        sb.append("    }\n\n");
+        sb.append("    protected abstract E fromIliCode(String iliCode)\n\n");
+        sb.append("    protected abstract E fromSeq(int seq)\n\n");
+        sb.append("    @Override\n");
+        sb.append("    int[] sqlTypes() {\n");
+        sb.append("        [code ? Types.INTEGER : Types.VARCHAR] as int[]\n");
+        sb.append("    }\n\n");
+        sb.append("    @Override\n");
+        sb.append("    Class returnedClass() {\n");
+        sb.append("        enumClass\n");
+        sb.append("    }\n\n");
+        sb.append("    @Override\n");
+        sb.append("    Object nullSafeGet(ResultSet rs, String[] names, SharedSessionContractImplementor session, Object owner)\n");
+        sb.append("        throws SQLException {\n");
+        sb.append("        if (code) {\n");
+        sb.append("            int seq = rs.getInt(names[0])\n");
+        sb.append("            return rs.wasNull() ? null : resolve(fromSeq(seq), seq, names[0])\n");
+        sb.append("        }\n");
+        sb.append("        String iliCode = rs.getString(names[0])\n");
+        sb.append("        iliCode != null ? resolve(fromIliCode(iliCode), iliCode, names[0]) : null\n");
+        sb.append("    }\n\n");
+        sb.append("    private E resolve(E value, Object stored, String column) {\n");
+        sb.append("        if (value == null) {\n");
+        sb.append("            throw new HibernateException(\"Unknown ${enumClass.simpleName} value in column ${column}: ${stored}\")\n");
+        sb.append("        }\n");
+        sb.append("        value\n");
+        sb.append("    }\n\n");
+        sb.append("    @Override\n");
+        sb.append("    void nullSafeSet(PreparedStatement st, Object value, int index, SharedSessionContractImplementor session)\n");
+        sb.append("        throws SQLException {\n");
+        sb.append("        if (value == null) {\n");
+        sb.append("            st.setNull(index, code ? Types.INTEGER : Types.VARCHAR)\n");
+        sb.append("        } else if (code) {\n");
+        sb.append("            st.setInt(index, ((").append(ENUM_INTERFACE).append(") value).seq)\n");
+        sb.append("        } else {\n");
+        sb.append("            st.setString(index, ((").append(ENUM_INTERFACE).append(") value).iliCode)\n");
+        sb.append("        }\n");
+        sb.append("    }\n\n");
+        sb.append("    @Override\n");
+        sb.append("    boolean equals(Object x, Object y) {\n");
+        sb.append("        x.is(y)\n");
+        sb.append("    }\n\n");
+        sb.append("    @Override\n");
+        sb.append("    int hashCode(Object x) {\n");
+        sb.append("        x != null ? x.hashCode() : 0\n");
+        sb.append("    }\n\n");
+        sb.append("    @Override\n");
+        sb.append("    Object deepCopy(Object value) {\n");
+        sb.append("        value\n");
+        sb.append("    }\n\n");
+        sb.append("    @Override\n");
+        sb.append("    boolean isMutable() {\n");
+        sb.append("        false\n");
+        sb.append("    }\n\n");
+        sb.append("    @Override\n");
+        sb.append("    Serializable disassemble(Object value) {\n");
+        sb.append("        (Serializable) value\n");
+        sb.append("    }\n\n");
+        sb.append("    @Override\n");
+        sb.append("    Object assemble(Serializable cached, Object owner) {\n");
+        sb.append("        cached\n");
+        sb.append("    }\n\n");
+        sb.append("    @Override\n");
+        sb.append("    Object replace(Object original, Object target, Object owner) {\n");
+        sb.append("        original\n");
+        sb.append("    }\n");
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    private String escapeGroovy(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.replace("\\", "\\\\").replace("'", "\\'");
+    }
 }
@@ -0,0 +1,165 @@
+package ch.interlis.generator.generator;
+
+import ch.interlis.generator.model.AttributeMetadata;
+import ch.interlis.generator.model.ClassMetadata;
+import ch.interlis.generator.model.InheritanceIndex;
+import ch.interlis.generator.model.ModelMetadata;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Schreibt {@code db/ili2grails/indexes.sql} mit den fehlenden Indexen für die Zugriffe der
+ * generierten Anwendung: Fremdschlüssel (Joins, {@code hasMany}-Collections), {@code t_basket}
+ * und {@code t_ili_tid} (Datenumbau, Lookups per TID) sowie GiST-Indexe auf Geometrien.
+ *
+ * Grundlage sind die beim Lesen der Metadaten erfassten führenden Indexspalten. Bereits
+ * indexierte Spalten werden ausgelassen; gibt es nichts zu tun, wird keine Datei geschrieben.
+ * Mit Volltextsuche wird zusätzlich der {@code tsvector}-Ausdruck über die Textattribute
+ * indexiert (GIN).
+ */
+class GrailsIndexMigrationGenerator {
+
+    static final String MIGRATION_FILE = "db/ili2grails/indexes.sql";
+    static final List<String> LOOKUP_COLUMNS = List.of("t_basket", "t_ili_tid");
+    static final String FULL_TEXT_INDEX = "fulltext";
+    private static final int MAX_IDENTIFIER_LENGTH = 63;
+
+    void generate(ModelMetadata metadata, GenerationConfig config) throws IOException {
+        List<String> statements = createIndexStatements(metadata, config);
+        if (statements.isEmpty()) {
+            return;
+        }
+        Path file = config.getOutputDir().resolve(MIGRATION_FILE);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, render(statements, analyzedTables(metadata, config)), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * {@code CREATE INDEX}-Anweisungen für alle Tabellen der generierten Domains.
+     */
+    List<String> createIndexStatements(ModelMetadata metadata, GenerationConfig config) {
+        List<String> statements = new ArrayList<>();
+        Set<String> seenTables = new HashSet<>();
+        for (ClassMetadata classMetadata : tables(metadata, config)) {
+            String tableName = classMetadata.getTableName().toLowerCase(Locale.ROOT);
+            if (!seenTables.add(tableName)) {
+                continue;
+            }
+            String qualifiedTable = qualify(tableName, config);
+            Set<String> covered = new HashSet<>();
+            for (AttributeMetadata attr : classMetadata.getAllAttributes()) {
+                String column = attr.getColumnName() != null ? attr.getColumnName().toLowerCase(Locale.ROOT) : null;
+                if (column == null || attr.isPrimaryKey() || isIndexed(classMetadata, attr, column)) {
+                    continue;
+                }
+                if (attr.isGeometry() && covered.add(column)) {
+                    statements.add(createIndex(tableName, qualifiedTable, column, "gist"));
+                } else if (attr.isForeignKey() && covered.add(column)) {
+                    statements.add(createIndex(tableName, qualifiedTable, column, null));
+                }
+            }
+            for (String column : LOOKUP_COLUMNS) {
+                if (classMetadata.hasSystemColumn(column) && !classMetadata.isIndexedColumn(column)
+                    && covered.add(column)) {
+                    statements.add(createIndex(tableName, qualifiedTable, column, null));
+                }
+            }
+            List<AttributeMetadata> searchable = FullTextSearch.searchableAttributes(classMetadata);
+            if (config.isFullTextSearch() && !searchable.isEmpty()) {
+                statements.add(createIndex(tableName, qualifiedTable, FULL_TEXT_INDEX,
+                    "(" + FullTextSearch.document(searchable, config) + ")", "gin"));
+            }
+        }
+        return statements;
+    }
+
+    private String render(List<String> statements, Set<String> tables) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("-- Generiert von ili2grails: fehlende Indexe für die generierte Anwendung.\n");
+        sb.append("-- CREATE INDEX CONCURRENTLY sperrt keine Schreibzugriffe, darf aber nicht in einer\n");
+        sb.append("-- Transaktion laufen (psql ohne --single-transaction bzw. Liquibase runInTransaction=false).\n\n");
+        for (String statement : statements) {
+            sb.append(statement).append('\n');
+        }
+        sb.append('\n');
+        // Neue Indexe und Zeilenschätzungen (RowCountService) erst nach ANALYZE im Planer verfügbar
+        for (String table : tables) {
+            sb.append("ANALYZE ").append(table).append(";\n");
+        }
+        return sb.toString();
+    }
+
+    private Set<String> analyzedTables(ModelMetadata metadata, GenerationConfig config) {
+        Set<String> tables = new LinkedHashSet<>();
+        for (ClassMetadata classMetadata : tables(metadata, config)) {
+            tables.add(qualify(classMetadata.getTableName().toLowerCase(Locale.ROOT), config));
+        }
+        return tables;
+    }
+
+    private List<ClassMetadata> tables(ModelMetadata metadata, GenerationConfig config) {
+        InheritanceIndex inheritance = metadata.getInheritanceIndex();
+        List<ClassMetadata> tables = new ArrayList<>();
+        for (ClassMetadata classMetadata : metadata.getAllClasses()) {
+            if (classMetadata.getTableName() == null
+                || !inheritance.hasOwnTable(classMetadata)
+                || !config.getClassSelection().matches(classMetadata.getName())) {
+                continue;
+            }
+            tables.add(classMetadata);
+        }
+        return tables;
+    }
+
+    private boolean isIndexed(ClassMetadata classMetadata, AttributeMetadata attr, String column) {
+        return attr.isIndexed() || classMetadata.isIndexedColumn(column);
+    }
+
+    private String createIndex(String tableName, String qualifiedTable, String column, String method) {
+        return createIndex(tableName, qualifiedTable, column, column, method);
+    }
+
+    private String createIndex(String tableName, String qualifiedTable, String name, String expression,
+                               String method) {
+        StringBuilder sb = new StringBuilder("CREATE INDEX CONCURRENTLY IF NOT EXISTS ");
+        sb.append(indexName(tableName, name)).append(" ON ").append(qualifiedTable);
+        if (method != null) {
+            sb.append(" USING ").append(method);
+        }
+        sb.append(" (").append(expression).append(");");
+        return sb.toString();
+    }
+
+    /**
+     * Indexname {@code <tabelle>_<spalte>_idx}; zu lange Namen werden gekürzt und mit einem
+     * Hash eindeutig gehalten (PostgreSQL schneidet Bezeichner nach 63 Bytes stillschweigend ab).
+     */
+    static String indexName(String tableName, String column) {
+        return identifier(tableName + "_" + column + "_idx");
+    }
+
+    /**
+     * Kürzt einen Bezeichner auf die 63 Bytes von PostgreSQL, eindeutig per Hash.
+     */
+    static String identifier(String name) {
+        if (name.length() <= MAX_IDENTIFIER_LENGTH) {
+            return name;
+        }
+        String hash = Integer.toHexString(name.hashCode());
+        return name.substring(0, MAX_IDENTIFIER_LENGTH - hash.length() - 1) + "_" + hash;
+    }
+
+    private String qualify(String tableName, GenerationConfig config) {
+        String schema = config.getSchema();
+        return schema != null && !schema.isBlank() ? schema + "." + tableName : tableName;
+    }
+}
@@ -0,0 +1,621 @@
+package ch.interlis.generator.generator;
+
+import ch.interlis.generator.model.AttributeMetadata;
+import ch.interlis.generator.model.ClassMetadata;
+import ch.interlis.generator.model.EnumMetadata;
+import ch.interlis.generator.model.InheritanceIndex;
+import ch.interlis.generator.model.ModelMetadata;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Schreibt {@code loadtest/LoadTest.java}: einen eigenständigen Lasttest (nur JDK, per
+ * {@code java LoadTest.java} startbar) für die generierten Controller.
+ *
+ * Die Fixtures werden aus den Metadaten abgeleitet: Texte innerhalb der Maximallänge, Zahlen
+ * innerhalb des Wertebereichs, Aufzählungen, Datumswerte und Referenzen auf zuvor angelegte
+ * Objekte. Klassen mit Pflichtattributen, die sich so nicht füllen lassen (z. B. Geometrien),
+ * werden nur gelesen. Die Objekte entstehen über die Save-Action der App und sind damit auf
+ * H2 wie auf PostgreSQL gültig. Am Ende löscht der Lasttest alle selbst angelegten Objekte
+ * wieder; Änderungen betreffen nur diese Objekte, nie vorhandene Daten.
+ */
+class GrailsLoadTestGenerator {
+
+    static final String LOAD_TEST_FILE = "loadtest/LoadTest.java";
+    private static final int DEFAULT_TEXT_LENGTH = 200;
+    private static final long DEFAULT_MAX_NUMBER = 100_000L;
+
+    void generate(ModelMetadata metadata, GenerationConfig config) throws IOException {
+        Path file = config.getOutputDir().resolve(LOAD_TEST_FILE);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, render(metadata, config), StandardCharsets.UTF_8);
+    }
+
+    private String render(ModelMetadata metadata, GenerationConfig config) {
+        List<ClassMetadata> classes = orderedClasses(metadata, config);
+        Set<String> controllers = new HashSet<>();
+        classes.forEach(classMetadata -> controllers.add(classMetadata.getName()));
+
+        Map<ClassMetadata, List<String>> fixtures = new LinkedHashMap<>();
+        for (ClassMetadata classMetadata : classes) {
+            fixtures.put(classMetadata, fixtureStatements(classMetadata, metadata, controllers));
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("import java.io.IOException;\n");
+        sb.append("import java.net.URI;\n");
+        sb.append("import java.net.URLEncoder;\n");
+        sb.append("import java.net.http.HttpClient;\n");
+        sb.append("import java.net.http.HttpRequest;\n");
+        sb.append("import java.net.http.HttpResponse;\n");
+        sb.append("import java.nio.charset.StandardCharsets;\n");
+        sb.append("import java.time.Duration;\n");
+        sb.append("import java.time.LocalDate;\n");
+        sb.append("import java.util.ArrayList;\n");
+        sb.append("import java.util.Arrays;\n");
+        sb.append("import java.util.HashMap;\n");
+        sb.append("import java.util.LinkedHashMap;\n");
+        sb.append("import java.util.List;\n");
+        sb.append("import java.util.Map;\n");
+        sb.append("import java.util.TreeMap;\n");
+        sb.append("import java.util.concurrent.ConcurrentHashMap;\n");
+        sb.append("import java.util.concurrent.ConcurrentLinkedDeque;\n");
+        sb.append("import java.util.concurrent.CopyOnWriteArrayList;\n");
+        sb.append("import java.util.concurrent.ExecutorService;\n");
+        sb.append("import java.util.concurrent.Executors;\n");
+        sb.append("import java.util.concurrent.Future;\n");
+        sb.append("import java.util.concurrent.ThreadLocalRandom;\n");
+        sb.append("import java.util.function.BiFunction;\n");
+        sb.append("import java.util.regex.Matcher;\n");
+        sb.append("import java.util.regex.Pattern;\n");
+        sb.append("import java.util.stream.Collectors;\n\n");
+        sb.append("/**\n");
+        sb.append(" * Lasttest für die generierte Grails-App (generiert von ili2grails).\n");
+        sb.append(" *\n");
+        sb.append(" * Legt pro Klasse Fixtures über die Create-Action an und ruft danach mit mehreren Threads\n");
+        sb.append(" * list, show, create, update und search auf. Ausgegeben werden Durchsatz und Latenz-Perzentile\n");
+        sb.append(" * pro Klasse und Operation. Geändert werden nur vom Test angelegte Objekte; diese werden am\n");
+        sb.append(" * Ende (auch bei Abbruch mit Ctrl-C) über die Delete-Action wieder gelöscht. Benötigt nur ein\n");
+        sb.append(" * JDK (17+):\n");
+        sb.append(" *\n");
+        sb.append(" *   java LoadTest.java --base-url http://localhost:8080 --concurrency 16 --duration 60\n");
+        sb.append(" *\n");
+        sb.append(" * Weitere Optionen: --warmup (Sekunden), --fixtures (Objekte pro Klasse),\n");
+        sb.append(" * --mix list=40,show=30,search=10,create=10,update=10, --classes address,person\n");
+        sb.append(" */\n");
+        sb.append("public class LoadTest {\n\n");
+        sb.append("    static final String[] WORDS = {\n");
+        sb.append("        \"bern\", \"zuerich\", \"basel\", \"solothurn\", \"aarau\", \"luzern\", \"chur\", \"sion\", \"genf\", \"lugano\"\n");
+        sb.append("    };\n");
+        sb.append("    static final Pattern ID_PATTERN = Pattern.compile(\"\\\"id\\\"\\\\s*:\\\\s*(\\\\d+)\");\n");
+        sb.append("    static final Pattern LOCATION_ID_PATTERN = Pattern.compile(\"/(\\\\d+)(?:[/?#.]|$)\");\n\n");
+        sb.append("    /**\n");
+        sb.append("     * Controller der App, Suche vorhanden, Fixture-Erzeugung (null: Klasse wird nur gelesen).\n");
+        sb.append("     */\n");
+        sb.append("    record Target(String controller, boolean searchable, BiFunction<Integer, Fixtures, Map<String, String>> fixture) {\n");
+        sb.append("    }\n\n");
+        sb.append("    record Created(String controller, long id) {\n");
+        sb.append("    }\n");
+        sb.append("\n");
+        sb.append("    static final List<Target> TARGETS = List.of(\n");
+        int index = 0;
+        for (Map.Entry<ClassMetadata, List<String>> entry : fixtures.entrySet()) {
+            ClassMetadata classMetadata = entry.getKey();
+            String controller = NameUtils.toLowerCamel(classMetadata.getSimpleName());
+            boolean searchable = config.isFullTextSearch()
+                && !FullTextSearch.searchableAttributes(classMetadata).isEmpty();
+            sb.append("        new Target(\"").append(controller).append("\", ").append(searchable).append(", ")
+                .append(entry.getValue() != null ? "LoadTest::" + controller + "Fixture" : "null").append(")")
+                .append(++index < fixtures.size() ? "," : "").append("\n");
+        }
+        sb.append("    );\n");
+        for (Map.Entry<ClassMetadata, List<String>> entry : fixtures.entrySet()) {
+            if (entry.getValue() == null) {
+                continue;
+            }
+            String controller = NameUtils.toLowerCamel(entry.getKey().getSimpleName());
+            sb.append("\n");
+            sb.append("    static Map<String, String> ").append(controller)
+                .append("Fixture(int n, Fixtures fixtures) {\n");
+            sb.append("        Map<String, String> values = new LinkedHashMap<>();\n");
+            for (String statement : entry.getValue()) {
+                sb.append("        ").append(statement).append("\n");
+            }
+            sb.append("        return values;\n");
+            sb.append("    }\n");
+        }
+        sb.append("\n");
+        sb.append("    public static void main(String[] args) throws Exception {\n");
+        sb.append("        Map<String, String> options = parseOptions(args);\n");
+        sb.append("        String baseUrl = options.getOrDefault(\"base-url\", \"http://localhost:8080\").replaceAll(\"/+$\", \"\");\n");
+        sb.append("        int concurrency = Integer.parseInt(options.getOrDefault(\"concurrency\", \"8\"));\n");
+        sb.append("        int duration = Integer.parseInt(options.getOrDefault(\"duration\", \"30\"));\n");
+        sb.append("        int warmup = Integer.parseInt(options.getOrDefault(\"warmup\", \"5\"));\n");
+        sb.append("        int fixtureCount = Integer.parseInt(options.getOrDefault(\"fixtures\", \"20\"));\n");
+        sb.append("        Map<String, Integer> mix = parseMix(options.getOrDefault(\"mix\", \"list=40,show=30,search=10,create=10,update=10\"));\n");
+        sb.append("        List<String> selected = options.containsKey(\"classes\")\n");
+        sb.append("            ? Arrays.asList(options.get(\"classes\").split(\",\"))\n");
+        sb.append("            : null;\n");
+        sb.append("        List<Target> targets = TARGETS.stream()\n");
+        sb.append("            .filter(target -> selected == null || selected.contains(target.controller()))\n");
+        sb.append("            .collect(Collectors.toList());\n");
+        sb.append("        if (targets.isEmpty()) {\n");
+        sb.append("            System.err.println(\"No classes selected\");\n");
+        sb.append("            System.exit(1);\n");
+        sb.append("        }\n\n");
+        sb.append("        HttpClient client = HttpClient.newBuilder()\n");
+        sb.append("            .connectTimeout(Duration.ofSeconds(10))\n");
+        sb.append("            .followRedirects(HttpClient.Redirect.NEVER)\n");
+        sb.append("            .build();\n");
+        sb.append("        Fixtures fixtures = new Fixtures();\n");
+        sb.append("        LoadTest test = new LoadTest(client, baseUrl, fixtures);\n");
+        sb.append("        // Läuft bei System.exit und bei Ctrl-C\n");
+        sb.append("        Runtime.getRuntime().addShutdownHook(new Thread(test::cleanup));\n\n");
+        sb.append("        System.out.printf(\"Fixtures: %d per class against %s%n\", fixtureCount, baseUrl);\n");
+        sb.append("        for (Target target : targets) {\n");
+        sb.append("            test.prepare(target, fixtureCount);\n");
+        sb.append("        }\n");
+        sb.append("        if (warmup > 0) {\n");
+        sb.append("            System.out.printf(\"Warmup: %d s%n\", warmup);\n");
+        sb.append("            test.run(targets, mix, concurrency, warmup);\n");
+        sb.append("        }\n");
+        sb.append("        System.out.printf(\"Load: %d threads, %d s%n\", concurrency, duration);\n");
+        sb.append("        long started = System.nanoTime();\n");
+        sb.append("        Map<String, Recorder> results = test.run(targets, mix, concurrency, duration);\n");
+        sb.append("        double seconds = (System.nanoTime() - started) / 1e9;\n");
+        sb.append("        report(results, seconds);\n");
+        sb.append("        System.exit(0);\n");
+        sb.append("    }\n\n");
+        sb.append("    private final HttpClient client;\n");
+        sb.append("    private final String baseUrl;\n");
+        sb.append("    private final Fixtures fixtures;\n");
+        sb.append("    // Vom Test angelegte Objekte, neueste zuerst\n");
+        sb.append("    private final ConcurrentLinkedDeque<Created> createdObjects = new ConcurrentLinkedDeque<>();\n\n");
+        sb.append("    LoadTest(HttpClient client, String baseUrl, Fixtures fixtures) {\n");
+        sb.append("        this.client = client;\n");
+        sb.append("        this.baseUrl = baseUrl;\n");
+        sb.append("        this.fixtures = fixtures;\n");
+        sb.append("    }\n\n");
+        sb.append("    /**\n");
+        sb.append("     * Sammelt vorhandene Ids (REST-API, falls generiert) und legt Fixtures an.\n");
+        sb.append("     */\n");
+        sb.append("    void prepare(Target target, int count) throws IOException, InterruptedException {\n");
+        sb.append("        HttpResponse<String> existing = send(HttpRequest.newBuilder(uri(\"/api/\" + target.controller() + \"?max=1000\"))\n");
+        sb.append("            .header(\"Accept\", \"application/json\").GET().build());\n");
+        sb.append("        if (existing.statusCode() == 200) {\n");
+        sb.append("            Matcher matcher = ID_PATTERN.matcher(existing.body());\n");
+        sb.append("            while (matcher.find()) {\n");
+        sb.append("                fixtures.add(target.controller(), Long.parseLong(matcher.group(1)));\n");
+        sb.append("            }\n");
+        sb.append("        }\n");
+        sb.append("        if (target.fixture() == null) {\n");
+        sb.append("            return;\n");
+        sb.append("        }\n");
+        sb.append("        int created = 0;\n");
+        sb.append("        for (int i = 0; i < count; i++) {\n");
+        sb.append("            Long id = create(target, i);\n");
+        sb.append("            if (id != null) {\n");
+        sb.append("                fixtures.addCreated(target.controller(), id);\n");
+        sb.append("                created++;\n");
+        sb.append("            }\n");
+        sb.append("        }\n");
+        sb.append("        System.out.printf(\"  %-30s %d created, %d available%n\", target.controller(), created,\n");
+        sb.append("            fixtures.ids(target.controller()).size());\n");
+        sb.append("    }\n\n");
+        sb.append("    Map<String, Recorder> run(List<Target> targets, Map<String, Integer> mix, int concurrency, int seconds)\n");
+        sb.append("        throws InterruptedException {\n");
+        sb.append("        long deadline = System.nanoTime() + seconds * 1_000_000_000L;\n");
+        sb.append("        ExecutorService workers = Executors.newFixedThreadPool(concurrency);\n");
+        sb.append("        List<Future<Map<String, Recorder>>> futures = new ArrayList<>();\n");
+        sb.append("        for (int i = 0; i < concurrency; i++) {\n");
+        sb.append("            futures.add(workers.submit(() -> {\n");
+        sb.append("                Map<String, Recorder> recorders = new HashMap<>();\n");
+        sb.append("                while (System.nanoTime() < deadline) {\n");
+        sb.append("                    Target target = targets.get(ThreadLocalRandom.current().nextInt(targets.size()));\n");
+        sb.append("                    String operation = pick(mix);\n");
+        sb.append("                    long start = System.nanoTime();\n");
+        sb.append("                    Boolean ok = execute(target, operation);\n");
+        sb.append("                    if (ok == null) {\n");
+        sb.append("                        continue;\n");
+        sb.append("                    }\n");
+        sb.append("                    recorders.computeIfAbsent(target.controller() + \" \" + operation, key -> new Recorder())\n");
+        sb.append("                        .record(System.nanoTime() - start, ok);\n");
+        sb.append("                }\n");
+        sb.append("                return recorders;\n");
+        sb.append("            }));\n");
+        sb.append("        }\n");
+        sb.append("        Map<String, Recorder> merged = new TreeMap<>();\n");
+        sb.append("        for (Future<Map<String, Recorder>> future : futures) {\n");
+        sb.append("            try {\n");
+        sb.append("                future.get().forEach((key, recorder) -> merged.computeIfAbsent(key, k -> new Recorder()).merge(recorder));\n");
+        sb.append("            } catch (Exception e) {\n");
+        sb.append("                System.err.println(\"Worker failed: \" + e);\n");
+        sb.append("            }\n");
+        sb.append("        }\n");
+        sb.append("        workers.shutdown();\n");
+        sb.append("        return merged;\n");
+        sb.append("    }\n\n");
+        sb.append("    /**\n");
+        sb.append("     * Führt eine Operation aus; null, wenn sie für die Klasse nicht möglich ist.\n");
+        sb.append("     */\n");
+        sb.append("    Boolean execute(Target target, String operation) {\n");
+        sb.append("        String controller = target.controller();\n");
+        sb.append("        try {\n");
+        sb.append("            switch (operation) {\n");
+        sb.append("                case \"list\":\n");
+        sb.append("                    return ok(get(\"/\" + controller + \"/index?max=25\"));\n");
+        sb.append("                case \"show\": {\n");
+        sb.append("                    Long id = fixtures.random(controller);\n");
+        sb.append("                    return id == null ? null : ok(get(\"/\" + controller + \"/show/\" + id));\n");
+        sb.append("                }\n");
+        sb.append("                case \"search\":\n");
+        sb.append("                    if (!target.searchable()) {\n");
+        sb.append("                        return null;\n");
+        sb.append("                    }\n");
+        sb.append("                    return ok(get(\"/\" + controller + \"/search?q=\" + WORDS[ThreadLocalRandom.current().nextInt(WORDS.length)]));\n");
+        sb.append("                case \"create\": {\n");
+        sb.append("                    if (target.fixture() == null) {\n");
+        sb.append("                        return null;\n");
+        sb.append("                    }\n");
+        sb.append("                    Long id = create(target, ThreadLocalRandom.current().nextInt(1_000_000));\n");
+        sb.append("                    if (id != null) {\n");
+        sb.append("                        fixtures.addCreated(controller, id);\n");
+        sb.append("                    }\n");
+        sb.append("                    return id != null;\n");
+        sb.append("                }\n");
+        sb.append("                case \"update\": {\n");
+        sb.append("                    // nur eigene Objekte ändern, nie vorhandene Daten\n");
+        sb.append("                    Long id = fixtures.randomCreated(controller);\n");
+        sb.append("                    Map<String, String> values = target.fixture() == null || id == null\n");
+        sb.append("                        ? null\n");
+        sb.append("                        : target.fixture().apply(ThreadLocalRandom.current().nextInt(1_000_000), fixtures);\n");
+        sb.append("                    if (values == null) {\n");
+        sb.append("                        return null;\n");
+        sb.append("                    }\n");
+        sb.append("                    values.put(\"_method\", \"PUT\");\n");
+        sb.append("                    values.put(\"id\", String.valueOf(id));\n");
+        sb.append("                    return saved(post(\"/\" + controller + \"/update/\" + id, values));\n");
+        sb.append("                }\n");
+        sb.append("                default:\n");
+        sb.append("                    return null;\n");
+        sb.append("            }\n");
+        sb.append("        } catch (IOException e) {\n");
+        sb.append("            return false;\n");
+        sb.append("        } catch (InterruptedException e) {\n");
+        sb.append("            Thread.currentThread().interrupt();\n");
+        sb.append("            return false;\n");
+        sb.append("        }\n");
+        sb.append("    }\n\n");
+        sb.append("    /**\n");
+        sb.append("     * Legt ein Objekt über die Save-Action an; die Id stammt aus der Weiterleitung auf show.\n");
+        sb.append("     */\n");
+        sb.append("    Long create(Target target, int n) throws IOException, InterruptedException {\n");
+        sb.append("        Map<String, String> values = target.fixture().apply(n, fixtures);\n");
+        sb.append("        if (values == null) {\n");
+        sb.append("            return null;\n");
+        sb.append("        }\n");
+        sb.append("        HttpResponse<String> response = post(\"/\" + target.controller() + \"/save\", values);\n");
+        sb.append("        String location = response.headers().firstValue(\"Location\").orElse(\"\");\n");
+        sb.append("        Matcher matcher = LOCATION_ID_PATTERN.matcher(location);\n");
+        sb.append("        if (!saved(response) || !matcher.find()) {\n");
+        sb.append("            return null;\n");
+        sb.append("        }\n");
+        sb.append("        long id = Long.parseLong(matcher.group(1));\n");
+        sb.append("        createdObjects.addFirst(new Created(target.controller(), id));\n");
+        sb.append("        return id;\n");
+        sb.append("    }\n\n");
+        sb.append("    /**\n");
+        sb.append("     * Löscht die vom Test angelegten Objekte, neueste zuerst (referenzierende vor referenzierten).\n");
+        sb.append("     */\n");
+        sb.append("    synchronized void cleanup() {\n");
+        sb.append("        int deleted = 0;\n");
+        sb.append("        int failed = 0;\n");
+        sb.append("        Created entry;\n");
+        sb.append("        while ((entry = createdObjects.pollFirst()) != null) {\n");
+        sb.append("            Map<String, String> values = new LinkedHashMap<>();\n");
+        sb.append("            values.put(\"_method\", \"DELETE\");\n");
+        sb.append("            try {\n");
+        sb.append("                if (saved(post(\"/\" + entry.controller() + \"/delete/\" + entry.id(), values))) {\n");
+        sb.append("                    deleted++;\n");
+        sb.append("                } else {\n");
+        sb.append("                    failed++;\n");
+        sb.append("                    System.err.printf(\"Could not delete %s %d%n\", entry.controller(), entry.id());\n");
+        sb.append("                }\n");
+        sb.append("            } catch (IOException e) {\n");
+        sb.append("                failed++;\n");
+        sb.append("                System.err.printf(\"Could not delete %s %d: %s%n\", entry.controller(), entry.id(), e);\n");
+        sb.append("            } catch (InterruptedException e) {\n");
+        sb.append("                Thread.currentThread().interrupt();\n");
+        sb.append("                failed += 1 + createdObjects.size();\n");
+        sb.append("                break;\n");
+        sb.append("            }\n");
+        sb.append("        }\n");
+        sb.append("        if (deleted + failed > 0) {\n");
+        sb.append("            System.out.printf(\"Cleanup: %d created objects deleted, %d left%n\", deleted, failed);\n");
+        sb.append("        }\n");
+        sb.append("    }\n\n");
+        sb.append("    private HttpResponse<String> get(String path) throws IOException, InterruptedException {\n");
+        sb.append("        return send(HttpRequest.newBuilder(uri(path)).GET().build());\n");
+        sb.append("    }\n\n");
+        sb.append("    private HttpResponse<String> post(String path, Map<String, String> values) throws IOException, InterruptedException {\n");
+        sb.append("        String body = values.entrySet().stream()\n");
+        sb.append("            .map(e -> URLEncoder.encode(e.getKey(), StandardCharsets.UTF_8) + \"=\"\n");
+        sb.append("                + URLEncoder.encode(e.getValue(), StandardCharsets.UTF_8))\n");
+        sb.append("            .collect(Collectors.joining(\"&\"));\n");
+        sb.append("        return send(HttpRequest.newBuilder(uri(path))\n");
+        sb.append("            .header(\"Content-Type\", \"application/x-www-form-urlencoded\")\n");
+        sb.append("            .POST(HttpRequest.BodyPublishers.ofString(body))\n");
+        sb.append("            .build());\n");
+        sb.append("    }\n\n");
+        sb.append("    private HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {\n");
+        sb.append("        return client.send(request, HttpResponse.BodyHandlers.ofString());\n");
+        sb.append("    }\n\n");
+        sb.append("    private URI uri(String path) {\n");
+        sb.append("        return URI.create(baseUrl + path);\n");
+        sb.append("    }\n\n");
+        sb.append("    private static boolean ok(HttpResponse<String> response) {\n");
+        sb.append("        return response.statusCode() < 400;\n");
+        sb.append("    }\n\n");
+        sb.append("    /**\n");
+        sb.append("     * Schreibende Actions leiten bei Erfolg weiter (REST: 201); 200 heisst, dass das Formular\n");
+        sb.append("     * mit Validierungsfehlern erneut angezeigt wurde.\n");
+        sb.append("     */\n");
+        sb.append("    private static boolean saved(HttpResponse<String> response) {\n");
+        sb.append("        return response.statusCode() == 201 || response.statusCode() / 100 == 3;\n");
+        sb.append("    }\n\n");
+        sb.append("    private static String pick(Map<String, Integer> mix) {\n");
+        sb.append("        int total = mix.values().stream().mapToInt(Integer::intValue).sum();\n");
+        sb.append("        int value = ThreadLocalRandom.current().nextInt(Math.max(total, 1));\n");
+        sb.append("        for (Map.Entry<String, Integer> entry : mix.entrySet()) {\n");
+        sb.append("            value -= entry.getValue();\n");
+        sb.append("            if (value < 0) {\n");
+        sb.append("                return entry.getKey();\n");
+        sb.append("            }\n");
+        sb.append("        }\n");
+        sb.append("        return \"list\";\n");
+        sb.append("    }\n\n");
+        sb.append("    static void report(Map<String, Recorder> results, double seconds) {\n");
+        sb.append("        System.out.printf(\"%n%-40s %8s %7s %9s %9s %9s %9s %9s %9s%n\",\n");
+        sb.append("            \"class operation\", \"requests\", \"errors\", \"req/s\", \"p50 ms\", \"p90 ms\", \"p95 ms\", \"p99 ms\", \"max ms\");\n");
+        sb.append("        Recorder total = new Recorder();\n");
+        sb.append("        results.forEach((key, recorder) -> {\n");
+        sb.append("            print(key, recorder, seconds);\n");
+        sb.append("            total.merge(recorder);\n");
+        sb.append("        });\n");
+        sb.append("        print(\"total\", total, seconds);\n");
+        sb.append("    }\n\n");
+        sb.append("    private static void print(String key, Recorder recorder, double seconds) {\n");
+        sb.append("        long[] sorted = recorder.sorted();\n");
+        sb.append("        System.out.printf(\"%-40s %8d %7d %9.1f %9.1f %9.1f %9.1f %9.1f %9.1f%n\", key, sorted.length, recorder.errors,\n");
+        sb.append("            sorted.length / seconds, percentile(sorted, 50), percentile(sorted, 90), percentile(sorted, 95),\n");
+        sb.append("            percentile(sorted, 99), sorted.length > 0 ? sorted[sorted.length - 1] / 1e6 : 0);\n");
+        sb.append("    }\n\n");
+        sb.append("    static double percentile(long[] sorted, double percentile) {\n");
+        sb.append("        if (sorted.length == 0) {\n");
+        sb.append("            return 0;\n");
+        sb.append("        }\n");
+        sb.append("        int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;\n");
+        sb.append("        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;\n");
+        sb.append("    }\n\n");
+        sb.append("    private static Map<String, String> parseOptions(String[] args) {\n");
+        sb.append("        Map<String, String> options = new HashMap<>();\n");
+        sb.append("        for (int i = 0; i + 1 < args.length; i += 2) {\n");
+        sb.append("            options.put(args[i].replaceFirst(\"^--\", \"\"), args[i + 1]);\n");
+        sb.append("        }\n");
+        sb.append("        return options;\n");
+        sb.append("    }\n\n");
+        sb.append("    private static Map<String, Integer> parseMix(String mix) {\n");
+        sb.append("        Map<String, Integer> weights = new LinkedHashMap<>();\n");
+        sb.append("        for (String part : mix.split(\",\")) {\n");
+        sb.append("            String[] entry = part.split(\"=\");\n");
+        sb.append("            weights.put(entry[0].trim(), Integer.parseInt(entry[1].trim()));\n");
+        sb.append("        }\n");
+        sb.append("        return weights;\n");
+        sb.append("    }\n\n");
+        sb.append("    // Werte für Fixtures, innerhalb der Grenzen aus dem Modell\n\n");
+        sb.append("    static String text(int n, int maxLength) {\n");
+        sb.append("        String value = WORDS[Math.floorMod(n, WORDS.length)] + \" \" + n;\n");
+        sb.append("        return value.length() > maxLength ? value.substring(0, maxLength) : value;\n");
+        sb.append("    }\n\n");
+        sb.append("    static String number(int n, long min, long max) {\n");
+        sb.append("        return String.valueOf(min + Math.floorMod(n, Math.max(max - min + 1, 1)));\n");
+        sb.append("    }\n\n");
+        sb.append("    static String date(int n) {\n");
+        sb.append("        return LocalDate.of(2020, 1, 1).plusDays(Math.floorMod(n, 3650)).toString();\n");
+        sb.append("    }\n\n");
+        sb.append("    static String dateTime(int n) {\n");
+        sb.append("        return date(n) + \"T12:00:00\";\n");
+        sb.append("    }\n\n");
+        sb.append("    /**\n");
+        sb.append("     * Ids der vorhandenen (show, Referenzen) und der vom Test angelegten Objekte (zusätzlich update)\n");
+        sb.append("     * pro Controller.\n");
+        sb.append("     */\n");
+        sb.append("    static class Fixtures {\n\n");
+        sb.append("        private final Map<String, List<Long>> ids = new ConcurrentHashMap<>();\n");
+        sb.append("        private final Map<String, List<Long>> createdIds = new ConcurrentHashMap<>();\n\n");
+        sb.append("        void add(String controller, long id) {\n");
+        sb.append("            ids.computeIfAbsent(controller, key -> new CopyOnWriteArrayList<>()).add(id);\n");
+        sb.append("        }\n\n");
+        sb.append("        void addCreated(String controller, long id) {\n");
+        sb.append("            add(controller, id);\n");
+        sb.append("            createdIds.computeIfAbsent(controller, key -> new CopyOnWriteArrayList<>()).add(id);\n");
+        sb.append("        }\n\n");
+        sb.append("        List<Long> ids(String controller) {\n");
+        sb.append("            return ids.getOrDefault(controller, List.of());\n");
+        sb.append("        }\n\n");
+        sb.append("        Long random(String controller) {\n");
+        sb.append("            return random(ids(controller));\n");
+        sb.append("        }\n\n");
+        sb.append("        Long randomCreated(String controller) {\n");
+        sb.append("            return random(createdIds.getOrDefault(controller, List.of()));\n");
+        sb.append("        }\n\n");
+        sb.append("        private static Long random(List<Long> list) {\n");
+        sb.append("            return list.isEmpty() ? null : list.get(ThreadLocalRandom.current().nextInt(list.size()));\n");
+        sb.append("        }\n\n");
+        sb.append("        /**\n");
+        sb.append("         * Setzt eine Referenz; false, wenn eine Pflichtreferenz kein Ziel hat.\n");
+        sb.append("         */\n");
+        sb.append("        boolean reference(Map<String, String> values, String parameter, String controller, boolean mandatory) {\n");
+        sb.append("            Long id = random(controller);\n");
+        sb.append("            if (id != null) {\n");
+        sb.append("                values.put(parameter, String.valueOf(id));\n");
+        sb.append("            }\n");
+        sb.append("            return id != null || !mandatory;\n");
+        sb.append("        }\n");
+        sb.append("    }\n\n");
+        sb.append("    /**\n");
+        sb.append("     * Latenzen eines Threads (Nanosekunden); erst am Ende zusammengeführt, damit die Messung\n");
+        sb.append("     * ohne Synchronisation auskommt.\n");
+        sb.append("     */\n");
+        sb.append("    static class Recorder {\n\n");
+        sb.append("        private long[] latencies = new long[1024];\n");
+        sb.append("        private int size;\n");
+        sb.append("        long errors;\n\n");
+        sb.append("        void record(long nanos, boolean ok) {\n");
+        sb.append("            if (size == latencies.length) {\n");
+        sb.append("                latencies = Arrays.copyOf(latencies, size * 2);\n");
+        sb.append("            }\n");
+        sb.append("            latencies[size++] = nanos;\n");
+        sb.append("            if (!ok) {\n");
+        sb.append("                errors++;\n");
+        sb.append("            }\n");
+        sb.append("        }\n\n");
+        sb.append("        void merge(Recorder other) {\n");
+        sb.append("            for (int i = 0; i < other.size; i++) {\n");
+        sb.append("                record(other.latencies[i], true);\n");
+        sb.append("            }\n");
+        sb.append("            errors += other.errors;\n");
+        sb.append("        }\n\n");
+        sb.append("        long[] sorted() {\n");
+        sb.append("            long[] copy = Arrays.copyOf(latencies, size);\n");
+        sb.append("            Arrays.sort(copy);\n");
+        sb.append("            return copy;\n");
+        sb.append("        }\n");
+        sb.append("    }\n");
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    /**
+     * Klassen der generierten Controller; referenzierte Klassen zuerst, damit ihre Fixtures
+     * als Ziele bereitstehen.
+     */
+    private List<ClassMetadata> orderedClasses(ModelMetadata metadata, GenerationConfig config) {
+        InheritanceIndex inheritance = metadata.getInheritanceIndex();
+        List<ClassMetadata> classes = new ArrayList<>();
+        for (ClassMetadata classMetadata : metadata.getAllClasses()) {
+            if (classMetadata.isAbstract()
+                || !inheritance.hasOwnTable(classMetadata)
+                || !config.getClassSelection().matches(classMetadata.getName())) {
+                continue;
+            }
+            classes.add(classMetadata);
+        }
+        Set<ClassMetadata> ordered = new LinkedHashSet<>();
+        for (ClassMetadata classMetadata : classes) {
+            addWithReferences(classMetadata, classes, metadata, ordered, new HashSet<>());
+        }
+        return new ArrayList<>(ordered);
+    }
+
+    private void addWithReferences(ClassMetadata classMetadata, List<ClassMetadata> classes, ModelMetadata metadata,
+                                   Set<ClassMetadata> ordered, Set<ClassMetadata> visiting) {
+        if (ordered.contains(classMetadata) || !visiting.add(classMetadata)) {
+            return;
+        }
+        for (AttributeMetadata attr : classMetadata.getAllAttributes()) {
+            ClassMetadata target = attr.isForeignKey() && attr.getReferencedClass() != null
+                ? metadata.getClass(attr.getReferencedClass())
+                : null;
+            if (target != null && classes.contains(target)) {
+                addWithReferences(target, classes, metadata, ordered, visiting);
+            }
+        }
+        ordered.add(classMetadata);
+    }
+
+    /**
+     * Anweisungen, die die Formularwerte eines Objekts setzen, oder {@code null}, wenn ein
+     * Pflichtattribut nicht gefüllt werden kann.
+     */
+    private List<String> fixtureStatements(ClassMetadata classMetadata, ModelMetadata metadata,
+                                           Set<String> controllers) {
+        List<String> statements = new ArrayList<>();
+        for (AttributeMetadata attr : classMetadata.getAllAttributes()) {
+            if (attr.isPrimaryKey()) {
+                continue;
+            }
+            String property = NameUtils.propertyName(attr);
+            if (attr.isForeignKey() && attr.getReferencedClass() != null
+                && metadata.getClass(attr.getReferencedClass()) != null) {
+                ClassMetadata target = metadata.getClass(attr.getReferencedClass());
+                if (controllers.contains(target.getName())) {
+                    statements.add("if (!fixtures.reference(values, \"" + property + ".id\", \""
+                        + NameUtils.toLowerCamel(target.getSimpleName()) + "\", " + attr.isMandatory() + ")) {");
+                    statements.add("    return null;");
+                    statements.add("}");
+                } else if (attr.isMandatory()) {
+                    return null;
+                }
+                continue;
+            }
+            String value = valueExpression(attr, metadata);
+            if (value != null) {
+                statements.add("values.put(\"" + property + "\", " + value + ");");
+            } else if (attr.isMandatory()) {
+                return null;
+            }
+        }
+        return statements;
+    }
+
+    private String valueExpression(AttributeMetadata attr, ModelMetadata metadata) {
+        if (attr.isGeometry()) {
+            return null;
+        }
+        if (attr.getEnumType() != null) {
+            EnumMetadata enumMetadata = metadata.getEnums().get(attr.getEnumType());
+            if (enumMetadata != null) {
+                if (enumMetadata.getValues().isEmpty()) {
+                    return null;
+                }
+                // Konstantennamen wie im GrailsEnumGenerator
+                return "\"" + enumMetadata.getValues().get(0).getIliCode().replace('.', '_') + "\"";
+            }
+        }
+        return switch (NameUtils.simpleType(attr.getJavaType())) {
+            case "String" -> "text(n, " + (attr.getMaxLength() != null && attr.getMaxLength() > 0
+                ? Math.min(attr.getMaxLength(), DEFAULT_TEXT_LENGTH) : DEFAULT_TEXT_LENGTH) + ")";
+            case "Integer", "Long", "Short", "BigInteger", "BigDecimal", "Double", "Float" ->
+                "number(n, " + bound(attr.getMinValue(), 0L, RoundingMode.CEILING) + "L, "
+                    + bound(attr.getMaxValue(), DEFAULT_MAX_NUMBER, RoundingMode.FLOOR) + "L)";
+            case "Boolean" -> "String.valueOf(n % 2 == 0)";
+            case "LocalDate" -> "date(n)";
+            case "LocalDateTime" -> "dateTime(n)";
+            default -> null;
+        };
+    }
+
+    private long bound(String value, long fallback, RoundingMode rounding) {
+        if (value == null || value.isBlank()) {
+            return fallback;
+        }
+        try {
+            return new BigDecimal(value.trim()).setScale(0, rounding).longValueExact();
+        } catch (ArithmeticException | NumberFormatException e) {
+            return fallback;
+        }
+    }
+}
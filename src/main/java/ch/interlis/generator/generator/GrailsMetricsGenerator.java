@@ -0,0 +1,238 @@
+package ch.interlis.generator.generator;
+
+import ch.interlis.generator.model.ClassMetadata;
+import ch.interlis.generator.model.InheritanceIndex;
+import ch.interlis.generator.model.ModelMetadata;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Schreibt die Micrometer-Anbindung der generierten App: einen Interceptor mit Timern pro
+ * Controller-Action, den {@code TimedAspect} für die {@code @Timed}-Methoden der generierten
+ * Services und Hibernate-Statistiken pro Domain. Dependencies und der optionale Prometheus-Endpoint
+ * kommen über {@link GrailsBuildGradleUpdater} und {@link GrailsApplicationYamlUpdater}.
+ */
+class GrailsMetricsGenerator {
+
+    static final String CONTROLLER_TIMER = "ili2grails.controller";
+    static final String SERVICE_TIMER = "ili2grails.service";
+    static final String AUTO_CONFIGURATION_IMPORTS =
+        "src/main/resources/META-INF/spring/org.springframework.boot.autoconfigure.AutoConfiguration.imports";
+    private static final String CONFIGURATION_CLASS = "MetricsConfiguration";
+
+    void generate(ModelMetadata metadata, GenerationConfig config) throws IOException {
+        String basePackage = config.getBasePackage();
+        Path sourceDir = config.getOutputDir()
+            .resolve("src/main/groovy")
+            .resolve(NameUtils.packageToPath(basePackage));
+        Files.createDirectories(sourceDir);
+        Files.writeString(sourceDir.resolve(CONFIGURATION_CLASS + ".groovy"),
+            renderConfiguration(basePackage), StandardCharsets.UTF_8);
+        Files.writeString(sourceDir.resolve("HibernateStatisticsMetrics.groovy"),
+            renderHibernateStatistics(basePackage, entities(metadata, config)), StandardCharsets.UTF_8);
+
+        Path controllerDir = config.getOutputDir()
+            .resolve("grails-app/controllers")
+            .resolve(NameUtils.packageToPath(config.getControllerPackage()));
+        Files.createDirectories(controllerDir);
+        Files.writeString(controllerDir.resolve("MetricsInterceptor.groovy"),
+            renderInterceptor(config.getControllerPackage()), StandardCharsets.UTF_8);
+
+        registerAutoConfiguration(config.getOutputDir().resolve(AUTO_CONFIGURATION_IMPORTS),
+            basePackage + "." + CONFIGURATION_CLASS);
+    }
+
+    /**
+     * {@code import io.micrometer.core.annotation.Timed} für generierte Services.
+     */
+    static void appendTimedImport(StringBuilder sb, GenerationConfig config) {
+        if (config.isMetrics()) {
+            sb.append("import io.micrometer.core.annotation.Timed\n\n");
+        }
+    }
+
+    /**
+     * Markiert die folgende Service-Methode; der TimedAspect ergänzt die Tags class und method.
+     */
+    static void appendTimed(StringBuilder sb, GenerationConfig config) {
+        if (config.isMetrics()) {
+            sb.append("    @Timed('").append(SERVICE_TIMER).append("')\n");
+        }
+    }
+
+    /**
+     * Ergänzt die Konfigurationsklasse in der Liste der Auto-Konfigurationen, ohne bestehende
+     * Einträge zu verändern.
+     */
+    static void registerAutoConfiguration(Path importsFile, String className) throws IOException {
+        List<String> lines = Files.exists(importsFile)
+            ? new ArrayList<>(Files.readAllLines(importsFile, StandardCharsets.UTF_8))
+            : new ArrayList<>();
+        if (lines.stream().anyMatch(line -> line.trim().equals(className))) {
+            return;
+        }
+        lines.add(className);
+        Files.createDirectories(importsFile.getParent());
+        Files.write(importsFile, lines, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Entity-Namen der generierten Domains (Hibernate verwendet den vollqualifizierten Klassennamen).
+     */
+    private List<String> entities(ModelMetadata metadata, GenerationConfig config) {
+        InheritanceIndex inheritance = metadata.getInheritanceIndex();
+        List<String> entities = new ArrayList<>();
+        for (ClassMetadata classMetadata : metadata.getAllClasses()) {
+            if (classMetadata.isAbstract()
+                || !inheritance.hasOwnTable(classMetadata)
+                || !config.getClassSelection().matches(classMetadata.getName())) {
+                continue;
+            }
+            entities.add(config.getDomainPackage() + "." + classMetadata.getSimpleName());
+        }
+        return entities;
+    }
+
+    private String renderConfiguration(String packageName) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("package ").append(packageName).append("\n\n");
+        sb.append("import io.micrometer.core.aop.TimedAspect\n");
+        sb.append("import io.micrometer.core.instrument.MeterRegistry\n");
+        sb.append("import org.hibernate.SessionFactory\n");
+        sb.append("import org.springframework.beans.factory.ObjectProvider\n");
+        sb.append("import org.springframework.boot.autoconfigure.AutoConfiguration\n");
+        sb.append("import org.springframework.context.annotation.Bean\n\n");
+        sb.append("/**\n");
+        sb.append(" * Timer für die mit @Timed markierten Methoden der generierten Services und Hibernate-Statistiken.\n");
+        sb.append(" * Eingebunden über META-INF/spring/org.springframework.boot.autoconfigure.AutoConfiguration.imports.\n");
+        sb.append(" */\n");
+        sb.append("@AutoConfiguration(afterName = 'org.springframework.boot.actuate.autoconfigure.metrics.CompositeMeterRegistryAutoConfiguration')\n");
+        sb.append("class MetricsConfiguration {\n\n");
+        sb.append("    @Bean\n");
+        sb.append("    TimedAspect timedAspect(MeterRegistry meterRegistry) {\n");
+        sb.append("        new TimedAspect(meterRegistry)\n");
+        sb.append("    }\n\n");
+        sb.append("    @Bean\n");
+        sb.append("    HibernateStatisticsMetrics hibernateStatisticsMetrics(ObjectProvider<SessionFactory> sessionFactory) {\n");
+        sb.append("        new HibernateStatisticsMetrics(sessionFactory)\n");
+        sb.append("    }\n");
+        sb.append("}\n");
+
+        return sb.toString();
+    }
+
+    private String renderHibernateStatistics(String packageName, List<String> entityNames) {
+        String entities = entityNames.stream()
+            .map(entity -> "'" + entity + "'")
+            .collect(Collectors.joining(", "));
+        StringBuilder sb = new StringBuilder();
+        sb.append("package ").append(packageName).append("\n\n");
+        sb.append("import io.micrometer.core.instrument.FunctionCounter\n");
+        sb.append("import io.micrometer.core.instrument.Gauge\n");
+        sb.append("import io.micrometer.core.instrument.MeterRegistry\n");
+        sb.append("import io.micrometer.core.instrument.binder.MeterBinder\n");
+        sb.append("import org.hibernate.SessionFactory\n");
+        sb.append("import org.hibernate.stat.Statistics\n");
+        sb.append("import org.springframework.beans.factory.ObjectProvider\n\n");
+        sb.append("import java.util.function.ToDoubleFunction\n\n");
+        sb.append("/**\n");
+        sb.append(" * Hibernate-Statistiken (hibernate.generate_statistics) als Meter, pro generierter Domain\n");
+        sb.append(" * zusätzlich Lade-, Fetch- und Schreibzähler. Die SessionFactory wird erst beim Auslesen\n");
+        sb.append(" * aufgelöst, damit GORM nicht vorzeitig initialisiert wird.\n");
+        sb.append(" */\n");
+        sb.append("class HibernateStatisticsMetrics implements MeterBinder {\n\n");
+        sb.append("    static final List<String> ENTITIES = [").append(entities).append("]\n\n");
+        sb.append("    private final ObjectProvider<SessionFactory> sessionFactory\n\n");
+        sb.append("    HibernateStatisticsMetrics(ObjectProvider<SessionFactory> sessionFactory) {\n");
+        sb.append("        this.sessionFactory = sessionFactory\n");
+        sb.append("    }\n\n");
+        sb.append("    @Override\n");
+        sb.append("    void bindTo(MeterRegistry registry) {\n");
+        sb.append("        counter(registry, 'hibernate.query.executions', 'Ausgeführte HQL-/Criteria-Abfragen', []) { it.queryExecutionCount }\n");
+        sb.append("        counter(registry, 'hibernate.statements', 'Vorbereitete JDBC-Statements', []) { it.prepareStatementCount }\n");
+        sb.append("        counter(registry, 'hibernate.transactions', 'Abgeschlossene Transaktionen', []) { it.transactionCount }\n");
+        sb.append("        counter(registry, 'hibernate.flushes', 'Flushes der Sessions', []) { it.flushCount }\n");
+        sb.append("        counter(registry, 'hibernate.second.level.cache.requests', 'Treffer im Second-Level-Cache', ['result', 'hit']) {\n");
+        sb.append("            it.secondLevelCacheHitCount\n");
+        sb.append("        }\n");
+        sb.append("        counter(registry, 'hibernate.second.level.cache.requests', 'Fehlgriffe im Second-Level-Cache', ['result', 'miss']) {\n");
+        sb.append("            it.secondLevelCacheMissCount\n");
+        sb.append("        }\n");
+        sb.append("        Gauge.builder('hibernate.query.executions.max', this,\n");
+        sb.append("                { HibernateStatisticsMetrics metrics -> metrics.value { it.queryExecutionMaxTime } } as ToDoubleFunction)\n");
+        sb.append("            .description('Längste Abfrage in Millisekunden')\n");
+        sb.append("            .baseUnit('milliseconds')\n");
+        sb.append("            .register(registry)\n");
+        sb.append("        ENTITIES.each { String entity ->\n");
+        sb.append("            List<String> tag = ['entity', entity.tokenize('.').last()]\n");
+        sb.append("            counter(registry, 'hibernate.entities.loads', 'Geladene Objekte', tag) { it.getEntityStatistics(entity).loadCount }\n");
+        sb.append("            counter(registry, 'hibernate.entities.fetches', 'Nachgeladene Objekte (Lazy Loading, N+1)', tag) {\n");
+        sb.append("                it.getEntityStatistics(entity).fetchCount\n");
+        sb.append("            }\n");
+        sb.append("            counter(registry, 'hibernate.entities.inserts', 'Eingefügte Objekte', tag) { it.getEntityStatistics(entity).insertCount }\n");
+        sb.append("            counter(registry, 'hibernate.entities.updates', 'Geänderte Objekte', tag) { it.getEntityStatistics(entity).updateCount }\n");
+        sb.append("            counter(registry, 'hibernate.entities.deletes', 'Gelöschte Objekte', tag) { it.getEntityStatistics(entity).deleteCount }\n");
+        sb.append("        }\n");
+        sb.append("    }\n\n");
+        sb.append("    private void counter(MeterRegistry registry, String name, String description, List<String> tags,\n");
+        sb.append("                         Closure<Long> count) {\n");
+        sb.append("        FunctionCounter.builder(name, this, { HibernateStatisticsMetrics metrics -> metrics.value(count) } as ToDoubleFunction)\n");
+        sb.append("            .description(description)\n");
+        sb.append("            .tags(tags as String[])\n");
+        sb.append("            .register(registry)\n");
+        sb.append("    }\n\n");
+        sb.append("    private double value(Closure<Long> read) {\n");
+        sb.append("        Statistics statistics = sessionFactory.getIfUnique()?.statistics\n");
+        sb.append("        return statistics?.statisticsEnabled ? (read(statistics) ?: 0L) as double : 0d\n");
+        sb.append("    }\n");
+        sb.append("}\n");
+
+        return sb.toString();
+    }
+
+    private String renderInterceptor(String packageName) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("package ").append(packageName).append("\n\n");
+        sb.append("import io.micrometer.core.instrument.MeterRegistry\n");
+        sb.append("import io.micrometer.core.instrument.Timer\n\n");
+        sb.append("/**\n");
+        sb.append(" * Misst jede Controller-Action als Timer ili2grails.controller (controller, action, status).\n");
+        sb.append(" */\n");
+        sb.append("class MetricsInterceptor {\n\n");
+        sb.append("    static final String SAMPLE_ATTRIBUTE = MetricsInterceptor.name + '.sample'\n\n");
+        sb.append("    int order = HIGHEST_PRECEDENCE\n\n");
+        sb.append("    MeterRegistry meterRegistry\n\n");
+        sb.append("    MetricsInterceptor() {\n");
+        sb.append("        matchAll()\n");
+        sb.append("    }\n\n");
+        sb.append("    boolean before() {\n");
+        sb.append("        request.setAttribute(SAMPLE_ATTRIBUTE, Timer.start(meterRegistry))\n");
+        sb.append("        true\n");
+        sb.append("    }\n\n");
+        sb.append("    boolean after() {\n");
+        sb.append("        true\n");
+        sb.append("    }\n\n");
+        sb.append("    // Nach dem Rendern bzw. Streamen des Responses, auch nach Exceptions\n");
+        sb.append("    void afterView() {\n");
+        sb.append("        Timer.Sample sample = request.getAttribute(SAMPLE_ATTRIBUTE) as Timer.Sample\n");
+        sb.append("        if (sample == null) {\n");
+        sb.append("            return\n");
+        sb.append("        }\n");
+        sb.append("        sample.stop(Timer.builder('").append(CONTROLLER_TIMER).append("')\n");
+        sb.append("            .description('Laufzeit der Controller-Actions')\n");
+        sb.append("            .tag('controller', controllerName ?: 'none')\n");
+        sb.append("            .tag('action', actionName ?: 'index')\n");
+        sb.append("            .tag('status', String.valueOf(response.status))\n");
+        sb.append("            .register(meterRegistry))\n");
+        sb.append("    }\n");
+        sb.append("}\n");
+
+        return sb.toString();
+    }
+}
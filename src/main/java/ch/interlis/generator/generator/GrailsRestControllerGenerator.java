@@ -0,0 +1,457 @@
+package ch.interlis.generator.generator;
+
+import ch.interlis.generator.model.AttributeMetadata;
+import ch.interlis.generator.model.ClassMetadata;
+import ch.interlis.generator.model.EnumMetadata;
+import ch.interlis.generator.model.InheritanceIndex;
+import ch.interlis.generator.model.ModelMetadata;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Generiert JSON-REST-Controller ({@code <Klasse>ApiController}, Namespace {@code api}).
+ *
+ * Die Collection-Action liest per Hibernate-Scroll (Cursor, Fetch-Size) nur projizierte Werte
+ * und schreibt jede Zeile sofort in den Response; der Speicherbedarf hängt damit nicht von der
+ * Grösse des Resultats ab. Filterparameter werden aus den Attributtypen abgeleitet.
+ * Dazu kommen Massenimport und -export als CSV bzw. GeoJSON, ausser für Klassen in einer
+ * joined-Vererbung (siehe {@link #hasBulkTransfer}).
+ */
+public class GrailsRestControllerGenerator {
+
+    static final String CONTROLLER_SUFFIX = "ApiController";
+    static final int FETCH_SIZE = 500;
+
+    private enum FilterKind {
+        TEXT, NUMBER, TEMPORAL, BOOLEAN, ENUM, REFERENCE
+    }
+
+    private record Filter(String property, FilterKind kind, String type) {
+    }
+
+    public void generate(ModelMetadata metadata, GenerationConfig config) throws IOException {
+        Path baseDir = config.getOutputDir()
+            .resolve("grails-app/controllers")
+            .resolve(NameUtils.packageToPath(config.getControllerPackage()));
+        Files.createDirectories(baseDir);
+
+        InheritanceIndex inheritance = metadata.getInheritanceIndex();
+        for (ClassMetadata classMetadata : metadata.getAllClasses()) {
+            if (classMetadata.isAbstract()
+                || !inheritance.hasOwnTable(classMetadata)
+                || !config.isRegenerated(classMetadata.getName())) {
+                continue;
+            }
+            String content = renderController(classMetadata, metadata, config);
+            Path target = baseDir.resolve(classMetadata.getSimpleName() + CONTROLLER_SUFFIX + ".groovy");
+            Files.writeString(target, content, StandardCharsets.UTF_8);
+        }
+    }
+
+    private String renderController(ClassMetadata classMetadata, ModelMetadata metadata, GenerationConfig config) {
+        String className = classMetadata.getSimpleName();
+        Map<String, String> columns = columns(classMetadata, metadata);
+        List<Filter> filters = filters(classMetadata, metadata);
+        boolean bulk = hasBulkTransfer(classMetadata, metadata);
+        Set<String> imports = new TreeSet<>();
+        imports.add("grails.gorm.transactions.ReadOnly");
+        imports.add("groovy.json.JsonOutput");
+        imports.add("org.hibernate.ScrollableResults");
+        imports.add("java.time.format.DateTimeParseException");
+        imports.add("java.time.temporal.TemporalAccessor");
+        if (!config.getDomainPackage().equals(config.getControllerPackage())) {
+            imports.add(config.getDomainPackage() + "." + className);
+        }
+        if (!config.getBasePackage().equals(config.getControllerPackage())) {
+            if (bulk) {
+                imports.add(config.getBasePackage() + "." + GrailsServiceGenerator.BULK_TRANSFER_SERVICE);
+            }
+            if (config.isConditionalRequests()) {
+                imports.add(config.getBasePackage() + "." + GrailsServiceGenerator.TABLE_VERSION_SERVICE);
+            }
+        }
+        for (Filter filter : filters) {
+            if (filter.kind() == FilterKind.ENUM) {
+                imports.add(config.getEnumPackage() + "." + filter.type());
+            } else if (filter.kind() == FilterKind.TEMPORAL) {
+                imports.add("java.time." + filter.type());
+            }
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("package ").append(config.getControllerPackage()).append("\n\n");
+        imports.forEach(importName -> sb.append("import ").append(importName).append("\n"));
+        sb.append("\n");
+        sb.append("class ").append(className).append(CONTROLLER_SUFFIX).append(" {\n\n");
+        sb.append("    static namespace = 'api'\n");
+        sb.append("    static allowedMethods = [index: 'GET', show: 'GET'")
+            .append(bulk ? ", export: 'GET', upload: 'POST'" : "").append("]\n\n");
+        sb.append("    static final int FETCH_SIZE = ").append(FETCH_SIZE).append("\n");
+        sb.append("    // Ausgabe-Property -> Criteria-Property (Referenzen nur als Id, keine Geometrien)\n");
+        sb.append("    static final Map<String, String> COLUMNS = [")
+            .append(columns.entrySet().stream()
+                .map(entry -> entry.getKey() + ": '" + entry.getValue() + "'")
+                .collect(Collectors.joining(", ")))
+            .append("]\n");
+        sb.append("    static final List<String> FILTERS = [")
+            .append(filterParameters(filters).stream()
+                .map(parameter -> "'" + parameter + "'")
+                .collect(Collectors.joining(", ")))
+            .append("]\n");
+        if (bulk) {
+            appendBulkConstants(sb, classMetadata, metadata, config);
+        } else {
+            sb.append("\n");
+        }
+        if (config.isConditionalRequests()) {
+            GrailsTableVersionGenerator.appendVersionTables(sb, classMetadata, metadata, config);
+            sb.append("\n");
+        }
+        if (bulk) {
+            sb.append("    ").append(GrailsServiceGenerator.BULK_TRANSFER_SERVICE).append(" bulkTransferService\n");
+        }
+        if (config.isConditionalRequests()) {
+            sb.append("    ").append(GrailsServiceGenerator.TABLE_VERSION_SERVICE).append(" tableVersionService\n");
+        }
+        sb.append("\n");
+
+        sb.append("    /**\n");
+        sb.append("     * Streamt alle (gefilterten) Objekte als JSON-Array, sortiert nach id.\n");
+        sb.append("     * Weiterlesen ab einer id mit {@code afterId}, Begrenzung mit {@code max}.\n");
+        sb.append("     */\n");
+        sb.append("    @ReadOnly\n");
+        sb.append("    def index(Long afterId, Integer max) {\n");
+        if (config.isConditionalRequests()) {
+            GrailsTableVersionGenerator.appendNotModified(sb, "request.queryString");
+        }
+        sb.append("        Map<String, String> p = filterValues()\n");
+        sb.append("        ScrollableResults results\n");
+        sb.append("        try {\n");
+        sb.append("            results = ").append(className).append(".createCriteria().scroll {\n");
+        sb.append("                projections {\n");
+        sb.append("                    COLUMNS.values().each { property it }\n");
+        sb.append("                }\n");
+        for (Filter filter : filters) {
+            appendFilter(sb, filter);
+        }
+        sb.append("                if (afterId != null) {\n");
+        sb.append("                    gt 'id', afterId\n");
+        sb.append("                }\n");
+        sb.append("                if (max != null && max > 0) {\n");
+        sb.append("                    maxResults max\n");
+        sb.append("                }\n");
+        sb.append("                fetchSize FETCH_SIZE\n");
+        sb.append("                order 'id', 'asc'\n");
+        sb.append("            }\n");
+        sb.append("        } catch (IllegalArgumentException | DateTimeParseException e) {\n");
+        sb.append("            render status: 400, text: \"Invalid filter value (supported: ${FILTERS}): ${e.message}\"\n");
+        sb.append("            return\n");
+        sb.append("        }\n");
+        sb.append("        response.contentType = 'application/json;charset=UTF-8'\n");
+        sb.append("        Writer out = response.writer\n");
+        sb.append("        try {\n");
+        sb.append("            out.write('[')\n");
+        sb.append("            int count = 0\n");
+        sb.append("            while (results.next()) {\n");
+        sb.append("                out.write(count > 0 ? ',' : '')\n");
+        sb.append("                out.write(JsonOutput.toJson(toRow(results.get())))\n");
+        sb.append("                // Regelmässig flushen: der Container sendet den Response chunked\n");
+        sb.append("                if (++count % FETCH_SIZE == 0) {\n");
+        sb.append("                    out.flush()\n");
+        sb.append("                }\n");
+        sb.append("            }\n");
+        sb.append("            out.write(']')\n");
+        sb.append("            out.flush()\n");
+        sb.append("        } finally {\n");
+        sb.append("            results.close()\n");
+        sb.append("        }\n");
+        sb.append("    }\n\n");
+
+        sb.append("    @ReadOnly\n");
+        sb.append("    def show(Long id) {\n");
+        if (config.isConditionalRequests()) {
+            GrailsTableVersionGenerator.appendNotModified(sb, "'show:' + id");
+        }
+        sb.append("        def row = id != null ? ").append(className).append(".createCriteria().get {\n");
+        sb.append("            projections {\n");
+        sb.append("                COLUMNS.values().each { property it }\n");
+        sb.append("            }\n");
+        sb.append("            eq 'id', id\n");
+        sb.append("        } : null\n");
+        sb.append("        if (row == null) {\n");
+        sb.append("            render status: 404\n");
+        sb.append("            return\n");
+        sb.append("        }\n");
+        sb.append("        response.contentType = 'application/json;charset=UTF-8'\n");
+        sb.append("        render JsonOutput.toJson(toRow(row))\n");
+        sb.append("    }\n\n");
+
+        if (bulk) {
+            appendBulkActions(sb, classMetadata);
+        }
+
+        sb.append("    private Map<String, String> filterValues() {\n");
+        sb.append("        FILTERS.findAll { params[it] }.collectEntries { [it, params[it].toString()] }\n");
+        sb.append("    }\n\n");
+        sb.append("    /**\n");
+        sb.append("     * Präfix-Muster für ilike: % und _ aus dem Parameter sind keine Platzhalter\n");
+        sb.append("     * (Backslash ist das Standard-Escape-Zeichen von PostgreSQL und H2).\n");
+        sb.append("     */\n");
+        sb.append("    private static String likePrefix(String value) {\n");
+        sb.append("        value.replace('\\\\', '\\\\\\\\').replace('%', '\\\\%').replace('_', '\\\\_') + '%'\n");
+        sb.append("    }\n\n");
+        sb.append("    private static Map toRow(Object row) {\n");
+        sb.append("        List values = row instanceof Object[] ? (row as List) : [row]\n");
+        sb.append("        Map result = [:]\n");
+        sb.append("        COLUMNS.keySet().eachWithIndex { String name, int i ->\n");
+        sb.append("            def value = values[i]\n");
+        sb.append("            result[name] = value instanceof TemporalAccessor || value instanceof Enum ? value.toString() : value\n");
+        sb.append("        }\n");
+        sb.append("        result\n");
+        sb.append("    }\n");
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    /**
+     * Import und Export arbeiten auf einer einzelnen Tabelle. Bei joined subclasses fehlten die
+     * geerbten Spalten und der Import legte keine Zeile in der Tabelle der Basisklasse an; bei
+     * Basisklassen mit joined subclasses enthielte der Export deren Objekte und der Import
+     * setzte kein {@code t_type}. Solche Klassen erhalten keine Bulk-Actions.
+     */
+    static boolean hasBulkTransfer(ClassMetadata classMetadata, ModelMetadata metadata) {
+        InheritanceIndex inheritance = metadata.getInheritanceIndex();
+        return inheritance.getJoinedSuperclass(classMetadata) == null
+            && !inheritance.hasJoinedSubclasses(classMetadata);
+    }
+
+    /**
+     * Tabellenspalten für Import und Export, abgeleitet wie das Domain-Mapping.
+     */
+    private void appendBulkConstants(StringBuilder sb, ClassMetadata classMetadata, ModelMetadata metadata,
+                                     GenerationConfig config) {
+        Map<String, String> tableColumns = new LinkedHashMap<>();
+        List<String> geometryColumns = new ArrayList<>();
+        for (AttributeMetadata attr : classMetadata.getAllAttributes()) {
+            if (attr.isPrimaryKey()) {
+                continue;
+            }
+            String column = NameUtils.columnName(attr);
+            if (attr.isGeometry()) {
+                geometryColumns.add(column);
+            } else {
+                tableColumns.put(NameUtils.propertyName(attr), column);
+            }
+        }
+        List<String> csvColumns = new ArrayList<>();
+        csvColumns.add("t_id");
+        for (String systemColumn : GrailsIndexMigrationGenerator.LOOKUP_COLUMNS) {
+            if (classMetadata.hasSystemColumn(systemColumn)) {
+                csvColumns.add(systemColumn);
+            }
+        }
+        csvColumns.addAll(tableColumns.values());
+        csvColumns.addAll(geometryColumns);
+
+        sb.append("    static final String TABLE = '")
+            .append(GrailsControllerGenerator.qualifiedTableName(classMetadata, config)).append("'\n");
+        if (!geometryColumns.isEmpty()) {
+            sb.append("    static final int SRID = ").append(GrailsControllerGenerator.srid(metadata)).append("\n");
+        }
+        sb.append("    // Import/Export: Property -> Tabellenspalte wie im Domain-Mapping\n");
+        sb.append("    static final Map<String, String> TABLE_COLUMNS = [")
+            .append(tableColumns.isEmpty() ? ":" : tableColumns.entrySet().stream()
+                .map(entry -> entry.getKey() + ": '" + entry.getValue() + "'")
+                .collect(Collectors.joining(", ")))
+            .append("]\n");
+        sb.append("    static final List<String> GEOMETRY_COLUMNS = [").append(quoted(geometryColumns)).append("]\n");
+        sb.append("    static final List<String> CSV_COLUMNS = [").append(quoted(csvColumns)).append("]\n\n");
+    }
+
+    /**
+     * Massenexport ({@code export?format=csv|geojson}) und -import ({@code upload?format=csv|geojson},
+     * Datei als Request-Body) über den {@code BulkTransferService}.
+     */
+    private void appendBulkActions(StringBuilder sb, ClassMetadata classMetadata) {
+        String fileName = NameUtils.toLowerCamel(classMetadata.getSimpleName());
+        boolean spatial = !classMetadata.getGeometryAttributes().isEmpty();
+        sb.append("    def export(String format) {\n");
+        sb.append("        if (format == 'geojson') {\n");
+        if (spatial) {
+            sb.append("            response.contentType = 'application/geo+json;charset=UTF-8'\n");
+            sb.append("            response.setHeader('Content-Disposition', 'attachment; filename=\"")
+                .append(fileName).append(".geojson\"')\n");
+            sb.append("            Writer out = response.writer\n");
+            sb.append("            bulkTransferService.exportGeoJson(out, TABLE, TABLE_COLUMNS, GEOMETRY_COLUMNS.first())\n");
+            sb.append("            out.flush()\n");
+        } else {
+            sb.append("            render status: 400, text: 'No geometry attribute to export as GeoJSON'\n");
+        }
+        sb.append("            return\n");
+        sb.append("        }\n");
+        sb.append("        response.contentType = 'text/csv;charset=UTF-8'\n");
+        sb.append("        response.setHeader('Content-Disposition', 'attachment; filename=\"")
+            .append(fileName).append(".csv\"')\n");
+        sb.append("        OutputStream out = response.outputStream\n");
+        sb.append("        bulkTransferService.exportCsv(out, TABLE, CSV_COLUMNS, GEOMETRY_COLUMNS)\n");
+        sb.append("        out.flush()\n");
+        sb.append("    }\n\n");
+        sb.append("    def upload(String format) {\n");
+        if (!spatial) {
+            sb.append("        if (format == 'geojson') {\n");
+            sb.append("            render status: 400, text: 'No geometry attribute to import from GeoJSON'\n");
+            sb.append("            return\n");
+            sb.append("        }\n");
+        }
+        sb.append("        try {\n");
+        if (spatial) {
+            sb.append("            long count = format == 'geojson'\n");
+            sb.append("                ? bulkTransferService.importGeoJson(request.inputStream, TABLE, TABLE_COLUMNS,\n");
+            sb.append("                    GEOMETRY_COLUMNS.first(), SRID)\n");
+            sb.append("                : bulkTransferService.importCsv(request.inputStream, TABLE, CSV_COLUMNS)\n");
+        } else {
+            sb.append("            long count = bulkTransferService.importCsv(request.inputStream, TABLE, CSV_COLUMNS)\n");
+        }
+        sb.append("            response.contentType = 'application/json;charset=UTF-8'\n");
+        sb.append("            render JsonOutput.toJson([imported: count])\n");
+        sb.append("        } catch (IllegalArgumentException e) {\n");
+        sb.append("            render status: 400, text: e.message\n");
+        sb.append("        }\n");
+        sb.append("    }\n\n");
+    }
+
+    private String quoted(List<String> values) {
+        return values.stream().map(value -> "'" + value + "'").collect(Collectors.joining(", "));
+    }
+
+    /**
+     * Ausgegebene Properties: {@code id}, alle Attribute ohne Geometrien, Referenzen als Id.
+     */
+    private Map<String, String> columns(ClassMetadata classMetadata, ModelMetadata metadata) {
+        Map<String, String> columns = new LinkedHashMap<>();
+        columns.put("id", "id");
+        for (AttributeMetadata attr : classMetadata.getNonGeometryAttributes()) {
+            if (attr.isPrimaryKey()) {
+                continue;
+            }
+            String propertyName = NameUtils.propertyName(attr);
+            columns.put(propertyName, isReference(attr, metadata) ? propertyName + ".id" : propertyName);
+        }
+        return columns;
+    }
+
+    private List<Filter> filters(ClassMetadata classMetadata, ModelMetadata metadata) {
+        List<Filter> filters = new ArrayList<>();
+        for (AttributeMetadata attr : classMetadata.getNonGeometryAttributes()) {
+            if (attr.isPrimaryKey()) {
+                continue;
+            }
+            String propertyName = NameUtils.propertyName(attr);
+            if (isReference(attr, metadata)) {
+                filters.add(new Filter(propertyName, FilterKind.REFERENCE, "Long"));
+                continue;
+            }
+            EnumMetadata enumMetadata = attr.getEnumType() != null ? metadata.getEnums().get(attr.getEnumType()) : null;
+            if (enumMetadata != null) {
+                filters.add(new Filter(propertyName, FilterKind.ENUM, enumMetadata.getSimpleName()));
+                continue;
+            }
+            String type = NameUtils.simpleType(attr.getJavaType());
+            switch (type) {
+                case "String" -> filters.add(new Filter(propertyName, FilterKind.TEXT, type));
+                case "Long", "Integer", "Double", "BigDecimal" ->
+                    filters.add(new Filter(propertyName, FilterKind.NUMBER, type));
+                case "LocalDate", "LocalDateTime" -> filters.add(new Filter(propertyName, FilterKind.TEMPORAL, type));
+                case "Boolean" -> filters.add(new Filter(propertyName, FilterKind.BOOLEAN, type));
+                default -> {
+                    // Kein sinnvoller Filter (z. B. Object, Binärdaten)
+                }
+            }
+        }
+        return filters;
+    }
+
+    private List<String> filterParameters(List<Filter> filters) {
+        List<String> parameters = new ArrayList<>();
+        for (Filter filter : filters) {
+            String property = filter.property();
+            parameters.add(property);
+            switch (filter.kind()) {
+                case TEXT -> parameters.add(property + "_like");
+                case NUMBER -> {
+                    parameters.add(property + "_min");
+                    parameters.add(property + "_max");
+                }
+                case TEMPORAL -> {
+                    parameters.add(property + "_from");
+                    parameters.add(property + "_to");
+                }
+                default -> {
+                }
+            }
+        }
+        return parameters;
+    }
+
+    private void appendFilter(StringBuilder sb, Filter filter) {
+        String property = filter.property();
+        switch (filter.kind()) {
+            case TEXT -> {
+                appendCondition(sb, property, "eq '" + property + "', p." + property);
+                appendCondition(sb, property + "_like", "ilike '" + property + "', likePrefix(p." + property + "_like)");
+            }
+            case NUMBER -> {
+                String parsed = parse(filter.type());
+                appendCondition(sb, property, "eq '" + property + "', " + parsed.formatted("p." + property));
+                appendCondition(sb, property + "_min", "ge '" + property + "', "
+                    + parsed.formatted("p." + property + "_min"));
+                appendCondition(sb, property + "_max", "le '" + property + "', "
+                    + parsed.formatted("p." + property + "_max"));
+            }
+            case TEMPORAL -> {
+                String parsed = filter.type() + ".parse(%s)";
+                appendCondition(sb, property, "eq '" + property + "', " + parsed.formatted("p." + property));
+                appendCondition(sb, property + "_from", "ge '" + property + "', "
+                    + parsed.formatted("p." + property + "_from"));
+                appendCondition(sb, property + "_to", "le '" + property + "', "
+                    + parsed.formatted("p." + property + "_to"));
+            }
+            case BOOLEAN -> appendCondition(sb, property, "eq '" + property + "', "
+                + "p." + property + ".toBoolean()");
+            case ENUM -> appendCondition(sb, property, "eq '" + property + "', "
+                + filter.type() + ".valueOf(p." + property + ")");
+            case REFERENCE -> appendCondition(sb, property, "eq '" + property + ".id', Long.valueOf(p."
+                + property + ")");
+        }
+    }
+
+    private void appendCondition(StringBuilder sb, String parameter, String restriction) {
+        sb.append("                if (p.").append(parameter).append(") {\n");
+        sb.append("                    ").append(restriction).append("\n");
+        sb.append("                }\n");
+    }
+
+    private String parse(String type) {
+        return switch (type) {
+            case "BigDecimal" -> "new BigDecimal(%s)";
+            case "Integer" -> "Integer.valueOf(%s)";
+            case "Double" -> "Double.valueOf(%s)";
+            default -> "Long.valueOf(%s)";
+        };
+    }
+
+    private boolean isReference(AttributeMetadata attr, ModelMetadata metadata) {
+        return attr.isForeignKey() && attr.getReferencedClass() != null
+            && metadata.getClass(attr.getReferencedClass()) != null;
+    }
+}
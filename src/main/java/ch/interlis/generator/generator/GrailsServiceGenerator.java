@@ -0,0 +1,858 @@
+package ch.interlis.generator.generator;
+
+import ch.interlis.generator.model.ModelMetadata;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Collectors;
+
+/**
+ * Generiert gemeinsam genutzte Grails Services für die generierten Controller.
+ */
+public class GrailsServiceGenerator {
+
+    static final String ROW_COUNT_SERVICE = "RowCountService";
+    static final String SPATIAL_QUERY_SERVICE = "SpatialQueryService";
+    static final String BULK_TRANSFER_SERVICE = "BulkTransferService";
+    static final String TABLE_VERSION_SERVICE = "TableVersionService";
+    static final String FULL_TEXT_SEARCH_SERVICE = "FullTextSearchService";
+    static final String CHILD_COUNT_SERVICE = "ChildCountService";
+    static final String FORM_OPTIONS_SERVICE = "FormOptionsService";
+    static final int BULK_BATCH_SIZE = 1000;
+
+    public void generate(ModelMetadata metadata, GenerationConfig config) throws IOException {
+        Path baseDir = config.getOutputDir()
+            .resolve("grails-app/services")
+            .resolve(NameUtils.packageToPath(config.getBasePackage()));
+        Files.createDirectories(baseDir);
+
+        Files.writeString(baseDir.resolve(ROW_COUNT_SERVICE + ".groovy"),
+            renderRowCountService(config), StandardCharsets.UTF_8);
+        Files.writeString(baseDir.resolve(FORM_OPTIONS_SERVICE + ".groovy"),
+            renderFormOptionsService(config), StandardCharsets.UTF_8);
+        if (GrailsControllerGenerator.hasSpatialQueries(metadata, config)) {
+            Files.writeString(baseDir.resolve(SPATIAL_QUERY_SERVICE + ".groovy"),
+                renderSpatialQueryService(config), StandardCharsets.UTF_8);
+        }
+        if (FullTextSearch.hasSearchableClasses(metadata, config)) {
+            Files.writeString(baseDir.resolve(FULL_TEXT_SEARCH_SERVICE + ".groovy"),
+                renderFullTextSearchService(config), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Schreibt den {@value #BULK_TRANSFER_SERVICE} für Import und Export der REST-Controller.
+     */
+    void generateBulkTransfer(GenerationConfig config) throws IOException {
+        Path baseDir = config.getOutputDir()
+            .resolve("grails-app/services")
+            .resolve(NameUtils.packageToPath(config.getBasePackage()));
+        Files.createDirectories(baseDir);
+        Files.writeString(baseDir.resolve(BULK_TRANSFER_SERVICE + ".groovy"),
+            renderBulkTransferService(config), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Schreibt den {@value #TABLE_VERSION_SERVICE} für bedingte Requests (ETag/Last-Modified).
+     */
+    void generateTableVersion(ModelMetadata metadata, GenerationConfig config) throws IOException {
+        Path baseDir = config.getOutputDir()
+            .resolve("grails-app/services")
+            .resolve(NameUtils.packageToPath(config.getBasePackage()));
+        Files.createDirectories(baseDir);
+        Files.writeString(baseDir.resolve(TABLE_VERSION_SERVICE + ".groovy"),
+            renderTableVersionService(metadata, config), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Schreibt den {@value #CHILD_COUNT_SERVICE} für die Anzahl Kind-Objekte der Detailseiten.
+     */
+    void generateChildCounts(ModelMetadata metadata, GenerationConfig config) throws IOException {
+        Path baseDir = config.getOutputDir()
+            .resolve("grails-app/services")
+            .resolve(NameUtils.packageToPath(config.getBasePackage()));
+        Files.createDirectories(baseDir);
+        Files.writeString(baseDir.resolve(CHILD_COUNT_SERVICE + ".groovy"),
+            renderChildCountService(metadata, config), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Zählt Zeilen für die Listenansichten. Über dem Schwellwert wird die Schätzung aus
+     * {@code pg_class.reltuples} verwendet (aktualisiert durch ANALYZE/Autovacuum), darunter
+     * bzw. auf anderen Datenbanken exakt per {@code count()}.
+     */
+    private String renderRowCountService(GenerationConfig config) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("package ").append(config.getBasePackage()).append("\n\n");
+        sb.append("import grails.gorm.transactions.ReadOnly\n");
+        sb.append("import groovy.sql.Sql\n\n");
+        GrailsMetricsGenerator.appendTimedImport(sb, config);
+        sb.append("import javax.sql.DataSource\n\n");
+        sb.append("class ").append(ROW_COUNT_SERVICE).append(" {\n\n");
+        sb.append("    static final long EXACT_COUNT_THRESHOLD = ")
+            .append(config.getExactCountThreshold()).append("L\n\n");
+        sb.append("    DataSource dataSource\n\n");
+        sb.append("    private volatile Boolean postgres\n\n");
+        sb.append("    /**\n");
+        sb.append("     * Liefert [total: Anzahl, approximate: true|false] für die Tabelle der Domain-Klasse.\n");
+        sb.append("     */\n");
+        GrailsMetricsGenerator.appendTimed(sb, config);
+        sb.append("    @ReadOnly\n");
+        sb.append("    Map count(Class domainClass, String tableName) {\n");
+        sb.append("        Long estimate = estimate(tableName)\n");
+        sb.append("        if (estimate != null && estimate >= EXACT_COUNT_THRESHOLD) {\n");
+        sb.append("            return [total: estimate, approximate: true]\n");
+        sb.append("        }\n");
+        sb.append("        return [total: domainClass.count() as long, approximate: false]\n");
+        sb.append("    }\n\n");
+        sb.append("    private Long estimate(String tableName) {\n");
+        sb.append("        if (!isPostgres()) {\n");
+        sb.append("            return null\n");
+        sb.append("        }\n");
+        sb.append("        Sql sql = new Sql(dataSource)\n");
+        sb.append("        try {\n");
+        sb.append("            def row = sql.firstRow(\n");
+        sb.append("                'SELECT reltuples::bigint AS estimate FROM pg_class WHERE oid = to_regclass(?)',\n");
+        sb.append("                [tableName])\n");
+        sb.append("            Long value = row?.estimate as Long\n");
+        sb.append("            // -1: Tabelle wurde noch nie analysiert\n");
+        sb.append("            return value != null && value >= 0 ? value : null\n");
+        sb.append("        } finally {\n");
+        sb.append("            sql.close()\n");
+        sb.append("        }\n");
+        sb.append("    }\n\n");
+        sb.append("    private boolean isPostgres() {\n");
+        sb.append("        if (postgres == null) {\n");
+        sb.append("            dataSource.connection.withCloseable { connection ->\n");
+        sb.append("                postgres = connection.metaData.databaseProductName == 'PostgreSQL'\n");
+        sb.append("            }\n");
+        sb.append("        }\n");
+        sb.append("        return postgres\n");
+        sb.append("    }\n");
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    /**
+     * Hält die {@code <option>}-Listen der Formulare (Aufzählungen und Referenzen) pro Klasse und
+     * Locale im Speicher. Schreibzugriffe über GORM verwerfen die Einträge der betroffenen Klasse;
+     * Änderungen an GORM vorbei (SQL, ili2db-Import) gelten spätestens nach {@code MAX_AGE_MILLIS}.
+     * Referenzen auf Tabellen mit mehr als {@code TYPEAHEAD_THRESHOLD} Zeilen werden nicht
+     * aufgelistet; das Formular fragt stattdessen die {@code lookup}-Action ab.
+     */
+    private String renderFormOptionsService(GenerationConfig config) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("package ").append(config.getBasePackage()).append("\n\n");
+        sb.append("import grails.gorm.transactions.ReadOnly\n");
+        sb.append("import org.grails.datastore.mapping.engine.event.AbstractPersistenceEvent\n");
+        sb.append("import org.grails.datastore.mapping.engine.event.PostDeleteEvent\n");
+        sb.append("import org.grails.datastore.mapping.engine.event.PostInsertEvent\n");
+        sb.append("import org.grails.datastore.mapping.engine.event.PostUpdateEvent\n");
+        sb.append("import org.springframework.context.ApplicationListener\n");
+        sb.append("import org.springframework.web.util.HtmlUtils\n\n");
+        sb.append("import java.util.concurrent.ConcurrentHashMap\n");
+        sb.append("import java.util.concurrent.atomic.AtomicLong\n\n");
+        sb.append("class ").append(FORM_OPTIONS_SERVICE)
+            .append(" implements ApplicationListener<AbstractPersistenceEvent> {\n\n");
+        sb.append("    static transactional = false\n\n");
+        sb.append("    static final long TYPEAHEAD_THRESHOLD = ").append(config.getTypeaheadThreshold()).append("L\n");
+        sb.append("    // Änderungen an GORM vorbei (SQL, ili2db-Import) lösen kein Event aus\n");
+        sb.append("    static final long MAX_AGE_MILLIS = 10 * 60 * 1000L\n\n");
+        sb.append("    ").append(ROW_COUNT_SERVICE).append(" rowCountService\n\n");
+        sb.append("    private final Map<String, Map> fragments = new ConcurrentHashMap<>()\n");
+        sb.append("    private final AtomicLong generation = new AtomicLong()\n\n");
+        sb.append("    /**\n");
+        sb.append("     * Optionen der Aufzählung: Wert ist der Konstantenname (Data Binding), Text die\n");
+        sb.append("     * Bezeichnung in der Sprache der Locale.\n");
+        sb.append("     */\n");
+        sb.append("    String enumOptions(Class enumClass, Locale locale) {\n");
+        sb.append("        return cached(enumClass, '', locale) {\n");
+        sb.append("            StringBuilder html = new StringBuilder()\n");
+        sb.append("            for (constant in enumClass.values()) {\n");
+        sb.append("                option(html, constant.name(), constant.label(locale.language))\n");
+        sb.append("            }\n");
+        sb.append("            html.toString()\n");
+        sb.append("        }\n");
+        sb.append("    }\n\n");
+        sb.append("    /**\n");
+        sb.append("     * Optionen der Referenz, nach Bezeichnung sortiert; {@code null}, wenn die Tabelle mehr als\n");
+        sb.append("     * TYPEAHEAD_THRESHOLD Zeilen hat. Auch dieser Entscheid wird zwischengespeichert.\n");
+        sb.append("     */\n");
+        sb.append("    String referenceOptions(Class domainClass, String label, String tableName, Locale locale) {\n");
+        sb.append("        return cached(domainClass, label ?: 'id', locale) {\n");
+        sb.append("            Map count = rowCountService.count(domainClass, tableName)\n");
+        sb.append("            (count.total as long) > TYPEAHEAD_THRESHOLD ? null : loadReferenceOptions(domainClass, label)\n");
+        sb.append("        }\n");
+        sb.append("    }\n\n");
+        sb.append("    @ReadOnly\n");
+        sb.append("    String loadReferenceOptions(Class domainClass, String label) {\n");
+        sb.append("        List rows = domainClass.createCriteria().list {\n");
+        sb.append("            projections {\n");
+        sb.append("                property 'id'\n");
+        sb.append("                if (label) {\n");
+        sb.append("                    property label\n");
+        sb.append("                }\n");
+        sb.append("            }\n");
+        sb.append("            order(label ?: 'id', 'asc')\n");
+        sb.append("        }\n");
+        sb.append("        StringBuilder html = new StringBuilder()\n");
+        sb.append("        for (row in rows) {\n");
+        sb.append("            option(html, label ? row[0] : row, label ? row[1] : row)\n");
+        sb.append("        }\n");
+        sb.append("        return html.toString()\n");
+        sb.append("    }\n\n");
+        sb.append("    /**\n");
+        sb.append("     * Verwirft nach Insert/Update/Delete die Einträge der Klasse und ihrer Oberklassen\n");
+        sb.append("     * (Referenzen auf die Basisklasse listen auch Objekte der Unterklassen).\n");
+        sb.append("     */\n");
+        sb.append("    @Override\n");
+        sb.append("    void onApplicationEvent(AbstractPersistenceEvent event) {\n");
+        sb.append("        if (event instanceof PostInsertEvent || event instanceof PostUpdateEvent\n");
+        sb.append("            || event instanceof PostDeleteEvent) {\n");
+        sb.append("            invalidate(event.entityObject?.getClass())\n");
+        sb.append("        }\n");
+        sb.append("    }\n\n");
+        sb.append("    void invalidate(Class type) {\n");
+        sb.append("        generation.incrementAndGet()\n");
+        sb.append("        for (Class current = type; current != null && current != Object; current = current.superclass) {\n");
+        sb.append("            String prefix = current.name + '|'\n");
+        sb.append("            fragments.keySet().removeIf { String key -> key.startsWith(prefix) }\n");
+        sb.append("        }\n");
+        sb.append("    }\n\n");
+        sb.append("    private String cached(Class type, String variant, Locale locale, Closure<String> loader) {\n");
+        sb.append("        String key = type.name + '|' + variant + '|' + locale\n");
+        sb.append("        long now = System.currentTimeMillis()\n");
+        sb.append("        Map entry = fragments.get(key)\n");
+        sb.append("        if (entry != null && now - (entry.created as long) <= MAX_AGE_MILLIS) {\n");
+        sb.append("            return entry.html\n");
+        sb.append("        }\n");
+        sb.append("        long loadedGeneration = generation.get()\n");
+        sb.append("        String html = loader.call()\n");
+        sb.append("        // Während des Ladens geschrieben: Ergebnis nicht ablegen, es könnte veraltet sein\n");
+        sb.append("        if (generation.get() == loadedGeneration) {\n");
+        sb.append("            fragments.put(key, [html: html, created: now])\n");
+        sb.append("        }\n");
+        sb.append("        return html\n");
+        sb.append("    }\n\n");
+        sb.append("    private static void option(StringBuilder html, Object value, Object text) {\n");
+        sb.append("        html.append('<option value=\"').append(HtmlUtils.htmlEscape(value as String)).append('\">')\n");
+        sb.append("            .append(text == null ? '' : HtmlUtils.htmlEscape(text as String)).append('</option>')\n");
+        sb.append("    }\n");
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    /**
+     * Änderungsmarken aus der Versionstabelle (Trigger aus {@code table_versions.sql}). Eine
+     * Abfrage pro Request statt Liste oder Objekt; ohne Versionstabelle kein ETag.
+     */
+    private String renderTableVersionService(ModelMetadata metadata, GenerationConfig config) {
+        String schema = config.getSchema();
+        String versionTable = schema != null && !schema.isBlank()
+            ? schema + "." + GrailsTableVersionGenerator.VERSION_TABLE
+            : GrailsTableVersionGenerator.VERSION_TABLE;
+        StringBuilder sb = new StringBuilder();
+        sb.append("package ").append(config.getBasePackage()).append("\n\n");
+        sb.append("import groovy.sql.Sql\n\n");
+        GrailsMetricsGenerator.appendTimedImport(sb, config);
+        sb.append("import javax.sql.DataSource\n");
+        sb.append("import java.sql.Timestamp\n\n");
+        sb.append("class ").append(TABLE_VERSION_SERVICE).append(" {\n\n");
+        sb.append("    static transactional = false\n");
+        sb.append("\n");
+        sb.append("    static final String VERSION_TABLE = '").append(versionTable).append("'\n");
+        sb.append("\n");
+        sb.append("    DataSource dataSource\n");
+        sb.append("\n");
+        sb.append("    private volatile Boolean versionTable\n");
+        sb.append("\n");
+        sb.append("    /**\n");
+        sb.append("     * Setzt ETag und Last-Modified aus den Änderungsmarken der Tabellen und prüft\n");
+        sb.append("     * If-None-Match bzw. If-Modified-Since. Liefert true, wenn 304 geantwortet werden kann.\n");
+        sb.append("     */\n");
+        GrailsMetricsGenerator.appendTimed(sb, config);
+        sb.append("    boolean notModified(request, response, List<String> tables, String variant) {\n");
+        sb.append("        Map marker = marker(tables)\n");
+        sb.append("        if (marker == null) {\n");
+        sb.append("            return false\n");
+        sb.append("        }\n");
+        sb.append("        String etag = 'W/\"' + marker.version + '-' + Integer.toHexString((variant ?: '').hashCode()) + '\"'\n");
+        sb.append("        response.setHeader('ETag', etag)\n");
+        sb.append("        // Immer revalidieren: die Antwort ist nur so lange gültig wie die Änderungsmarke\n");
+        sb.append("        response.setHeader('Cache-Control', 'private, no-cache')\n");
+        sb.append("        if (marker.lastModified != null) {\n");
+        sb.append("            response.setDateHeader('Last-Modified', marker.lastModified as long)\n");
+        sb.append("        }\n");
+        sb.append("        String ifNoneMatch = request.getHeader('If-None-Match')\n");
+        sb.append("        if (ifNoneMatch != null) {\n");
+        sb.append("            return ifNoneMatch.trim() == '*' || ifNoneMatch.split(',')*.trim().contains(etag)\n");
+        sb.append("        }\n");
+        sb.append("        if (marker.lastModified == null) {\n");
+        sb.append("            return false\n");
+        sb.append("        }\n");
+        sb.append("        long ifModifiedSince\n");
+        sb.append("        try {\n");
+        sb.append("            ifModifiedSince = request.getDateHeader('If-Modified-Since')\n");
+        sb.append("        } catch (IllegalArgumentException ignored) {\n");
+        sb.append("            return false\n");
+        sb.append("        }\n");
+        sb.append("        // HTTP-Daten haben Sekundengenauigkeit\n");
+        sb.append("        return ifModifiedSince >= 0 && (marker.lastModified as long).intdiv(1000) <= ifModifiedSince.intdiv(1000)\n");
+        sb.append("    }\n");
+        sb.append("\n");
+        sb.append("    /**\n");
+        sb.append("     * [version: String, lastModified: Long] über alle Tabellen oder null, wenn die\n");
+        sb.append("     * Versionstabelle fehlt oder eine Tabelle keine Änderungsmarke hat. Kein Rückgriff auf\n");
+        sb.append("     * max(t_lastchange): Löschungen ändern diesen Wert nicht, der Client bekäme veraltete 304.\n");
+        sb.append("     */\n");
+        sb.append("    Map marker(List<String> tables) {\n");
+        sb.append("        Sql sql = new Sql(dataSource)\n");
+        sb.append("        try {\n");
+        sb.append("            if (!hasVersionTable(sql)) {\n");
+        sb.append("                return null\n");
+        sb.append("            }\n");
+        sb.append("            List<String> versions = []\n");
+        sb.append("            Long lastModified = null\n");
+        sb.append("            for (String table : tables) {\n");
+        sb.append("                def row = sql.firstRow(\"SELECT version, changed_at FROM ${VERSION_TABLE} WHERE table_name = ?\".toString(), [table])\n");
+        sb.append("                if (row == null) {\n");
+        sb.append("                    // Tabelle ohne Trigger: Änderungen wären nicht sichtbar\n");
+        sb.append("                    return null\n");
+        sb.append("                }\n");
+        sb.append("                Timestamp changedAt = row.changed_at as Timestamp\n");
+        sb.append("                versions << (row.version as String) + '.' + (changedAt?.time ?: 0)\n");
+        sb.append("                if (changedAt != null && (lastModified == null || changedAt.time > lastModified)) {\n");
+        sb.append("                    lastModified = changedAt.time\n");
+        sb.append("                }\n");
+        sb.append("            }\n");
+        sb.append("            return [version: Integer.toHexString(versions.join('/').hashCode()), lastModified: lastModified]\n");
+        sb.append("        } finally {\n");
+        sb.append("            sql.close()\n");
+        sb.append("        }\n");
+        sb.append("    }\n");
+        sb.append("\n");
+        sb.append("    private boolean hasVersionTable(Sql sql) {\n");
+        sb.append("        if (versionTable == null) {\n");
+        sb.append("            String product = dataSource.connection.withCloseable { it.metaData.databaseProductName }\n");
+        sb.append("            versionTable = product == 'PostgreSQL'\n");
+        sb.append("                && sql.firstRow('SELECT to_regclass(?) AS oid', [VERSION_TABLE])?.oid != null\n");
+        sb.append("            if (!versionTable) {\n");
+        sb.append("                log.warn(\"${VERSION_TABLE} not found, conditional requests disabled (apply db/ili2grails/table_versions.sql)\")\n");
+        sb.append("            }\n");
+        sb.append("        }\n");
+        sb.append("        return versionTable\n");
+        sb.append("    }\n");
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    /**
+     * Anzahl Kind-Objekte aus den Materialized Views von {@code child_counts.sql}; ohne View
+     * (H2, Skript nicht eingespielt) per {@code count(*)} über den Fremdschlüssel-Index.
+     */
+    private String renderChildCountService(ModelMetadata metadata, GenerationConfig config) {
+        String views = GrailsChildCountGenerator.views(metadata, config).stream()
+            .map(view -> "'" + view + "'")
+            .collect(Collectors.joining(", "));
+        String refresh = "${ili2grails.child-counts.refresh-millis:" + config.getChildCountRefreshSeconds() * 1000L + "}";
+        StringBuilder sb = new StringBuilder();
+        sb.append("package ").append(config.getBasePackage()).append("\n\n");
+        sb.append("import groovy.sql.Sql\n\n");
+        GrailsMetricsGenerator.appendTimedImport(sb, config);
+        sb.append("import org.springframework.scheduling.annotation.Scheduled\n\n");
+        sb.append("import javax.sql.DataSource\n");
+        sb.append("import java.sql.SQLException\n");
+        sb.append("import java.util.concurrent.ConcurrentHashMap\n");
+        sb.append("import java.util.concurrent.atomic.AtomicLong\n\n");
+        sb.append("class ").append(CHILD_COUNT_SERVICE).append(" {\n\n");
+        sb.append("    static transactional = false\n");
+        sb.append("\n");
+        sb.append("    static final List<String> VIEWS = [").append(views).append("]\n");
+        sb.append("\n");
+        sb.append("    DataSource dataSource\n");
+        sb.append("\n");
+        sb.append("    private final Map<String, Boolean> existingViews = new ConcurrentHashMap<>()\n");
+        sb.append("    // Startwert Zeitpunkt: ETags von vor einem Neustart passen nicht zufällig\n");
+        sb.append("    private final AtomicLong generation = new AtomicLong(System.currentTimeMillis())\n");
+        sb.append("    private volatile Boolean postgres\n");
+        sb.append("\n");
+        sb.append("    /**\n");
+        sb.append("     * Ändert sich mit jeder Aktualisierung der Views; Teil des ETags der Detailseiten.\n");
+        sb.append("     */\n");
+        sb.append("    long getGeneration() {\n");
+        sb.append("        generation.get()\n");
+        sb.append("    }\n");
+        sb.append("\n");
+        sb.append("    /**\n");
+        sb.append("     * Anzahl Kind-Objekte pro Beziehung ([property: anzahl]) für das Eltern-Objekt {@code id}.\n");
+        sb.append("     */\n");
+        GrailsMetricsGenerator.appendTimed(sb, config);
+        sb.append("    Map<String, Long> counts(List<Map<String, String>> relations, Long id) {\n");
+        sb.append("        Map<String, Long> counts = [:]\n");
+        sb.append("        if (id == null) {\n");
+        sb.append("            return counts\n");
+        sb.append("        }\n");
+        sb.append("        Sql sql = new Sql(dataSource)\n");
+        sb.append("        try {\n");
+        sb.append("            for (Map<String, String> relation : relations) {\n");
+        sb.append("                def row = hasView(sql, relation.view)\n");
+        sb.append("                    ? sql.firstRow(\"SELECT child_count FROM ${relation.view} WHERE parent_id = ?\".toString(), [id])\n");
+        sb.append("                    : sql.firstRow(\"SELECT count(*) AS child_count FROM ${relation.table} WHERE ${relation.column} = ?\".toString(), [id])\n");
+        sb.append("                // Eltern ohne Kinder haben keine Zeile in der View\n");
+        sb.append("                counts[relation.property] = (row?.child_count ?: 0) as Long\n");
+        sb.append("            }\n");
+        sb.append("        } finally {\n");
+        sb.append("            sql.close()\n");
+        sb.append("        }\n");
+        sb.append("        return counts\n");
+        sb.append("    }\n");
+        sb.append("\n");
+        sb.append("    /**\n");
+        sb.append("     * Aktualisiert die Views, ohne Lesezugriffe zu sperren (CONCURRENTLY). Fehlende Views\n");
+        sb.append("     * werden dabei neu gesucht, z. B. nach dem Einspielen von child_counts.sql.\n");
+        sb.append("     */\n");
+        GrailsMetricsGenerator.appendTimed(sb, config);
+        sb.append("    @Scheduled(fixedDelayString = '").append(refresh).append("', initialDelayString = '")
+            .append(refresh).append("')\n");
+        sb.append("    void refresh() {\n");
+        sb.append("        existingViews.clear()\n");
+        sb.append("        Sql sql = new Sql(dataSource)\n");
+        sb.append("        try {\n");
+        sb.append("            for (String view : VIEWS) {\n");
+        sb.append("                if (!hasView(sql, view)) {\n");
+        sb.append("                    continue\n");
+        sb.append("                }\n");
+        sb.append("                try {\n");
+        sb.append("                    sql.execute(\"REFRESH MATERIALIZED VIEW CONCURRENTLY ${view}\".toString())\n");
+        sb.append("                } catch (SQLException e) {\n");
+        sb.append("                    log.warn(\"Refreshing ${view} failed: ${e.message}\")\n");
+        sb.append("                }\n");
+        sb.append("            }\n");
+        sb.append("        } finally {\n");
+        sb.append("            sql.close()\n");
+        sb.append("        }\n");
+        sb.append("        generation.incrementAndGet()\n");
+        sb.append("    }\n");
+        sb.append("\n");
+        sb.append("    private boolean hasView(Sql sql, String view) {\n");
+        sb.append("        if (postgres == null) {\n");
+        sb.append("            postgres = dataSource.connection.withCloseable { it.metaData.databaseProductName } == 'PostgreSQL'\n");
+        sb.append("        }\n");
+        sb.append("        if (!postgres) {\n");
+        sb.append("            return false\n");
+        sb.append("        }\n");
+        sb.append("        return existingViews.computeIfAbsent(view) {\n");
+        sb.append("            sql.firstRow('SELECT to_regclass(?) AS oid', [view])?.oid != null\n");
+        sb.append("        }\n");
+        sb.append("    }\n");
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    /**
+     * Volltextsuche: Treffer-Ids nach {@code ts_rank}; der Controller lädt danach nur die
+     * Listenspalten dieser Zeilen.
+     */
+    private String renderFullTextSearchService(GenerationConfig config) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("package ").append(config.getBasePackage()).append("\n\n");
+        sb.append("import groovy.sql.Sql\n\n");
+        GrailsMetricsGenerator.appendTimedImport(sb, config);
+        sb.append("import javax.sql.DataSource\n\n");
+        sb.append("class ").append(FULL_TEXT_SEARCH_SERVICE).append(" {\n\n");
+        sb.append("    static transactional = false\n\n");
+        sb.append("    DataSource dataSource\n\n");
+        sb.append("    private volatile Boolean postgres\n\n");
+        sb.append("    /**\n");
+        sb.append("     * Ids der Treffer, nach Relevanz sortiert. Auf PostgreSQL über den tsvector-Ausdruck\n");
+        sb.append("     * ({@code document}, GIN-Index aus indexes.sql) mit websearch_to_tsquery, sonst per LIKE.\n");
+        sb.append("     */\n");
+        GrailsMetricsGenerator.appendTimed(sb, config);
+        sb.append("    List<Long> search(String table, String document, List<String> columns, String query, int limit) {\n");
+        sb.append("        Sql sql = new Sql(dataSource)\n");
+        sb.append("        try {\n");
+        sb.append("            List rows\n");
+        sb.append("            if (isPostgres()) {\n");
+        sb.append("                String tsQuery = \"websearch_to_tsquery('").append(config.getTextSearchConfig()).append("'::regconfig, ?)\"\n");
+        sb.append("                rows = sql.rows(\"\"\"SELECT t_id FROM ${table}\n");
+        sb.append("                    WHERE ${document} @@ ${tsQuery}\n");
+        sb.append("                    ORDER BY ts_rank(${document}, ${tsQuery}) DESC, t_id\n");
+        sb.append("                    LIMIT ?\"\"\".toString(), [query, query, limit])\n");
+        sb.append("            } else {\n");
+        sb.append("                // % und _ aus der Eingabe sind keine Platzhalter\n");
+        sb.append("                String pattern = '%' + query.toLowerCase().replace('\\\\', '\\\\\\\\')\n");
+        sb.append("                    .replace('%', '\\\\%').replace('_', '\\\\_') + '%'\n");
+        sb.append("                String where = columns.collect { \"lower(${it}) LIKE ? ESCAPE '\\\\'\" }.join(' OR ')\n");
+        sb.append("                rows = sql.rows(\"SELECT t_id FROM ${table} WHERE ${where} ORDER BY t_id\".toString(),\n");
+        sb.append("                    columns.collect { pattern }, 1, limit)\n");
+        sb.append("            }\n");
+        sb.append("            return rows.collect { it.t_id as Long }\n");
+        sb.append("        } finally {\n");
+        sb.append("            sql.close()\n");
+        sb.append("        }\n");
+        sb.append("    }\n\n");
+        sb.append("    private boolean isPostgres() {\n");
+        sb.append("        if (postgres == null) {\n");
+        sb.append("            dataSource.connection.withCloseable { connection ->\n");
+        sb.append("                postgres = connection.metaData.databaseProductName == 'PostgreSQL'\n");
+        sb.append("            }\n");
+        sb.append("        }\n");
+        sb.append("        return postgres\n");
+        sb.append("    }\n");
+        sb.append("}\n");
+
+        return sb.toString();
+    }
+
+    /**
+     * Bounding-Box-Abfragen für Karten: Filter per {@code &&} (GiST-Index), optional vereinfacht
+     * je Zoomstufe, und GeoJSON direkt aus dem Cursor in den Response geschrieben.
+     */
+    private String renderSpatialQueryService(GenerationConfig config) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("package ").append(config.getBasePackage()).append("\n\n");
+        sb.append("import groovy.json.JsonOutput\n\n");
+        GrailsMetricsGenerator.appendTimedImport(sb, config);
+        sb.append("import javax.sql.DataSource\n");
+        sb.append("import java.sql.Connection\n");
+        sb.append("import java.sql.PreparedStatement\n");
+        sb.append("import java.sql.ResultSet\n\n");
+        sb.append("class ").append(SPATIAL_QUERY_SERVICE).append(" {\n\n");
+        sb.append("    static transactional = false\n\n");
+        sb.append("    static final int MAX_FEATURES = ").append(config.getMaxFeatures()).append("\n");
+        sb.append("    static final int FETCH_SIZE = 500\n");
+        sb.append("    // Meter pro Pixel auf Zoomstufe 0 (256-Pixel-Kacheln)\n");
+        sb.append("    static final double ZOOM_0_RESOLUTION = 156543.03392d\n\n");
+        sb.append("    DataSource dataSource\n\n");
+        sb.append("    /**\n");
+        sb.append("     * Parst {@code minx,miny,maxx,maxy}; liefert {@code null} bei ungültiger Eingabe.\n");
+        sb.append("     */\n");
+        sb.append("    static List<Double> parseBbox(String bbox) {\n");
+        sb.append("        List<String> parts = bbox?.tokenize(',')\n");
+        sb.append("        if (parts?.size() != 4 || !parts.every { it.trim().isDouble() }) {\n");
+        sb.append("            return null\n");
+        sb.append("        }\n");
+        sb.append("        List<Double> values = parts.collect { it.trim() as Double }\n");
+        sb.append("        return values[0] < values[2] && values[1] < values[3] ? values : null\n");
+        sb.append("    }\n\n");
+        sb.append("    /**\n");
+        sb.append("     * Vereinfachungstoleranz (ca. ein Pixel) für die Zoomstufe oder {@code null}.\n");
+        sb.append("     */\n");
+        sb.append("    static Double tolerance(Integer zoom) {\n");
+        sb.append("        return zoom != null && zoom >= 0 ? ZOOM_0_RESOLUTION / Math.pow(2, zoom) : null\n");
+        sb.append("    }\n\n");
+        sb.append("    /**\n");
+        sb.append("     * Schreibt die Objekte im Rechteck als GeoJSON-FeatureCollection, ohne das Resultat\n");
+        sb.append("     * im Speicher zu halten. Tabelle und Spalten stammen aus dem generierten Controller.\n");
+        sb.append("     */\n");
+        GrailsMetricsGenerator.appendTimed(sb, config);
+        sb.append("    int writeFeatures(Writer out, String table, String geometryColumn, int srid,\n");
+        sb.append("                      Map<String, String> properties, List<Double> bbox, Double tolerance, int limit) {\n");
+        sb.append("        String geometry = tolerance != null\n");
+        sb.append("            ? \"ST_SimplifyPreserveTopology(${geometryColumn}, ?)\"\n");
+        sb.append("            : geometryColumn\n");
+        sb.append("        String columns = properties.values().collect { it + ', ' }.join('')\n");
+        sb.append("        String sql = \"SELECT t_id, ${columns}ST_AsGeoJSON(${geometry}) AS geojson FROM ${table} \" +\n");
+        sb.append("            \"WHERE ${geometryColumn} && ST_MakeEnvelope(?, ?, ?, ?, ${srid}) ORDER BY t_id LIMIT ?\"\n");
+        sb.append("        Connection connection = dataSource.connection\n");
+        sb.append("        boolean autoCommit = connection.autoCommit\n");
+        sb.append("        try {\n");
+        sb.append("            // Der PostgreSQL-Treiber liest nur innerhalb einer Transaktion blockweise (Cursor)\n");
+        sb.append("            connection.autoCommit = false\n");
+        sb.append("            connection.readOnly = true\n");
+        sb.append("            PreparedStatement statement = connection.prepareStatement(sql)\n");
+        sb.append("            try {\n");
+        sb.append("                statement.fetchSize = FETCH_SIZE\n");
+        sb.append("                int index = 1\n");
+        sb.append("                if (tolerance != null) {\n");
+        sb.append("                    statement.setDouble(index++, tolerance)\n");
+        sb.append("                }\n");
+        sb.append("                bbox.each { statement.setDouble(index++, it) }\n");
+        sb.append("                statement.setInt(index, Math.min(Math.max(limit, 1), MAX_FEATURES))\n");
+        sb.append("                ResultSet rs = statement.executeQuery()\n");
+        sb.append("                int count = 0\n");
+        sb.append("                out.write('{\"type\":\"FeatureCollection\",\"features\":[')\n");
+        sb.append("                while (rs.next()) {\n");
+        sb.append("                    Map values = [:]\n");
+        sb.append("                    properties.keySet().eachWithIndex { String name, int i -> values[name] = rs.getObject(i + 2) }\n");
+        sb.append("                    out.write(count++ > 0 ? ',' : '')\n");
+        sb.append("                    out.write('{\"type\":\"Feature\",\"id\":')\n");
+        sb.append("                    out.write(String.valueOf(rs.getLong(1)))\n");
+        sb.append("                    out.write(',\"geometry\":')\n");
+        sb.append("                    out.write(rs.getString('geojson') ?: 'null')\n");
+        sb.append("                    out.write(',\"properties\":')\n");
+        sb.append("                    out.write(JsonOutput.toJson(values))\n");
+        sb.append("                    out.write('}')\n");
+        sb.append("                }\n");
+        sb.append("                out.write(']}')\n");
+        sb.append("                rs.close()\n");
+        sb.append("                connection.commit()\n");
+        sb.append("                return count\n");
+        sb.append("            } finally {\n");
+        sb.append("                statement.close()\n");
+        sb.append("            }\n");
+        sb.append("        } catch (Exception e) {\n");
+        sb.append("            connection.rollback()\n");
+        sb.append("            throw e\n");
+        sb.append("        } finally {\n");
+        sb.append("            connection.readOnly = false\n");
+        sb.append("            connection.autoCommit = autoCommit\n");
+        sb.append("            connection.close()\n");
+        sb.append("        }\n");
+        sb.append("    }\n");
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    /**
+     * Massenimport und -export: CSV per {@code COPY FROM/TO STDIN} über die CopyManager-API
+     * des PostgreSQL-Treibers, auf anderen Datenbanken per Batch-Insert bzw. Cursor. GeoJSON
+     * wird per Cursor geschrieben und per Batch-Insert ({@code ST_GeomFromGeoJSON}) gelesen.
+     */
+    private String renderBulkTransferService(GenerationConfig config) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("package ").append(config.getBasePackage()).append("\n\n");
+        sb.append("import groovy.json.JsonOutput\n");
+        sb.append("import groovy.json.JsonSlurper\n");
+        sb.append("\n");
+        GrailsMetricsGenerator.appendTimedImport(sb, config);
+        sb.append("import javax.sql.DataSource\n");
+        sb.append("import java.sql.Connection\n");
+        sb.append("import java.sql.PreparedStatement\n");
+        sb.append("import java.sql.ResultSet\n");
+        sb.append("import java.sql.Types\n");
+        sb.append("\n");
+        sb.append("class ").append(BULK_TRANSFER_SERVICE).append(" {\n");
+        sb.append("\n");
+        sb.append("    static transactional = false\n");
+        sb.append("\n");
+        sb.append("    static final int BATCH_SIZE = ").append(BULK_BATCH_SIZE).append("\n");
+        sb.append("    static final int FETCH_SIZE = 1000\n");
+        sb.append("\n");
+        sb.append("    DataSource dataSource\n");
+        sb.append("\n");
+        sb.append("    /**\n");
+        sb.append("     * Exportiert die Spalten als CSV mit Kopfzeile, auf PostgreSQL per COPY TO STDOUT\n");
+        sb.append("     * (Geometrien als EWKT).\n");
+        sb.append("     */\n");
+        GrailsMetricsGenerator.appendTimed(sb, config);
+        sb.append("    long exportCsv(OutputStream out, String table, List<String> columns, List<String> geometryColumns) {\n");
+        sb.append("        withConnection { Connection connection ->\n");
+        sb.append("            if (isPostgres(connection)) {\n");
+        sb.append("                String select = columns.collect { it in geometryColumns ? \"ST_AsEWKT(${it}) AS ${it}\" : it }.join(', ')\n");
+        sb.append("                return copyApi(connection).copyOut(\n");
+        sb.append("                    \"COPY (SELECT ${select} FROM ${table} ORDER BY t_id) TO STDOUT WITH (FORMAT csv, HEADER true)\", out)\n");
+        sb.append("            }\n");
+        sb.append("            return writeCsv(connection, \"SELECT ${columns.join(', ')} FROM ${table} ORDER BY t_id\", columns, out)\n");
+        sb.append("        }\n");
+        sb.append("    }\n");
+        sb.append("\n");
+        sb.append("    /**\n");
+        sb.append("     * Importiert CSV mit Kopfzeile; die Kopfzeile bestimmt die Spalten (nur {@code allowedColumns}).\n");
+        sb.append("     * Auf PostgreSQL per COPY FROM STDIN, sonst per Batch-Insert.\n");
+        sb.append("     */\n");
+        GrailsMetricsGenerator.appendTimed(sb, config);
+        sb.append("    long importCsv(InputStream input, String table, List<String> allowedColumns) {\n");
+        sb.append("        BufferedReader reader = new BufferedReader(new InputStreamReader(input, 'UTF-8'))\n");
+        sb.append("        String header = reader.readLine()\n");
+        sb.append("        List<String> columns = header ? parseCsvLine(header).collect { it?.trim()?.toLowerCase() } : []\n");
+        sb.append("        List<String> unknown = columns.findAll { !(it in allowedColumns) }\n");
+        sb.append("        if (columns.isEmpty() || unknown) {\n");
+        sb.append("            throw new IllegalArgumentException(\"CSV header must only name columns of ${allowedColumns}, unknown: ${unknown}\")\n");
+        sb.append("        }\n");
+        sb.append("        withConnection { Connection connection ->\n");
+        sb.append("            if (isPostgres(connection)) {\n");
+        sb.append("                return copyApi(connection).copyIn(\n");
+        sb.append("                    \"COPY ${table} (${columns.join(', ')}) FROM STDIN WITH (FORMAT csv)\", reader)\n");
+        sb.append("            }\n");
+        sb.append("            String sql = \"INSERT INTO ${table} (${columns.join(', ')}) VALUES (${columns.collect { '?' }.join(', ')})\"\n");
+        sb.append("            return insertBatched(connection, sql) {\n");
+        sb.append("                String line = reader.readLine()\n");
+        sb.append("                line != null ? parseCsvLine(line) : null\n");
+        sb.append("            }\n");
+        sb.append("        }\n");
+        sb.append("    }\n");
+        sb.append("\n");
+        sb.append("    /**\n");
+        sb.append("     * Exportiert alle Objekte als GeoJSON-FeatureCollection direkt aus dem Cursor.\n");
+        sb.append("     */\n");
+        GrailsMetricsGenerator.appendTimed(sb, config);
+        sb.append("    long exportGeoJson(Writer out, String table, Map<String, String> properties, String geometryColumn) {\n");
+        sb.append("        String columns = properties.values().collect { it + ', ' }.join('')\n");
+        sb.append("        String query = \"SELECT t_id, ${columns}ST_AsGeoJSON(${geometryColumn}) AS geojson FROM ${table} ORDER BY t_id\"\n");
+        sb.append("        withConnection { Connection connection ->\n");
+        sb.append("            PreparedStatement statement = connection.prepareStatement(query)\n");
+        sb.append("            try {\n");
+        sb.append("                statement.fetchSize = FETCH_SIZE\n");
+        sb.append("                ResultSet rs = statement.executeQuery()\n");
+        sb.append("                long count = 0\n");
+        sb.append("                out.write('{\"type\":\"FeatureCollection\",\"features\":[')\n");
+        sb.append("                while (rs.next()) {\n");
+        sb.append("                    Map values = [:]\n");
+        sb.append("                    properties.keySet().eachWithIndex { String name, int i -> values[name] = rs.getObject(i + 2) }\n");
+        sb.append("                    out.write(count++ > 0 ? ',' : '')\n");
+        sb.append("                    out.write('{\"type\":\"Feature\",\"id\":' + rs.getLong(1)\n");
+        sb.append("                        + ',\"geometry\":' + (rs.getString('geojson') ?: 'null')\n");
+        sb.append("                        + ',\"properties\":' + JsonOutput.toJson(values) + '}')\n");
+        sb.append("                }\n");
+        sb.append("                out.write(']}')\n");
+        sb.append("                return count\n");
+        sb.append("            } finally {\n");
+        sb.append("                statement.close()\n");
+        sb.append("            }\n");
+        sb.append("        }\n");
+        sb.append("    }\n");
+        sb.append("\n");
+        sb.append("    /**\n");
+        sb.append("     * Importiert eine GeoJSON-FeatureCollection per Batch-Insert; Properties werden über\n");
+        sb.append("     * {@code properties} (Property -> Spalte) zugeordnet.\n");
+        sb.append("     */\n");
+        GrailsMetricsGenerator.appendTimed(sb, config);
+        sb.append("    long importGeoJson(InputStream input, String table, Map<String, String> properties, String geometryColumn, int srid) {\n");
+        sb.append("        Map collection = new JsonSlurper().parse(input, 'UTF-8') as Map\n");
+        sb.append("        if (collection?.type != 'FeatureCollection') {\n");
+        sb.append("            throw new IllegalArgumentException('Expected a GeoJSON FeatureCollection')\n");
+        sb.append("        }\n");
+        sb.append("        List<Map> features = collection.features as List<Map> ?: []\n");
+        sb.append("        List<String> names = properties.keySet().findAll { String name ->\n");
+        sb.append("            features.any { (it.properties as Map)?.containsKey(name) }\n");
+        sb.append("        }.toList()\n");
+        sb.append("        List<String> columns = names.collect { properties[it] } + geometryColumn\n");
+        sb.append("        List<String> placeholders = names.collect { '?' } + \"ST_SetSRID(ST_GeomFromGeoJSON(?), ${srid})\".toString()\n");
+        sb.append("        String sql = \"INSERT INTO ${table} (${columns.join(', ')}) VALUES (${placeholders.join(', ')})\"\n");
+        sb.append("        Iterator<Map> iterator = features.iterator()\n");
+        sb.append("        withConnection { Connection connection ->\n");
+        sb.append("            insertBatched(connection, sql) {\n");
+        sb.append("                if (!iterator.hasNext()) {\n");
+        sb.append("                    return null\n");
+        sb.append("                }\n");
+        sb.append("                Map feature = iterator.next()\n");
+        sb.append("                Map values = feature.properties as Map ?: [:]\n");
+        sb.append("                names.collect { values[it] } + [feature.geometry != null ? JsonOutput.toJson(feature.geometry) : null]\n");
+        sb.append("            }\n");
+        sb.append("        }\n");
+        sb.append("    }\n");
+        sb.append("\n");
+        sb.append("    /**\n");
+        sb.append("     * Zerlegt eine CSV-Zeile (RFC 4180, ohne Zeilenumbrüche in Feldern). Leere Felder ohne\n");
+        sb.append("     * Anführungszeichen sind NULL, wie bei COPY.\n");
+        sb.append("     */\n");
+        sb.append("    static List<String> parseCsvLine(String line) {\n");
+        sb.append("        List<String> values = []\n");
+        sb.append("        StringBuilder field = new StringBuilder()\n");
+        sb.append("        boolean quoted = false\n");
+        sb.append("        boolean wasQuoted = false\n");
+        sb.append("        for (int i = 0; i < line.length(); i++) {\n");
+        sb.append("            char c = line.charAt(i)\n");
+        sb.append("            if (quoted) {\n");
+        sb.append("                if (c == '\"' as char && i + 1 < line.length() && line.charAt(i + 1) == '\"' as char) {\n");
+        sb.append("                    field.append('\"')\n");
+        sb.append("                    i++\n");
+        sb.append("                } else if (c == '\"' as char) {\n");
+        sb.append("                    quoted = false\n");
+        sb.append("                } else {\n");
+        sb.append("                    field.append(c)\n");
+        sb.append("                }\n");
+        sb.append("            } else if (c == '\"' as char) {\n");
+        sb.append("                quoted = true\n");
+        sb.append("                wasQuoted = true\n");
+        sb.append("            } else if (c == ',' as char) {\n");
+        sb.append("                values << (field.length() > 0 || wasQuoted ? field.toString() : null)\n");
+        sb.append("                field.setLength(0)\n");
+        sb.append("                wasQuoted = false\n");
+        sb.append("            } else {\n");
+        sb.append("                field.append(c)\n");
+        sb.append("            }\n");
+        sb.append("        }\n");
+        sb.append("        values << (field.length() > 0 || wasQuoted ? field.toString() : null)\n");
+        sb.append("        return values\n");
+        sb.append("    }\n");
+        sb.append("\n");
+        sb.append("    private long writeCsv(Connection connection, String query, List<String> columns, OutputStream out) {\n");
+        sb.append("        Writer writer = new OutputStreamWriter(out, 'UTF-8')\n");
+        sb.append("        writer.write(columns.join(',') + '\\n')\n");
+        sb.append("        PreparedStatement statement = connection.prepareStatement(query)\n");
+        sb.append("        try {\n");
+        sb.append("            statement.fetchSize = FETCH_SIZE\n");
+        sb.append("            ResultSet rs = statement.executeQuery()\n");
+        sb.append("            long count = 0\n");
+        sb.append("            while (rs.next()) {\n");
+        sb.append("                writer.write((1..columns.size()).collect { csvValue(rs.getObject(it)) }.join(',') + '\\n')\n");
+        sb.append("                count++\n");
+        sb.append("            }\n");
+        sb.append("            writer.flush()\n");
+        sb.append("            return count\n");
+        sb.append("        } finally {\n");
+        sb.append("            statement.close()\n");
+        sb.append("        }\n");
+        sb.append("    }\n");
+        sb.append("\n");
+        sb.append("    private long insertBatched(Connection connection, String sql, Closure<List> nextRow) {\n");
+        sb.append("        boolean postgres = isPostgres(connection)\n");
+        sb.append("        PreparedStatement statement = connection.prepareStatement(sql)\n");
+        sb.append("        try {\n");
+        sb.append("            long count = 0\n");
+        sb.append("            List row\n");
+        sb.append("            while ((row = nextRow()) != null) {\n");
+        sb.append("                row.eachWithIndex { value, int i ->\n");
+        sb.append("                    if (value == null) {\n");
+        sb.append("                        statement.setNull(i + 1, Types.NULL)\n");
+        sb.append("                    } else if (postgres && value instanceof String) {\n");
+        sb.append("                        // Typ vom Server ableiten lassen (Datum, Zahl, Enum-Text)\n");
+        sb.append("                        statement.setObject(i + 1, value, Types.OTHER)\n");
+        sb.append("                    } else {\n");
+        sb.append("                        statement.setObject(i + 1, value)\n");
+        sb.append("                    }\n");
+        sb.append("                }\n");
+        sb.append("                statement.addBatch()\n");
+        sb.append("                if (++count % BATCH_SIZE == 0) {\n");
+        sb.append("                    statement.executeBatch()\n");
+        sb.append("                }\n");
+        sb.append("            }\n");
+        sb.append("            statement.executeBatch()\n");
+        sb.append("            return count\n");
+        sb.append("        } finally {\n");
+        sb.append("            statement.close()\n");
+        sb.append("        }\n");
+        sb.append("    }\n");
+        sb.append("\n");
+        sb.append("    private static String csvValue(Object value) {\n");
+        sb.append("        if (value == null) {\n");
+        sb.append("            return ''\n");
+        sb.append("        }\n");
+        sb.append("        String text = value.toString()\n");
+        sb.append("        boolean quote = text.isEmpty() || text.contains(',') || text.contains('\"') || text.contains('\\n')\n");
+        sb.append("        return quote ? '\"' + text.replace('\"', '\"\"') + '\"' : text\n");
+        sb.append("    }\n");
+        sb.append("\n");
+        sb.append("    private <T> T withConnection(Closure<T> work) {\n");
+        sb.append("        Connection connection = dataSource.connection\n");
+        sb.append("        boolean autoCommit = connection.autoCommit\n");
+        sb.append("        try {\n");
+        sb.append("            connection.autoCommit = false\n");
+        sb.append("            T result = work(connection)\n");
+        sb.append("            connection.commit()\n");
+        sb.append("            return result\n");
+        sb.append("        } catch (Exception e) {\n");
+        sb.append("            connection.rollback()\n");
+        sb.append("            throw e\n");
+        sb.append("        } finally {\n");
+        sb.append("            connection.autoCommit = autoCommit\n");
+        sb.append("            connection.close()\n");
+        sb.append("        }\n");
+        sb.append("    }\n");
+        sb.append("\n");
+        sb.append("    // Ohne Compile-Abhängigkeit auf den PostgreSQL-Treiber (meist nur runtimeOnly)\n");
+        sb.append("    private static copyApi(Connection connection) {\n");
+        sb.append("        connection.unwrap(Class.forName('org.postgresql.PGConnection')).copyAPI\n");
+        sb.append("    }\n");
+        sb.append("\n");
+        sb.append("    private static boolean isPostgres(Connection connection) {\n");
+        sb.append("        connection.metaData.databaseProductName == 'PostgreSQL'\n");
+        sb.append("    }\n");
+        sb.append("}\n");
+        return sb.toString();
+    }
+}
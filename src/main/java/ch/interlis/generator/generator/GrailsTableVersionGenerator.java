@@ -0,0 +1,140 @@
+package ch.interlis.generator.generator;
+
+import ch.interlis.generator.model.ClassMetadata;
+import ch.interlis.generator.model.InheritanceIndex;
+import ch.interlis.generator.model.ModelMetadata;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Schreibt {@code db/ili2grails/table_versions.sql}: eine Versionstabelle mit einer Zeile pro
+ * Tabelle und Statement-Trigger, die Version und Änderungszeit bei jedem Schreibzugriff erhöhen.
+ *
+ * Die Controller bilden daraus ETag und Last-Modified und beantworten bedingte Requests mit
+ * 304, ohne die Liste oder das Objekt zu lesen. Ohne Versionstabelle setzen sie kein ETag:
+ * {@code max(t_lastchange)} würde Löschungen nicht erkennen und veraltete 304 liefern.
+ */
+class GrailsTableVersionGenerator {
+
+    static final String MIGRATION_FILE = "db/ili2grails/table_versions.sql";
+    static final String VERSION_TABLE = "ili2grails_table_version";
+    private static final String BUMP_FUNCTION = "ili2grails_bump_table_version";
+
+    void generate(ModelMetadata metadata, GenerationConfig config) throws IOException {
+        Set<String> tables = tables(metadata, config);
+        if (tables.isEmpty()) {
+            return;
+        }
+        Path file = config.getOutputDir().resolve(MIGRATION_FILE);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, render(tables, config), StandardCharsets.UTF_8);
+    }
+
+    private String render(Set<String> tables, GenerationConfig config) {
+        String versionTable = qualify(VERSION_TABLE, config);
+        String function = qualify(BUMP_FUNCTION, config);
+        StringBuilder sb = new StringBuilder();
+        sb.append("-- Generiert von ili2grails: Änderungsmarken für ETag/Last-Modified der generierten Controller.\n");
+        sb.append("-- Statement-Trigger: ein UPDATE pro Schreibanweisung, unabhängig von der Anzahl Zeilen.\n\n");
+        sb.append("CREATE TABLE IF NOT EXISTS ").append(versionTable).append(" (\n");
+        sb.append("    table_name text PRIMARY KEY,\n");
+        sb.append("    version bigint NOT NULL DEFAULT 0,\n");
+        sb.append("    changed_at timestamptz NOT NULL DEFAULT now()\n");
+        sb.append(");\n\n");
+        sb.append("CREATE OR REPLACE FUNCTION ").append(function).append("() RETURNS trigger AS $$\n");
+        sb.append("BEGIN\n");
+        sb.append("    INSERT INTO ").append(versionTable).append(" AS v (table_name, version, changed_at)\n");
+        sb.append("    VALUES (TG_ARGV[0], 1, now())\n");
+        sb.append("    ON CONFLICT (table_name) DO UPDATE SET version = v.version + 1, changed_at = now();\n");
+        sb.append("    RETURN NULL;\n");
+        sb.append("END;\n");
+        sb.append("$$ LANGUAGE plpgsql;\n\n");
+        for (String table : tables) {
+            sb.append("INSERT INTO ").append(versionTable).append(" (table_name) VALUES ('").append(table)
+                .append("') ON CONFLICT DO NOTHING;\n");
+            sb.append("DROP TRIGGER IF EXISTS ").append(VERSION_TABLE).append(" ON ").append(table).append(";\n");
+            sb.append("CREATE TRIGGER ").append(VERSION_TABLE).append(" AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON ")
+                .append(table).append("\n");
+            sb.append("    FOR EACH STATEMENT EXECUTE FUNCTION ").append(function).append("('").append(table)
+                .append("');\n\n");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Tabellen der generierten Controller (inkl. Tabellen von joined Basisklassen).
+     */
+    static Set<String> tables(ModelMetadata metadata, GenerationConfig config) {
+        InheritanceIndex inheritance = metadata.getInheritanceIndex();
+        Set<String> tables = new LinkedHashSet<>();
+        for (ClassMetadata classMetadata : metadata.getAllClasses()) {
+            if (classMetadata.isAbstract()
+                || !inheritance.hasOwnTable(classMetadata)
+                || !config.getClassSelection().matches(classMetadata.getName())) {
+                continue;
+            }
+            for (ClassMetadata table = classMetadata; table != null; table = inheritance.getJoinedSuperclass(table)) {
+                tables.add(GrailsControllerGenerator.qualifiedTableName(table, config));
+            }
+        }
+        return tables;
+    }
+
+    /**
+     * Tabellen, deren Änderungen die Darstellung der Klasse beeinflussen: die eigene Tabelle und
+     * die Tabellen der joined Basisklassen (geerbte Attribute).
+     */
+    static List<String> versionTables(ClassMetadata classMetadata, ModelMetadata metadata, GenerationConfig config) {
+        InheritanceIndex inheritance = metadata.getInheritanceIndex();
+        Set<String> tables = new LinkedHashSet<>();
+        for (ClassMetadata table = classMetadata; table != null; table = inheritance.getJoinedSuperclass(table)) {
+            tables.add(GrailsControllerGenerator.qualifiedTableName(table, config));
+        }
+        return new ArrayList<>(tables);
+    }
+
+    /**
+     * Groovy-Konstante {@code VERSION_TABLES} für die Controller.
+     */
+    static void appendVersionTables(StringBuilder sb, ClassMetadata classMetadata, ModelMetadata metadata,
+                                    GenerationConfig config) {
+        sb.append("    // Änderungsmarken für ETag/Last-Modified\n");
+        sb.append("    static final List<String> VERSION_TABLES = [");
+        List<String> tables = versionTables(classMetadata, metadata, config);
+        for (int i = 0; i < tables.size(); i++) {
+            sb.append(i > 0 ? ", " : "").append("'").append(tables.get(i)).append("'");
+        }
+        sb.append("]\n");
+    }
+
+    /**
+     * Bricht die Action mit 304 ab, wenn die Kopie des Clients noch aktuell ist.
+     * {@code variant} unterscheidet die Antworten derselben Tabellen (Parameter, Id).
+     */
+    static void appendNotModified(StringBuilder sb, String variant) {
+        appendNotModified(sb, "VERSION_TABLES", variant);
+    }
+
+    /**
+     * Wie {@link #appendNotModified(StringBuilder, String)}, mit eigener Tabellenliste ({@code tables}).
+     */
+    static void appendNotModified(StringBuilder sb, String tables, String variant) {
+        sb.append("        if (tableVersionService.notModified(request, response, ").append(tables).append(", ")
+            .append(variant).append(")) {\n");
+        sb.append("            render status: 304\n");
+        sb.append("            return\n");
+        sb.append("        }\n");
+    }
+
+    private static String qualify(String name, GenerationConfig config) {
+        String schema = config.getSchema();
+        return schema != null && !schema.isBlank() ? schema + "." + name : name;
+    }
+}
@@ -3,6 +3,7 @@ package ch.interlis.generator.generator;
 import ch.interlis.generator.model.AttributeMetadata;
 import ch.interlis.generator.model.ClassMetadata;
 import ch.interlis.generator.model.EnumMetadata;
+import ch.interlis.generator.model.InheritanceIndex;
 import ch.interlis.generator.model.ModelMetadata;
 
 import java.io.IOException;
@@ -16,57 +17,104 @@ import java.util.List;
  */
 public class GrailsViewGenerator {
 
+    static final String FORM_OPTIONS_TAG_LIB = "FormOptionsTagLib";
+
     public void generate(ModelMetadata metadata, GenerationConfig config) throws IOException {
+        InheritanceIndex inheritance = metadata.getInheritanceIndex();
         for (ClassMetadata classMetadata : metadata.getAllClasses()) {
-            if (classMetadata.isAbstract()) {
+            if (classMetadata.isAbstract()
+                || !inheritance.hasOwnTable(classMetadata)
+                || !config.isRegenerated(classMetadata.getName())) {
                 continue;
             }
             Path baseDir = config.getOutputDir()
                 .resolve("grails-app/views")
                 .resolve(NameUtils.toLowerCamel(classMetadata.getSimpleName()));
             Files.createDirectories(baseDir);
-            writeView(baseDir.resolve("list.gsp"), renderList(classMetadata));
-            writeView(baseDir.resolve("show.gsp"), renderShow(classMetadata));
-            writeView(baseDir.resolve("create.gsp"), renderForm(classMetadata, metadata, "create"));
-            writeView(baseDir.resolve("edit.gsp"), renderForm(classMetadata, metadata, "edit"));
+            writeView(baseDir.resolve("list.gsp"), renderList(classMetadata, config));
+            writeView(baseDir.resolve("show.gsp"), renderShow(classMetadata, metadata, config));
+            writeView(baseDir.resolve("create.gsp"), renderForm(classMetadata, metadata, config, "create"));
+            writeView(baseDir.resolve("edit.gsp"), renderForm(classMetadata, metadata, config, "edit"));
         }
+        Path tagLibDir = config.getOutputDir()
+            .resolve("grails-app/taglib")
+            .resolve(NameUtils.packageToPath(config.getControllerPackage()));
+        Files.createDirectories(tagLibDir);
+        writeView(tagLibDir.resolve(FORM_OPTIONS_TAG_LIB + ".groovy"), renderFormOptionsTagLib(config));
     }
 
     private void writeView(Path path, String content) throws IOException {
         Files.writeString(path, content, StandardCharsets.UTF_8);
     }
 
-    private String renderList(ClassMetadata classMetadata) {
+    private String renderList(ClassMetadata classMetadata, GenerationConfig config) {
+        List<String> sortable = GrailsControllerGenerator.sortableProperties(classMetadata);
+        // Nur die vom Controller projizierten Spalten (siehe ListColumns)
+        List<AttributeMetadata> columns = ListColumns.select(classMetadata, config);
         StringBuilder sb = new StringBuilder();
         sb.append("<!doctype html>\n<html>\n<head>\n    <meta name=\"layout\" content=\"main\"/>\n")
             .append("    <title>").append(classMetadata.getSimpleName()).append("</title>\n</head>\n<body>\n");
         sb.append("<h1>").append(classMetadata.getSimpleName()).append("</h1>\n");
+        if (config.isFullTextSearch() && !FullTextSearch.searchableAttributes(classMetadata).isEmpty()) {
+            sb.append("<g:form action=\"search\" method=\"GET\" class=\"search\">\n");
+            sb.append("    <input type=\"search\" name=\"q\" value=\"${q}\"/>\n");
+            sb.append("    <button type=\"submit\">Search</button>\n");
+            sb.append("</g:form>\n");
+        }
         sb.append("<table>\n    <thead>\n        <tr>\n");
-        for (AttributeMetadata attr : classMetadata.getAllAttributes()) {
-            if (attr.isPrimaryKey()) {
-                continue;
+        for (AttributeMetadata attr : columns) {
+            String propertyName = NameUtils.propertyName(attr);
+            if (sortable.contains(propertyName)) {
+                sb.append("            <g:sortableColumn property=\"").append(propertyName)
+                    .append("\" title=\"").append(attr.getName()).append("\" params=\"[max: max]\"/>\n");
+            } else {
+                sb.append("            <th>").append(attr.getName()).append("</th>\n");
             }
-            sb.append("            <th>").append(attr.getName()).append("</th>\n");
         }
         sb.append("        </tr>\n    </thead>\n    <tbody>\n");
         sb.append("    <g:each in=\"${")
             .append(NameUtils.toLowerCamel(classMetadata.getSimpleName()))
             .append("List}\" var=\"item\">\n");
         sb.append("        <tr>\n");
-        for (AttributeMetadata attr : classMetadata.getAllAttributes()) {
-            if (attr.isPrimaryKey()) {
-                continue;
-            }
+        for (AttributeMetadata attr : columns) {
             sb.append("            <td>${item.")
-                .append(NameUtils.toLowerCamel(attr.getName())).append("}</td>\n");
+                .append(NameUtils.propertyName(attr)).append("}</td>\n");
         }
         sb.append("        </tr>\n");
         sb.append("    </g:each>\n");
-        sb.append("    </tbody>\n</table>\n</body>\n</html>\n");
+        sb.append("    </tbody>\n</table>\n");
+        sb.append("<p class=\"count\">${countApproximate ? '~' : ''}<g:formatNumber number=\"${")
+            .append(NameUtils.toLowerCamel(classMetadata.getSimpleName()))
+            .append("Count}\" type=\"number\"/> entries</p>\n");
+        sb.append(renderPagination());
+        sb.append("</body>\n</html>\n");
         return sb.toString();
     }
 
-    private String renderShow(ClassMetadata classMetadata) {
+    /**
+     * Blätter-Links: nach {@code id} sortiert per Keyset ({@code afterId}), sonst per Offset.
+     * Unabhängig von der (bei grossen Tabellen nur geschätzten) Gesamtanzahl.
+     */
+    private String renderPagination() {
+        return "<div class=\"pagination\">\n"
+            + "    <g:if test=\"${sort == 'id'}\">\n"
+            + "        <g:link action=\"index\" params=\"[max: max, order: order]\">First</g:link>\n"
+            + "        <g:if test=\"${hasNext}\">\n"
+            + "            <g:link action=\"index\" params=\"[max: max, order: order, afterId: nextAfterId]\">Next</g:link>\n"
+            + "        </g:if>\n"
+            + "    </g:if>\n"
+            + "    <g:else>\n"
+            + "        <g:if test=\"${offset > 0}\">\n"
+            + "            <g:link action=\"index\" params=\"[max: max, sort: sort, order: order, offset: Math.max(offset - max, 0)]\">Previous</g:link>\n"
+            + "        </g:if>\n"
+            + "        <g:if test=\"${hasNext && offset + max <= " + GrailsControllerGenerator.MAX_OFFSET + "}\">\n"
+            + "            <g:link action=\"index\" params=\"[max: max, sort: sort, order: order, offset: offset + max]\">Next</g:link>\n"
+            + "        </g:if>\n"
+            + "    </g:else>\n"
+            + "</div>\n";
+    }
+
+    private String renderShow(ClassMetadata classMetadata, ModelMetadata metadata, GenerationConfig config) {
         StringBuilder sb = new StringBuilder();
         sb.append("<!doctype html>\n<html>\n<head>\n    <meta name=\"layout\" content=\"main\"/>\n")
             .append("    <title>").append(classMetadata.getSimpleName()).append("</title>\n</head>\n<body>\n");
@@ -80,11 +128,25 @@ public class GrailsViewGenerator {
             sb.append("    <dt>").append(attr.getName()).append("</dt>\n");
             sb.append("    <dd>${").append(propertyName).append("}</dd>\n");
         }
-        sb.append("</dl>\n</body>\n</html>\n");
+        sb.append("</dl>\n");
+        // Anzahl aus dem ChildCountService statt size() auf den hasMany-Collections
+        List<GrailsChildCountGenerator.ChildRelation> children =
+            GrailsChildCountGenerator.relations(classMetadata, metadata, config);
+        if (!children.isEmpty()) {
+            sb.append("<dl class=\"child-counts\">\n");
+            for (GrailsChildCountGenerator.ChildRelation child : children) {
+                sb.append("    <dt>").append(child.property()).append("</dt>\n");
+                sb.append("    <dd><g:formatNumber number=\"${childCounts?.").append(child.property())
+                    .append("}\" type=\"number\"/></dd>\n");
+            }
+            sb.append("</dl>\n");
+        }
+        sb.append("</body>\n</html>\n");
         return sb.toString();
     }
 
-    private String renderForm(ClassMetadata classMetadata, ModelMetadata metadata, String action) {
+    private String renderForm(ClassMetadata classMetadata, ModelMetadata metadata, GenerationConfig config,
+                              String action) {
         StringBuilder sb = new StringBuilder();
         sb.append("<!doctype html>\n<html>\n<head>\n    <meta name=\"layout\" content=\"main\"/>\n")
             .append("    <title>").append(classMetadata.getSimpleName()).append("</title>\n</head>\n<body>\n");
@@ -94,19 +156,45 @@ public class GrailsViewGenerator {
             if (attr.isPrimaryKey()) {
                 continue;
             }
-            sb.append(renderField(attr, metadata));
+            sb.append(renderField(attr, metadata, config));
         }
         sb.append("    <button type=\"submit\">Save</button>\n</g:form>\n</body>\n</html>\n");
         return sb.toString();
     }
 
-    private String renderField(AttributeMetadata attr, ModelMetadata metadata) {
+    private String renderField(AttributeMetadata attr, ModelMetadata metadata, GenerationConfig config) {
         String name = NameUtils.toLowerCamel(attr.getName());
         StringBuilder sb = new StringBuilder();
         sb.append("    <div class=\"fieldcontain\">\n")
             .append("        <label for=\"").append(name).append("\">")
             .append(attr.getName()).append("</label>\n");
 
+        // Optionen aus dem FormOptionsService (zwischengespeichert) statt bei jedem Rendern
+        EnumMetadata enumMetadata = attr.getEnumType() != null ? metadata.getEnums().get(attr.getEnumType()) : null;
+        if (enumMetadata != null && !enumMetadata.getValues().isEmpty()) {
+            sb.append("        <ili:enumSelect name=\"").append(name)
+                .append("\" enumClass=\"${").append(config.getEnumPackage()).append(".")
+                .append(enumMetadata.getSimpleName()).append("}\"/>\n");
+            sb.append("    </div>\n");
+            return sb.toString();
+        }
+        ClassMetadata referenced = referencedClass(attr, metadata, config);
+        if (referenced != null) {
+            AttributeMetadata label = ListColumns.labelAttribute(referenced, metadata, config);
+            sb.append("        <ili:referenceSelect name=\"").append(NameUtils.propertyName(attr))
+                .append(".id\" id=\"").append(name)
+                .append("\" domain=\"${").append(config.getDomainPackage()).append(".")
+                .append(referenced.getSimpleName()).append("}\" table=\"")
+                .append(GrailsControllerGenerator.qualifiedTableName(referenced, config))
+                .append("\" controller=\"").append(NameUtils.toLowerCamel(referenced.getSimpleName())).append("\"");
+            if (label != null) {
+                sb.append(" label=\"").append(NameUtils.propertyName(label)).append("\"");
+            }
+            sb.append("/>\n");
+            sb.append("    </div>\n");
+            return sb.toString();
+        }
+
         if (attr.getEnumType() != null) {
             List<EnumMetadata.EnumValue> enumValues = resolveEnumValues(attr, metadata);
             sb.append("        <g:select name=\"").append(name)
@@ -134,6 +222,123 @@ public class GrailsViewGenerator {
         return sb.toString();
     }
 
+    /**
+     * Tags {@code <ili:enumSelect>} und {@code <ili:referenceSelect>} für die Formulare.
+     */
+    private String renderFormOptionsTagLib(GenerationConfig config) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("package ").append(config.getControllerPackage()).append("\n\n");
+        if (!config.getBasePackage().equals(config.getControllerPackage())) {
+            sb.append("import ").append(config.getBasePackage()).append(".")
+                .append(GrailsServiceGenerator.FORM_OPTIONS_SERVICE).append("\n");
+        }
+        sb.append("import org.springframework.web.util.HtmlUtils\n\n");
+        sb.append("/**\n");
+        sb.append(" * Auswahllisten der generierten Formulare. Die Optionen kommen zwischengespeichert aus dem\n");
+        sb.append(" * FormOptionsService; Referenzen auf grosse Tabellen werden als Typeahead-Feld über die\n");
+        sb.append(" * lookup-Action des referenzierten Controllers gerendert.\n");
+        sb.append(" */\n");
+        sb.append("class ").append(FORM_OPTIONS_TAG_LIB).append(" {\n\n");
+        sb.append("    static namespace = 'ili'\n\n");
+        sb.append("    private static final String TYPEAHEAD_SCRIPT = 'ili2grails.typeaheadScript'\n\n");
+        sb.append("    ").append(GrailsServiceGenerator.FORM_OPTIONS_SERVICE).append(" formOptionsService\n\n");
+        sb.append("    /**\n");
+        sb.append("     * @attr name REQUIRED Parametername\n");
+        sb.append("     * @attr enumClass REQUIRED generierte Aufzählung\n");
+        sb.append("     * @attr value Konstante oder Konstantenname\n");
+        sb.append("     * @attr id\n");
+        sb.append("     */\n");
+        sb.append("    def enumSelect = { attrs ->\n");
+        sb.append("        String options = formOptionsService.enumOptions(attrs.enumClass as Class, request.locale)\n");
+        sb.append("        def value = attrs.value instanceof Enum ? attrs.value.name() : attrs.value\n");
+        sb.append("        out << select(attrs, options, value)\n");
+        sb.append("    }\n\n");
+        sb.append("    /**\n");
+        sb.append("     * @attr name REQUIRED Parametername, z. B. person.id\n");
+        sb.append("     * @attr domain REQUIRED referenzierte Domain-Klasse\n");
+        sb.append("     * @attr table REQUIRED Tabelle der Domain-Klasse (Zeilenschätzung)\n");
+        sb.append("     * @attr controller REQUIRED Controller mit der lookup-Action\n");
+        sb.append("     * @attr label Property für die Bezeichnung\n");
+        sb.append("     * @attr value Domain-Objekt oder Id\n");
+        sb.append("     * @attr id\n");
+        sb.append("     */\n");
+        sb.append("    def referenceSelect = { attrs ->\n");
+        sb.append("        String options = formOptionsService.referenceOptions(attrs.domain as Class, attrs.label as String,\n");
+        sb.append("            attrs.table as String, request.locale)\n");
+        sb.append("        def value = attrs.value instanceof Number || attrs.value instanceof CharSequence ? attrs.value : attrs.value?.id\n");
+        sb.append("        if (options != null) {\n");
+        sb.append("            out << select(attrs, options, value)\n");
+        sb.append("            return\n");
+        sb.append("        }\n");
+        sb.append("        String id = attrs.id ?: attrs.name\n");
+        sb.append("        String listId = id + '_options'\n");
+        sb.append("        out << '<input type=\"text\" name=\"' << HtmlUtils.htmlEscape(attrs.name as String)\n");
+        sb.append("        out << '\" id=\"' << HtmlUtils.htmlEscape(id) << '\" list=\"' << HtmlUtils.htmlEscape(listId)\n");
+        sb.append("        out << '\" value=\"' << (value != null ? HtmlUtils.htmlEscape(value as String) : '')\n");
+        sb.append("        out << '\" autocomplete=\"off\" data-lookup=\"' << createLink(controller: attrs.controller, action: 'lookup') << '\"/>'\n");
+        sb.append("        out << '<datalist id=\"' << HtmlUtils.htmlEscape(listId) << '\"></datalist>'\n");
+        sb.append("        if (!request.getAttribute(TYPEAHEAD_SCRIPT)) {\n");
+        sb.append("            request.setAttribute(TYPEAHEAD_SCRIPT, true)\n");
+        sb.append("            out << TYPEAHEAD\n");
+        sb.append("        }\n");
+        sb.append("    }\n\n");
+        sb.append("    private static String select(Map attrs, String options, Object value) {\n");
+        sb.append("        String html = options\n");
+        sb.append("        if (value != null) {\n");
+        sb.append("            String option = '<option value=\"' + HtmlUtils.htmlEscape(value as String) + '\"'\n");
+        sb.append("            html = html.replace(option + '>', option + ' selected>')\n");
+        sb.append("        }\n");
+        sb.append("        String name = HtmlUtils.htmlEscape(attrs.name as String)\n");
+        sb.append("        String id = attrs.id ? HtmlUtils.htmlEscape(attrs.id as String) : name\n");
+        sb.append("        return '<select name=\"' + name + '\" id=\"' + id + '\"><option value=\"\"></option>' + html + '</select>'\n");
+        sb.append("    }\n\n");
+        sb.append("    // Einmal pro Seite: lädt ab zwei Zeichen passende Einträge in die datalist des Feldes\n");
+        sb.append("    private static final String TYPEAHEAD = \"\"\"<script>\n");
+        sb.append("document.addEventListener('input', function (event) {\n");
+        sb.append("    var input = event.target;\n");
+        sb.append("    if (!input.dataset || !input.dataset.lookup) {\n");
+        sb.append("        return;\n");
+        sb.append("    }\n");
+        sb.append("    clearTimeout(input.lookupTimer);\n");
+        sb.append("    input.lookupTimer = setTimeout(function () {\n");
+        sb.append("        if (input.value.length < 2) {\n");
+        sb.append("            return;\n");
+        sb.append("        }\n");
+        sb.append("        fetch(input.dataset.lookup + '?max=20&q=' + encodeURIComponent(input.value),\n");
+        sb.append("            {headers: {'Accept': 'application/json'}})\n");
+        sb.append("            .then(function (response) { return response.json(); })\n");
+        sb.append("            .then(function (rows) {\n");
+        sb.append("                var list = document.getElementById(input.getAttribute('list'));\n");
+        sb.append("                list.replaceChildren.apply(list, rows.map(function (row) {\n");
+        sb.append("                    var option = document.createElement('option');\n");
+        sb.append("                    option.value = row.id;\n");
+        sb.append("                    option.textContent = row.label;\n");
+        sb.append("                    return option;\n");
+        sb.append("                }));\n");
+        sb.append("            });\n");
+        sb.append("    }, 250);\n");
+        sb.append("});\n");
+        sb.append("</script>\"\"\"\n");
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    /**
+     * Referenzierte Klasse mit eigenem Controller ({@code lookup}-Action), sonst {@code null}.
+     */
+    private ClassMetadata referencedClass(AttributeMetadata attr, ModelMetadata metadata, GenerationConfig config) {
+        if (!attr.isForeignKey() || attr.getReferencedClass() == null) {
+            return null;
+        }
+        ClassMetadata referenced = metadata.getClass(attr.getReferencedClass());
+        if (referenced == null || referenced.isAbstract()
+            || !metadata.getInheritanceIndex().hasOwnTable(referenced)
+            || !config.getClassSelection().matches(referenced.getName())) {
+            return null;
+        }
+        return referenced;
+    }
+
     private List<EnumMetadata.EnumValue> resolveEnumValues(AttributeMetadata attr, ModelMetadata metadata) {
         if (!attr.getEnumValues().isEmpty()) {
             return attr.getEnumValues();
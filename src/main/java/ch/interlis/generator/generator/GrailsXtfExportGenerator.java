@@ -0,0 +1,616 @@
+package ch.interlis.generator.generator;
+
+import ch.interlis.generator.model.AttributeMetadata;
+import ch.interlis.generator.model.ClassMetadata;
+import ch.interlis.generator.model.InheritanceIndex;
+import ch.interlis.generator.model.ModelMetadata;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Generiert den {@value #XTF_EXPORT_SERVICE} und einen Controller für den INTERLIS-Transfer (XTF)
+ * einer Klasse, eines Themas oder eines Baskets.
+ *
+ * Die Abfragen pro Klasse werden hier aus dem Metamodell gebaut (OID aus {@code t_ili_tid},
+ * Referenzen als OID des Ziels, Geometrien als GeoJSON). Zur Laufzeit liest der Service mit einem
+ * Forward-only-Cursor und schreibt die Objekte direkt mit dem {@code XtfWriter} (INTERLIS 2.3) bzw.
+ * {@code Xtf24Writer} (INTERLIS 2.4) von iox-ili. Joined subclasses werden über die Tabellen ihrer
+ * Basisklassen gelesen; Basisklassen mit solchen Subklassen filtern auf {@code t_type}.
+ * Strukturattribute und Assoziationstabellen werden nicht exportiert.
+ */
+class GrailsXtfExportGenerator {
+
+    static final String XTF_EXPORT_SERVICE = "XtfExportService";
+    static final String XTF_EXPORT_CONTROLLER = "XtfExportController";
+
+    /**
+     * Schreibt Service und Controller; ohne exportierbare Klassen wird nichts geschrieben.
+     *
+     * @return {@code true}, wenn der Export generiert wurde
+     */
+    boolean generate(ModelMetadata metadata, GenerationConfig config) throws IOException {
+        List<ClassMetadata> exportClasses = exportClasses(metadata, config);
+        if (exportClasses.isEmpty()) {
+            return false;
+        }
+        Path serviceDir = config.getOutputDir()
+            .resolve("grails-app/services")
+            .resolve(NameUtils.packageToPath(config.getBasePackage()));
+        Files.createDirectories(serviceDir);
+        Files.writeString(serviceDir.resolve(XTF_EXPORT_SERVICE + ".groovy"),
+            renderService(exportClasses, metadata, config), StandardCharsets.UTF_8);
+
+        Path controllerDir = config.getOutputDir()
+            .resolve("grails-app/controllers")
+            .resolve(NameUtils.packageToPath(config.getControllerPackage()));
+        Files.createDirectories(controllerDir);
+        Files.writeString(controllerDir.resolve(XTF_EXPORT_CONTROLLER + ".groovy"),
+            renderController(config), StandardCharsets.UTF_8);
+        return true;
+    }
+
+    /**
+     * Konkrete Klassen mit eigener Tabelle, die in einem Thema liegen (nur diese können in
+     * einem Basket transferiert werden).
+     */
+    private List<ClassMetadata> exportClasses(ModelMetadata metadata, GenerationConfig config) {
+        InheritanceIndex inheritance = metadata.getInheritanceIndex();
+        List<ClassMetadata> classes = new ArrayList<>();
+        for (ClassMetadata classMetadata : metadata.getAllClasses()) {
+            if (classMetadata.isAbstract()
+                || classMetadata.getTableName() == null
+                || (classMetadata.getKind() != null && classMetadata.getKind() != ClassMetadata.ClassKind.CLASS)
+                || topic(classMetadata) == null
+                || !inheritance.hasOwnTable(classMetadata)
+                || !config.getClassSelection().matches(classMetadata.getName())) {
+                continue;
+            }
+            classes.add(classMetadata);
+        }
+        return classes;
+    }
+
+    private String renderService(List<ClassMetadata> exportClasses, ModelMetadata metadata, GenerationConfig config) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("package ").append(config.getBasePackage()).append("\n\n");
+        sb.append("import ch.interlis.ili2c.Ili2cSettings\n");
+        sb.append("import ch.interlis.ili2c.Main\n");
+        sb.append("import ch.interlis.ili2c.config.Configuration\n");
+        sb.append("import ch.interlis.ili2c.config.FileEntry\n");
+        sb.append("import ch.interlis.ili2c.config.FileEntryKind\n");
+        sb.append("import ch.interlis.ili2c.metamodel.TransferDescription\n");
+        sb.append("import ch.interlis.iom.IomObject\n");
+        sb.append("import ch.interlis.iom_j.Iom_jObject\n");
+        sb.append("import ch.interlis.iom_j.xtf.Xtf24Writer\n");
+        sb.append("import ch.interlis.iom_j.xtf.XtfWriter\n");
+        sb.append("import ch.interlis.iox.IoxWriter\n");
+        sb.append("import ch.interlis.iox_j.EndBasketEvent\n");
+        sb.append("import ch.interlis.iox_j.EndTransferEvent\n");
+        sb.append("import ch.interlis.iox_j.ObjectEvent\n");
+        sb.append("import ch.interlis.iox_j.StartBasketEvent\n");
+        sb.append("import ch.interlis.iox_j.StartTransferEvent\n");
+        sb.append("import groovy.json.JsonSlurper\n");
+        sb.append("\n");
+        GrailsMetricsGenerator.appendTimedImport(sb, config);
+        sb.append("import javax.sql.DataSource\n");
+        sb.append("import java.nio.charset.StandardCharsets\n");
+        sb.append("import java.nio.file.Files\n");
+        sb.append("import java.nio.file.Path\n");
+        sb.append("import java.sql.Connection\n");
+        sb.append("import java.sql.PreparedStatement\n");
+        sb.append("import java.sql.ResultSet\n");
+        sb.append("import java.time.format.DateTimeFormatter\n");
+        sb.append("\n");
+        sb.append("class ").append(XTF_EXPORT_SERVICE).append(" {\n");
+        sb.append("\n");
+        sb.append("    static transactional = false\n");
+        sb.append("\n");
+        sb.append("    static final int FETCH_SIZE = 1000\n");
+        sb.append("    static final String MODEL_NAME = '").append(metadata.getModelName()).append("'\n");
+        sb.append("    static final String SCHEMA_PREFIX = '").append(schemaPrefix(config)).append("'\n");
+        sb.append("    // XMLDateTime verlangt Sekunden, LocalDateTime.toString() lässt sie bei :00 weg\n");
+        sb.append("    static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern(\"yyyy-MM-dd'T'HH:mm:ss.SSS\")\n");
+        sb.append("    // Geometrietypen (PostGIS, ohne M), die geometry() nach ST_CurveToLine kodieren kann\n");
+        sb.append("    static final Set<String> GEOMETRY_TYPES = ['POINT', 'MULTIPOINT', 'LINESTRING', 'CIRCULARSTRING',\n");
+        sb.append("        'COMPOUNDCURVE', 'MULTILINESTRING', 'MULTICURVE', 'POLYGON', 'CURVEPOLYGON', 'MULTIPOLYGON',\n");
+        sb.append("        'MULTISURFACE'] as Set\n");
+        sb.append("\n");
+        sb.append("    /**\n");
+        sb.append("     * Pro INTERLIS-Klasse: Thema, Abfrage (Spalte 1 = OID, Alias a = Tabelle der Wurzelklasse),\n");
+        sb.append("     * optional t_type der Klasse und Attribute in Spaltenreihenfolge.\n");
+        sb.append("     */\n");
+        sb.append("    static final Map<String, Map> CLASSES = [\n");
+        appendClasses(sb, exportClasses, metadata, config);
+        sb.append("    ]\n");
+        sb.append("\n");
+        sb.append("    DataSource dataSource\n");
+        sb.append("\n");
+        sb.append("    private volatile TransferDescription transferDescription\n");
+        sb.append("\n");
+        sb.append("    /**\n");
+        sb.append("     * Exportiert einen Basket (t_ili2db_basket.t_id).\n");
+        sb.append("     */\n");
+        GrailsMetricsGenerator.appendTimed(sb, config);
+        sb.append("    void exportBasket(OutputStream out, long basketId) {\n");
+        sb.append("        List<Map> baskets = baskets('WHERE t_id = ?', [basketId])\n");
+        sb.append("        if (!baskets) {\n");
+        sb.append("            throw new IllegalArgumentException(\"Unknown basket: ${basketId}\")\n");
+        sb.append("        }\n");
+        sb.append("        write(out, baskets, CLASSES.keySet())\n");
+        sb.append("    }\n");
+        sb.append("\n");
+        sb.append("    /**\n");
+        sb.append("     * Exportiert alle Baskets eines Themas.\n");
+        sb.append("     */\n");
+        GrailsMetricsGenerator.appendTimed(sb, config);
+        sb.append("    void exportTopic(OutputStream out, String topic) {\n");
+        sb.append("        List<String> classNames = CLASSES.findAll { it.value.topic == topic }.keySet().toList()\n");
+        sb.append("        if (!classNames) {\n");
+        sb.append("            throw new IllegalArgumentException(\"Unknown topic: ${topic}\")\n");
+        sb.append("        }\n");
+        sb.append("        write(out, basketsOfTopic(topic), classNames)\n");
+        sb.append("    }\n");
+        sb.append("\n");
+        sb.append("    /**\n");
+        sb.append("     * Exportiert die Objekte einer Klasse, gruppiert nach Basket.\n");
+        sb.append("     */\n");
+        GrailsMetricsGenerator.appendTimed(sb, config);
+        sb.append("    void exportClass(OutputStream out, String className) {\n");
+        sb.append("        Map mapping = CLASSES[className]\n");
+        sb.append("        if (mapping == null) {\n");
+        sb.append("            throw new IllegalArgumentException(\"Unknown class: ${className}\")\n");
+        sb.append("        }\n");
+        sb.append("        write(out, basketsOfTopic(mapping.topic as String), [className])\n");
+        sb.append("    }\n");
+        sb.append("\n");
+        sb.append("    private List<Map> basketsOfTopic(String topic) {\n");
+        sb.append("        List<Map> baskets = hasBasketTable() ? baskets('WHERE topic = ?', [topic]) : []\n");
+        sb.append("        // Ohne Basket-Spalten: ein Basket mit allen Objekten\n");
+        sb.append("        return baskets ?: [[id: null, topic: topic, bid: topic]]\n");
+        sb.append("    }\n");
+        sb.append("\n");
+        sb.append("    private void write(OutputStream out, List<Map> baskets, Collection<String> classNames) {\n");
+        sb.append("        withConnection { Connection connection ->\n");
+        sb.append("            checkGeometryTypes(connection, classNames)\n");
+        sb.append("            IoxWriter writer = writer(out, transferDescription(connection))\n");
+        sb.append("            writer.write(new StartTransferEvent())\n");
+        sb.append("            baskets.each { Map basket ->\n");
+        sb.append("                writer.write(new StartBasketEvent(basket.topic as String, basket.bid as String))\n");
+        sb.append("                classNames.findAll { CLASSES[it].topic == basket.topic }.each { String className ->\n");
+        sb.append("                    writeObjects(connection, writer, className, CLASSES[className], basket.id as Long)\n");
+        sb.append("                }\n");
+        sb.append("                writer.write(new EndBasketEvent())\n");
+        sb.append("            }\n");
+        sb.append("            writer.write(new EndTransferEvent())\n");
+        sb.append("            writer.flush()\n");
+        sb.append("        }\n");
+        sb.append("    }\n");
+        sb.append("\n");
+        sb.append("    /**\n");
+        sb.append("     * Prüft vor dem ersten geschriebenen Byte, ob geometry() alle Geometrien kodieren kann;\n");
+        sb.append("     * sonst bräche der Export mitten im Stream ab. Massgebend ist der Typ der Spalte, nur bei\n");
+        sb.append("     * generischen Spalten (GEOMETRY) wird der Inhalt gelesen.\n");
+        sb.append("     */\n");
+        sb.append("    private void checkGeometryTypes(Connection connection, Collection<String> classNames) {\n");
+        sb.append("        String schema = SCHEMA_PREFIX ? SCHEMA_PREFIX[0..-2] : connection.schema\n");
+        sb.append("        for (String className : classNames) {\n");
+        sb.append("            for (Map attribute : (CLASSES[className].attributes as List<Map>).findAll { it.kind == 'geometry' }) {\n");
+        sb.append("                String type = geometryType(connection,\n");
+        sb.append("                    'SELECT type FROM geometry_columns WHERE f_table_schema = ?'\n");
+        sb.append("                        + ' AND f_table_name = ? AND f_geometry_column = ?',\n");
+        sb.append("                    [schema, attribute.table, attribute.column])\n");
+        sb.append("                if (type == null || type == 'GEOMETRY') {\n");
+        sb.append("                    String column = \"GeometryType(${attribute.column})\"\n");
+        sb.append("                    type = geometryType(connection, \"SELECT ${column} FROM ${SCHEMA_PREFIX}${attribute.table}\"\n");
+        sb.append("                        + \" WHERE NOT (regexp_replace(${column}, 'M\\$', '') = ANY (?)) LIMIT 1\",\n");
+        sb.append("                        [connection.createArrayOf('text', GEOMETRY_TYPES.toArray())])\n");
+        sb.append("                }\n");
+        sb.append("                if (type != null && !GEOMETRY_TYPES.contains(type)) {\n");
+        sb.append("                    throw new IllegalStateException(\"Unsupported geometry type ${type} in ${className}.${attribute.name}\")\n");
+        sb.append("                }\n");
+        sb.append("            }\n");
+        sb.append("        }\n");
+        sb.append("    }\n");
+        sb.append("\n");
+        sb.append("    private static String geometryType(Connection connection, String sql, List parameters) {\n");
+        sb.append("        PreparedStatement statement = connection.prepareStatement(sql)\n");
+        sb.append("        try {\n");
+        sb.append("            parameters.eachWithIndex { Object value, int i -> statement.setObject(i + 1, value) }\n");
+        sb.append("            ResultSet rs = statement.executeQuery()\n");
+        sb.append("            // POINTM usw.: das Messmass geht im GeoJSON verloren, die Form bleibt\n");
+        sb.append("            return rs.next() ? rs.getString(1)?.toUpperCase(Locale.ROOT)?.replaceFirst('M$', '') : null\n");
+        sb.append("        } finally {\n");
+        sb.append("            statement.close()\n");
+        sb.append("        }\n");
+        sb.append("    }\n");
+        sb.append("\n");
+        sb.append("    /**\n");
+        sb.append("     * Liest die Objekte mit einem Forward-only-Cursor und schreibt sie sofort; es werden\n");
+        sb.append("     * keine Hibernate-Entities erzeugt.\n");
+        sb.append("     */\n");
+        sb.append("    private void writeObjects(Connection connection, IoxWriter writer, String className, Map mapping, Long basketId) {\n");
+        sb.append("        List<String> conditions = []\n");
+        sb.append("        List parameters = []\n");
+        sb.append("        if (mapping.type) {\n");
+        sb.append("            // Ohne Filter kämen die Objekte der joined subclasses ein zweites Mal\n");
+        sb.append("            conditions << 'a.t_type = ?'\n");
+        sb.append("            parameters << mapping.type\n");
+        sb.append("        }\n");
+        sb.append("        if (basketId != null && mapping.basket) {\n");
+        sb.append("            conditions << 'a.t_basket = ?'\n");
+        sb.append("            parameters << basketId\n");
+        sb.append("        }\n");
+        sb.append("        String sql = mapping.query + (conditions ? ' WHERE ' + conditions.join(' AND ') : '') + ' ORDER BY a.t_id'\n");
+        sb.append("        PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,\n");
+        sb.append("            ResultSet.CONCUR_READ_ONLY)\n");
+        sb.append("        try {\n");
+        sb.append("            statement.fetchSize = FETCH_SIZE\n");
+        sb.append("            parameters.eachWithIndex { Object value, int i -> statement.setObject(i + 1, value) }\n");
+        sb.append("            ResultSet rs = statement.executeQuery()\n");
+        sb.append("            while (rs.next()) {\n");
+        sb.append("                IomObject object = new Iom_jObject(className, rs.getString(1))\n");
+        sb.append("                (mapping.attributes as List<Map>).eachWithIndex { Map attribute, int i ->\n");
+        sb.append("                    setAttribute(object, attribute.name as String, attribute.kind as String, rs, i + 2)\n");
+        sb.append("                }\n");
+        sb.append("                writer.write(new ObjectEvent(object))\n");
+        sb.append("            }\n");
+        sb.append("        } finally {\n");
+        sb.append("            statement.close()\n");
+        sb.append("        }\n");
+        sb.append("    }\n");
+        sb.append("\n");
+        sb.append("    private static void setAttribute(IomObject object, String name, String kind, ResultSet rs, int index) {\n");
+        sb.append("        switch (kind) {\n");
+        sb.append("            case 'boolean':\n");
+        sb.append("                Object value = rs.getObject(index)\n");
+        sb.append("                if (value != null) {\n");
+        sb.append("                    object.setattrvalue(name, (value as Boolean).toString())\n");
+        sb.append("                }\n");
+        sb.append("                break\n");
+        sb.append("            case 'datetime':\n");
+        sb.append("                java.sql.Timestamp timestamp = rs.getTimestamp(index)\n");
+        sb.append("                if (timestamp != null) {\n");
+        sb.append("                    object.setattrvalue(name, timestamp.toLocalDateTime().format(DATE_TIME))\n");
+        sb.append("                }\n");
+        sb.append("                break\n");
+        sb.append("            case 'geometry':\n");
+        sb.append("                String json = rs.getString(index)\n");
+        sb.append("                if (json != null) {\n");
+        sb.append("                    object.addattrobj(name, geometry(new JsonSlurper().parseText(json) as Map, name))\n");
+        sb.append("                }\n");
+        sb.append("                break\n");
+        sb.append("            case 'reference':\n");
+        sb.append("                String oid = rs.getString(index)\n");
+        sb.append("                if (oid != null) {\n");
+        sb.append("                    object.addattrobj(name, 'REF').setobjectrefoid(oid)\n");
+        sb.append("                }\n");
+        sb.append("                break\n");
+        sb.append("            default:\n");
+        sb.append("                String text = rs.getString(index)\n");
+        sb.append("                if (text != null) {\n");
+        sb.append("                    object.setattrvalue(name, text)\n");
+        sb.append("                }\n");
+        sb.append("        }\n");
+        sb.append("    }\n");
+        sb.append("\n");
+        sb.append("    /**\n");
+        sb.append("     * Wandelt GeoJSON (aus ST_AsGeoJSON, Kreisbögen bereits segmentiert) in die IOM-Kodierung\n");
+        sb.append("     * von INTERLIS (COORD, POLYLINE, MULTISURFACE; MULTICOORD und MULTIPOLYLINE aus INTERLIS 2.4).\n");
+        sb.append("     */\n");
+        sb.append("    private static IomObject geometry(Map geometry, String name) {\n");
+        sb.append("        switch (geometry.type) {\n");
+        sb.append("            case 'Point':\n");
+        sb.append("                return coord(geometry.coordinates as List)\n");
+        sb.append("            case 'MultiPoint':\n");
+        sb.append("                IomObject multicoord = new Iom_jObject('MULTICOORD', null)\n");
+        sb.append("                geometry.coordinates.each { multicoord.addattrobj('coord', coord(it as List)) }\n");
+        sb.append("                return multicoord\n");
+        sb.append("            case 'LineString':\n");
+        sb.append("                return polyline(geometry.coordinates as List)\n");
+        sb.append("            case 'MultiLineString':\n");
+        sb.append("                IomObject multipolyline = new Iom_jObject('MULTIPOLYLINE', null)\n");
+        sb.append("                geometry.coordinates.each { multipolyline.addattrobj('polyline', polyline(it as List)) }\n");
+        sb.append("                return multipolyline\n");
+        sb.append("            case 'Polygon':\n");
+        sb.append("                return multisurface([geometry.coordinates as List])\n");
+        sb.append("            case 'MultiPolygon':\n");
+        sb.append("                return multisurface(geometry.coordinates as List)\n");
+        sb.append("            default:\n");
+        sb.append("                throw new IllegalStateException(\"Unsupported geometry type ${geometry.type} in ${name}\")\n");
+        sb.append("        }\n");
+        sb.append("    }\n");
+        sb.append("\n");
+        sb.append("    private static IomObject coord(List values) {\n");
+        sb.append("        IomObject coord = new Iom_jObject('COORD', null)\n");
+        sb.append("        ['C1', 'C2', 'C3'].eachWithIndex { String axis, int i ->\n");
+        sb.append("            if (i < values.size()) {\n");
+        sb.append("                Object value = values[i]\n");
+        sb.append("                coord.setattrvalue(axis, value instanceof BigDecimal ? value.toPlainString() : value.toString())\n");
+        sb.append("            }\n");
+        sb.append("        }\n");
+        sb.append("        return coord\n");
+        sb.append("    }\n");
+        sb.append("\n");
+        sb.append("    private static IomObject polyline(List coordinates) {\n");
+        sb.append("        IomObject polyline = new Iom_jObject('POLYLINE', null)\n");
+        sb.append("        IomObject sequence = polyline.addattrobj('sequence', 'SEGMENTS')\n");
+        sb.append("        coordinates.each { sequence.addattrobj('segment', coord(it as List)) }\n");
+        sb.append("        return polyline\n");
+        sb.append("    }\n");
+        sb.append("\n");
+        sb.append("    private static IomObject multisurface(List polygons) {\n");
+        sb.append("        IomObject multisurface = new Iom_jObject('MULTISURFACE', null)\n");
+        sb.append("        polygons.each { List rings ->\n");
+        sb.append("            IomObject surface = multisurface.addattrobj('surface', 'SURFACE')\n");
+        sb.append("            rings.each { List ring ->\n");
+        sb.append("                surface.addattrobj('boundary', 'BOUNDARY').addattrobj('polyline', polyline(ring))\n");
+        sb.append("            }\n");
+        sb.append("        }\n");
+        sb.append("        return multisurface\n");
+        sb.append("    }\n");
+        sb.append("\n");
+        sb.append("    /**\n");
+        sb.append("     * Xtf24Writer für Modelle in INTERLIS 2.4, sonst XtfWriter (2.3); die IOM-Objekte sind dieselben.\n");
+        sb.append("     */\n");
+        sb.append("    private static IoxWriter writer(OutputStream out, TransferDescription td) {\n");
+        sb.append("        return td.lastModel?.iliVersion == '2.4' ? new Xtf24Writer(out, td) : new XtfWriter(out, td)\n");
+        sb.append("    }\n");
+        sb.append("\n");
+        sb.append("    private List<Map> baskets(String where, List parameters) {\n");
+        sb.append("        withConnection { Connection connection ->\n");
+        sb.append("            PreparedStatement statement = connection.prepareStatement(\n");
+        sb.append("                \"SELECT t_id, topic, t_ili_tid FROM ${SCHEMA_PREFIX}t_ili2db_basket ${where} ORDER BY t_id\")\n");
+        sb.append("            try {\n");
+        sb.append("                parameters.eachWithIndex { Object value, int i -> statement.setObject(i + 1, value) }\n");
+        sb.append("                ResultSet rs = statement.executeQuery()\n");
+        sb.append("                List<Map> baskets = []\n");
+        sb.append("                while (rs.next()) {\n");
+        sb.append("                    baskets << [id: rs.getLong(1), topic: rs.getString(2), bid: rs.getString(3) ?: rs.getString(1)]\n");
+        sb.append("                }\n");
+        sb.append("                return baskets\n");
+        sb.append("            } finally {\n");
+        sb.append("                statement.close()\n");
+        sb.append("            }\n");
+        sb.append("        }\n");
+        sb.append("    }\n");
+        sb.append("\n");
+        sb.append("    private boolean hasBasketTable() {\n");
+        sb.append("        CLASSES.values().any { it.basket }\n");
+        sb.append("    }\n");
+        sb.append("\n");
+        sb.append("    private TransferDescription transferDescription(Connection connection) {\n");
+        sb.append("        if (transferDescription == null) {\n");
+        sb.append("            synchronized (this) {\n");
+        sb.append("                if (transferDescription == null) {\n");
+        sb.append("                    transferDescription = compileModels(connection)\n");
+        sb.append("                }\n");
+        sb.append("            }\n");
+        sb.append("        }\n");
+        sb.append("        return transferDescription\n");
+        sb.append("    }\n");
+        sb.append("\n");
+        sb.append("    /**\n");
+        sb.append("     * Kompiliert das Modell aus den Dateien, die ili2db beim Schemaimport in t_ili2db_model\n");
+        sb.append("     * abgelegt hat; importierte Modelle werden im selben Verzeichnis gefunden. Läuft nur beim\n");
+        sb.append("     * ersten Export, das temporäre Verzeichnis wird danach gelöscht.\n");
+        sb.append("     */\n");
+        sb.append("    private static TransferDescription compileModels(Connection connection) {\n");
+        sb.append("        Path dir = Files.createTempDirectory('ili2grails-models')\n");
+        sb.append("        try {\n");
+        sb.append("            Path modelFile = null\n");
+        sb.append("            PreparedStatement statement = connection.prepareStatement(\n");
+        sb.append("                \"SELECT filename, modelname, content FROM ${SCHEMA_PREFIX}t_ili2db_model\")\n");
+        sb.append("            try {\n");
+        sb.append("                ResultSet rs = statement.executeQuery()\n");
+        sb.append("                while (rs.next()) {\n");
+        sb.append("                    Path file = dir.resolve(Path.of(rs.getString('filename')).fileName.toString())\n");
+        sb.append("                    Files.writeString(file, rs.getString('content'), StandardCharsets.UTF_8)\n");
+        sb.append("                    String models = rs.getString('modelname') ?: ''\n");
+        sb.append("                    // modelname: \"Modell{ ImportiertesModell ...}\"\n");
+        sb.append("                    if (models.tokenize('{ }').find() == MODEL_NAME) {\n");
+        sb.append("                        modelFile = file\n");
+        sb.append("                    }\n");
+        sb.append("                }\n");
+        sb.append("            } finally {\n");
+        sb.append("                statement.close()\n");
+        sb.append("            }\n");
+        sb.append("            if (modelFile == null) {\n");
+        sb.append("                throw new IllegalStateException(\"Model ${MODEL_NAME} not found in ${SCHEMA_PREFIX}t_ili2db_model\")\n");
+        sb.append("            }\n");
+        sb.append("            Configuration config = new Configuration()\n");
+        sb.append("            config.addFileEntry(new FileEntry(modelFile.toString(), FileEntryKind.ILIMODELFILE))\n");
+        sb.append("            config.autoCompleteModelList = true\n");
+        sb.append("            Ili2cSettings settings = new Ili2cSettings()\n");
+        sb.append("            Main.setDefaultIli2cPathMap(settings)\n");
+        sb.append("            settings.ilidirs = dir.toString() + ';' + Ili2cSettings.DEFAULT_ILIDIRS\n");
+        sb.append("            TransferDescription td = Main.runCompiler(config, settings, null)\n");
+        sb.append("            if (td == null) {\n");
+        sb.append("                throw new IllegalStateException(\"Failed to compile INTERLIS model ${MODEL_NAME}\")\n");
+        sb.append("            }\n");
+        sb.append("            return td\n");
+        sb.append("        } finally {\n");
+        sb.append("            // Das kompilierte Modell liegt im Speicher, die Dateien werden nicht mehr gebraucht\n");
+        sb.append("            Files.walk(dir).withCloseable { it.sorted(Comparator.reverseOrder()).forEach { Path path -> Files.deleteIfExists(path) } }\n");
+        sb.append("        }\n");
+        sb.append("    }\n");
+        sb.append("\n");
+        sb.append("    private <T> T withConnection(Closure<T> work) {\n");
+        sb.append("        Connection connection = dataSource.connection\n");
+        sb.append("        boolean autoCommit = connection.autoCommit\n");
+        sb.append("        try {\n");
+        sb.append("            // Der PostgreSQL-Treiber liest nur innerhalb einer Transaktion blockweise (Cursor)\n");
+        sb.append("            connection.autoCommit = false\n");
+        sb.append("            connection.readOnly = true\n");
+        sb.append("            T result = work(connection)\n");
+        sb.append("            connection.commit()\n");
+        sb.append("            return result\n");
+        sb.append("        } catch (Exception e) {\n");
+        sb.append("            connection.rollback()\n");
+        sb.append("            throw e\n");
+        sb.append("        } finally {\n");
+        sb.append("            connection.readOnly = false\n");
+        sb.append("            connection.autoCommit = autoCommit\n");
+        sb.append("            connection.close()\n");
+        sb.append("        }\n");
+        sb.append("    }\n");
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    private void appendClasses(StringBuilder sb, List<ClassMetadata> exportClasses, ModelMetadata metadata,
+                               GenerationConfig config) {
+        InheritanceIndex inheritance = metadata.getInheritanceIndex();
+        for (int i = 0; i < exportClasses.size(); i++) {
+            ClassMetadata classMetadata = exportClasses.get(i);
+            // Wurzel zuerst: Systemspalten (t_ili_tid, t_basket, t_type) liegen in ihrer Tabelle
+            List<ClassMetadata> tables = tables(classMetadata, inheritance);
+            ClassMetadata root = tables.get(0);
+            List<String> expressions = new ArrayList<>();
+            List<String> attributes = new ArrayList<>();
+            expressions.add(root.hasSystemColumn("t_ili_tid")
+                ? "COALESCE(a.t_ili_tid, CAST(a.t_id AS text))"
+                : "CAST(a.t_id AS text)");
+            StringBuilder from = new StringBuilder(GrailsControllerGenerator.qualifiedTableName(root, config))
+                .append(" a");
+            for (int t = 0; t < tables.size(); t++) {
+                String alias = t == 0 ? "a" : "j" + t;
+                if (t > 0) {
+                    from.append(" JOIN ").append(GrailsControllerGenerator.qualifiedTableName(tables.get(t), config))
+                        .append(" ").append(alias).append(" ON ").append(alias).append(".t_id = a.t_id");
+                }
+                appendAttributes(tables.get(t), alias, expressions, attributes, metadata, config);
+            }
+            sb.append("        '").append(classMetadata.getName()).append("': [topic: '")
+                .append(topic(classMetadata)).append("', basket: ")
+                .append(root.hasSystemColumn("t_basket")).append(",\n");
+            sb.append("            query: 'SELECT ").append(String.join(", ", expressions)).append(" FROM ")
+                .append(from).append("',\n");
+            if (inheritance.hasJoinedSubclasses(classMetadata)) {
+                sb.append("            type: '").append(classMetadata.getTableName().toLowerCase(Locale.ROOT)).append("',\n");
+            }
+            sb.append("            attributes: [").append(String.join(", ", attributes)).append("]]");
+            sb.append(i < exportClasses.size() - 1 ? ",\n" : "\n");
+        }
+    }
+
+    private void appendAttributes(ClassMetadata table, String alias, List<String> expressions, List<String> attributes,
+                                  ModelMetadata metadata, GenerationConfig config) {
+        for (AttributeMetadata attr : table.getAllAttributes()) {
+            if (attr.isPrimaryKey() || attr.getColumnName() == null) {
+                continue;
+            }
+            String column = alias + "." + NameUtils.columnName(attr);
+            String kind;
+            if (attr.isGeometry()) {
+                // Kreisbögen segmentieren: GeoJSON kennt keine Kurven
+                kind = "geometry";
+                expressions.add("ST_AsGeoJSON(ST_CurveToLine(" + column + "))");
+            } else if (attr.isForeignKey()) {
+                ClassMetadata target = attr.getReferencedClass() != null
+                    ? metadata.getClass(attr.getReferencedClass()) : null;
+                if (target == null || target.getTableName() == null) {
+                    continue;
+                }
+                kind = "reference";
+                ClassMetadata targetRoot = tables(target, metadata.getInheritanceIndex()).get(0);
+                expressions.add(targetRoot.hasSystemColumn("t_ili_tid")
+                    ? "(SELECT COALESCE(r.t_ili_tid, CAST(r.t_id AS text)) FROM "
+                        + GrailsControllerGenerator.qualifiedTableName(targetRoot, config)
+                        + " r WHERE r.t_id = " + column + ")"
+                    : "CAST(" + column + " AS text)");
+            } else {
+                kind = switch (NameUtils.simpleType(attr.getJavaType())) {
+                    case "Boolean" -> "boolean";
+                    case "LocalDateTime" -> "datetime";
+                    default -> "text";
+                };
+                expressions.add(column);
+            }
+            attributes.add("[name: '" + attr.getName() + "', kind: '" + kind + "'"
+                + (attr.isGeometry()
+                    ? ", table: '" + table.getTableName().toLowerCase(Locale.ROOT) + "', column: '"
+                        + NameUtils.columnName(attr).toLowerCase(Locale.ROOT) + "'"
+                    : "")
+                + "]");
+        }
+    }
+
+    /**
+     * Tabellen einer Klasse entlang der joined subclasses, beginnend bei der Wurzelklasse.
+     */
+    private static List<ClassMetadata> tables(ClassMetadata classMetadata, InheritanceIndex inheritance) {
+        List<ClassMetadata> tables = new ArrayList<>();
+        for (ClassMetadata table = classMetadata; table != null; table = inheritance.getJoinedSuperclass(table)) {
+            tables.add(0, table);
+        }
+        return tables;
+    }
+
+    private String renderController(GenerationConfig config) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("package ").append(config.getControllerPackage()).append("\n\n");
+        if (!config.getBasePackage().equals(config.getControllerPackage())) {
+            sb.append("import ").append(config.getBasePackage()).append(".").append(XTF_EXPORT_SERVICE).append("\n\n");
+        }
+        sb.append("class ").append(XTF_EXPORT_CONTROLLER).append(" {\n\n");
+        sb.append("    static allowedMethods = [index: 'GET']\n\n");
+        sb.append("    ").append(XTF_EXPORT_SERVICE).append(" xtfExportService\n\n");
+        sb.append("    /**\n");
+        sb.append("     * XTF eines Baskets ({@code basket}), eines Themas ({@code topic}) oder einer Klasse\n");
+        sb.append("     * ({@code className}, qualifizierter INTERLIS-Name).\n");
+        sb.append("     */\n");
+        sb.append("    def index(Long basket, String topic, String className) {\n");
+        sb.append("        if (basket == null && !topic && !className) {\n");
+        sb.append("            render status: 400, text: 'Expected basket, topic or className'\n");
+        sb.append("            return\n");
+        sb.append("        }\n");
+        sb.append("        response.contentType = 'application/xml;charset=UTF-8'\n");
+        sb.append("        response.setHeader('Content-Disposition', 'attachment; filename=\"export.xtf\"')\n");
+        sb.append("        OutputStream out = response.outputStream\n");
+        sb.append("        try {\n");
+        sb.append("            if (basket != null) {\n");
+        sb.append("                xtfExportService.exportBasket(out, basket)\n");
+        sb.append("            } else if (topic) {\n");
+        sb.append("                xtfExportService.exportTopic(out, topic)\n");
+        sb.append("            } else {\n");
+        sb.append("                xtfExportService.exportClass(out, className)\n");
+        sb.append("            }\n");
+        sb.append("        } catch (IllegalArgumentException e) {\n");
+        sb.append("            // Vor dem ersten geschriebenen Byte geprüft\n");
+        sb.append("            response.resetBuffer()\n");
+        sb.append("            render status: 404, contentType: 'text/plain', text: e.message\n");
+        sb.append("            return\n");
+        sb.append("        } catch (IllegalStateException e) {\n");
+        sb.append("            // Modell oder Geometrietypen: ebenfalls vor dem ersten Byte geprüft\n");
+        sb.append("            if (response.committed) {\n");
+        sb.append("                throw e\n");
+        sb.append("            }\n");
+        sb.append("            response.resetBuffer()\n");
+        sb.append("            render status: 500, contentType: 'text/plain', text: e.message\n");
+        sb.append("            return\n");
+        sb.append("        }\n");
+        sb.append("        out.flush()\n");
+        sb.append("    }\n");
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    /**
+     * Thema einer Klasse ({@code Modell.Thema}) oder {@code null} für Klassen auf Modellebene.
+     */
+    static String topic(ClassMetadata classMetadata) {
+        String[] parts = classMetadata.getName().split("\\.");
+        return parts.length >= 3 ? parts[0] + "." + parts[1] : null;
+    }
+
+    private String schemaPrefix(GenerationConfig config) {
+        String schema = config.getSchema();
+        return schema != null && !schema.isBlank() ? schema + "." : "";
+    }
+}
@@ -0,0 +1,94 @@
+package ch.interlis.generator.generator;
+
+import ch.interlis.generator.model.AttributeMetadata;
+import ch.interlis.generator.model.ClassMetadata;
+import ch.interlis.generator.model.ModelMetadata;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Auswahl der Spalten, die Listen- und Lookup-Abfragen projizieren.
+ *
+ * Geometrien und lange Texte (z. B. MTEXT) werden nie geladen; die übrigen Attribute
+ * werden in Modellreihenfolge bis zum Spaltenbudget übernommen.
+ */
+final class ListColumns {
+
+    /**
+     * Texte mit grösserer Maximallänge gelten als lang (ili2db bildet MTEXT bzw. TEXT ohne
+     * Länge als {@code text} ab, dessen Spaltengrösse der Treiber entsprechend hoch meldet).
+     */
+    static final int LONG_TEXT_LENGTH = 255;
+
+    private ListColumns() {
+    }
+
+    /**
+     * Angezeigte Attribute der Liste (ohne Primärschlüssel), höchstens {@code listColumnBudget}.
+     */
+    static List<AttributeMetadata> select(ClassMetadata classMetadata, GenerationConfig config) {
+        List<AttributeMetadata> columns = new ArrayList<>();
+        for (AttributeMetadata attr : classMetadata.getNonGeometryAttributes()) {
+            if (columns.size() >= config.getListColumnBudget()) {
+                break;
+            }
+            if (attr.isPrimaryKey() || isLongText(attr)) {
+                continue;
+            }
+            columns.add(attr);
+        }
+        return columns;
+    }
+
+    /**
+     * Projektion je Listen-Property: {@code id} zuerst, Referenzen nur mit ihrer Id
+     * (Fremdschlüsselspalte, ohne Join).
+     */
+    static Map<String, String> projections(ClassMetadata classMetadata, ModelMetadata metadata,
+                                           GenerationConfig config) {
+        Map<String, String> projections = new LinkedHashMap<>();
+        projections.put("id", "id");
+        for (AttributeMetadata attr : select(classMetadata, config)) {
+            String propertyName = NameUtils.propertyName(attr);
+            projections.put(propertyName, isAssociation(attr, metadata) ? propertyName + ".id" : propertyName);
+        }
+        return projections;
+    }
+
+    /**
+     * Kurzes Text-Attribut, das in Lookups als Bezeichnung dient (sonst {@code null}).
+     */
+    static AttributeMetadata labelAttribute(ClassMetadata classMetadata, ModelMetadata metadata,
+                                            GenerationConfig config) {
+        AttributeMetadata fallback = null;
+        for (AttributeMetadata attr : select(classMetadata, config)) {
+            if (attr.getEnumType() != null || isAssociation(attr, metadata)
+                || !"String".equals(NameUtils.simpleType(attr.getJavaType()))) {
+                continue;
+            }
+            if (attr.isMandatory()) {
+                return attr;
+            }
+            if (fallback == null) {
+                fallback = attr;
+            }
+        }
+        return fallback;
+    }
+
+    static boolean isLongText(AttributeMetadata attr) {
+        if (attr.getEnumType() != null || !"String".equals(NameUtils.simpleType(attr.getJavaType()))) {
+            return false;
+        }
+        Integer maxLength = attr.getMaxLength();
+        return maxLength != null && maxLength > LONG_TEXT_LENGTH;
+    }
+
+    private static boolean isAssociation(AttributeMetadata attr, ModelMetadata metadata) {
+        return attr.isForeignKey() && attr.getReferencedClass() != null
+            && metadata.getClass(attr.getReferencedClass()) != null;
+    }
+}
@@ -1,5 +1,7 @@
 package ch.interlis.generator.generator;
 
+import ch.interlis.generator.model.AttributeMetadata;
+
 import java.util.Locale;
 
 final class NameUtils {
@@ -33,6 +35,29 @@ final class NameUtils {
         return sb.toString();
     }
 
+    /**
+     * Name der Domain-Property eines Attributs (SQL-Name, sonst INTERLIS-Name).
+     */
+    static String propertyName(AttributeMetadata attr) {
+        String propertyName = attr.getSqlName();
+        if (propertyName == null || propertyName.isBlank()) {
+            propertyName = attr.getName();
+        }
+        return propertyName;
+    }
+
+    /**
+     * Tabellenspalte eines Attributs wie im Domain-Mapping: die ili2db-Spalte, sonst der
+     * Grails-Default (snake_case, Referenzen mit Suffix {@code _id}).
+     */
+    static String columnName(AttributeMetadata attr) {
+        if (attr.getColumnName() != null && !attr.getColumnName().isBlank()) {
+            return attr.getColumnName().toLowerCase(Locale.ROOT);
+        }
+        String column = propertyName(attr).replaceAll("([a-z0-9])([A-Z])", "$1_$2").toLowerCase(Locale.ROOT);
+        return attr.isForeignKey() ? column + "_id" : column;
+    }
+
     static String pluralize(String value) {
         if (value == null || value.isBlank()) {
             return value;
@@ -0,0 +1,79 @@
+package ch.interlis.generator.generator;
+
+import java.util.Locale;
+
+/**
+ * Voreinstellungen für Hibernate-Batching, Fetch-Size, Connection-Pool und PostgreSQL-Treiber,
+ * die pro Grails-Environment in {@code application.yml} geschrieben werden.
+ */
+public enum PerformanceProfile {
+
+    /**
+     * Keine Einstellungen schreiben (Grails-Defaults).
+     */
+    NONE(0, 0, 0, 0, 0),
+
+    /**
+     * Interaktive Anwendungen: moderate Batches und kleiner Pool.
+     */
+    STANDARD(50, 100, 10, 2, 256),
+
+    /**
+     * Massenbearbeitung und Importe: grosse Batches und Fetch-Sizes.
+     */
+    BULK(500, 1000, 20, 4, 512);
+
+    private final int batchSize;
+    private final int fetchSize;
+    private final int maxPoolSize;
+    private final int minIdle;
+    private final int statementCacheSize;
+
+    PerformanceProfile(int batchSize, int fetchSize, int maxPoolSize, int minIdle, int statementCacheSize) {
+        this.batchSize = batchSize;
+        this.fetchSize = fetchSize;
+        this.maxPoolSize = maxPoolSize;
+        this.minIdle = minIdle;
+        this.statementCacheSize = statementCacheSize;
+    }
+
+    /**
+     * {@code hibernate.jdbc.batch_size}.
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * {@code hibernate.jdbc.fetch_size} bzw. {@code defaultRowFetchSize} des PostgreSQL-Treibers.
+     */
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    public int getMaxPoolSize() {
+        return maxPoolSize;
+    }
+
+    public int getMinIdle() {
+        return minIdle;
+    }
+
+    /**
+     * Anzahl Prepared Statements, die der PostgreSQL-Treiber pro Verbindung cacht.
+     */
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
+    public static PerformanceProfile fromName(String name) {
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("Performance profile must not be empty");
+        }
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown performance profile: " + name);
+        }
+    }
+}
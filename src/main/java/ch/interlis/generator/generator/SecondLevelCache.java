@@ -0,0 +1,86 @@
+package ch.interlis.generator.generator;
+
+import ch.interlis.generator.model.ClassMetadata;
+import ch.interlis.generator.model.ClassSelection;
+import ch.interlis.generator.model.InheritanceIndex;
+import ch.interlis.generator.model.ModelMetadata;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Bestimmt, welche Domains im Hibernate Second-Level-Cache gehalten werden.
+ *
+ * Gecacht werden Katalog-Klassen (Erweiterungen von {@value #CATALOGUE_ITEM}) sowie die
+ * per {@link GenerationConfig#getCachedClasses()} gewählten Klassen. Diese Daten ändern
+ * sich selten und werden in Auswahllisten bei jedem Formular erneut gelesen.
+ */
+final class SecondLevelCache {
+
+    static final String CATALOGUE_ITEM = "CatalogueObjects_V1.Catalogues.Item";
+    static final String READ_ONLY = "read-only";
+    static final String NONSTRICT_READ_WRITE = "nonstrict-read-write";
+
+    private SecondLevelCache() {
+    }
+
+    /**
+     * Cache-Strategie der Klasse oder {@code null}, wenn sie nicht gecacht wird.
+     */
+    static String usage(ClassMetadata classMetadata, ModelMetadata metadata, GenerationConfig config) {
+        if (!isCached(classMetadata, metadata, config)) {
+            return null;
+        }
+        return config.isReadOnlyCache() ? READ_ONLY : NONSTRICT_READ_WRITE;
+    }
+
+    static boolean isCached(ClassMetadata classMetadata, ModelMetadata metadata, GenerationConfig config) {
+        if (classMetadata == null) {
+            return false;
+        }
+        ClassSelection cachedClasses = config.getCachedClasses();
+        if (cachedClasses != null && cachedClasses.matches(classMetadata.getName())) {
+            return true;
+        }
+        return config.isCacheCatalogues() && isCatalogueItem(classMetadata, metadata);
+    }
+
+    /**
+     * Generierte Domains mit Cache-Strategie (Reihenfolge des Modells).
+     */
+    static List<ClassMetadata> cachedClasses(ModelMetadata metadata, GenerationConfig config) {
+        InheritanceIndex inheritance = metadata.getInheritanceIndex();
+        Set<String> domainClasses = GrailsDomainGenerator.domainClasses(metadata, config);
+        List<ClassMetadata> cached = new ArrayList<>();
+        for (ClassMetadata classMetadata : metadata.getAllClasses()) {
+            if (classMetadata.isAbstract()
+                || !inheritance.hasOwnTable(classMetadata)
+                || !domainClasses.contains(classMetadata.getName())) {
+                continue;
+            }
+            if (isCached(classMetadata, metadata, config)) {
+                cached.add(classMetadata);
+            }
+        }
+        return cached;
+    }
+
+    /**
+     * Folgt der Basisklassen-Kette über die Namen, damit auch nicht gelesene Basisklassen
+     * aus importierten Modellen (z. B. CatalogueObjects_V1) erkannt werden.
+     */
+    private static boolean isCatalogueItem(ClassMetadata classMetadata, ModelMetadata metadata) {
+        Set<String> seen = new HashSet<>();
+        String baseName = classMetadata.getBaseClass();
+        while (baseName != null && seen.add(baseName)) {
+            if (CATALOGUE_ITEM.equals(baseName)) {
+                return true;
+            }
+            ClassMetadata base = metadata.getClass(baseName);
+            baseName = base != null ? base.getBaseClass() : null;
+        }
+        return false;
+    }
+}
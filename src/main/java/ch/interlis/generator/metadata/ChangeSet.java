@@ -0,0 +1,203 @@
+package ch.interlis.generator.metadata;
+
+import ch.interlis.generator.model.ClassSelection;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.util.*;
+
+/**
+ * Maschinenlesbares Ergebnis eines Vergleichs zweier Metadaten-Stände (siehe {@link MetadataDiff}).
+ *
+ * Die betroffenen Klassen können als {@link ClassSelection} an die Generatoren übergeben werden,
+ * um nur geänderte Artefakte neu zu erzeugen.
+ */
+public final class ChangeSet {
+
+    private static final ObjectMapper JSON_MAPPER = new ObjectMapper()
+        .enable(SerializationFeature.INDENT_OUTPUT);
+
+    public enum ElementKind {
+        CLASS,
+        ATTRIBUTE,
+        RELATIONSHIP,
+        ENUM
+    }
+
+    public enum ChangeType {
+        ADDED,
+        REMOVED,
+        MODIFIED
+    }
+
+    /**
+     * Eine einzelne Änderung. Bei Attributen und Beziehungen ist {@code owner} die Klasse.
+     */
+    public static final class Change {
+        private final ElementKind element;
+        private final ChangeType type;
+        private final String owner;
+        private final String name;
+        private final List<String> details;
+
+        Change(ElementKind element, ChangeType type, String owner, String name, List<String> details) {
+            this.element = element;
+            this.type = type;
+            this.owner = owner;
+            this.name = name;
+            this.details = List.copyOf(details);
+        }
+
+        public ElementKind getElement() {
+            return element;
+        }
+
+        public ChangeType getType() {
+            return type;
+        }
+
+        public String getOwner() {
+            return owner;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Geänderte Eigenschaften im Format {@code property: alt -> neu}.
+         */
+        public List<String> getDetails() {
+            return details;
+        }
+
+        @Override
+        public String toString() {
+            String qualified = owner != null ? owner + "." + name : name;
+            return type + " " + element + " " + qualified
+                + (details.isEmpty() ? "" : " " + details);
+        }
+    }
+
+    private final String modelName;
+    private final String oldHash;
+    private final String newHash;
+    private final List<Change> changes;
+    private final Set<String> affectedClasses;
+
+    ChangeSet(String modelName, String oldHash, String newHash, List<Change> changes,
+              Set<String> affectedClasses) {
+        this.modelName = modelName;
+        this.oldHash = oldHash;
+        this.newHash = newHash;
+        this.changes = List.copyOf(changes);
+        this.affectedClasses = Collections.unmodifiableSet(new LinkedHashSet<>(affectedClasses));
+    }
+
+    public String getModelName() {
+        return modelName;
+    }
+
+    /**
+     * Strukturhash des alten Stands (hexadezimal).
+     */
+    public String getOldHash() {
+        return oldHash;
+    }
+
+    public String getNewHash() {
+        return newHash;
+    }
+
+    public List<Change> getChanges() {
+        return changes;
+    }
+
+    public boolean isEmpty() {
+        return changes.isEmpty();
+    }
+
+    public long count(ChangeType type) {
+        return changes.stream().filter(change -> change.getType() == type).count();
+    }
+
+    /**
+     * Klassen des neuen Stands, deren generierte Artefakte sich ändern (neu, geändert oder
+     * über geänderte Attribute, Beziehungen bzw. verwendete Enumerationen betroffen).
+     */
+    public Set<String> getAffectedClasses() {
+        return affectedClasses;
+    }
+
+    /**
+     * Klassen des alten Stands, die im neuen Stand fehlen; ihre generierten Artefakte sind veraltet.
+     */
+    public Set<String> getRemovedClasses() {
+        Set<String> removed = new LinkedHashSet<>();
+        for (Change change : changes) {
+            if (change.getElement() == ElementKind.CLASS && change.getType() == ChangeType.REMOVED) {
+                removed.add(change.getName());
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Auswahl der betroffenen Klassen für eine selektive Generierung.
+     *
+     * @throws IllegalStateException wenn keine Klasse betroffen ist
+     */
+    public ClassSelection toClassSelection() {
+        if (affectedClasses.isEmpty()) {
+            throw new IllegalStateException("Change set does not affect any class");
+        }
+        return ClassSelection.ofNames(affectedClasses);
+    }
+
+    /**
+     * Serialisiert die Änderungen als JSON.
+     */
+    public String toJson() {
+        Map<String, Object> root = new LinkedHashMap<>();
+        root.put("model", modelName);
+        root.put("oldHash", oldHash);
+        root.put("newHash", newHash);
+        Map<String, Object> summary = new LinkedHashMap<>();
+        for (ChangeType type : ChangeType.values()) {
+            summary.put(type.name().toLowerCase(Locale.ROOT), count(type));
+        }
+        root.put("summary", summary);
+        root.put("affectedClasses", new ArrayList<>(affectedClasses));
+        List<Map<String, Object>> changeList = new ArrayList<>();
+        for (Change change : changes) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("element", change.getElement().name());
+            entry.put("change", change.getType().name());
+            if (change.getOwner() != null) {
+                entry.put("owner", change.getOwner());
+            }
+            entry.put("name", change.getName());
+            if (!change.getDetails().isEmpty()) {
+                entry.put("details", change.getDetails());
+            }
+            changeList.add(entry);
+        }
+        root.put("changes", changeList);
+        try {
+            return JSON_MAPPER.writeValueAsString(root);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize change set", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ChangeSet{" +
+                "model='" + modelName + '\'' +
+                ", added=" + count(ChangeType.ADDED) +
+                ", removed=" + count(ChangeType.REMOVED) +
+                ", modified=" + count(ChangeType.MODIFIED) +
+                '}';
+    }
+}
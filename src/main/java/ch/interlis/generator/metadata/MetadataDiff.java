@@ -0,0 +1,375 @@
+package ch.interlis.generator.metadata;
+
+import ch.interlis.generator.metadata.ChangeSet.Change;
+import ch.interlis.generator.metadata.ChangeSet.ChangeType;
+import ch.interlis.generator.metadata.ChangeSet.ElementKind;
+import ch.interlis.generator.model.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Vergleicht zwei Metadaten-Stände strukturell.
+ *
+ * Für jeden Knoten (Modell → Klasse → Attribut/Beziehung, Enumeration) wird ein Hash über
+ * die strukturellen Eigenschaften und die Hashes der Kinder berechnet (Merkle-Prinzip).
+ * Unveränderte Teilbäume werden am gleichen Hash erkannt und nicht weiter untersucht;
+ * der Vergleich ist damit linear in der Anzahl Knoten. Dokumentation und Labels zählen
+ * nicht zur Struktur.
+ */
+public final class MetadataDiff {
+
+    private record Property<T>(String name, Function<T, Object> value) {
+    }
+
+    private static final List<Property<ClassMetadata>> CLASS_PROPERTIES = List.of(
+        new Property<>("tableName", ClassMetadata::getTableName),
+        new Property<>("kind", ClassMetadata::getKind),
+        new Property<>("abstract", ClassMetadata::isAbstract),
+        new Property<>("baseClass", ClassMetadata::getBaseClass),
+        new Property<>("inheritanceStrategy", ClassMetadata::getInheritanceStrategy),
+        new Property<>("systemColumns", ClassMetadata::getSystemColumns),
+        new Property<>("indexedColumns", ClassMetadata::getIndexedColumns)
+    );
+
+    private static final List<Property<AttributeMetadata>> ATTRIBUTE_PROPERTIES = List.of(
+        new Property<>("columnName", AttributeMetadata::getColumnName),
+        new Property<>("sqlName", AttributeMetadata::getSqlName),
+        new Property<>("iliType", AttributeMetadata::getIliType),
+        new Property<>("javaType", AttributeMetadata::getJavaType),
+        new Property<>("dbType", AttributeMetadata::getDbType),
+        new Property<>("mandatory", AttributeMetadata::isMandatory),
+        new Property<>("primaryKey", AttributeMetadata::isPrimaryKey),
+        new Property<>("foreignKey", AttributeMetadata::isForeignKey),
+        new Property<>("geometry", AttributeMetadata::isGeometry),
+        new Property<>("indexed", AttributeMetadata::isIndexed),
+        new Property<>("maxLength", AttributeMetadata::getMaxLength),
+        new Property<>("minValue", AttributeMetadata::getMinValue),
+        new Property<>("maxValue", AttributeMetadata::getMaxValue),
+        new Property<>("enumType", AttributeMetadata::getEnumType),
+        new Property<>("unit", AttributeMetadata::getUnit),
+        new Property<>("referencedClass", AttributeMetadata::getReferencedClass)
+    );
+
+    private static final List<Property<RelationshipMetadata>> RELATIONSHIP_PROPERTIES = List.of(
+        new Property<>("sourceAttribute", RelationshipMetadata::getSourceAttribute),
+        new Property<>("targetClass", RelationshipMetadata::getTargetClass),
+        new Property<>("targetAttribute", RelationshipMetadata::getTargetAttribute),
+        new Property<>("type", RelationshipMetadata::getType),
+        new Property<>("cardinality", relationship -> relationship.getCardinality() != null
+            ? relationship.getCardinality().toString() : null),
+        new Property<>("mandatory", RelationshipMetadata::isMandatory)
+    );
+
+    private static final List<Property<EnumMetadata>> ENUM_PROPERTIES = List.of(
+        new Property<>("extendable", EnumMetadata::isExtendable),
+        new Property<>("baseEnum", EnumMetadata::getBaseEnum),
+        new Property<>("values", MetadataDiff::enumValueCodes)
+    );
+
+    private MetadataDiff() {
+    }
+
+    /**
+     * Strukturhash eines Modells (hexadezimal). Gleiche Hashes bedeuten gleiche Struktur.
+     */
+    public static String hash(ModelMetadata metadata) {
+        return toHex(new Hashes(metadata).model);
+    }
+
+    /**
+     * Vergleicht {@code oldMetadata} mit {@code newMetadata}.
+     */
+    public static ChangeSet compare(ModelMetadata oldMetadata, ModelMetadata newMetadata) {
+        Hashes oldHashes = new Hashes(oldMetadata);
+        Hashes newHashes = new Hashes(newMetadata);
+        List<Change> changes = new ArrayList<>();
+        Set<String> affected = new LinkedHashSet<>();
+
+        if (oldHashes.model != newHashes.model) {
+            compareEnums(oldMetadata, newMetadata, oldHashes, newHashes, changes);
+            compareClasses(oldMetadata, newMetadata, oldHashes, newHashes, changes, affected);
+            addEnumUsers(newMetadata, changes, affected);
+        }
+        return new ChangeSet(newMetadata.getModelName(), toHex(oldHashes.model),
+            toHex(newHashes.model), changes, affected);
+    }
+
+    private static void compareClasses(ModelMetadata oldMetadata, ModelMetadata newMetadata,
+                                       Hashes oldHashes, Hashes newHashes,
+                                       List<Change> changes, Set<String> affected) {
+        for (ClassMetadata oldClass : oldMetadata.getAllClasses()) {
+            if (newMetadata.getClass(oldClass.getName()) == null) {
+                changes.add(new Change(ElementKind.CLASS, ChangeType.REMOVED, null,
+                    oldClass.getName(), List.of()));
+                addReferencedClasses(oldClass, null, null, null, newMetadata, affected);
+            }
+        }
+        for (ClassMetadata newClass : newMetadata.getAllClasses()) {
+            String name = newClass.getName();
+            ClassMetadata oldClass = oldMetadata.getClass(name);
+            if (oldClass == null) {
+                changes.add(new Change(ElementKind.CLASS, ChangeType.ADDED, null, name, List.of()));
+                affected.add(name);
+                addReferencedClasses(newClass, null, null, null, newMetadata, affected);
+                continue;
+            }
+            if (oldHashes.classes.get(name).equals(newHashes.classes.get(name))) {
+                continue;
+            }
+            affected.add(name);
+            List<String> details = diffProperties(CLASS_PROPERTIES, oldClass, newClass);
+            if (!details.isEmpty()) {
+                changes.add(new Change(ElementKind.CLASS, ChangeType.MODIFIED, null, name, details));
+            }
+            compareChildren(ElementKind.ATTRIBUTE, name,
+                oldClass.getAttributes(), newClass.getAttributes(),
+                oldHashes.attributes.get(name), newHashes.attributes.get(name),
+                ATTRIBUTE_PROPERTIES, changes);
+            compareChildren(ElementKind.RELATIONSHIP, name,
+                relationshipsByKey(oldClass), relationshipsByKey(newClass),
+                oldHashes.relationships.get(name), newHashes.relationships.get(name),
+                RELATIONSHIP_PROPERTIES, changes);
+            addReferencedClasses(oldClass, newClass, oldHashes, newHashes, newMetadata, affected);
+        }
+    }
+
+    /**
+     * {@code hasMany}/{@code belongsTo} einer Klasse stammen aus den eingehenden Kanten des
+     * {@link RelationshipGraph}: Ziele von geänderten, neuen oder entfernten Fremdschlüsseln und
+     * Beziehungen (vorher wie nachher) sind ebenfalls betroffen. Für neue und entfernte Klassen
+     * (ohne {@code newClass} und Hashes) zählen alle Fremdschlüssel und Beziehungen der Klasse.
+     */
+    private static void addReferencedClasses(ClassMetadata oldClass, ClassMetadata newClass,
+                                             Hashes oldHashes, Hashes newHashes,
+                                             ModelMetadata newMetadata, Set<String> affected) {
+        Set<String> targets = new LinkedHashSet<>();
+        String name = oldClass.getName();
+        Map<String, AttributeMetadata> newAttributes = newClass != null ? newClass.getAttributes() : Map.of();
+        for (Map.Entry<String, AttributeMetadata> entry : oldClass.getAttributes().entrySet()) {
+            if (changed(entry.getKey(), name, oldHashes != null ? oldHashes.attributes : null,
+                    newHashes != null ? newHashes.attributes : null)) {
+                targets.add(entry.getValue().getReferencedClass());
+            }
+        }
+        for (Map.Entry<String, AttributeMetadata> entry : newAttributes.entrySet()) {
+            if (changed(entry.getKey(), name, oldHashes.attributes, newHashes.attributes)) {
+                targets.add(entry.getValue().getReferencedClass());
+            }
+        }
+        Map<String, RelationshipMetadata> newRelationships = newClass != null
+            ? relationshipsByKey(newClass) : Map.of();
+        for (Map.Entry<String, RelationshipMetadata> entry : relationshipsByKey(oldClass).entrySet()) {
+            if (changed(entry.getKey(), name, oldHashes != null ? oldHashes.relationships : null,
+                    newHashes != null ? newHashes.relationships : null)) {
+                targets.add(entry.getValue().getTargetClass());
+            }
+        }
+        for (Map.Entry<String, RelationshipMetadata> entry : newRelationships.entrySet()) {
+            if (changed(entry.getKey(), name, oldHashes.relationships, newHashes.relationships)) {
+                targets.add(entry.getValue().getTargetClass());
+            }
+        }
+        for (String target : targets) {
+            // Entfernte Klassen werden nicht neu generiert
+            if (target != null && newMetadata.getClass(target) != null) {
+                affected.add(target);
+            }
+        }
+    }
+
+    private static boolean changed(String child, String owner,
+                                   Map<String, Map<String, Long>> oldHashes,
+                                   Map<String, Map<String, Long>> newHashes) {
+        if (oldHashes == null) {
+            return true;
+        }
+        Long before = oldHashes.get(owner).get(child);
+        Long after = newHashes.get(owner).get(child);
+        return !Objects.equals(before, after);
+    }
+
+    private static <T> void compareChildren(ElementKind element, String owner,
+                                            Map<String, T> oldChildren, Map<String, T> newChildren,
+                                            Map<String, Long> oldHashes, Map<String, Long> newHashes,
+                                            List<Property<T>> properties, List<Change> changes) {
+        for (String name : oldChildren.keySet()) {
+            if (!newChildren.containsKey(name)) {
+                changes.add(new Change(element, ChangeType.REMOVED, owner, name, List.of()));
+            }
+        }
+        for (Map.Entry<String, T> entry : newChildren.entrySet()) {
+            String name = entry.getKey();
+            T oldChild = oldChildren.get(name);
+            if (oldChild == null) {
+                changes.add(new Change(element, ChangeType.ADDED, owner, name, List.of()));
+            } else if (!oldHashes.get(name).equals(newHashes.get(name))) {
+                changes.add(new Change(element, ChangeType.MODIFIED, owner, name,
+                    diffProperties(properties, oldChild, entry.getValue())));
+            }
+        }
+    }
+
+    private static void compareEnums(ModelMetadata oldMetadata, ModelMetadata newMetadata,
+                                     Hashes oldHashes, Hashes newHashes, List<Change> changes) {
+        for (EnumMetadata oldEnum : oldMetadata.getAllEnums()) {
+            if (!newMetadata.getEnums().containsKey(oldEnum.getName())) {
+                changes.add(new Change(ElementKind.ENUM, ChangeType.REMOVED, null,
+                    oldEnum.getName(), List.of()));
+            }
+        }
+        for (EnumMetadata newEnum : newMetadata.getAllEnums()) {
+            String name = newEnum.getName();
+            EnumMetadata oldEnum = oldMetadata.getEnums().get(name);
+            if (oldEnum == null) {
+                changes.add(new Change(ElementKind.ENUM, ChangeType.ADDED, null, name, List.of()));
+            } else if (!oldHashes.enums.get(name).equals(newHashes.enums.get(name))) {
+                changes.add(new Change(ElementKind.ENUM, ChangeType.MODIFIED, null, name,
+                    diffProperties(ENUM_PROPERTIES, oldEnum, newEnum)));
+            }
+        }
+    }
+
+    /**
+     * Klassen, die eine geänderte Enumeration verwenden, sind ebenfalls betroffen.
+     */
+    private static void addEnumUsers(ModelMetadata newMetadata, List<Change> changes, Set<String> affected) {
+        Set<String> changedEnums = new HashSet<>();
+        for (Change change : changes) {
+            if (change.getElement() == ElementKind.ENUM && change.getType() != ChangeType.REMOVED) {
+                changedEnums.add(change.getName());
+            }
+        }
+        if (changedEnums.isEmpty()) {
+            return;
+        }
+        for (ClassMetadata classMetadata : newMetadata.getAllClasses()) {
+            for (AttributeMetadata attr : classMetadata.getAllAttributes()) {
+                if (attr.getEnumType() != null && changedEnums.contains(attr.getEnumType())) {
+                    affected.add(classMetadata.getName());
+                    break;
+                }
+            }
+        }
+    }
+
+    private static <T> List<String> diffProperties(List<Property<T>> properties, T oldValue, T newValue) {
+        List<String> details = new ArrayList<>();
+        for (Property<T> property : properties) {
+            Object before = property.value().apply(oldValue);
+            Object after = property.value().apply(newValue);
+            if (!Objects.equals(before, after)) {
+                details.add(property.name() + ": " + before + " -> " + after);
+            }
+        }
+        return details;
+    }
+
+    /**
+     * Beziehungen einer Klasse nach Quellklasse und Quellattribut (der Name ist optional und
+     * nicht eindeutig). Gleiche Schlüssel erhalten ein fortlaufendes Suffix, damit keine
+     * Beziehung verdeckt wird.
+     */
+    private static Map<String, RelationshipMetadata> relationshipsByKey(ClassMetadata classMetadata) {
+        Map<String, RelationshipMetadata> byKey = new LinkedHashMap<>();
+        for (RelationshipMetadata relationship : classMetadata.getRelationships()) {
+            String source = relationship.getSourceClass() != null
+                ? relationship.getSourceClass() : classMetadata.getName();
+            String attribute = relationship.getSourceAttribute() != null
+                ? relationship.getSourceAttribute() : relationship.getName();
+            String key = source.equals(classMetadata.getName()) ? attribute : source + "." + attribute;
+            String unique = key;
+            for (int n = 2; byKey.containsKey(unique); n++) {
+                unique = key + "#" + n;
+            }
+            byKey.put(unique, relationship);
+        }
+        return byKey;
+    }
+
+    private static List<String> enumValueCodes(EnumMetadata enumMetadata) {
+        List<String> codes = new ArrayList<>(enumMetadata.getValues().size());
+        for (EnumMetadata.EnumValue value : enumMetadata.getValues()) {
+            codes.add(value.getIliCode());
+        }
+        return codes;
+    }
+
+    /**
+     * Hashes aller Knoten eines Modells.
+     */
+    private static final class Hashes {
+        private final Map<String, Long> classes = new HashMap<>();
+        private final Map<String, Map<String, Long>> attributes = new HashMap<>();
+        private final Map<String, Map<String, Long>> relationships = new HashMap<>();
+        private final Map<String, Long> enums = new HashMap<>();
+        private final long model;
+
+        Hashes(ModelMetadata metadata) {
+            List<Long> children = new ArrayList<>();
+            for (ClassMetadata classMetadata : metadata.getAllClasses()) {
+                String name = classMetadata.getName();
+                Map<String, Long> attributeHashes = new HashMap<>();
+                for (Map.Entry<String, AttributeMetadata> entry : classMetadata.getAttributes().entrySet()) {
+                    attributeHashes.put(entry.getKey(),
+                        hashNode(entry.getKey(), ATTRIBUTE_PROPERTIES, entry.getValue(), List.of()));
+                }
+                Map<String, Long> relationshipHashes = new HashMap<>();
+                for (Map.Entry<String, RelationshipMetadata> entry : relationshipsByKey(classMetadata).entrySet()) {
+                    relationshipHashes.put(entry.getKey(),
+                        hashNode(entry.getKey(), RELATIONSHIP_PROPERTIES, entry.getValue(), List.of()));
+                }
+                List<Long> classChildren = new ArrayList<>(attributeHashes.values());
+                classChildren.addAll(relationshipHashes.values());
+                long classHash = hashNode(name, CLASS_PROPERTIES, classMetadata, classChildren);
+                classes.put(name, classHash);
+                attributes.put(name, attributeHashes);
+                relationships.put(name, relationshipHashes);
+                children.add(classHash);
+            }
+            for (EnumMetadata enumMetadata : metadata.getAllEnums()) {
+                long enumHash = hashNode(enumMetadata.getName(), ENUM_PROPERTIES, enumMetadata, List.of());
+                enums.put(enumMetadata.getName(), enumHash);
+                children.add(enumHash);
+            }
+            model = hashNode(metadata.getModelName(), List.of(), metadata, children);
+        }
+    }
+
+    /**
+     * FNV-1a über Name und Eigenschaften; Kind-Hashes werden sortiert eingerechnet,
+     * damit die Reihenfolge der Kinder keine Rolle spielt.
+     */
+    private static <T> long hashNode(String name, List<Property<T>> properties, T node, List<Long> children) {
+        long hash = 0xcbf29ce484222325L;
+        hash = mix(hash, String.valueOf(name));
+        for (Property<T> property : properties) {
+            hash = mix(hash, property.name());
+            hash = mix(hash, String.valueOf(property.value().apply(node)));
+        }
+        long[] sorted = children.stream().mapToLong(Long::longValue).sorted().toArray();
+        for (long child : sorted) {
+            for (int shift = 0; shift < 64; shift += 8) {
+                hash ^= (child >>> shift) & 0xff;
+                hash *= 0x100000001b3L;
+            }
+        }
+        return hash;
+    }
+
+    private static long mix(long hash, String value) {
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        // Trennzeichen, damit "ab"+"c" und "a"+"bc" verschieden sind
+        hash ^= 0x1f;
+        hash *= 0x100000001b3L;
+        return hash;
+    }
+
+    private static String toHex(long hash) {
+        return String.format("%016x", hash);
+    }
+}
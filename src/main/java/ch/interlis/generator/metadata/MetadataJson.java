@@ -0,0 +1,293 @@
+package ch.interlis.generator.metadata;
+
+import ch.interlis.generator.model.*;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JSON-Darstellung des Metamodells (gleicher Inhalt und gleiche Version wie das Binärformat).
+ * Felder mit {@code null}, {@code false} oder leeren Collections werden weggelassen.
+ */
+final class MetadataJson {
+
+    private static final ObjectMapper JSON_MAPPER = new ObjectMapper()
+        .enable(SerializationFeature.INDENT_OUTPUT);
+
+    private MetadataJson() {
+    }
+
+    static void write(ModelMetadata metadata, Path target) throws IOException {
+        JSON_MAPPER.writeValue(target.toFile(), toJson(metadata));
+    }
+
+    static ModelMetadata read(Path source) throws IOException {
+        JsonNode root = JSON_MAPPER.readTree(source.toFile());
+        if (root == null || !root.isObject()) {
+            throw new IOException("Not an ili2grails metamodel file: " + source);
+        }
+        int version = root.path("formatVersion").asInt(-1);
+        if (version != MetadataSerializer.FORMAT_VERSION) {
+            throw new IOException("Unsupported metamodel format version " + version
+                + " (supported: " + MetadataSerializer.FORMAT_VERSION + ")");
+        }
+        return fromJson(root);
+    }
+
+    static ObjectNode toJson(ModelMetadata metadata) {
+        ObjectNode root = JSON_MAPPER.createObjectNode();
+        root.put("formatVersion", MetadataSerializer.FORMAT_VERSION);
+        put(root, "modelName", metadata.getModelName());
+        put(root, "schemaName", metadata.getSchemaName());
+        put(root, "iliVersion", metadata.getIliVersion());
+        put(root, "ili2dbVersion", metadata.getIli2dbVersion());
+        if (metadata.getImportDate() != null) {
+            root.put("importDate", metadata.getImportDate().getTime());
+        }
+        putMap(root, "settings", metadata.getSettings());
+
+        ArrayNode classes = root.putArray("classes");
+        for (ClassMetadata classMetadata : metadata.getAllClasses()) {
+            ObjectNode node = classes.addObject();
+            put(node, "name", classMetadata.getName());
+            put(node, "tableName", classMetadata.getTableName());
+            put(node, "sqlName", classMetadata.getSqlName());
+            put(node, "documentation", classMetadata.getDocumentation());
+            putFlag(node, "abstract", classMetadata.isAbstract());
+            put(node, "baseClass", classMetadata.getBaseClass());
+            put(node, "kind", classMetadata.getKind() != null ? classMetadata.getKind().name() : null);
+            put(node, "inheritanceStrategy", classMetadata.getInheritanceStrategy());
+            putMap(node, "labels", classMetadata.getLabels());
+            putList(node, "systemColumns", classMetadata.getSystemColumns());
+            putList(node, "indexedColumns", classMetadata.getIndexedColumns());
+            ArrayNode attributes = node.putArray("attributes");
+            for (AttributeMetadata attr : classMetadata.getAllAttributes()) {
+                writeAttribute(attributes.addObject(), attr);
+            }
+            if (!classMetadata.getRelationships().isEmpty()) {
+                ArrayNode relationships = node.putArray("relationships");
+                for (RelationshipMetadata relationship : classMetadata.getRelationships()) {
+                    writeRelationship(relationships.addObject(), relationship);
+                }
+            }
+        }
+
+        ArrayNode enums = root.putArray("enums");
+        for (EnumMetadata enumMetadata : metadata.getAllEnums()) {
+            ObjectNode node = enums.addObject();
+            put(node, "name", enumMetadata.getName());
+            putFlag(node, "extendable", enumMetadata.isExtendable());
+            put(node, "baseEnum", enumMetadata.getBaseEnum());
+            writeEnumValues(node, enumMetadata.getValues());
+        }
+        return root;
+    }
+
+    static ModelMetadata fromJson(JsonNode root) {
+        ModelMetadata metadata = new ModelMetadata(text(root, "modelName"));
+        metadata.setSchemaName(text(root, "schemaName"));
+        metadata.setIliVersion(text(root, "iliVersion"));
+        metadata.setIli2dbVersion(text(root, "ili2dbVersion"));
+        if (root.hasNonNull("importDate")) {
+            metadata.setImportDate(new Date(root.get("importDate").asLong()));
+        }
+        readMap(root, "settings", metadata.getSettings());
+
+        for (JsonNode node : root.path("classes")) {
+            ClassMetadata classMetadata = new ClassMetadata(text(node, "name"));
+            classMetadata.setTableName(text(node, "tableName"));
+            classMetadata.setSqlName(text(node, "sqlName"));
+            classMetadata.setDocumentation(text(node, "documentation"));
+            classMetadata.setAbstract(node.path("abstract").asBoolean(false));
+            classMetadata.setBaseClass(text(node, "baseClass"));
+            String kind = text(node, "kind");
+            classMetadata.setKind(kind != null ? ClassMetadata.ClassKind.valueOf(kind) : null);
+            classMetadata.setInheritanceStrategy(text(node, "inheritanceStrategy"));
+            readMap(node, "labels", classMetadata.getLabels());
+            node.path("systemColumns").forEach(column -> classMetadata.addSystemColumn(column.asText()));
+            node.path("indexedColumns").forEach(column -> classMetadata.addIndexedColumn(column.asText()));
+            for (JsonNode attributeNode : node.path("attributes")) {
+                classMetadata.addAttribute(readAttribute(attributeNode));
+            }
+            for (JsonNode relationshipNode : node.path("relationships")) {
+                classMetadata.addRelationship(readRelationship(relationshipNode));
+            }
+            metadata.addClass(classMetadata);
+        }
+
+        for (JsonNode node : root.path("enums")) {
+            EnumMetadata enumMetadata = new EnumMetadata(text(node, "name"));
+            enumMetadata.setExtendable(node.path("extendable").asBoolean(false));
+            enumMetadata.setBaseEnum(text(node, "baseEnum"));
+            for (JsonNode valueNode : node.path("values")) {
+                enumMetadata.addValue(readEnumValue(valueNode));
+            }
+            metadata.addEnum(enumMetadata);
+        }
+        return metadata.freeze();
+    }
+
+    private static void writeAttribute(ObjectNode node, AttributeMetadata attr) {
+        put(node, "name", attr.getName());
+        put(node, "qualifiedName", attr.getQualifiedName());
+        put(node, "columnName", attr.getColumnName());
+        put(node, "sqlName", attr.getSqlName());
+        put(node, "iliType", attr.getIliType());
+        put(node, "javaType", attr.getJavaType());
+        put(node, "dbType", attr.getDbType());
+        putFlag(node, "mandatory", attr.isMandatory());
+        putFlag(node, "primaryKey", attr.isPrimaryKey());
+        putFlag(node, "foreignKey", attr.isForeignKey());
+        putFlag(node, "geometry", attr.isGeometry());
+        putFlag(node, "indexed", attr.isIndexed());
+        put(node, "documentation", attr.getDocumentation());
+        if (attr.getMaxLength() != null) {
+            node.put("maxLength", attr.getMaxLength());
+        }
+        put(node, "minValue", attr.getMinValue());
+        put(node, "maxValue", attr.getMaxValue());
+        put(node, "enumType", attr.getEnumType());
+        writeEnumValues(node, attr.getEnumValues());
+        put(node, "unit", attr.getUnit());
+        put(node, "referencedClass", attr.getReferencedClass());
+        put(node, "referencedAttribute", attr.getReferencedAttribute());
+        putMap(node, "labels", attr.getLabels());
+    }
+
+    private static AttributeMetadata readAttribute(JsonNode node) {
+        AttributeMetadata attr = new AttributeMetadata(text(node, "name"));
+        attr.setQualifiedName(text(node, "qualifiedName"));
+        attr.setColumnName(text(node, "columnName"));
+        attr.setSqlName(text(node, "sqlName"));
+        attr.setIliType(text(node, "iliType"));
+        attr.setJavaType(text(node, "javaType"));
+        attr.setDbType(text(node, "dbType"));
+        attr.setMandatory(node.path("mandatory").asBoolean(false));
+        attr.setPrimaryKey(node.path("primaryKey").asBoolean(false));
+        attr.setForeignKey(node.path("foreignKey").asBoolean(false));
+        attr.setGeometry(node.path("geometry").asBoolean(false));
+        attr.setIndexed(node.path("indexed").asBoolean(false));
+        attr.setDocumentation(text(node, "documentation"));
+        attr.setMaxLength(node.hasNonNull("maxLength") ? node.get("maxLength").asInt() : null);
+        attr.setMinValue(text(node, "minValue"));
+        attr.setMaxValue(text(node, "maxValue"));
+        attr.setEnumType(text(node, "enumType"));
+        for (JsonNode valueNode : node.path("values")) {
+            attr.addEnumValue(readEnumValue(valueNode));
+        }
+        attr.setUnit(text(node, "unit"));
+        attr.setReferencedClass(text(node, "referencedClass"));
+        attr.setReferencedAttribute(text(node, "referencedAttribute"));
+        readMap(node, "labels", attr.getLabels());
+        return attr;
+    }
+
+    private static void writeRelationship(ObjectNode node, RelationshipMetadata relationship) {
+        put(node, "name", relationship.getName());
+        put(node, "sourceClass", relationship.getSourceClass());
+        put(node, "targetClass", relationship.getTargetClass());
+        put(node, "type", relationship.getType() != null ? relationship.getType().name() : null);
+        put(node, "sourceAttribute", relationship.getSourceAttribute());
+        put(node, "targetAttribute", relationship.getTargetAttribute());
+        RelationshipMetadata.Cardinality cardinality = relationship.getCardinality();
+        if (cardinality != null) {
+            node.putArray("cardinality")
+                .add(cardinality.getMinSource())
+                .add(cardinality.getMaxSource())
+                .add(cardinality.getMinTarget())
+                .add(cardinality.getMaxTarget());
+        }
+        putFlag(node, "mandatory", relationship.isMandatory());
+    }
+
+    private static RelationshipMetadata readRelationship(JsonNode node) {
+        RelationshipMetadata relationship = new RelationshipMetadata(text(node, "name"));
+        relationship.setSourceClass(text(node, "sourceClass"));
+        relationship.setTargetClass(text(node, "targetClass"));
+        String type = text(node, "type");
+        relationship.setType(type != null ? RelationshipMetadata.RelationType.valueOf(type) : null);
+        relationship.setSourceAttribute(text(node, "sourceAttribute"));
+        relationship.setTargetAttribute(text(node, "targetAttribute"));
+        JsonNode cardinality = node.path("cardinality");
+        if (cardinality.isArray() && cardinality.size() == 4) {
+            relationship.setCardinality(new RelationshipMetadata.Cardinality(
+                cardinality.get(0).asInt(), cardinality.get(1).asInt(),
+                cardinality.get(2).asInt(), cardinality.get(3).asInt()));
+        }
+        relationship.setMandatory(node.path("mandatory").asBoolean(false));
+        return relationship;
+    }
+
+    private static void writeEnumValues(ObjectNode node, Iterable<EnumMetadata.EnumValue> values) {
+        Iterator<EnumMetadata.EnumValue> iterator = values.iterator();
+        if (!iterator.hasNext()) {
+            return;
+        }
+        ArrayNode array = node.putArray("values");
+        while (iterator.hasNext()) {
+            EnumMetadata.EnumValue value = iterator.next();
+            ObjectNode valueNode = array.addObject();
+            put(valueNode, "iliCode", value.getIliCode());
+            put(valueNode, "dispName", value.getDispName());
+            valueNode.put("seq", value.getSeq());
+            putMap(valueNode, "labels", value.getLabels());
+        }
+    }
+
+    private static EnumMetadata.EnumValue readEnumValue(JsonNode node) {
+        EnumMetadata.EnumValue value = new EnumMetadata.EnumValue(text(node, "iliCode"),
+            node.path("seq").asInt());
+        value.setDispName(text(node, "dispName"));
+        JsonNode labels = node.path("labels");
+        labels.fieldNames().forEachRemaining(language ->
+            value.addLabel(language, labels.get(language).asText()));
+        return value;
+    }
+
+    private static void put(ObjectNode node, String field, String value) {
+        if (value != null) {
+            node.put(field, value);
+        }
+    }
+
+    private static void putFlag(ObjectNode node, String field, boolean value) {
+        if (value) {
+            node.put(field, true);
+        }
+    }
+
+    private static void putMap(ObjectNode node, String field, Map<String, String> map) {
+        if (map.isEmpty()) {
+            return;
+        }
+        ObjectNode mapNode = node.putObject(field);
+        map.forEach(mapNode::put);
+    }
+
+    private static void putList(ObjectNode node, String field, List<String> values) {
+        if (values.isEmpty()) {
+            return;
+        }
+        ArrayNode array = node.putArray(field);
+        values.forEach(array::add);
+    }
+
+    private static void readMap(JsonNode node, String field, Map<String, String> target) {
+        JsonNode mapNode = node.path(field);
+        mapNode.fieldNames().forEachRemaining(key -> target.put(key, text(mapNode, key)));
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value != null && !value.isNull() ? value.asText() : null;
+    }
+}
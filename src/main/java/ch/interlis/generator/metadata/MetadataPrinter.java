@@ -63,6 +63,10 @@ public class MetadataPrinter {
             out.printf("  Extends:      %s%n", clazz.getBaseClass());
         }
         
+        if (clazz.getInheritanceStrategy() != null) {
+            out.printf("  Inheritance:  %s%n", clazz.getInheritanceStrategy());
+        }
+        
         if (clazz.getDocumentation() != null && !clazz.getDocumentation().isEmpty()) {
             out.printf("  Doc:          %s%n", truncate(clazz.getDocumentation(), 60));
         }
@@ -122,6 +126,7 @@ public class MetadataPrinter {
         if (attr.isForeignKey()) flags.append("FK ");
         if (attr.isMandatory()) flags.append("NOT NULL ");
         if (attr.isGeometry()) flags.append("GEOMETRY ");
+        if (attr.isIndexed()) flags.append("INDEXED ");
         if (attr.getMaxLength() != null) flags.append("(").append(attr.getMaxLength()).append(") ");
         
         return flags.toString().trim();
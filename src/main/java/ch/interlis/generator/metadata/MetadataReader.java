@@ -10,7 +10,11 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Kombiniert Metadaten aus ili2db-Datenbank und ili2c-Modell.
@@ -27,6 +31,8 @@ public class MetadataReader {
     private final File modelFile;
     private final String schemaName;
     private final List<String> modelDirs;
+    private final ClassSelection classSelection;
+    private final Ili2cModelReader sharedIli2cReader;
     
     public MetadataReader(Connection connection, File modelFile) {
         this(connection, modelFile, null, null);
@@ -34,10 +40,32 @@ public class MetadataReader {
     
     public MetadataReader(Connection connection, File modelFile, String schemaName, 
                          List<String> modelDirs) {
+        this(connection, modelFile, schemaName, modelDirs, ClassSelection.all());
+    }
+
+    public MetadataReader(Connection connection, File modelFile, String schemaName,
+                         List<String> modelDirs, ClassSelection classSelection) {
+        this(connection, modelFile, schemaName, modelDirs, classSelection, null);
+    }
+
+    private MetadataReader(Connection connection, File modelFile, String schemaName,
+                           List<String> modelDirs, ClassSelection classSelection,
+                           Ili2cModelReader sharedIli2cReader) {
         this.connection = connection;
         this.modelFile = modelFile;
         this.schemaName = schemaName;
         this.modelDirs = modelDirs;
+        this.classSelection = classSelection != null ? classSelection : ClassSelection.all();
+        this.sharedIli2cReader = sharedIli2cReader;
+    }
+
+    /**
+     * Erstellt einen Reader, der ein bereits (oder einmalig) kompiliertes Modell wiederverwendet.
+     * Wird im Batch-Modus verwendet, um mehrere Schemas mit demselben Modell zu lesen.
+     */
+    public static MetadataReader withSharedModel(Connection connection, Ili2cModelReader ili2cReader,
+                                                 String schemaName, ClassSelection classSelection) {
+        return new MetadataReader(connection, null, schemaName, null, classSelection, ili2cReader);
     }
     
     /**
@@ -49,13 +77,13 @@ public class MetadataReader {
         
         // ili2db Metatabellen lesen (Basis-Struktur)
         logger.info("Reading ili2db metadata from database");
-        Ili2dbMetadataReader ili2dbReader = new Ili2dbMetadataReader(connection, schemaName);
+        Ili2dbMetadataReader ili2dbReader = new Ili2dbMetadataReader(connection, schemaName, classSelection);
         ModelMetadata metadata = ili2dbReader.readMetadata(modelName);
         
         // ili2c Modell lesen (Semantische Anreicherung)
         boolean hasModelFile = modelFile != null && modelFile.exists();
         boolean hasModelRepositories = modelDirs != null && !modelDirs.isEmpty();
-        if (hasModelFile || hasModelRepositories) {
+        if (sharedIli2cReader != null || hasModelFile || hasModelRepositories) {
             logger.info("Enriching with ili2c model information");
             enrichFromIli2cModel(metadata, modelName);
         } else {
@@ -66,6 +94,9 @@ public class MetadataReader {
         logger.info("Post-processing metadata");
         postProcess(metadata);
         
+        // Für die Generatoren unveränderlich und kompakt machen
+        metadata.freeze();
+        
         logger.info("Metadata reading complete");
         return metadata;
     }
@@ -76,9 +107,15 @@ public class MetadataReader {
     private void enrichFromIli2cModel(ModelMetadata metadata, String modelName) 
             throws Ili2cFailure {
         
-        Ili2cModelReader ili2cReader = new Ili2cModelReader(modelFile, modelDirs);
+        Ili2cModelReader ili2cReader = sharedIli2cReader != null
+            ? sharedIli2cReader
+            : new Ili2cModelReader(modelFile, modelDirs);
         
-        ModelMetadata ili2cMetadata = ili2cReader.readMetadata(modelName);
+        // Bei einer Klassenauswahl nur die bereits aus ili2db aufgelöste Hülle traversieren
+        ClassSelection ili2cSelection = classSelection.isAll()
+            ? ClassSelection.all()
+            : ClassSelection.ofNames(metadata.getClasses().keySet());
+        ModelMetadata ili2cMetadata = ili2cReader.readMetadata(modelName, ili2cSelection);
         
         // ILI-Version
         if (ili2cMetadata.getIliVersion() != null) {
@@ -99,10 +136,41 @@ public class MetadataReader {
             }
         }
         
-        // Enumerationen übernehmen
+        // Enumerationen übernehmen (bei einer Klassenauswahl nur referenzierte)
+        Set<String> referencedEnums = classSelection.isAll()
+            ? null
+            : collectReferencedEnums(metadata, ili2cMetadata);
         for (EnumMetadata enumMetadata : ili2cMetadata.getAllEnums()) {
-            metadata.addEnum(enumMetadata);
+            if (referencedEnums == null || referencedEnums.contains(enumMetadata.getName())) {
+                metadata.addEnum(enumMetadata);
+            }
+        }
+    }
+
+    /**
+     * Sammelt die von den Attributen referenzierten Enumerationen inkl. ihrer Basis-Enumerationen.
+     */
+    private Set<String> collectReferencedEnums(ModelMetadata metadata, ModelMetadata ili2cMetadata) {
+        Set<String> referenced = new HashSet<>();
+        Deque<String> pending = new ArrayDeque<>();
+        for (ClassMetadata classMetadata : metadata.getAllClasses()) {
+            for (AttributeMetadata attr : classMetadata.getAllAttributes()) {
+                if (attr.getEnumType() != null) {
+                    pending.add(attr.getEnumType());
+                }
+            }
+        }
+        while (!pending.isEmpty()) {
+            String enumName = pending.poll();
+            if (!referenced.add(enumName)) {
+                continue;
+            }
+            EnumMetadata enumMetadata = ili2cMetadata.getEnums().get(enumName);
+            if (enumMetadata != null && enumMetadata.getBaseEnum() != null) {
+                pending.add(enumMetadata.getBaseEnum());
+            }
         }
+        return referenced;
     }
     
     /**
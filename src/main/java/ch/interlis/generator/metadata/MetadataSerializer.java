@@ -0,0 +1,447 @@
+package ch.interlis.generator.metadata;
+
+import ch.interlis.generator.model.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Speichert und lädt ein zusammengeführtes Metamodell als kompaktes Binärformat
+ * oder als JSON (siehe {@link MetadataJson}).
+ *
+ * Aufbau des Binärformats:
+ * <pre>
+ * "ILIM" | Version (u16) | Stringtabelle | Modell | Klassen | Enumerationen
+ * </pre>
+ * Zahlen werden als Varint geschrieben, Strings als Index in die Stringtabelle
+ * (0 = {@code null}). Die Datei wird beim Laden memory-mapped gelesen; das Ergebnis
+ * ist eingefroren ({@link ModelMetadata#freeze()}).
+ *
+ * Jede Erweiterung des Formats muss {@link #FORMAT_VERSION} erhöhen.
+ */
+public final class MetadataSerializer {
+
+    static final byte[] MAGIC = {'I', 'L', 'I', 'M'};
+    public static final int FORMAT_VERSION = 3;
+
+    private static final int ATTR_MANDATORY = 1;
+    private static final int ATTR_PRIMARY_KEY = 1 << 1;
+    private static final int ATTR_FOREIGN_KEY = 1 << 2;
+    private static final int ATTR_GEOMETRY = 1 << 3;
+    private static final int ATTR_INDEXED = 1 << 4;
+
+    private MetadataSerializer() {
+    }
+
+    /**
+     * Schreibt das Metamodell; Dateien mit der Endung {@code .json} als JSON, sonst binär.
+     */
+    public static void write(ModelMetadata metadata, Path target) throws IOException {
+        if (isJson(target)) {
+            MetadataJson.write(metadata, target);
+        } else {
+            Files.write(target, toBytes(metadata));
+        }
+    }
+
+    /**
+     * Lädt ein Metamodell; Dateien mit der Endung {@code .json} als JSON, sonst binär.
+     */
+    public static ModelMetadata read(Path source) throws IOException {
+        if (isJson(source)) {
+            return MetadataJson.read(source);
+        }
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return fromBytes(buffer);
+        }
+    }
+
+    public static byte[] toBytes(ModelMetadata metadata) {
+        Writer body = new Writer();
+        body.writeModel(metadata);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.data.size() + body.strings.size() * 16);
+        out.writeBytes(MAGIC);
+        out.write(FORMAT_VERSION >>> 8);
+        out.write(FORMAT_VERSION & 0xff);
+        writeVarint(out, body.strings.size());
+        for (String value : body.strings.keySet()) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(out, bytes.length);
+            out.writeBytes(bytes);
+        }
+        out.writeBytes(body.data.toByteArray());
+        return out.toByteArray();
+    }
+
+    public static ModelMetadata fromBytes(ByteBuffer buffer) throws IOException {
+        ByteBuffer in = buffer.duplicate();
+        byte[] magic = new byte[MAGIC.length];
+        try {
+            in.get(magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException("Not an ili2grails metamodel file");
+            }
+            int version = ((in.get() & 0xff) << 8) | (in.get() & 0xff);
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported metamodel format version " + version
+                    + " (supported: " + FORMAT_VERSION + ")");
+            }
+            return new Reader(in).readModel();
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated metamodel file", e);
+        }
+    }
+
+    private static boolean isJson(Path path) {
+        Path fileName = path.getFileName();
+        return fileName != null && fileName.toString().toLowerCase(Locale.ROOT).endsWith(".json");
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7f) != 0) {
+            out.write((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static final class Writer {
+        private final Map<String, Integer> strings = new LinkedHashMap<>();
+        private final ByteArrayOutputStream data = new ByteArrayOutputStream(4096);
+
+        void writeModel(ModelMetadata metadata) {
+            string(metadata.getModelName());
+            string(metadata.getSchemaName());
+            string(metadata.getIliVersion());
+            string(metadata.getIli2dbVersion());
+            Date importDate = metadata.getImportDate();
+            data.write(importDate != null ? 1 : 0);
+            if (importDate != null) {
+                longValue(importDate.getTime());
+            }
+            stringMap(metadata.getSettings());
+
+            varint(metadata.getClasses().size());
+            for (ClassMetadata classMetadata : metadata.getAllClasses()) {
+                writeClass(classMetadata);
+            }
+            varint(metadata.getEnums().size());
+            for (EnumMetadata enumMetadata : metadata.getAllEnums()) {
+                string(enumMetadata.getName());
+                data.write(enumMetadata.isExtendable() ? 1 : 0);
+                string(enumMetadata.getBaseEnum());
+                enumValues(enumMetadata.getValues());
+            }
+        }
+
+        private void writeClass(ClassMetadata classMetadata) {
+            string(classMetadata.getName());
+            string(classMetadata.getTableName());
+            string(classMetadata.getSqlName());
+            string(classMetadata.getDocumentation());
+            data.write(classMetadata.isAbstract() ? 1 : 0);
+            string(classMetadata.getBaseClass());
+            varint(classMetadata.getKind() != null ? classMetadata.getKind().ordinal() + 1 : 0);
+            string(classMetadata.getInheritanceStrategy());
+            stringMap(classMetadata.getLabels());
+            stringList(classMetadata.getSystemColumns());
+            stringList(classMetadata.getIndexedColumns());
+
+            varint(classMetadata.getAttributes().size());
+            for (AttributeMetadata attr : classMetadata.getAllAttributes()) {
+                writeAttribute(attr);
+            }
+            varint(classMetadata.getRelationships().size());
+            for (RelationshipMetadata relationship : classMetadata.getRelationships()) {
+                string(relationship.getName());
+                string(relationship.getSourceClass());
+                string(relationship.getTargetClass());
+                varint(relationship.getType() != null ? relationship.getType().ordinal() + 1 : 0);
+                string(relationship.getSourceAttribute());
+                string(relationship.getTargetAttribute());
+                RelationshipMetadata.Cardinality cardinality = relationship.getCardinality();
+                data.write(cardinality != null ? 1 : 0);
+                if (cardinality != null) {
+                    signed(cardinality.getMinSource());
+                    signed(cardinality.getMaxSource());
+                    signed(cardinality.getMinTarget());
+                    signed(cardinality.getMaxTarget());
+                }
+                data.write(relationship.isMandatory() ? 1 : 0);
+            }
+        }
+
+        private void writeAttribute(AttributeMetadata attr) {
+            string(attr.getName());
+            string(attr.getQualifiedName());
+            string(attr.getColumnName());
+            string(attr.getSqlName());
+            string(attr.getIliType());
+            string(attr.getJavaType());
+            string(attr.getDbType());
+            int flags = (attr.isMandatory() ? ATTR_MANDATORY : 0)
+                | (attr.isPrimaryKey() ? ATTR_PRIMARY_KEY : 0)
+                | (attr.isForeignKey() ? ATTR_FOREIGN_KEY : 0)
+                | (attr.isGeometry() ? ATTR_GEOMETRY : 0)
+                | (attr.isIndexed() ? ATTR_INDEXED : 0);
+            varint(flags);
+            string(attr.getDocumentation());
+            varint(attr.getMaxLength() != null ? attr.getMaxLength() + 1 : 0);
+            string(attr.getMinValue());
+            string(attr.getMaxValue());
+            string(attr.getEnumType());
+            enumValues(attr.getEnumValues());
+            string(attr.getUnit());
+            string(attr.getReferencedClass());
+            string(attr.getReferencedAttribute());
+            stringMap(attr.getLabels());
+        }
+
+        private void enumValues(List<EnumMetadata.EnumValue> values) {
+            varint(values.size());
+            for (EnumMetadata.EnumValue value : values) {
+                string(value.getIliCode());
+                string(value.getDispName());
+                signed(value.getSeq());
+                stringMap(value.getLabels());
+            }
+        }
+
+        private void stringMap(Map<String, String> map) {
+            varint(map.size());
+            for (Map.Entry<String, String> entry : map.entrySet()) {
+                string(entry.getKey());
+                string(entry.getValue());
+            }
+        }
+
+        private void stringList(List<String> values) {
+            varint(values.size());
+            for (String value : values) {
+                string(value);
+            }
+        }
+
+        private void string(String value) {
+            if (value == null) {
+                varint(0);
+                return;
+            }
+            Integer index = strings.get(value);
+            if (index == null) {
+                index = strings.size() + 1;
+                strings.put(value, index);
+            }
+            varint(index);
+        }
+
+        private void signed(int value) {
+            varint((value << 1) ^ (value >> 31));
+        }
+
+        private void longValue(long value) {
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                data.write((int) (value >>> shift) & 0xff);
+            }
+        }
+
+        private void varint(int value) {
+            writeVarint(data, value);
+        }
+    }
+
+    private static final class Reader {
+        private final ByteBuffer in;
+        private final String[] strings;
+
+        Reader(ByteBuffer in) throws IOException {
+            this.in = in;
+            int count = length();
+            strings = new String[count + 1];
+            for (int i = 1; i <= count; i++) {
+                byte[] bytes = new byte[length()];
+                in.get(bytes);
+                strings[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+        }
+
+        ModelMetadata readModel() throws IOException {
+            ModelMetadata metadata = new ModelMetadata(string());
+            metadata.setSchemaName(string());
+            metadata.setIliVersion(string());
+            metadata.setIli2dbVersion(string());
+            if (in.get() != 0) {
+                metadata.setImportDate(new Date(in.getLong()));
+            }
+            readStringMap(metadata.getSettings());
+
+            int classCount = length();
+            for (int i = 0; i < classCount; i++) {
+                metadata.addClass(readClass());
+            }
+            int enumCount = length();
+            for (int i = 0; i < enumCount; i++) {
+                EnumMetadata enumMetadata = new EnumMetadata(string());
+                enumMetadata.setExtendable(in.get() != 0);
+                enumMetadata.setBaseEnum(string());
+                for (EnumMetadata.EnumValue value : readEnumValues()) {
+                    enumMetadata.addValue(value);
+                }
+                metadata.addEnum(enumMetadata);
+            }
+            return metadata.freeze();
+        }
+
+        private ClassMetadata readClass() throws IOException {
+            ClassMetadata classMetadata = new ClassMetadata(string());
+            classMetadata.setTableName(string());
+            classMetadata.setSqlName(string());
+            classMetadata.setDocumentation(string());
+            classMetadata.setAbstract(in.get() != 0);
+            classMetadata.setBaseClass(string());
+            classMetadata.setKind(enumValue(ClassMetadata.ClassKind.values(), varint()));
+            classMetadata.setInheritanceStrategy(string());
+            readStringMap(classMetadata.getLabels());
+            int systemColumnCount = length();
+            for (int i = 0; i < systemColumnCount; i++) {
+                classMetadata.addSystemColumn(string());
+            }
+            int indexedColumnCount = length();
+            for (int i = 0; i < indexedColumnCount; i++) {
+                classMetadata.addIndexedColumn(string());
+            }
+
+            int attributeCount = length();
+            for (int i = 0; i < attributeCount; i++) {
+                classMetadata.addAttribute(readAttribute());
+            }
+            int relationshipCount = length();
+            for (int i = 0; i < relationshipCount; i++) {
+                RelationshipMetadata relationship = new RelationshipMetadata(string());
+                relationship.setSourceClass(string());
+                relationship.setTargetClass(string());
+                relationship.setType(enumValue(RelationshipMetadata.RelationType.values(), varint()));
+                relationship.setSourceAttribute(string());
+                relationship.setTargetAttribute(string());
+                if (in.get() != 0) {
+                    relationship.setCardinality(new RelationshipMetadata.Cardinality(
+                        signed(), signed(), signed(), signed()));
+                }
+                relationship.setMandatory(in.get() != 0);
+                classMetadata.addRelationship(relationship);
+            }
+            return classMetadata;
+        }
+
+        private AttributeMetadata readAttribute() throws IOException {
+            AttributeMetadata attr = new AttributeMetadata(string());
+            attr.setQualifiedName(string());
+            attr.setColumnName(string());
+            attr.setSqlName(string());
+            attr.setIliType(string());
+            attr.setJavaType(string());
+            attr.setDbType(string());
+            int flags = varint();
+            attr.setMandatory((flags & ATTR_MANDATORY) != 0);
+            attr.setPrimaryKey((flags & ATTR_PRIMARY_KEY) != 0);
+            attr.setForeignKey((flags & ATTR_FOREIGN_KEY) != 0);
+            attr.setGeometry((flags & ATTR_GEOMETRY) != 0);
+            attr.setIndexed((flags & ATTR_INDEXED) != 0);
+            attr.setDocumentation(string());
+            int maxLength = varint();
+            attr.setMaxLength(maxLength > 0 ? maxLength - 1 : null);
+            attr.setMinValue(string());
+            attr.setMaxValue(string());
+            attr.setEnumType(string());
+            for (EnumMetadata.EnumValue value : readEnumValues()) {
+                attr.addEnumValue(value);
+            }
+            attr.setUnit(string());
+            attr.setReferencedClass(string());
+            attr.setReferencedAttribute(string());
+            readStringMap(attr.getLabels());
+            return attr;
+        }
+
+        private List<EnumMetadata.EnumValue> readEnumValues() throws IOException {
+            int count = length();
+            List<EnumMetadata.EnumValue> values = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String iliCode = string();
+                String dispName = string();
+                EnumMetadata.EnumValue value = new EnumMetadata.EnumValue(iliCode, signed());
+                value.setDispName(dispName);
+                Map<String, String> labels = new LinkedHashMap<>();
+                readStringMap(labels);
+                labels.forEach(value::addLabel);
+                values.add(value);
+            }
+            return values;
+        }
+
+        private void readStringMap(Map<String, String> target) throws IOException {
+            int count = length();
+            for (int i = 0; i < count; i++) {
+                target.put(string(), string());
+            }
+        }
+
+        private String string() throws IOException {
+            int index = varint();
+            if (index < 0 || index >= strings.length) {
+                throw new IOException("Invalid string reference " + index);
+            }
+            return strings[index];
+        }
+
+        private <E extends Enum<E>> E enumValue(E[] values, int encoded) throws IOException {
+            if (encoded == 0) {
+                return null;
+            }
+            if (encoded > values.length) {
+                throw new IOException("Invalid enum constant " + encoded);
+            }
+            return values[encoded - 1];
+        }
+
+        private int signed() throws IOException {
+            int value = varint();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        /**
+         * Länge bzw. Anzahl Elemente; jedes Element belegt mindestens ein Byte. Verhindert bei
+         * beschädigten Dateien riesige Allokationen.
+         */
+        private int length() throws IOException {
+            int length = varint();
+            if (length < 0 || length > in.remaining()) {
+                throw new IOException("Corrupt metamodel file: invalid length " + length);
+            }
+            return length;
+        }
+
+        private int varint() throws IOException {
+            int result = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                byte b = in.get();
+                result |= (b & 0x7f) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new IOException("Malformed varint");
+        }
+    }
+}
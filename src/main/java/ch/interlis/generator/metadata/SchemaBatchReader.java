@@ -0,0 +1,241 @@
+package ch.interlis.generator.metadata;
+
+import ch.interlis.generator.model.ClassSelection;
+import ch.interlis.generator.model.ModelMetadata;
+import ch.interlis.generator.reader.Ili2cModelReader;
+import ch.interlis.ili2c.Ili2cFailure;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Liest die Metadaten mehrerer Schemas mit demselben INTERLIS-Modell.
+ *
+ * Das Modell wird genau einmal kompiliert und von allen Schemas gemeinsam genutzt.
+ * Die ili2db-Metatabellen werden parallel über einen kleinen Verbindungspool gelesen.
+ */
+public class SchemaBatchReader {
+
+    private static final Logger logger = LoggerFactory.getLogger(SchemaBatchReader.class);
+
+    private final String jdbcUrl;
+    private final Ili2cModelReader ili2cReader;
+    private final ClassSelection classSelection;
+    private final int parallelism;
+
+    public SchemaBatchReader(String jdbcUrl, Ili2cModelReader ili2cReader,
+                             ClassSelection classSelection, int parallelism) {
+        if (jdbcUrl == null || jdbcUrl.isBlank()) {
+            throw new IllegalArgumentException("jdbcUrl");
+        }
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be >= 1");
+        }
+        this.jdbcUrl = jdbcUrl;
+        this.ili2cReader = ili2cReader;
+        this.classSelection = classSelection != null ? classSelection : ClassSelection.all();
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Löst Schema-Namen und -Muster auf. Einträge mit {@code *} oder {@code %} werden über
+     * {@link DatabaseMetaData#getSchemas(String, String)} gesucht, alle anderen unverändert übernommen.
+     */
+    public static List<String> resolveSchemas(Connection connection, List<String> schemaPatterns)
+            throws SQLException {
+        Set<String> schemas = new LinkedHashSet<>();
+        DatabaseMetaData dbMetaData = connection.getMetaData();
+        for (String pattern : schemaPatterns) {
+            if (pattern.indexOf('*') < 0 && pattern.indexOf('%') < 0) {
+                schemas.add(pattern);
+                continue;
+            }
+            List<String> matches = new ArrayList<>();
+            try (ResultSet rs = dbMetaData.getSchemas(null, pattern.replace('*', '%'))) {
+                while (rs.next()) {
+                    matches.add(rs.getString("TABLE_SCHEM"));
+                }
+            }
+            matches.sort(String::compareTo);
+            if (matches.isEmpty()) {
+                logger.warn("Schema pattern {} did not match any schema", pattern);
+            }
+            schemas.addAll(matches);
+        }
+        return new ArrayList<>(schemas);
+    }
+
+    /**
+     * Liest alle Schemas. Fehler eines Schemas brechen den Batch nicht ab, sondern werden
+     * im jeweiligen {@link SchemaResult} zurückgegeben. Die Reihenfolge entspricht {@code schemas}.
+     */
+    public List<SchemaResult> readAll(String modelName, List<String> schemas)
+            throws Ili2cFailure, InterruptedException {
+        if (schemas.isEmpty()) {
+            return List.of();
+        }
+
+        // Modell vorab einmal kompilieren, damit die Worker nur noch lesen
+        long compileStart = System.nanoTime();
+        if (ili2cReader != null && !ili2cReader.isCompiled()) {
+            ili2cReader.compileModel(modelName);
+            logger.info("Model {} compiled in {} ms", modelName, elapsedMillis(compileStart));
+        }
+
+        int poolSize = Math.min(parallelism, schemas.size());
+        ExecutorService executor = Executors.newFixedThreadPool(poolSize);
+        try (ConnectionPool pool = new ConnectionPool(jdbcUrl, poolSize)) {
+            List<Future<SchemaResult>> futures = new ArrayList<>();
+            for (String schema : schemas) {
+                futures.add(executor.submit(() -> readSchema(pool, modelName, schema)));
+            }
+            List<SchemaResult> results = new ArrayList<>();
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    results.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    results.add(SchemaResult.failed(schemas.get(i), 0, e.getCause()));
+                }
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private SchemaResult readSchema(ConnectionPool pool, String modelName, String schema)
+            throws InterruptedException {
+        long start = System.nanoTime();
+        Connection connection = null;
+        try {
+            connection = pool.acquire();
+            MetadataReader reader = MetadataReader.withSharedModel(
+                connection, ili2cReader, schema, classSelection);
+            ModelMetadata metadata = reader.readMetadata(modelName);
+            long millis = elapsedMillis(start);
+            logger.info("Schema {} read in {} ms", schema, millis);
+            return SchemaResult.succeeded(schema, metadata, millis);
+        } catch (SQLException | Ili2cFailure | RuntimeException e) {
+            logger.error("Failed to read schema {}: {}", schema, e.getMessage());
+            return SchemaResult.failed(schema, elapsedMillis(start), e);
+        } finally {
+            if (connection != null) {
+                pool.release(connection);
+            }
+        }
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000L;
+    }
+
+    /**
+     * Ergebnis für ein einzelnes Schema.
+     */
+    public static final class SchemaResult {
+        private final String schema;
+        private final ModelMetadata metadata;
+        private final long readMillis;
+        private final Throwable error;
+
+        private SchemaResult(String schema, ModelMetadata metadata, long readMillis, Throwable error) {
+            this.schema = schema;
+            this.metadata = metadata;
+            this.readMillis = readMillis;
+            this.error = error;
+        }
+
+        static SchemaResult succeeded(String schema, ModelMetadata metadata, long readMillis) {
+            return new SchemaResult(schema, metadata, readMillis, null);
+        }
+
+        static SchemaResult failed(String schema, long readMillis, Throwable error) {
+            return new SchemaResult(schema, null, readMillis, error);
+        }
+
+        public String getSchema() {
+            return schema;
+        }
+
+        public ModelMetadata getMetadata() {
+            return metadata;
+        }
+
+        public long getReadMillis() {
+            return readMillis;
+        }
+
+        public Throwable getError() {
+            return error;
+        }
+
+        public boolean isSuccess() {
+            return error == null;
+        }
+    }
+
+    /**
+     * Minimaler Verbindungspool: Verbindungen werden bei Bedarf bis zur Maximalgrösse geöffnet
+     * und nach Gebrauch für das nächste Schema wiederverwendet.
+     */
+    private static final class ConnectionPool implements AutoCloseable {
+        private final String jdbcUrl;
+        private final int maxSize;
+        private final BlockingQueue<Connection> idle;
+        private final List<Connection> opened = new ArrayList<>();
+
+        ConnectionPool(String jdbcUrl, int maxSize) {
+            this.jdbcUrl = jdbcUrl;
+            this.maxSize = maxSize;
+            this.idle = new ArrayBlockingQueue<>(maxSize);
+        }
+
+        Connection acquire() throws SQLException, InterruptedException {
+            Connection connection = idle.poll();
+            if (connection != null) {
+                return connection;
+            }
+            synchronized (opened) {
+                if (opened.size() < maxSize) {
+                    connection = DriverManager.getConnection(jdbcUrl);
+                    opened.add(connection);
+                    return connection;
+                }
+            }
+            return idle.take();
+        }
+
+        void release(Connection connection) {
+            idle.offer(connection);
+        }
+
+        @Override
+        public void close() {
+            synchronized (opened) {
+                for (Connection connection : opened) {
+                    try {
+                        connection.close();
+                    } catch (SQLException e) {
+                        logger.debug("Failed to close pooled connection: {}", e.getMessage());
+                    }
+                }
+                opened.clear();
+            }
+        }
+    }
+}
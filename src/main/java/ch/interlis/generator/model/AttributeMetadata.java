@@ -19,14 +19,15 @@ public class AttributeMetadata {
     private boolean isPrimaryKey;
     private boolean isForeignKey;
     private boolean isGeometry;
+    private boolean indexed;                // Führende Spalte eines DB-Index
     private String documentation;
     
     // Constraints
-    private Integer maxLength;
+    private int maxLength = NO_MAX_LENGTH;  // ohne Boxing; NO_MAX_LENGTH = nicht gesetzt
     private String minValue;
     private String maxValue;
     private String enumType;                // Falls Enumeration
-    private final java.util.List<EnumMetadata.EnumValue> enumValues = new java.util.ArrayList<>();
+    private java.util.List<EnumMetadata.EnumValue> enumValues = new java.util.ArrayList<>();
     private String unit;                    // Masseinheit
     
     // Beziehungen
@@ -34,12 +35,18 @@ public class AttributeMetadata {
     private String referencedAttribute;
     
     private Map<String, String> labels = new HashMap<>();
+
+    private static final int NO_MAX_LENGTH = -1;
+
+    private int id = -1;                    // Id nach ModelMetadata.freeze()
+    private boolean frozen;
     
     public AttributeMetadata(String name) {
         this.name = name;
     }
     
     public void addLabel(String language, String label) {
+        checkNotFrozen();
         labels.put(language, label);
     }
     
@@ -112,6 +119,43 @@ public class AttributeMetadata {
         return "Object";
     }
     
+    void freeze(int id, StringPool pool) {
+        inferJavaType();
+        this.id = id;
+        name = pool.intern(name);
+        qualifiedName = pool.intern(qualifiedName);
+        columnName = pool.intern(columnName);
+        sqlName = pool.intern(sqlName);
+        iliType = pool.intern(iliType);
+        javaType = pool.intern(javaType);
+        dbType = pool.intern(dbType);
+        minValue = pool.intern(minValue);
+        maxValue = pool.intern(maxValue);
+        enumType = pool.intern(enumType);
+        unit = pool.intern(unit);
+        referencedClass = pool.intern(referencedClass);
+        referencedAttribute = pool.intern(referencedAttribute);
+        for (EnumMetadata.EnumValue value : enumValues) {
+            value.freeze(pool);
+        }
+        enumValues = StringPool.list(enumValues);
+        labels = pool.internMap(labels);
+        frozen = true;
+    }
+
+    private void checkNotFrozen() {
+        if (frozen) {
+            throw new IllegalStateException("AttributeMetadata is frozen: " + name);
+        }
+    }
+
+    /**
+     * Modellweite Id des Attributs nach dem Einfrieren, sonst -1.
+     */
+    public int getId() {
+        return id;
+    }
+    
     // Getters and Setters
     
     public String getName() {
@@ -119,6 +163,7 @@ public class AttributeMetadata {
     }
     
     public void setName(String name) {
+        checkNotFrozen();
         this.name = name;
     }
 
@@ -127,6 +172,7 @@ public class AttributeMetadata {
     }
 
     public void setQualifiedName(String qualifiedName) {
+        checkNotFrozen();
         this.qualifiedName = qualifiedName;
     }
     
@@ -135,6 +181,7 @@ public class AttributeMetadata {
     }
     
     public void setColumnName(String columnName) {
+        checkNotFrozen();
         this.columnName = columnName;
     }
     
@@ -143,6 +190,7 @@ public class AttributeMetadata {
     }
     
     public void setSqlName(String sqlName) {
+        checkNotFrozen();
         this.sqlName = sqlName;
     }
     
@@ -151,6 +199,7 @@ public class AttributeMetadata {
     }
     
     public void setIliType(String iliType) {
+        checkNotFrozen();
         this.iliType = iliType;
     }
     
@@ -162,6 +211,7 @@ public class AttributeMetadata {
     }
     
     public void setJavaType(String javaType) {
+        checkNotFrozen();
         this.javaType = javaType;
     }
     
@@ -170,6 +220,7 @@ public class AttributeMetadata {
     }
     
     public void setDbType(String dbType) {
+        checkNotFrozen();
         this.dbType = dbType;
     }
     
@@ -178,6 +229,7 @@ public class AttributeMetadata {
     }
     
     public void setMandatory(boolean mandatory) {
+        checkNotFrozen();
         this.mandatory = mandatory;
     }
     
@@ -186,6 +238,7 @@ public class AttributeMetadata {
     }
     
     public void setPrimaryKey(boolean primaryKey) {
+        checkNotFrozen();
         isPrimaryKey = primaryKey;
     }
     
@@ -194,6 +247,7 @@ public class AttributeMetadata {
     }
     
     public void setForeignKey(boolean foreignKey) {
+        checkNotFrozen();
         isForeignKey = foreignKey;
     }
     
@@ -202,23 +256,38 @@ public class AttributeMetadata {
     }
     
     public void setGeometry(boolean geometry) {
+        checkNotFrozen();
         isGeometry = geometry;
     }
     
+    /**
+     * Die Spalte ist führende Spalte eines Datenbank-Index und damit effizient sortierbar.
+     */
+    public boolean isIndexed() {
+        return indexed;
+    }
+    
+    public void setIndexed(boolean indexed) {
+        checkNotFrozen();
+        this.indexed = indexed;
+    }
+    
     public String getDocumentation() {
         return documentation;
     }
     
     public void setDocumentation(String documentation) {
+        checkNotFrozen();
         this.documentation = documentation;
     }
     
     public Integer getMaxLength() {
-        return maxLength;
+        return maxLength != NO_MAX_LENGTH ? Integer.valueOf(maxLength) : null;
     }
     
     public void setMaxLength(Integer maxLength) {
-        this.maxLength = maxLength;
+        checkNotFrozen();
+        this.maxLength = maxLength != null ? maxLength : NO_MAX_LENGTH;
     }
     
     public String getMinValue() {
@@ -226,6 +295,7 @@ public class AttributeMetadata {
     }
     
     public void setMinValue(String minValue) {
+        checkNotFrozen();
         this.minValue = minValue;
     }
     
@@ -234,6 +304,7 @@ public class AttributeMetadata {
     }
     
     public void setMaxValue(String maxValue) {
+        checkNotFrozen();
         this.maxValue = maxValue;
     }
     
@@ -242,6 +313,7 @@ public class AttributeMetadata {
     }
     
     public void setEnumType(String enumType) {
+        checkNotFrozen();
         this.enumType = enumType;
     }
 
@@ -250,6 +322,7 @@ public class AttributeMetadata {
     }
 
     public void addEnumValue(EnumMetadata.EnumValue value) {
+        checkNotFrozen();
         enumValues.add(value);
     }
     
@@ -258,6 +331,7 @@ public class AttributeMetadata {
     }
     
     public void setUnit(String unit) {
+        checkNotFrozen();
         this.unit = unit;
     }
     
@@ -266,6 +340,7 @@ public class AttributeMetadata {
     }
     
     public void setReferencedClass(String referencedClass) {
+        checkNotFrozen();
         this.referencedClass = referencedClass;
     }
     
@@ -274,6 +349,7 @@ public class AttributeMetadata {
     }
     
     public void setReferencedAttribute(String referencedAttribute) {
+        checkNotFrozen();
         this.referencedAttribute = referencedAttribute;
     }
     
@@ -282,6 +358,7 @@ public class AttributeMetadata {
     }
     
     public void setLabels(Map<String, String> labels) {
+        checkNotFrozen();
         this.labels = labels;
     }
     
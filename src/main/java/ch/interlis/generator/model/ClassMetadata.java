@@ -22,6 +22,11 @@ public class ClassMetadata {
     
     // ili2db spezifisch
     private String inheritanceStrategy;     // newClass, superClass, subClass
+    private List<String> systemColumns = new ArrayList<>();   // t_basket, t_ili_tid, ... der Tabelle
+    private List<String> indexedColumns = new ArrayList<>();  // Führende Spalten der DB-Indexe
+
+    private int id = -1;                    // Id nach ModelMetadata.freeze()
+    private boolean frozen;
     
     public enum ClassKind {
         CLASS,
@@ -41,17 +46,64 @@ public class ClassMetadata {
     }
     
     public void addAttribute(AttributeMetadata attribute) {
+        checkNotFrozen();
         attributes.put(attribute.getName(), attribute);
     }
     
     public void addRelationship(RelationshipMetadata relationship) {
+        checkNotFrozen();
         relationships.add(relationship);
     }
     
     public void addLabel(String language, String label) {
+        checkNotFrozen();
         labels.put(language, label);
     }
     
+    /**
+     * Registriert eine vorhandene ili2db-Systemspalte (klein geschrieben).
+     */
+    public void addSystemColumn(String columnName) {
+        checkNotFrozen();
+        String normalized = columnName.toLowerCase(Locale.ROOT);
+        if (!systemColumns.contains(normalized)) {
+            systemColumns.add(normalized);
+        }
+    }
+    
+    /**
+     * ili2db-Systemspalten der Tabelle, z. B. {@code t_basket}, {@code t_ili_tid}, {@code t_lastchange}.
+     */
+    public List<String> getSystemColumns() {
+        return systemColumns;
+    }
+    
+    public boolean hasSystemColumn(String columnName) {
+        return columnName != null && systemColumns.contains(columnName.toLowerCase(Locale.ROOT));
+    }
+    
+    /**
+     * Registriert die führende Spalte eines Datenbank-Index (klein geschrieben).
+     */
+    public void addIndexedColumn(String columnName) {
+        checkNotFrozen();
+        String normalized = columnName.toLowerCase(Locale.ROOT);
+        if (!indexedColumns.contains(normalized)) {
+            indexedColumns.add(normalized);
+        }
+    }
+    
+    /**
+     * Führende Spalten aller Indexe der Tabelle (inkl. Systemspalten).
+     */
+    public List<String> getIndexedColumns() {
+        return indexedColumns;
+    }
+    
+    public boolean isIndexedColumn(String columnName) {
+        return columnName != null && indexedColumns.contains(columnName.toLowerCase(Locale.ROOT));
+    }
+    
     public AttributeMetadata getAttribute(String name) {
         return attributes.get(name);
     }
@@ -72,6 +124,46 @@ public class ClassMetadata {
             .toList();
     }
     
+    void freeze(int id, StringPool pool) {
+        this.id = id;
+        name = pool.intern(name);
+        simpleName = pool.intern(simpleName);
+        tableName = pool.intern(tableName);
+        sqlName = pool.intern(sqlName);
+        baseClass = pool.intern(baseClass);
+        inheritanceStrategy = pool.intern(inheritanceStrategy);
+        attributes = pool.orderedMap(attributes);
+        for (RelationshipMetadata relationship : relationships) {
+            relationship.freeze(pool);
+        }
+        relationships = StringPool.list(relationships);
+        labels = pool.internMap(labels);
+        systemColumns = internList(systemColumns, pool);
+        indexedColumns = internList(indexedColumns, pool);
+        frozen = true;
+    }
+
+    private static List<String> internList(List<String> values, StringPool pool) {
+        List<String> interned = new ArrayList<>(values.size());
+        for (String value : values) {
+            interned.add(pool.intern(value));
+        }
+        return StringPool.list(interned);
+    }
+
+    private void checkNotFrozen() {
+        if (frozen) {
+            throw new IllegalStateException("ClassMetadata is frozen: " + name);
+        }
+    }
+
+    /**
+     * Id der Klasse innerhalb des eingefrorenen Modells, sonst -1.
+     */
+    public int getId() {
+        return id;
+    }
+    
     // Getters and Setters
     
     public String getName() {
@@ -79,6 +171,7 @@ public class ClassMetadata {
     }
     
     public void setName(String name) {
+        checkNotFrozen();
         this.name = name;
         this.simpleName = extractSimpleName(name);
     }
@@ -92,6 +185,7 @@ public class ClassMetadata {
     }
     
     public void setTableName(String tableName) {
+        checkNotFrozen();
         this.tableName = tableName;
     }
     
@@ -100,6 +194,7 @@ public class ClassMetadata {
     }
     
     public void setSqlName(String sqlName) {
+        checkNotFrozen();
         this.sqlName = sqlName;
     }
     
@@ -108,6 +203,7 @@ public class ClassMetadata {
     }
     
     public void setDocumentation(String documentation) {
+        checkNotFrozen();
         this.documentation = documentation;
     }
     
@@ -116,6 +212,7 @@ public class ClassMetadata {
     }
     
     public void setAbstract(boolean anAbstract) {
+        checkNotFrozen();
         isAbstract = anAbstract;
     }
     
@@ -124,6 +221,7 @@ public class ClassMetadata {
     }
     
     public void setBaseClass(String baseClass) {
+        checkNotFrozen();
         this.baseClass = baseClass;
     }
     
@@ -132,6 +230,7 @@ public class ClassMetadata {
     }
     
     public void setKind(ClassKind kind) {
+        checkNotFrozen();
         this.kind = kind;
     }
     
@@ -140,6 +239,7 @@ public class ClassMetadata {
     }
     
     public void setAttributes(Map<String, AttributeMetadata> attributes) {
+        checkNotFrozen();
         this.attributes = attributes;
     }
     
@@ -148,6 +248,7 @@ public class ClassMetadata {
     }
     
     public void setRelationships(List<RelationshipMetadata> relationships) {
+        checkNotFrozen();
         this.relationships = relationships;
     }
     
@@ -156,6 +257,7 @@ public class ClassMetadata {
     }
     
     public void setLabels(Map<String, String> labels) {
+        checkNotFrozen();
         this.labels = labels;
     }
     
@@ -164,6 +266,7 @@ public class ClassMetadata {
     }
     
     public void setInheritanceStrategy(String inheritanceStrategy) {
+        checkNotFrozen();
         this.inheritanceStrategy = inheritanceStrategy;
     }
     
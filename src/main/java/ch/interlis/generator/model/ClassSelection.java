@@ -0,0 +1,195 @@
+package ch.interlis.generator.model;
+
+import java.util.*;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Auswahl von Klassen/Topics über Include- und Exclude-Muster auf qualifizierten INTERLIS-Namen.
+ *
+ * Ein Muster passt auf einen Namen, wenn es ihm entspricht (mit {@code *} als Platzhalter)
+ * oder wenn der Name innerhalb des Musters liegt ({@code Modell.Topic} wählt alle Klassen
+ * des Topics). Ohne Include-Muster sind alle Klassen ausgewählt.
+ */
+public final class ClassSelection {
+
+    /**
+     * Escape-Zeichen der LIKE-Muster.
+     */
+    public static final char LIKE_ESCAPE = '\\';
+
+    private static final ClassSelection ALL = new ClassSelection(List.of(), List.of());
+
+    private final List<String> includes;
+    private final List<String> excludes;
+    private final List<Pattern> includePatterns;
+    private final List<Pattern> excludePatterns;
+
+    private ClassSelection(List<String> includes, List<String> excludes) {
+        this.includes = List.copyOf(includes);
+        this.excludes = List.copyOf(excludes);
+        this.includePatterns = this.includes.stream().map(ClassSelection::compile).toList();
+        this.excludePatterns = this.excludes.stream().map(ClassSelection::compile).toList();
+    }
+
+    public static ClassSelection all() {
+        return ALL;
+    }
+
+    public static ClassSelection of(Collection<String> includes, Collection<String> excludes) {
+        List<String> normalizedIncludes = normalize(includes);
+        List<String> normalizedExcludes = normalize(excludes);
+        if (normalizedIncludes.isEmpty() && normalizedExcludes.isEmpty()) {
+            return ALL;
+        }
+        return new ClassSelection(normalizedIncludes, normalizedExcludes);
+    }
+
+    /**
+     * Erstellt eine Auswahl aus exakten qualifizierten Namen (z.B. einer bereits aufgelösten Hülle).
+     */
+    public static ClassSelection ofNames(Collection<String> qualifiedNames) {
+        return of(qualifiedNames, List.of());
+    }
+
+    /**
+     * Liest eine Auswahl aus durch {@code ;} oder {@code ,} getrennten Mustern.
+     */
+    public static ClassSelection parse(String includes, String excludes) {
+        return of(split(includes), split(excludes));
+    }
+
+    public boolean isAll() {
+        return includes.isEmpty() && excludes.isEmpty();
+    }
+
+    public boolean hasIncludes() {
+        return !includes.isEmpty();
+    }
+
+    public List<String> getIncludes() {
+        return includes;
+    }
+
+    public List<String> getExcludes() {
+        return excludes;
+    }
+
+    /**
+     * Prüft, ob eine Klasse (qualifizierter Name) ausgewählt ist.
+     */
+    public boolean matches(String qualifiedName) {
+        if (isAll()) {
+            return true;
+        }
+        if (qualifiedName == null) {
+            return false;
+        }
+        if (!includePatterns.isEmpty() && !matchesAny(includePatterns, qualifiedName)) {
+            return false;
+        }
+        return !matchesAny(excludePatterns, qualifiedName);
+    }
+
+    /**
+     * Prüft, ob innerhalb eines Containers (Modell/Topic) überhaupt eine Klasse ausgewählt sein kann.
+     * Wird genutzt, um ganze Topics bei der Modell-Traversierung zu überspringen.
+     */
+    public boolean mayMatchWithin(String containerName) {
+        if (!hasIncludes() || containerName == null) {
+            return true;
+        }
+        String scope = containerName + ".";
+        for (String include : includes) {
+            String literalPrefix = literalPrefix(include);
+            if (literalPrefix.startsWith(scope) || scope.startsWith(literalPrefix)
+                || literalPrefix.equals(containerName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * LIKE-Muster für die Include-Muster (jeweils Name selbst und Inhalt des Containers).
+     * Die SQL-Filterung ist eine Vorauswahl; {@link #matches(String)} entscheidet abschliessend.
+     * {@code %}, {@code _} und {@code \} in Namen sind mit {@link #LIKE_ESCAPE} maskiert
+     * ({@code LIKE ? ESCAPE '\'}).
+     */
+    public List<String> includeLikePatterns() {
+        return toLikePatterns(includes);
+    }
+
+    public List<String> excludeLikePatterns() {
+        return toLikePatterns(excludes);
+    }
+
+    private static List<String> toLikePatterns(List<String> patterns) {
+        List<String> likePatterns = new ArrayList<>();
+        for (String pattern : patterns) {
+            // '_' ist in INTERLIS-Namen häufig und darf im LIKE nicht als Platzhalter wirken
+            String like = pattern.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_")
+                .replace('*', '%');
+            likePatterns.add(like);
+            if (!pattern.endsWith("*")) {
+                likePatterns.add(like + ".%");
+            }
+        }
+        return likePatterns;
+    }
+
+    private static boolean matchesAny(List<Pattern> patterns, String value) {
+        for (Pattern pattern : patterns) {
+            if (pattern.matcher(value).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Pattern compile(String glob) {
+        String regex = Arrays.stream(glob.split("\\*", -1))
+            .map(Pattern::quote)
+            .collect(Collectors.joining(".*"));
+        return Pattern.compile(regex + "(\\..*)?");
+    }
+
+    private static String literalPrefix(String pattern) {
+        int wildcard = pattern.indexOf('*');
+        return wildcard >= 0 ? pattern.substring(0, wildcard) : pattern;
+    }
+
+    private static List<String> normalize(Collection<String> values) {
+        if (values == null) {
+            return List.of();
+        }
+        Set<String> unique = new LinkedHashSet<>();
+        for (String value : values) {
+            if (value != null && !value.isBlank()) {
+                unique.add(value.trim());
+            }
+        }
+        return new ArrayList<>(unique);
+    }
+
+    private static List<String> split(String value) {
+        if (value == null || value.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(value.split("[,;]"))
+            .map(String::trim)
+            .filter(part -> !part.isEmpty())
+            .toList();
+    }
+
+    @Override
+    public String toString() {
+        if (isAll()) {
+            return "ClassSelection{all}";
+        }
+        return "ClassSelection{" +
+                "includes=" + includes +
+                ", excludes=" + excludes +
+                '}';
+    }
+}
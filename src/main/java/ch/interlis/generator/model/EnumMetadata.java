@@ -12,23 +12,41 @@ public class EnumMetadata {
     private List<EnumValue> values = new ArrayList<>();
     private boolean isExtendable;
     private String baseEnum;                // Falls erweitert
+
+    private int id = -1;                    // Id nach ModelMetadata.freeze()
+    private boolean frozen;
     
     public static class EnumValue {
         private String iliCode;             // INTERLIS Code
         private String dispName;            // Display Name
         private int seq;                    // Reihenfolge
         private Map<String, String> labels = new HashMap<>();
+        private boolean frozen;
         
         public EnumValue(String iliCode, int seq) {
             this.iliCode = iliCode;
             this.seq = seq;
         }
         
+        void freeze(StringPool pool) {
+            iliCode = pool.intern(iliCode);
+            dispName = pool.intern(dispName);
+            labels = pool.internMap(labels);
+            frozen = true;
+        }
+
+        private void checkNotFrozen() {
+            if (frozen) {
+                throw new IllegalStateException("EnumValue is frozen: " + iliCode);
+            }
+        }
+
         public String getIliCode() {
             return iliCode;
         }
         
         public void setIliCode(String iliCode) {
+            checkNotFrozen();
             this.iliCode = iliCode;
         }
         
@@ -37,6 +55,7 @@ public class EnumMetadata {
         }
         
         public void setDispName(String dispName) {
+            checkNotFrozen();
             this.dispName = dispName;
         }
         
@@ -45,6 +64,7 @@ public class EnumMetadata {
         }
         
         public void setSeq(int seq) {
+            checkNotFrozen();
             this.seq = seq;
         }
         
@@ -53,6 +73,7 @@ public class EnumMetadata {
         }
         
         public void addLabel(String language, String label) {
+            checkNotFrozen();
             labels.put(language, label);
         }
         
@@ -77,7 +98,33 @@ public class EnumMetadata {
         return lastDot >= 0 ? qualifiedName.substring(lastDot + 1) : qualifiedName;
     }
     
+    void freeze(int id, StringPool pool) {
+        this.id = id;
+        name = pool.intern(name);
+        simpleName = pool.intern(simpleName);
+        baseEnum = pool.intern(baseEnum);
+        for (EnumValue value : values) {
+            value.freeze(pool);
+        }
+        values = StringPool.list(values);
+        frozen = true;
+    }
+
+    private void checkNotFrozen() {
+        if (frozen) {
+            throw new IllegalStateException("EnumMetadata is frozen: " + name);
+        }
+    }
+
+    /**
+     * Id der Enumeration innerhalb des eingefrorenen Modells, sonst -1.
+     */
+    public int getId() {
+        return id;
+    }
+    
     public void addValue(EnumValue value) {
+        checkNotFrozen();
         values.add(value);
     }
     
@@ -86,6 +133,7 @@ public class EnumMetadata {
     }
     
     public void setName(String name) {
+        checkNotFrozen();
         this.name = name;
         this.simpleName = extractSimpleName(name);
     }
@@ -99,6 +147,7 @@ public class EnumMetadata {
     }
     
     public void setValues(List<EnumValue> values) {
+        checkNotFrozen();
         this.values = values;
     }
     
@@ -107,6 +156,7 @@ public class EnumMetadata {
     }
     
     public void setExtendable(boolean extendable) {
+        checkNotFrozen();
         isExtendable = extendable;
     }
     
@@ -115,6 +165,7 @@ public class EnumMetadata {
     }
     
     public void setBaseEnum(String baseEnum) {
+        checkNotFrozen();
         this.baseEnum = baseEnum;
     }
     
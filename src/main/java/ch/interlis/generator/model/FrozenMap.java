@@ -0,0 +1,106 @@
+package ch.interlis.generator.model;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Unveränderliche Map-Sicht auf ein nach Id geordnetes Array eingefrorener Objekte.
+ *
+ * Der Schlüssel wird aus dem Objekt abgeleitet (qualifizierter Name); neben dem Array
+ * wird nur eine offene Hashtabelle mit Indizes gehalten, keine eigenen Einträge.
+ */
+final class FrozenMap<V> extends AbstractMap<String, V> {
+
+    private final V[] values;
+    private final Function<V, String> keyOf;
+    private final int[] slots;              // Index + 1, 0 = leer
+
+    FrozenMap(V[] values, Function<V, String> keyOf) {
+        this.values = values;
+        this.keyOf = keyOf;
+        int capacity = Integer.highestOneBit(Math.max(1, values.length) * 2 - 1) << 1;
+        this.slots = new int[capacity];
+        for (int i = 0; i < values.length; i++) {
+            int slot = slot(keyOf.apply(values[i]));
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & (slots.length - 1);
+            }
+            slots[slot] = i + 1;
+        }
+    }
+
+    private int slot(String key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & (slots.length - 1);
+    }
+
+    @Override
+    public V get(Object key) {
+        if (!(key instanceof String name)) {
+            return null;
+        }
+        int slot = slot(name);
+        while (slots[slot] != 0) {
+            V value = values[slots[slot] - 1];
+            if (name.equals(keyOf.apply(value))) {
+                return value;
+            }
+            slot = (slot + 1) & (slots.length - 1);
+        }
+        return null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public int size() {
+        return values.length;
+    }
+
+    @Override
+    public Collection<V> values() {
+        return Collections.unmodifiableList(Arrays.asList(values));
+    }
+
+    @Override
+    public Set<Map.Entry<String, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Map.Entry<String, V>> iterator() {
+                return new Iterator<>() {
+                    private int next;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < values.length;
+                    }
+
+                    @Override
+                    public Map.Entry<String, V> next() {
+                        if (next >= values.length) {
+                            throw new NoSuchElementException();
+                        }
+                        V value = values[next++];
+                        return new AbstractMap.SimpleImmutableEntry<>(keyOf.apply(value), value);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return values.length;
+            }
+        };
+    }
+}
@@ -0,0 +1,269 @@
+package ch.interlis.generator.model;
+
+import java.util.*;
+
+/**
+ * Vorberechneter Vererbungsindex eines Modells.
+ *
+ * Enthält die topologische Reihenfolge (Basisklassen vor Subklassen), die transitive Hülle
+ * der Vorfahren und Nachfahren als Bitsets, die Tiefe jeder Klasse sowie die ili2db
+ * Abbildungsstrategie (newClass, superClass, subClass). Alle Abfragen sind O(1) bzw.
+ * linear in der Grösse des Ergebnisses.
+ *
+ * Berücksichtigt werden nur Klassen, die in den Metadaten vorhanden sind.
+ */
+public final class InheritanceIndex {
+
+    /** ili2db Setting mit der gewählten Vererbungsabbildung (smart1, smart2). */
+    public static final String SETTING_INHERITANCE_TRAFO = "ch.ehi.ili2db.inheritanceTrafo";
+
+    /**
+     * Abbildungsstrategie einer Klasse gemäss ili2db ({@code ch.ehi.ili2db.inheritance}).
+     */
+    public enum Strategy {
+        /** Eigene Tabelle. */
+        NEW_CLASS("newClass"),
+        /** Abgebildet in der Tabelle der Basisklasse. */
+        SUPER_CLASS("superClass"),
+        /** Attribute in die Tabellen der Subklassen verschoben. */
+        SUB_CLASS("subClass");
+
+        private final String setting;
+
+        Strategy(String setting) {
+            this.setting = setting;
+        }
+
+        public String getSetting() {
+            return setting;
+        }
+
+        /**
+         * Liest den ili2db-Wert; unbekannte oder fehlende Werte ergeben {@code null}.
+         */
+        public static Strategy fromSetting(String setting) {
+            if (setting == null) {
+                return null;
+            }
+            for (Strategy strategy : values()) {
+                if (strategy.setting.equalsIgnoreCase(setting.trim())) {
+                    return strategy;
+                }
+            }
+            return null;
+        }
+    }
+
+    private final ClassMetadata[] classes;
+    private final Map<String, Integer> positions;
+    private final int[] parents;
+    private final int[] depths;
+    private final BitSet[] ancestors;
+    private final BitSet[] descendants;
+    private final Strategy[] strategies;
+    private final BitSet parentsOfNewClass;
+    private final int[] topologicalOrder;
+    private final boolean smart2;
+
+    private InheritanceIndex(ModelMetadata metadata) {
+        int size = metadata.getClasses().size();
+        classes = metadata.getAllClasses().toArray(new ClassMetadata[0]);
+        positions = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            positions.put(classes[i].getName(), i);
+        }
+        smart2 = isSmart2(metadata);
+
+        parents = new int[size];
+        strategies = new Strategy[size];
+        for (int i = 0; i < size; i++) {
+            Integer parent = classes[i].getBaseClass() != null
+                ? positions.get(classes[i].getBaseClass())
+                : null;
+            parents[i] = parent != null && parent != i ? parent : -1;
+            Strategy strategy = Strategy.fromSetting(classes[i].getInheritanceStrategy());
+            strategies[i] = strategy != null ? strategy : Strategy.NEW_CLASS;
+        }
+
+        parentsOfNewClass = new BitSet(size);
+        for (int i = 0; i < size; i++) {
+            if (parents[i] >= 0 && strategies[i] == Strategy.NEW_CLASS) {
+                parentsOfNewClass.set(parents[i]);
+            }
+        }
+
+        depths = new int[size];
+        ancestors = new BitSet[size];
+        descendants = new BitSet[size];
+        for (int i = 0; i < size; i++) {
+            descendants[i] = new BitSet(size);
+        }
+        for (int i = 0; i < size; i++) {
+            BitSet closure = new BitSet(size);
+            int depth = 0;
+            // Zyklen in fehlerhaften Metadaten beenden die Traversierung
+            for (int p = parents[i]; p >= 0 && p != i && !closure.get(p); p = parents[p]) {
+                closure.set(p);
+                descendants[p].set(i);
+                depth++;
+            }
+            ancestors[i] = closure;
+            depths[i] = depth;
+        }
+
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingInt(i -> depths[i]));
+        topologicalOrder = new int[size];
+        for (int i = 0; i < size; i++) {
+            topologicalOrder[i] = order[i];
+        }
+    }
+
+    /**
+     * Baut den Index für die gegebenen Metadaten. Bei eingefrorenen Metadaten sollte
+     * {@link ModelMetadata#getInheritanceIndex()} verwendet werden (einmal berechnet).
+     */
+    public static InheritanceIndex build(ModelMetadata metadata) {
+        return new InheritanceIndex(metadata);
+    }
+
+    /**
+     * Alle Klassen, Basisklassen vor ihren Subklassen.
+     */
+    public List<ClassMetadata> getTopologicalOrder() {
+        List<ClassMetadata> result = new ArrayList<>(topologicalOrder.length);
+        for (int position : topologicalOrder) {
+            result.add(classes[position]);
+        }
+        return result;
+    }
+
+    public ClassMetadata getParent(ClassMetadata classMetadata) {
+        int position = position(classMetadata);
+        return position >= 0 && parents[position] >= 0 ? classes[parents[position]] : null;
+    }
+
+    /**
+     * Vorfahren, beginnend mit der direkten Basisklasse.
+     */
+    public List<ClassMetadata> getAncestors(ClassMetadata classMetadata) {
+        List<ClassMetadata> result = new ArrayList<>();
+        int position = position(classMetadata);
+        if (position < 0) {
+            return result;
+        }
+        BitSet seen = new BitSet(classes.length);
+        for (int p = parents[position]; p >= 0 && p != position && !seen.get(p); p = parents[p]) {
+            seen.set(p);
+            result.add(classes[p]);
+        }
+        return result;
+    }
+
+    /**
+     * Alle direkten und indirekten Subklassen in Modellreihenfolge.
+     */
+    public List<ClassMetadata> getDescendants(ClassMetadata classMetadata) {
+        int position = position(classMetadata);
+        if (position < 0) {
+            return List.of();
+        }
+        BitSet set = descendants[position];
+        List<ClassMetadata> result = new ArrayList<>(set.cardinality());
+        for (int i = set.nextSetBit(0); i >= 0; i = set.nextSetBit(i + 1)) {
+            result.add(classes[i]);
+        }
+        return result;
+    }
+
+    public boolean hasDescendants(ClassMetadata classMetadata) {
+        int position = position(classMetadata);
+        return position >= 0 && !descendants[position].isEmpty();
+    }
+
+    /**
+     * Prüft, ob {@code classMetadata} (direkt oder indirekt) von {@code ancestor} erbt.
+     */
+    public boolean isSubclassOf(ClassMetadata classMetadata, ClassMetadata ancestor) {
+        int position = position(classMetadata);
+        int ancestorPosition = position(ancestor);
+        return position >= 0 && ancestorPosition >= 0 && ancestors[position].get(ancestorPosition);
+    }
+
+    /**
+     * Prüft anhand des qualifizierten Namens, ob eine Klasse von {@code ancestorName} erbt.
+     */
+    public boolean isSubclassOf(ClassMetadata classMetadata, String ancestorName) {
+        Integer ancestorPosition = ancestorName != null ? positions.get(ancestorName) : null;
+        int position = position(classMetadata);
+        return position >= 0 && ancestorPosition != null && ancestors[position].get(ancestorPosition);
+    }
+
+    /**
+     * Anzahl der (bekannten) Vorfahren; 0 für Wurzelklassen.
+     */
+    public int getDepth(ClassMetadata classMetadata) {
+        int position = position(classMetadata);
+        return position >= 0 ? depths[position] : 0;
+    }
+
+    public Strategy getStrategy(ClassMetadata classMetadata) {
+        int position = position(classMetadata);
+        return position >= 0 ? strategies[position] : Strategy.NEW_CLASS;
+    }
+
+    /**
+     * {@code true}, wenn das Schema mit {@code --smart2Inheritance} erstellt wurde.
+     * Dann enthalten die Tabellen der Subklassen alle geerbten Attribute.
+     */
+    public boolean isSmart2() {
+        return smart2;
+    }
+
+    static boolean isSmart2(ModelMetadata metadata) {
+        return "smart2".equalsIgnoreCase(metadata.getSettings().get(SETTING_INHERITANCE_TRAFO));
+    }
+
+    /**
+     * Prüft, ob die Klasse eine eigene Tabelle besitzt (Strategie newClass).
+     */
+    public boolean hasOwnTable(ClassMetadata classMetadata) {
+        return getStrategy(classMetadata) == Strategy.NEW_CLASS;
+    }
+
+    /**
+     * Basisklasse, mit der die Klasse über den Primärschlüssel verbunden ist (joined subclass).
+     * Nur ohne smart2, wenn beide Klassen eine eigene Tabelle besitzen; sonst {@code null}.
+     */
+    public ClassMetadata getJoinedSuperclass(ClassMetadata classMetadata) {
+        if (smart2 || !hasOwnTable(classMetadata)) {
+            return null;
+        }
+        ClassMetadata parent = getParent(classMetadata);
+        return parent != null && hasOwnTable(parent) ? parent : null;
+    }
+
+    /**
+     * Prüft, ob mindestens eine Subklasse als joined subclass auf diese Klasse abgebildet ist.
+     */
+    public boolean hasJoinedSubclasses(ClassMetadata classMetadata) {
+        int position = position(classMetadata);
+        return position >= 0 && !smart2 && strategies[position] == Strategy.NEW_CLASS
+            && parentsOfNewClass.get(position);
+    }
+
+    private int position(ClassMetadata classMetadata) {
+        if (classMetadata == null) {
+            return -1;
+        }
+        int id = classMetadata.getId();
+        if (id >= 0 && id < classes.length && classes[id] == classMetadata) {
+            return id;
+        }
+        Integer position = positions.get(classMetadata.getName());
+        return position != null ? position : -1;
+    }
+}
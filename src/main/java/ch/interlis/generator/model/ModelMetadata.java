@@ -5,6 +5,9 @@ import java.util.*;
 /**
  * Repräsentiert die vollständigen Metadaten eines INTERLIS-Modells.
  * Kombiniert Informationen aus ili2db-Metatabellen und dem ili2c-Modell.
+ *
+ * Nach dem Lesen wird das Modell mit {@link #freeze()} in einen unveränderlichen,
+ * kompakten Zustand überführt, der von allen Generatoren gemeinsam genutzt wird.
  */
 public class ModelMetadata {
     
@@ -18,16 +21,27 @@ public class ModelMetadata {
     // ili2db spezifische Informationen
     private String ili2dbVersion;
     private Map<String, String> settings = new HashMap<>();
+
+    // Nach freeze(): dichte Arrays für den Zugriff über Integer-Ids
+    private boolean frozen;
+    private ClassMetadata[] classesById = new ClassMetadata[0];
+    private AttributeMetadata[] attributesById = new AttributeMetadata[0];
+    private EnumMetadata[] enumsById = new EnumMetadata[0];
+    private volatile InheritanceIndex inheritanceIndex;
+    private volatile RelationshipGraph relationshipGraph;
     
     public ModelMetadata(String modelName) {
         this.modelName = modelName;
     }
     
     public void addClass(ClassMetadata classMetadata) {
+        checkNotFrozen();
         classes.put(classMetadata.getName(), classMetadata);
+        inheritanceIndex = null;
     }
     
     public void addEnum(EnumMetadata enumMetadata) {
+        checkNotFrozen();
         enums.put(enumMetadata.getName(), enumMetadata);
     }
     
@@ -43,6 +57,118 @@ public class ModelMetadata {
         return enums.values();
     }
     
+    /**
+     * Friert die Metadaten ein: vergibt fortlaufende Ids für Klassen, Attribute und
+     * Enumerationen, dedupliziert Strings, ersetzt leere Maps/Listen durch gemeinsame
+     * Instanzen und macht alle Objekte unveränderlich. Die Maps für Klassen und
+     * Enumerationen werden durch Sichten auf die Id-Arrays ersetzt, sodass jedes Objekt
+     * nur noch einmal referenziert wird. Setter werfen danach eine
+     * {@link IllegalStateException}. Mehrfaches Aufrufen ist unschädlich.
+     *
+     * @return diese Instanz
+     */
+    public ModelMetadata freeze() {
+        if (frozen) {
+            return this;
+        }
+        StringPool pool = new StringPool();
+
+        List<AttributeMetadata> attributes = new ArrayList<>();
+        classesById = new ClassMetadata[classes.size()];
+        int classId = 0;
+        for (ClassMetadata classMetadata : classes.values()) {
+            for (AttributeMetadata attr : classMetadata.getAllAttributes()) {
+                attr.freeze(attributes.size(), pool);
+                attributes.add(attr);
+            }
+            classMetadata.freeze(classId, pool);
+            classesById[classId++] = classMetadata;
+        }
+        attributesById = attributes.toArray(new AttributeMetadata[0]);
+
+        enumsById = new EnumMetadata[enums.size()];
+        int enumId = 0;
+        for (EnumMetadata enumMetadata : enums.values()) {
+            enumMetadata.freeze(enumId, pool);
+            enumsById[enumId++] = enumMetadata;
+        }
+
+        modelName = pool.intern(modelName);
+        schemaName = pool.intern(schemaName);
+        iliVersion = pool.intern(iliVersion);
+        ili2dbVersion = pool.intern(ili2dbVersion);
+        classes = new FrozenMap<>(classesById, ClassMetadata::getName);
+        enums = new FrozenMap<>(enumsById, EnumMetadata::getName);
+        settings = pool.internMap(settings);
+        frozen = true;
+        return this;
+    }
+
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    /**
+     * Klasse über ihre Id (nur nach {@link #freeze()}).
+     */
+    public ClassMetadata getClassById(int id) {
+        return classesById[id];
+    }
+
+    /**
+     * Attribut über seine modellweite Id (nur nach {@link #freeze()}).
+     */
+    public AttributeMetadata getAttributeById(int id) {
+        return attributesById[id];
+    }
+
+    /**
+     * Enumeration über ihre Id (nur nach {@link #freeze()}).
+     */
+    public EnumMetadata getEnumById(int id) {
+        return enumsById[id];
+    }
+
+    public int getAttributeCount() {
+        return attributesById.length;
+    }
+
+    /**
+     * Vererbungsindex des Modells. Er wird beim ersten Aufruf berechnet und
+     * wiederverwendet; {@link #addClass}, {@link #setClasses} und eine geänderte
+     * Vererbungsabbildung in den Settings verwerfen ihn.
+     */
+    public InheritanceIndex getInheritanceIndex() {
+        InheritanceIndex index = inheritanceIndex;
+        if (index == null || (!frozen && index.isSmart2() != InheritanceIndex.isSmart2(this))) {
+            index = InheritanceIndex.build(this);
+            inheritanceIndex = index;
+        }
+        return index;
+    }
+
+    /**
+     * Beziehungsgraph des Modells. Bei eingefrorenen Metadaten wird er einmal berechnet
+     * und wiederverwendet, sonst bei jedem Aufruf neu erstellt.
+     */
+    public RelationshipGraph getRelationshipGraph() {
+        if (!frozen) {
+            return RelationshipGraph.build(this);
+        }
+        RelationshipGraph graph = relationshipGraph;
+        if (graph == null) {
+            graph = RelationshipGraph.build(this);
+            relationshipGraph = graph;
+        }
+        return graph;
+    }
+
+    private void checkNotFrozen() {
+        if (frozen) {
+            throw new IllegalStateException("ModelMetadata is frozen: " + modelName);
+        }
+    }
+    
     // Getters and Setters
     
     public String getModelName() {
@@ -50,6 +176,7 @@ public class ModelMetadata {
     }
     
     public void setModelName(String modelName) {
+        checkNotFrozen();
         this.modelName = modelName;
     }
     
@@ -58,6 +185,7 @@ public class ModelMetadata {
     }
     
     public void setSchemaName(String schemaName) {
+        checkNotFrozen();
         this.schemaName = schemaName;
     }
     
@@ -66,7 +194,9 @@ public class ModelMetadata {
     }
     
     public void setClasses(Map<String, ClassMetadata> classes) {
+        checkNotFrozen();
         this.classes = classes;
+        inheritanceIndex = null;
     }
     
     public Map<String, EnumMetadata> getEnums() {
@@ -74,6 +204,7 @@ public class ModelMetadata {
     }
     
     public void setEnums(Map<String, EnumMetadata> enums) {
+        checkNotFrozen();
         this.enums = enums;
     }
     
@@ -82,6 +213,7 @@ public class ModelMetadata {
     }
     
     public void setIliVersion(String iliVersion) {
+        checkNotFrozen();
         this.iliVersion = iliVersion;
     }
     
@@ -90,6 +222,7 @@ public class ModelMetadata {
     }
     
     public void setImportDate(Date importDate) {
+        checkNotFrozen();
         this.importDate = importDate;
     }
     
@@ -98,6 +231,7 @@ public class ModelMetadata {
     }
     
     public void setIli2dbVersion(String ili2dbVersion) {
+        checkNotFrozen();
         this.ili2dbVersion = ili2dbVersion;
     }
     
@@ -106,6 +240,7 @@ public class ModelMetadata {
     }
     
     public void setSettings(Map<String, String> settings) {
+        checkNotFrozen();
         this.settings = settings;
     }
     
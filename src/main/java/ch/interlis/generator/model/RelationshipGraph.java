@@ -0,0 +1,226 @@
+package ch.interlis.generator.model;
+
+import java.util.*;
+
+/**
+ * Gerichteter Beziehungsgraph eines Modells mit ausgehenden und eingehenden Kanten pro Klasse.
+ *
+ * Jede Fremdschlüssel-Spalte ergibt eine Kante von der besitzenden zur referenzierten Klasse;
+ * die zugehörige {@link RelationshipMetadata} wird der Kante zugeordnet. Beziehungen ohne
+ * Fremdschlüssel-Attribut werden als eigene Kanten übernommen. Der Graph wird einmal pro
+ * Modell berechnet und von allen Generatoren gemeinsam genutzt.
+ */
+public final class RelationshipGraph {
+
+    /**
+     * Kante von {@code source} nach {@code target}.
+     */
+    public static final class Edge {
+        private final ClassMetadata source;
+        private final ClassMetadata target;
+        private final String targetName;
+        private final AttributeMetadata attribute;
+        private final RelationshipMetadata relationship;
+
+        private Edge(ClassMetadata source, ClassMetadata target, String targetName,
+                     AttributeMetadata attribute, RelationshipMetadata relationship) {
+            this.source = source;
+            this.target = target;
+            this.targetName = targetName;
+            this.attribute = attribute;
+            this.relationship = relationship;
+        }
+
+        public ClassMetadata getSource() {
+            return source;
+        }
+
+        /**
+         * Zielklasse oder {@code null}, wenn sie nicht in den Metadaten enthalten ist.
+         */
+        public ClassMetadata getTarget() {
+            return target;
+        }
+
+        public String getTargetName() {
+            return targetName;
+        }
+
+        /**
+         * Fremdschlüssel-Attribut in der Quellklasse (kann fehlen).
+         */
+        public AttributeMetadata getAttribute() {
+            return attribute;
+        }
+
+        /**
+         * Zugehörige Beziehung (kann bei reinen Fremdschlüsseln fehlen).
+         */
+        public RelationshipMetadata getRelationship() {
+            return relationship;
+        }
+
+        public RelationshipMetadata.RelationType getType() {
+            return relationship != null && relationship.getType() != null
+                ? relationship.getType()
+                : RelationshipMetadata.RelationType.MANY_TO_ONE;
+        }
+
+        /**
+         * Struktur-Elemente gehören ihrem Eltern-Objekt (Komposition statt Referenz).
+         */
+        public boolean isComposition() {
+            return source.getKind() == ClassMetadata.ClassKind.STRUCTURE;
+        }
+
+        /**
+         * Die Quelle ist eine Assoziationsklasse (Link-Tabelle zwischen zwei Klassen).
+         */
+        public boolean isAssociationClassLink() {
+            return source.getKind() == ClassMetadata.ClassKind.ASSOCIATION;
+        }
+
+        public boolean isMandatory() {
+            if (attribute != null) {
+                return attribute.isMandatory();
+            }
+            return relationship != null && relationship.isMandatory();
+        }
+
+        @Override
+        public String toString() {
+            return source.getName() + " -> " + targetName
+                + (attribute != null ? " (" + attribute.getName() + ")" : "");
+        }
+    }
+
+    private final ClassMetadata[] classes;
+    private final Map<String, Integer> positions;
+    private final List<Edge> edges;
+    private final List<List<Edge>> outgoing;
+    private final List<List<Edge>> incoming;
+
+    private RelationshipGraph(ModelMetadata metadata) {
+        int size = metadata.getClasses().size();
+        classes = metadata.getAllClasses().toArray(new ClassMetadata[0]);
+        positions = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            positions.put(classes[i].getName(), i);
+        }
+        outgoing = new ArrayList<>(size);
+        incoming = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            outgoing.add(new ArrayList<>(2));
+            incoming.add(new ArrayList<>(2));
+        }
+
+        List<Edge> allEdges = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            ClassMetadata source = classes[i];
+            List<RelationshipMetadata> unmatched = new ArrayList<>(source.getRelationships());
+            for (AttributeMetadata attr : source.getAllAttributes()) {
+                if (!attr.isForeignKey() || attr.getReferencedClass() == null) {
+                    continue;
+                }
+                RelationshipMetadata relationship = takeRelationship(unmatched, attr);
+                addEdge(allEdges, i, attr.getReferencedClass(), attr, relationship);
+            }
+            for (RelationshipMetadata relationship : unmatched) {
+                if (relationship.getTargetClass() != null) {
+                    addEdge(allEdges, i, relationship.getTargetClass(), null, relationship);
+                }
+            }
+        }
+        edges = Collections.unmodifiableList(allEdges);
+    }
+
+    /**
+     * Baut den Graphen für die gegebenen Metadaten. Bei eingefrorenen Metadaten sollte
+     * {@link ModelMetadata#getRelationshipGraph()} verwendet werden (einmal berechnet).
+     */
+    public static RelationshipGraph build(ModelMetadata metadata) {
+        return new RelationshipGraph(metadata);
+    }
+
+    public List<Edge> getEdges() {
+        return edges;
+    }
+
+    /**
+     * Kanten, die von der Klasse ausgehen (ihre Fremdschlüssel bzw. Beziehungen).
+     */
+    public List<Edge> getOutgoing(ClassMetadata classMetadata) {
+        int position = position(classMetadata);
+        return position >= 0 ? Collections.unmodifiableList(outgoing.get(position)) : List.of();
+    }
+
+    /**
+     * Kanten, die auf die Klasse zeigen.
+     */
+    public List<Edge> getIncoming(ClassMetadata classMetadata) {
+        int position = position(classMetadata);
+        return position >= 0 ? Collections.unmodifiableList(incoming.get(position)) : List.of();
+    }
+
+    /**
+     * Assoziationsklassen, die auf die Klasse verweisen.
+     */
+    public List<ClassMetadata> getAssociationClasses(ClassMetadata classMetadata) {
+        List<ClassMetadata> result = new ArrayList<>();
+        for (Edge edge : getIncoming(classMetadata)) {
+            if (edge.isAssociationClassLink() && !result.contains(edge.getSource())) {
+                result.add(edge.getSource());
+            }
+        }
+        return result;
+    }
+
+    private void addEdge(List<Edge> allEdges, int sourcePosition, String targetName,
+                         AttributeMetadata attr, RelationshipMetadata relationship) {
+        Integer targetPosition = positions.get(targetName);
+        ClassMetadata target = targetPosition != null ? classes[targetPosition] : null;
+        Edge edge = new Edge(classes[sourcePosition], target, targetName, attr, relationship);
+        allEdges.add(edge);
+        outgoing.get(sourcePosition).add(edge);
+        if (targetPosition != null) {
+            incoming.get(targetPosition).add(edge);
+        }
+    }
+
+    private static RelationshipMetadata takeRelationship(List<RelationshipMetadata> candidates,
+                                                         AttributeMetadata attr) {
+        for (Iterator<RelationshipMetadata> it = candidates.iterator(); it.hasNext(); ) {
+            RelationshipMetadata relationship = it.next();
+            String sourceAttribute = relationship.getSourceAttribute();
+            if (sourceAttribute != null
+                && (sourceAttribute.equalsIgnoreCase(attr.getSqlName())
+                    || sourceAttribute.equalsIgnoreCase(attr.getName())
+                    || sourceAttribute.equalsIgnoreCase(attr.getColumnName()))) {
+                it.remove();
+                return relationship;
+            }
+        }
+        // Beziehungen ohne Attributangabe über das Ziel zuordnen
+        for (Iterator<RelationshipMetadata> it = candidates.iterator(); it.hasNext(); ) {
+            RelationshipMetadata relationship = it.next();
+            if (relationship.getSourceAttribute() == null
+                && Objects.equals(relationship.getTargetClass(), attr.getReferencedClass())) {
+                it.remove();
+                return relationship;
+            }
+        }
+        return null;
+    }
+
+    private int position(ClassMetadata classMetadata) {
+        if (classMetadata == null) {
+            return -1;
+        }
+        int id = classMetadata.getId();
+        if (id >= 0 && id < classes.length && classes[id] == classMetadata) {
+            return id;
+        }
+        Integer position = positions.get(classMetadata.getName());
+        return position != null ? position : -1;
+    }
+}
@@ -13,6 +13,7 @@ public class RelationshipMetadata {
     private String targetAttribute;         // Referenzierte Spalte in target (meist PK)
     private Cardinality cardinality;
     private boolean mandatory;
+    private boolean frozen;
     
     public enum RelationType {
         ONE_TO_ONE,
@@ -62,6 +63,21 @@ public class RelationshipMetadata {
         this.name = name;
     }
     
+    void freeze(StringPool pool) {
+        name = pool.intern(name);
+        sourceClass = pool.intern(sourceClass);
+        targetClass = pool.intern(targetClass);
+        sourceAttribute = pool.intern(sourceAttribute);
+        targetAttribute = pool.intern(targetAttribute);
+        frozen = true;
+    }
+
+    private void checkNotFrozen() {
+        if (frozen) {
+            throw new IllegalStateException("RelationshipMetadata is frozen: " + name);
+        }
+    }
+    
     // Getters and Setters
     
     public String getName() {
@@ -69,6 +85,7 @@ public class RelationshipMetadata {
     }
     
     public void setName(String name) {
+        checkNotFrozen();
         this.name = name;
     }
     
@@ -77,6 +94,7 @@ public class RelationshipMetadata {
     }
     
     public void setSourceClass(String sourceClass) {
+        checkNotFrozen();
         this.sourceClass = sourceClass;
     }
     
@@ -85,6 +103,7 @@ public class RelationshipMetadata {
     }
     
     public void setTargetClass(String targetClass) {
+        checkNotFrozen();
         this.targetClass = targetClass;
     }
     
@@ -93,6 +112,7 @@ public class RelationshipMetadata {
     }
     
     public void setType(RelationType type) {
+        checkNotFrozen();
         this.type = type;
     }
     
@@ -101,6 +121,7 @@ public class RelationshipMetadata {
     }
     
     public void setSourceAttribute(String sourceAttribute) {
+        checkNotFrozen();
         this.sourceAttribute = sourceAttribute;
     }
     
@@ -109,6 +130,7 @@ public class RelationshipMetadata {
     }
     
     public void setTargetAttribute(String targetAttribute) {
+        checkNotFrozen();
         this.targetAttribute = targetAttribute;
     }
     
@@ -117,6 +139,7 @@ public class RelationshipMetadata {
     }
     
     public void setCardinality(Cardinality cardinality) {
+        checkNotFrozen();
         this.cardinality = cardinality;
     }
     
@@ -125,6 +148,7 @@ public class RelationshipMetadata {
     }
     
     public void setMandatory(boolean mandatory) {
+        checkNotFrozen();
         this.mandatory = mandatory;
     }
     
@@ -0,0 +1,62 @@
+package ch.interlis.generator.model;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dedupliziert Strings und Collections beim Einfrieren der Metadaten.
+ *
+ * Qualifizierte Namen, Typen und Labels wiederholen sich über viele Klassen und Attribute;
+ * nach dem Einfrieren teilen sich alle Objekte eine Instanz pro Wert.
+ */
+final class StringPool {
+
+    private final Map<String, String> values = new HashMap<>();
+
+    String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        String existing = values.putIfAbsent(value, value);
+        return existing != null ? existing : value;
+    }
+
+    /**
+     * Kompakte, unveränderliche Kopie einer String-Map (ohne eigene Map, wenn leer).
+     * Werte dürfen {@code null} sein (z. B. leere Einträge in {@code t_ili2db_settings}).
+     */
+    Map<String, String> internMap(Map<String, String> map) {
+        if (map == null || map.isEmpty()) {
+            return Map.of();
+        }
+        Map<String, String> copy = new HashMap<>(map.size() * 2);
+        for (Map.Entry<String, String> entry : map.entrySet()) {
+            copy.put(intern(entry.getKey()), intern(entry.getValue()));
+        }
+        return Collections.unmodifiableMap(copy);
+    }
+
+    /**
+     * Unveränderliche Kopie einer Map unter Beibehaltung der Reihenfolge.
+     */
+    <V> Map<String, V> orderedMap(Map<String, V> map) {
+        if (map == null || map.isEmpty()) {
+            return Map.of();
+        }
+        Map<String, V> copy = new LinkedHashMap<>(map.size() * 4 / 3 + 1);
+        for (Map.Entry<String, V> entry : map.entrySet()) {
+            copy.put(intern(entry.getKey()), entry.getValue());
+        }
+        return Collections.unmodifiableMap(copy);
+    }
+
+    static <T> List<T> list(List<T> list) {
+        if (list == null || list.isEmpty()) {
+            return List.of();
+        }
+        return List.copyOf(list);
+    }
+}
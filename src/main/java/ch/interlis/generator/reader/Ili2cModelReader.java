@@ -61,7 +61,7 @@ public class Ili2cModelReader {
     
     private final File modelFile;
     private final List<String> modelDirs;
-    private TransferDescription td;
+    private volatile TransferDescription td;
     
     public Ili2cModelReader(File modelFile) {
         this(modelFile, null);
@@ -74,8 +74,11 @@ public class Ili2cModelReader {
     
     /**
      * Kompiliert das INTERLIS-Modell und erstellt eine TransferDescription.
+     * Nur das Kompilieren ist synchronisiert; die fertige TransferDescription wird danach
+     * von {@link #readMetadata(String, ClassSelection)} ohne Sperre gelesen, sodass ein
+     * gemeinsam genutzter Reader im Batch-Modus parallel gelesen werden kann.
      */
-    public TransferDescription compileModel(String modelName) throws Ili2cFailure {
+    public synchronized TransferDescription compileModel(String modelName) throws Ili2cFailure {
         if (modelFile != null && modelFile.exists()) {
             return compileModelFromFile();
         }
@@ -165,17 +168,42 @@ public class Ili2cModelReader {
         return td;
     }
     
+    /**
+     * Kompiliert das Modell nur, falls noch kein anderer Thread es kompiliert hat.
+     */
+    private synchronized TransferDescription compiledModel(String modelName) throws Ili2cFailure {
+        return td != null ? td : compileModel(modelName);
+    }
+
+    /**
+     * Gibt zurück, ob das Modell bereits kompiliert wurde.
+     */
+    public boolean isCompiled() {
+        return td != null;
+    }
+
     /**
      * Liest Metadaten aus dem kompilierten Modell.
      */
     public ModelMetadata readMetadata(String modelName) throws Ili2cFailure {
-        if (td == null) {
-            compileModel(modelName);
+        return readMetadata(modelName, ClassSelection.all());
+    }
+
+    /**
+     * Liest Metadaten für eine Klassenauswahl. Topics ohne ausgewählte Klassen werden
+     * übersprungen; Basisklassen und referenzierte Klassen der Auswahl werden mitgelesen.
+     */
+    public ModelMetadata readMetadata(String modelName, ClassSelection selection)
+            throws Ili2cFailure {
+        ClassSelection classSelection = selection != null ? selection : ClassSelection.all();
+        TransferDescription transferDescription = td;
+        if (transferDescription == null) {
+            transferDescription = compiledModel(modelName);
         }
         
         logger.info("Reading metadata from ili2c model: {}", modelName);
         
-        Model model = resolveModel(td, modelName);
+        Model model = resolveModel(transferDescription, modelName);
         if (model == null) {
             throw new IllegalArgumentException("Model not found: " + modelName);
         }
@@ -191,7 +219,7 @@ public class Ili2cModelReader {
             Object element = topicIterator.next();
             
             if (element instanceof Topic) {
-                processTopic(metadata, (Topic) element, processedTopics, processedClasses);
+                processTopic(metadata, (Topic) element, classSelection, processedTopics, processedClasses);
             } else if (element instanceof Domain) {
                 processDomain(metadata, (Domain) element);
             }
@@ -205,6 +233,7 @@ public class Ili2cModelReader {
      * Verarbeitet ein Topic und extrahiert Klassen.
      */
     private void processTopic(ModelMetadata metadata, Topic topic,
+                              ClassSelection selection,
                               Set<String> processedTopics,
                               Set<String> processedClasses) {
         Objects.requireNonNull(topic, "topic");
@@ -215,10 +244,14 @@ public class Ili2cModelReader {
         if (topicName != null) {
             processedTopics.add(topicName);
         }
+        if (!selection.mayMatchWithin(topicName)) {
+            logger.debug("Skipping topic {} (not selected)", topicName);
+            return;
+        }
 
         Object extending = topic.getExtending();
         if (extending instanceof Topic) {
-            processTopic(metadata, (Topic) extending, processedTopics, processedClasses);
+            processTopic(metadata, (Topic) extending, selection, processedTopics, processedClasses);
         }
 
         logger.debug("Processing topic: {}", topic.getName());
@@ -227,10 +260,11 @@ public class Ili2cModelReader {
         while (iterator.hasNext()) {
             Object element = iterator.next();
 
-            if (element instanceof Table) {
-                processClassDef(metadata, (AbstractClassDef<?>) element, processedClasses);
-            } else if (element instanceof ch.interlis.ili2c.metamodel.AssociationDef) {
-                processClassDef(metadata, (AbstractClassDef<?>) element, processedClasses);
+            if (element instanceof Table || element instanceof ch.interlis.ili2c.metamodel.AssociationDef) {
+                AbstractClassDef<?> classDef = (AbstractClassDef<?>) element;
+                if (selection.matches(classDef.getScopedName(null))) {
+                    processClassDef(metadata, classDef, !selection.isAll(), processedClasses);
+                }
             } else if (element instanceof Domain) {
                 processDomain(metadata, (Domain) element);
             }
@@ -242,6 +276,7 @@ public class Ili2cModelReader {
      */
     private void processClassDef(ModelMetadata metadata,
                                  AbstractClassDef<?> classDef,
+                                 boolean followReferences,
                                  Set<String> processedClasses) {
         String qualifiedName = classDef.getScopedName(null);
         if (qualifiedName != null && processedClasses.contains(qualifiedName)) {
@@ -251,7 +286,7 @@ public class Ili2cModelReader {
         Object extending = classDef.getExtending();
         if (extending instanceof AbstractClassDef<?>) {
             baseClass = (AbstractClassDef<?>) extending;
-            processClassDef(metadata, baseClass, processedClasses);
+            processClassDef(metadata, baseClass, followReferences, processedClasses);
         }
         if (qualifiedName != null) {
             processedClasses.add(qualifiedName);
@@ -289,13 +324,30 @@ public class Ili2cModelReader {
         }
         
         // Attribute verarbeiten
+        List<AbstractClassDef<?>> referencedClasses = new ArrayList<>();
         Iterator<?> attrIterator = classDef.getAttributes();
         while (attrIterator.hasNext()) {
             Object attribute = attrIterator.next();
             if (attribute instanceof AttributeDef attrDef) {
                 processAttribute(classMetadata, attrDef);
+                if (followReferences) {
+                    collectReferencedClass(attrDef.getDomain(), referencedClasses);
+                }
             }
         }
+
+        // Bei einer Klassenauswahl die referenzierten Klassen (Referenzen, Strukturen) mitnehmen
+        for (AbstractClassDef<?> referenced : referencedClasses) {
+            processClassDef(metadata, referenced, true, processedClasses);
+        }
+    }
+
+    private void collectReferencedClass(Type type, List<AbstractClassDef<?>> referencedClasses) {
+        if (type instanceof ReferenceType referenceType && referenceType.getReferred() != null) {
+            referencedClasses.add(referenceType.getReferred());
+        } else if (type instanceof CompositionType compositionType && compositionType.getComponentType() != null) {
+            referencedClasses.add(compositionType.getComponentType());
+        }
     }
     
     /**
@@ -33,14 +33,24 @@ public class Ili2dbMetadataReader {
     private static final String ATTR_OWNER_REF = "a." + ATTR_OWNER_COLUMN;
     private static final String ENUM_DOMAIN_TAG = "ch.ehi.ili2db.enumDomain";
     private static final String PRIMARY_KEY_COLUMN = "t_id";
+    private static final String LIKE_ESCAPE = " ESCAPE '" + ClassSelection.LIKE_ESCAPE + "'";
+    private static final Set<String> SYSTEM_COLUMNS = Set.of(
+        "t_basket", "t_ili_tid", "t_datasetname", "t_type", "t_seq",
+        "t_lastchange", "t_createdate", "t_user");
     
     private final Connection connection;
     private String schemaName;
+    private final ClassSelection classSelection;
     private final Map<String, List<EnumMetadata.EnumValue>> enumValueCache = new HashMap<>();
     
     public Ili2dbMetadataReader(Connection connection, String schemaName) {
+        this(connection, schemaName, ClassSelection.all());
+    }
+
+    public Ili2dbMetadataReader(Connection connection, String schemaName, ClassSelection classSelection) {
         this.connection = Objects.requireNonNull(connection, "connection");
         this.schemaName = normalizeSchemaName(schemaName);
+        this.classSelection = classSelection != null ? classSelection : ClassSelection.all();
     }
     
     /**
@@ -60,15 +70,23 @@ public class Ili2dbMetadataReader {
 
         // Klassen lesen
         readClasses(metadata, modelNames);
+        if (!classSelection.isAll()) {
+            // Referenzierte Klassen und Basisklassen der Auswahl nachladen
+            readReferencedClasses(metadata);
+        }
         
         // Attribute lesen
         readAttributes(metadata, modelNames);
         
         // Vererbung auflösen
         readInheritance(metadata, modelNames);
+        readInheritanceStrategies(metadata);
         
         // Spalten-Properties lesen (Constraints, etc.)
         readColumnProperties(metadata);
+
+        // Indexe und Systemspalten (Sortierung, Keyset-Paging, Index-Migration)
+        readTableInfo(metadata);
         
         // Beziehungen ableiten
         deriveRelationships(metadata);
@@ -103,47 +121,150 @@ public class Ili2dbMetadataReader {
     
     /**
      * Liest alle Klassen (Tables) für das gegebene Modell.
+     * Eine Klassenauswahl wird als zusätzliche LIKE-Bedingung an die Datenbank übergeben.
      */
     private void readClasses(ModelMetadata metadata, Collection<String> modelNames) throws SQLException {
         List<String> prefixes = buildModelPrefixes(metadata, modelNames);
+        List<String> includes = classSelection.includeLikePatterns();
+        List<String> excludes = classSelection.excludeLikePatterns();
+        StringBuilder where = new StringBuilder(buildLikeClause("c.iliname", prefixes.size()));
+        if (!includes.isEmpty()) {
+            where.append(" AND ").append(buildLikeClause("c.iliname", includes.size(), true));
+        }
+        for (int i = 0; i < excludes.size(); i++) {
+            where.append(" AND c.iliname NOT LIKE ?").append(LIKE_ESCAPE);
+        }
         String sql = buildQuery(
             "SELECT tp.tablename, tp.setting, c.iliname " +
             "FROM {schema}.t_ili2db_table_prop tp " +
             "LEFT JOIN {schema}.t_ili2db_classname c " +
             "  ON upper(tp.tablename) = upper(c.sqlname) " +
-            "WHERE " + buildLikeClause("c.iliname", prefixes.size()) + " " +
+            "WHERE " + where + " " +
             "ORDER BY c.iliname"
         );
         
         try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            bindLikePrefixes(pstmt, prefixes);
-            
+            int index = bindStrings(pstmt, 1, prefixes);
+            index = bindStrings(pstmt, index, includes);
+            bindStrings(pstmt, index, excludes);
+            readClassRows(metadata, pstmt, classSelection::matches);
+        }
+    }
+
+    /**
+     * Lädt die Hülle einer Klassenauswahl nach: Zielklassen von Fremdschlüsseln und Basisklassen,
+     * solange bis keine neuen Klassen mehr hinzukommen.
+     */
+    private void readReferencedClasses(ModelMetadata metadata) throws SQLException {
+        int selectedCount = metadata.getClasses().size();
+        Set<String> visitedOwners = new HashSet<>();
+        while (true) {
+            List<String> owners = new ArrayList<>();
+            for (ClassMetadata classMetadata : metadata.getAllClasses()) {
+                if (visitedOwners.add(classMetadata.getName())) {
+                    owners.add(classMetadata.getName());
+                    if (classMetadata.getTableName() != null) {
+                        owners.add(classMetadata.getTableName());
+                    }
+                }
+            }
+            if (owners.isEmpty()) {
+                break;
+            }
+            Set<String> missing = new LinkedHashSet<>();
+            for (String reference : readReferenceTargets(owners)) {
+                if (metadata.getClass(reference) == null && findClassByTableName(metadata, reference) == null) {
+                    missing.add(reference);
+                }
+            }
+            if (missing.isEmpty()) {
+                continue;
+            }
+            List<String> names = new ArrayList<>(missing);
+            List<String> upperNames = names.stream().map(name -> name.toUpperCase(Locale.ROOT)).toList();
+            String sql = buildQuery(
+                "SELECT tp.tablename, tp.setting, c.iliname " +
+                "FROM {schema}.t_ili2db_table_prop tp " +
+                "JOIN {schema}.t_ili2db_classname c " +
+                "  ON upper(tp.tablename) = upper(c.sqlname) " +
+                "WHERE " + buildInClause("c.iliname", names.size()) +
+                " OR " + buildInClause("upper(c.sqlname)", upperNames.size()) + " " +
+                "ORDER BY c.iliname"
+            );
+            try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+                int index = bindStrings(pstmt, 1, names);
+                bindStrings(pstmt, index, upperNames);
+                readClassRows(metadata, pstmt, name -> true);
+            }
+        }
+        logger.info("Class selection {}: {} selected, {} including referenced classes",
+            classSelection, selectedCount, metadata.getClasses().size());
+    }
+
+    private Set<String> readReferenceTargets(List<String> owners) throws SQLException {
+        Set<String> targets = new LinkedHashSet<>();
+        String attrSql = buildQuery(String.format(
+            "SELECT DISTINCT a.%s AS target FROM {schema}.t_ili2db_attrname a " +
+            "WHERE a.%s IS NOT NULL AND " + buildInClause("a." + ATTR_OWNER_COLUMN, owners.size()),
+            ATTR_TARGET_COLUMN,
+            ATTR_TARGET_COLUMN
+        ));
+        try (PreparedStatement pstmt = connection.prepareStatement(attrSql)) {
+            bindStrings(pstmt, 1, owners);
             try (ResultSet rs = pstmt.executeQuery()) {
                 while (rs.next()) {
-                    String tableName = rs.getString("tablename");
-                    String setting = rs.getString("setting");
-                    String iliName = rs.getString("iliname");
-                    Optional<ClassMetadata.ClassKind> kind = mapClassKind(setting);
-                    if (kind.isEmpty()) {
-                        if (setting != null && !setting.isBlank()) {
-                            logger.debug("Skipping table {} with unsupported type {}", tableName, setting);
-                        }
-                        continue;
-                    }
-                    if (iliName == null || iliName.isBlank()) {
-                        logger.warn("Skipping table {} because no ili name mapping was found.", tableName);
-                        continue;
+                    targets.add(rs.getString("target"));
+                }
+            }
+        }
+        String inheritanceSql = buildQuery(
+            "SELECT baseclass FROM {schema}.t_ili2db_inheritance " +
+            "WHERE baseclass IS NOT NULL AND " + buildInClause("thisclass", owners.size())
+        );
+        try (PreparedStatement pstmt = connection.prepareStatement(inheritanceSql)) {
+            bindStrings(pstmt, 1, owners);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    targets.add(rs.getString("baseclass"));
+                }
+            }
+        } catch (SQLException e) {
+            logger.warn("Could not read inheritance information for class selection", e);
+        }
+        return targets;
+    }
+
+    private void readClassRows(ModelMetadata metadata,
+                               PreparedStatement pstmt,
+                               java.util.function.Predicate<String> accept) throws SQLException {
+        try (ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                String tableName = rs.getString("tablename");
+                String setting = rs.getString("setting");
+                String iliName = rs.getString("iliname");
+                Optional<ClassMetadata.ClassKind> kind = mapClassKind(setting);
+                if (kind.isEmpty()) {
+                    if (setting != null && !setting.isBlank()) {
+                        logger.debug("Skipping table {} with unsupported type {}", tableName, setting);
                     }
+                    continue;
+                }
+                if (iliName == null || iliName.isBlank()) {
+                    logger.warn("Skipping table {} because no ili name mapping was found.", tableName);
+                    continue;
+                }
+                if (!accept.test(iliName) || metadata.getClass(iliName) != null) {
+                    continue;
+                }
 
-                    ClassMetadata classMetadata = new ClassMetadata(iliName);
-                    classMetadata.setTableName(tableName);
-                    classMetadata.setSqlName(qualifyTableName(tableName));
-                    classMetadata.setKind(kind.get());
+                ClassMetadata classMetadata = new ClassMetadata(iliName);
+                classMetadata.setTableName(tableName);
+                classMetadata.setSqlName(qualifyTableName(tableName));
+                classMetadata.setKind(kind.get());
 
-                    metadata.addClass(classMetadata);
+                metadata.addClass(classMetadata);
 
-                    logger.debug("Found class: {} -> {} ({})", iliName, tableName, setting);
-                }
+                logger.debug("Found class: {} -> {} ({})", iliName, tableName, setting);
             }
         }
     }
@@ -159,8 +280,14 @@ public class Ili2dbMetadataReader {
             .filter(name -> !name.isBlank())
             .distinct()
             .toList();
-        Map<EnumColumnKey, EnumDomainInfo> enumDomains = loadEnumDomains();
-        String whereClause = buildAttributeWhereClause(prefixes.size(), tableNames.size());
+        Map<EnumColumnKey, EnumDomainInfo> enumDomains = loadEnumDomains(tableNames);
+        List<String> owners = new ArrayList<>(tableNames);
+        if (!classSelection.isAll()) {
+            // Nur Attribute der ausgewählten Klassen lesen (Owner per Tabellen- oder Klassenname)
+            prefixes = List.of();
+            metadata.getAllClasses().forEach(classMetadata -> owners.add(classMetadata.getName()));
+        }
+        String whereClause = buildAttributeWhereClause(prefixes.size(), owners.size());
         String sql = buildQuery(String.format(
             "SELECT " + ATTR_ILINAME_REF + ", a.sqlname, a.%s AS owner, a.%s AS target " +
             "FROM {schema}.t_ili2db_attrname a " +
@@ -172,7 +299,7 @@ public class Ili2dbMetadataReader {
         ));
         
         try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            bindAttributeFilters(pstmt, prefixes, tableNames);
+            bindAttributeFilters(pstmt, prefixes, owners);
             
             try (ResultSet rs = pstmt.executeQuery()) {
                 while (rs.next()) {
@@ -239,22 +366,29 @@ public class Ili2dbMetadataReader {
         ensurePrimaryKeyAttributes(metadata);
     }
 
-    private Map<EnumColumnKey, EnumDomainInfo> loadEnumDomains() throws SQLException {
+    private Map<EnumColumnKey, EnumDomainInfo> loadEnumDomains(List<String> tableNames) throws SQLException {
         ColumnPropColumns columns = resolveColumnPropColumns();
         if (columns == null) {
             return Collections.emptyMap();
         }
+        boolean selective = !classSelection.isAll() && !tableNames.isEmpty();
+        List<String> upperTableNames = selective
+            ? tableNames.stream().map(name -> name.toUpperCase(Locale.ROOT)).toList()
+            : List.of();
         String sql = buildQuery(String.format(
             "SELECT cp.%s AS owner, cp.%s AS columnname, cp.setting AS enumIliName, cn.sqlname AS enumTable " +
                 "FROM {schema}.t_ili2db_column_prop cp " +
                 "LEFT JOIN {schema}.t_ili2db_classname cn ON cp.setting = cn.iliname " +
-                "WHERE cp.tag = ?",
+                "WHERE cp.tag = ?" +
+                (selective ? " AND " + buildInClause("upper(cp." + columns.ownerColumn() + ")",
+                    upperTableNames.size()) : ""),
             columns.ownerColumn(),
             columns.columnColumn()
         ));
         Map<EnumColumnKey, EnumDomainInfo> enumDomains = new HashMap<>();
         try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setString(1, ENUM_DOMAIN_TAG);
+            bindStrings(pstmt, 2, upperTableNames);
             try (ResultSet rs = pstmt.executeQuery()) {
                 while (rs.next()) {
                     String owner = rs.getString("owner");
@@ -526,13 +660,18 @@ public class Ili2dbMetadataReader {
      */
     private void readInheritance(ModelMetadata metadata, Collection<String> modelNames) throws SQLException {
         List<String> prefixes = buildModelPrefixes(metadata, modelNames);
+        List<String> classNames = classSelection.isAll()
+            ? List.of()
+            : new ArrayList<>(metadata.getClasses().keySet());
         String sql = buildQuery(
             "SELECT thisclass, baseclass FROM {schema}.t_ili2db_inheritance " +
-            "WHERE " + buildLikeClause("thisclass", prefixes.size())
+            "WHERE " + (classNames.isEmpty()
+                ? buildLikeClause("thisclass", prefixes.size())
+                : buildInClause("thisclass", classNames.size()))
         );
         
         try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            bindLikePrefixes(pstmt, prefixes);
+            bindStrings(pstmt, 1, classNames.isEmpty() ? prefixes : classNames);
             
             try (ResultSet rs = pstmt.executeQuery()) {
                 while (rs.next()) {
@@ -550,38 +689,72 @@ public class Ili2dbMetadataReader {
             logger.warn("Could not read inheritance information", e);
         }
     }
+
+    /**
+     * Liest die Abbildungsstrategie (newClass, superClass, subClass) pro Klasse aus
+     * {@code t_ili2db_trafo}. Ältere Schemas ohne diese Tabelle werden toleriert.
+     */
+    private void readInheritanceStrategies(ModelMetadata metadata) {
+        String sql = buildQuery(
+            "SELECT iliname, setting FROM {schema}.t_ili2db_trafo WHERE tag = ?"
+        );
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, "ch.ehi.ili2db.inheritance");
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    ClassMetadata classMetadata = metadata.getClass(rs.getString("iliname"));
+                    if (classMetadata != null) {
+                        classMetadata.setInheritanceStrategy(rs.getString("setting"));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            logger.warn("Could not read inheritance strategies: {}", e.getMessage());
+        }
+    }
     
     /**
      * Liest Spalten-Properties (Constraints, etc.).
      */
     private void readColumnProperties(ModelMetadata metadata) throws SQLException {
+        List<String> upperTableNames = classSelection.isAll()
+            ? List.of()
+            : metadata.getAllClasses().stream()
+                .map(ClassMetadata::getTableName)
+                .filter(Objects::nonNull)
+                .map(name -> name.toUpperCase(Locale.ROOT))
+                .distinct()
+                .toList();
         String sql = buildQuery(
             "SELECT tablename, columnname, tag, setting " +
             "FROM {schema}.t_ili2db_column_prop " +
+            (upperTableNames.isEmpty() ? "" : "WHERE " + buildInClause("upper(tablename)", upperTableNames.size()) + " ") +
             "ORDER BY tablename, columnname"
         );
         
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            bindStrings(pstmt, 1, upperTableNames);
             
-            while (rs.next()) {
-                String tableName = rs.getString("tablename");
-                String columnName = rs.getString("columnname");
-                String tag = rs.getString("tag");
-                String setting = rs.getString("setting");
-                
-                // Finde die entsprechende Klasse
-                ClassMetadata classMetadata = findClassByTableName(metadata, tableName);
-                if (classMetadata == null) continue;
-                
-                AttributeMetadata attr = classMetadata.getAttribute(columnName);
-                if (attr == null) {
-                    // Suche nach Spaltenname statt INTERLIS-Name
-                    attr = findAttributeByColumnName(classMetadata, columnName);
-                }
-                
-                if (attr != null) {
-                    applyColumnProperty(attr, tag, setting);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    String tableName = rs.getString("tablename");
+                    String columnName = rs.getString("columnname");
+                    String tag = rs.getString("tag");
+                    String setting = rs.getString("setting");
+                    
+                    // Finde die entsprechende Klasse
+                    ClassMetadata classMetadata = findClassByTableName(metadata, tableName);
+                    if (classMetadata == null) continue;
+                    
+                    AttributeMetadata attr = classMetadata.getAttribute(columnName);
+                    if (attr == null) {
+                        // Suche nach Spaltenname statt INTERLIS-Name
+                        attr = findAttributeByColumnName(classMetadata, columnName);
+                    }
+                    
+                    if (attr != null) {
+                        applyColumnProperty(attr, tag, setting);
+                    }
                 }
             }
         } catch (SQLException e) {
@@ -589,6 +762,70 @@ public class Ili2dbMetadataReader {
         }
     }
     
+    /**
+     * Liest die führenden Indexspalten und die vorhandenen ili2db-Systemspalten jeder Tabelle.
+     * Attribute auf indexierten Spalten werden markiert; nur darauf darf in generierten Listen
+     * sortiert werden, ohne die ganze Tabelle zu sortieren.
+     */
+    private void readTableInfo(ModelMetadata metadata) {
+        try {
+            DatabaseMetaData meta = connection.getMetaData();
+            for (ClassMetadata classMetadata : metadata.getAllClasses()) {
+                String tableName = classMetadata.getTableName();
+                if (tableName == null || tableName.isBlank()) {
+                    continue;
+                }
+                String resolvedTable = tableName;
+                Set<String> systemColumns = readSystemColumns(meta, resolvedTable);
+                if (systemColumns.isEmpty()) {
+                    resolvedTable = tableName.toUpperCase(Locale.ROOT);
+                    systemColumns = readSystemColumns(meta, resolvedTable);
+                }
+                systemColumns.forEach(classMetadata::addSystemColumn);
+                Set<String> leadingColumns = readLeadingIndexColumns(meta, resolvedTable);
+                if (leadingColumns.isEmpty() && resolvedTable.equals(tableName)) {
+                    leadingColumns = readLeadingIndexColumns(meta, tableName.toUpperCase(Locale.ROOT));
+                }
+                leadingColumns.forEach(classMetadata::addIndexedColumn);
+                for (AttributeMetadata attr : classMetadata.getAllAttributes()) {
+                    String columnName = attr.getColumnName();
+                    if (columnName != null && leadingColumns.contains(columnName.toLowerCase(Locale.ROOT))) {
+                        attr.setIndexed(true);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            logger.warn("Could not read index information: {}", e.getMessage());
+        }
+    }
+
+    private Set<String> readSystemColumns(DatabaseMetaData meta, String tableName) throws SQLException {
+        Set<String> columns = new TreeSet<>();
+        try (ResultSet rs = meta.getColumns(null, schemaName, tableName, null)) {
+            while (rs.next()) {
+                String columnName = rs.getString("COLUMN_NAME");
+                if (columnName != null && SYSTEM_COLUMNS.contains(columnName.toLowerCase(Locale.ROOT))) {
+                    columns.add(columnName.toLowerCase(Locale.ROOT));
+                }
+            }
+        }
+        return columns;
+    }
+
+    private Set<String> readLeadingIndexColumns(DatabaseMetaData meta, String tableName) throws SQLException {
+        Set<String> columns = new HashSet<>();
+        // approximate = true: keine Statistik-Aktualisierung auf grossen Tabellen
+        try (ResultSet rs = meta.getIndexInfo(null, schemaName, tableName, false, true)) {
+            while (rs.next()) {
+                String columnName = rs.getString("COLUMN_NAME");
+                if (columnName != null && rs.getShort("ORDINAL_POSITION") == 1) {
+                    columns.add(columnName.toLowerCase(Locale.ROOT));
+                }
+            }
+        }
+        return columns;
+    }
+
     private ClassMetadata findClassByTableName(ModelMetadata metadata, String tableName) {
         for (ClassMetadata clazz : metadata.getAllClasses()) {
             if (equalsIgnoreCase(tableName, clazz.getTableName())) {
@@ -654,38 +891,65 @@ public class Ili2dbMetadataReader {
     }
 
     private String buildLikeClause(String columnName, int paramCount) {
+        return buildLikeClause(columnName, paramCount, false);
+    }
+
+    /**
+     * @param escaped Muster aus {@link ClassSelection} mit maskierten {@code %}/{@code _}
+     */
+    private String buildLikeClause(String columnName, int paramCount, boolean escaped) {
         StringBuilder builder = new StringBuilder("(");
         for (int i = 0; i < paramCount; i++) {
             if (i > 0) {
                 builder.append(" OR ");
             }
             builder.append(columnName).append(" LIKE ?");
+            if (escaped) {
+                builder.append(LIKE_ESCAPE);
+            }
         }
         builder.append(")");
         return builder.toString();
     }
 
-    private void bindLikePrefixes(PreparedStatement pstmt, List<String> prefixes) throws SQLException {
-        for (int i = 0; i < prefixes.size(); i++) {
-            pstmt.setString(i + 1, prefixes.get(i));
+    private String buildInClause(String columnName, int paramCount) {
+        StringBuilder builder = new StringBuilder(columnName).append(" IN (");
+        for (int i = 0; i < paramCount; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append("?");
         }
+        return builder.append(")").toString();
+    }
+
+    private int bindStrings(PreparedStatement pstmt, int startIndex, List<String> values) throws SQLException {
+        int index = startIndex;
+        for (String value : values) {
+            pstmt.setString(index++, value);
+        }
+        return index;
     }
 
     private String buildAttributeWhereClause(int prefixCount, int tableCount) {
-        StringBuilder builder = new StringBuilder("(");
-        for (int i = 0; i < prefixCount; i++) {
-            if (i > 0) {
-                builder.append(" OR ");
+        List<String> conditions = new ArrayList<>();
+        if (prefixCount > 0) {
+            StringBuilder builder = new StringBuilder("(");
+            for (int i = 0; i < prefixCount; i++) {
+                if (i > 0) {
+                    builder.append(" OR ");
+                }
+                builder.append("(")
+                    .append(ATTR_ILINAME_REF)
+                    .append(" LIKE ? OR ")
+                    .append(ATTR_OWNER_REF)
+                    .append(" LIKE ?)");
             }
-            builder.append("(")
-                .append(ATTR_ILINAME_REF)
-                .append(" LIKE ? OR ")
-                .append(ATTR_OWNER_REF)
-                .append(" LIKE ?)");
+            builder.append(")");
+            conditions.add(builder.toString());
         }
-        builder.append(")");
         if (tableCount > 0) {
-            builder.append(" OR (");
+            StringBuilder builder = new StringBuilder("(");
             for (int i = 0; i < tableCount; i++) {
                 if (i > 0) {
                     builder.append(" OR ");
@@ -693,8 +957,12 @@ public class Ili2dbMetadataReader {
                 builder.append(ATTR_OWNER_REF).append(" = ?");
             }
             builder.append(")");
+            conditions.add(builder.toString());
         }
-        return builder.toString();
+        if (conditions.isEmpty()) {
+            return "1=0";
+        }
+        return String.join(" OR ", conditions);
     }
 
     private void bindAttributeFilters(PreparedStatement pstmt, List<String> prefixes, List<String> tableNames)
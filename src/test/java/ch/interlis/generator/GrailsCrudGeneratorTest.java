@@ -57,12 +57,11 @@ class GrailsCrudGeneratorTest {
         String enumContent = Files.readString(enumFile);
         assertThat(enumContent).contains("package com.example.enums");
         assertThat(enumContent).contains("enum Status");
-        assertThat(enumContent).contains("active, inactive");
+        assertThat(enumContent).contains("active('active', 0, 'active', [:]),\n    inactive('inactive', 1, 'inactive', [:])\n");
 
         String createContent = Files.readString(createView);
         assertThat(createContent).contains(
-            "<g:select name=\"status\" from=\"${[[ilicode:'active', dispName:'active'], "
-                + "[ilicode:'inactive', dispName:'inactive']]}\" optionKey=\"ilicode\" optionValue=\"dispName\"/>"
+            "<ili:enumSelect name=\"status\" enumClass=\"${com.example.enums.Status}\"/>"
         );
         assertThat(createContent).contains("<g:datePicker name=\"birthDate\" precision=\"day\"/>");
     }
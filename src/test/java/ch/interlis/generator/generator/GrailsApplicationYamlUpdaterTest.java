@@ -5,6 +5,7 @@ import org.junit.jupiter.api.io.TempDir;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -46,4 +47,110 @@ class GrailsApplicationYamlUpdaterTest {
         assertThat(updated).doesNotContain("password: \"sa\"");
         assertThat(updated).doesNotContain("org.h2.Driver");
     }
+
+    @Test
+    void enablesSecondLevelCache(@TempDir Path tempDir) throws Exception {
+        Path yamlPath = tempDir.resolve("application.yml");
+        Files.writeString(yamlPath, String.join("\n",
+            "---",
+            "hibernate:",
+            "  cache:",
+            "    queries: false",
+            "    use_second_level_cache: false",
+            "    use_query_cache: false",
+            ""
+        ));
+
+        GrailsApplicationYamlUpdater updater = new GrailsApplicationYamlUpdater();
+        updater.ensureSecondLevelCache(yamlPath);
+
+        String updated = Files.readString(yamlPath);
+        assertThat(updated).contains("use_second_level_cache: true");
+        assertThat(updated).contains("use_query_cache: true");
+        assertThat(updated).contains("factory_class: \"jcache\"");
+        assertThat(updated).contains("provider: \"org.ehcache.jsr107.EhcacheCachingProvider\"");
+        assertThat(updated).contains("uri: \"classpath:ehcache.xml\"");
+        assertThat(updated).contains("queries: false");
+        assertThat(updated).doesNotContain("use_second_level_cache: false");
+        assertThat(updated).doesNotContain("use_query_cache: false");
+    }
+
+    @Test
+    void writesPerformanceProfilePerEnvironment(@TempDir Path tempDir) throws Exception {
+        Path yamlPath = tempDir.resolve("application.yml");
+        Files.writeString(yamlPath, String.join("\n",
+            "---",
+            "environments:",
+            "  development:",
+            "    dataSource:",
+            "      url: jdbc:postgresql://localhost:5432/testdb?currentSchema=public",
+            "  production:",
+            "    dataSource:",
+            "      url: jdbc:h2:./prodDb",
+            ""
+        ));
+
+        GrailsApplicationYamlUpdater updater = new GrailsApplicationYamlUpdater();
+        updater.ensurePerformanceSettings(yamlPath, Map.of(
+            "development", PerformanceProfile.BULK,
+            "production", PerformanceProfile.STANDARD
+        ));
+
+        String updated = Files.readString(yamlPath);
+        assertThat(updated).contains("currentSchema=public&reWriteBatchedInserts=true"
+            + "&preparedStatementCacheQueries=512&defaultRowFetchSize=1000");
+        assertThat(updated).contains("batch_size: 500");
+        assertThat(updated).contains("batch_size: 50\n");
+        assertThat(updated).contains("order_inserts: true");
+        assertThat(updated).contains("maxActive: 20");
+        assertThat(updated).contains("url: \"jdbc:h2:./prodDb\"");
+    }
+
+    @Test
+    void exposesPrometheusAndHibernateStatistics(@TempDir Path tempDir) throws Exception {
+        Path yamlPath = tempDir.resolve("application.yml");
+        Files.writeString(yamlPath, String.join("\n",
+            "grails:",
+            "  profile: web",
+            "management:",
+            "  endpoints:",
+            "    enabled-by-default: false",
+            "    web:",
+            "      exposure:",
+            "        include: health",
+            "---",
+            "hibernate:",
+            "  format_sql: true",
+            ""
+        ));
+
+        GrailsApplicationYamlUpdater updater = new GrailsApplicationYamlUpdater();
+        updater.ensureMetricsSettings(yamlPath, true);
+        updater.ensureMetricsSettings(yamlPath, true);
+
+        String updated = Files.readString(yamlPath);
+        assertThat(updated).contains("include: \"health,prometheus\"");
+        assertThat(updated).contains("access: \"read-only\"");
+        assertThat(updated).contains("ili2grails: true");
+        assertThat(updated).contains("generate_statistics: true");
+    }
+
+    @Test
+    void keepsPrometheusClosedUnlessRequested(@TempDir Path tempDir) throws Exception {
+        Path yamlPath = tempDir.resolve("application.yml");
+        Files.writeString(yamlPath, String.join("\n",
+            "grails:",
+            "  profile: web",
+            "---",
+            "hibernate:",
+            "  format_sql: true",
+            ""
+        ));
+
+        new GrailsApplicationYamlUpdater().ensureMetricsSettings(yamlPath, false);
+
+        String updated = Files.readString(yamlPath);
+        assertThat(updated).contains("generate_statistics: true");
+        assertThat(updated).doesNotContain("prometheus").doesNotContain("exposure");
+    }
 }
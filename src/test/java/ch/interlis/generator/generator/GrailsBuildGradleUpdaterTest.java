@@ -28,4 +28,33 @@ class GrailsBuildGradleUpdaterTest {
         assertThat(updated).doesNotContain("sqlite-jdbc");
         assertThat(updated).doesNotContain("sqlite-dialect");
     }
+
+    @Test
+    void addsInterlisRepositoryAndDependenciesOutsideBuildscript(@TempDir Path tempDir) throws Exception {
+        Path buildGradle = tempDir.resolve("build.gradle");
+        Files.writeString(buildGradle, String.join("\n",
+            "buildscript {",
+            "    repositories {",
+            "        mavenCentral()",
+            "    }",
+            "}",
+            "repositories {",
+            "    mavenCentral()",
+            "}",
+            "dependencies {",
+            "    implementation \"org.grails:grails-core:7.0.6\"",
+            "}",
+            ""
+        ));
+
+        GrailsBuildGradleUpdater updater = new GrailsBuildGradleUpdater();
+        updater.ensureInterlisDependencies(buildGradle);
+        updater.ensureInterlisDependencies(buildGradle);
+
+        String updated = Files.readString(buildGradle);
+        assertThat(updated).containsOnlyOnce("jars.interlis.ch");
+        assertThat(updated.indexOf("jars.interlis.ch")).isGreaterThan(updated.indexOf("}\nrepositories {"));
+        assertThat(updated).containsOnlyOnce("ch.interlis:iox-ili:");
+        assertThat(updated).containsOnlyOnce("ch.interlis:ili2c-core:");
+    }
 }
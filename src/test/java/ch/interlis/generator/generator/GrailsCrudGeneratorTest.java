@@ -2,6 +2,7 @@ package ch.interlis.generator.generator;
 
 import ch.interlis.generator.model.AttributeMetadata;
 import ch.interlis.generator.model.ClassMetadata;
+import ch.interlis.generator.model.ClassSelection;
 import ch.interlis.generator.model.EnumMetadata;
 import ch.interlis.generator.model.ModelMetadata;
 import ch.interlis.generator.model.RelationshipMetadata;
@@ -55,6 +56,664 @@ class GrailsCrudGeneratorTest {
         String personDomain = Files.readString(domainDir.resolve("Person.groovy"));
         assertThat(personDomain).contains("static hasMany");
         assertThat(personDomain).contains("addresses: Address");
+        assertThat(tempDir.resolve(GrailsChildCountGenerator.MIGRATION_FILE)).doesNotExist();
+    }
+
+    @Test
+    void generatesPaginatedControllerAndListSortedOnIndexedColumnsOnly() throws IOException {
+        ModelMetadata metadata = sampleMetadata();
+        metadata.getClass("TestModel.Address").getAttribute("street").setIndexed(true);
+        GenerationConfig config = GenerationConfig.builder(tempDir, "com.example")
+            .pageSize(50)
+            .build();
+
+        new GrailsCrudGenerator().generate(metadata, config);
+
+        String controller = Files.readString(
+            tempDir.resolve("grails-app/controllers/com/example/AddressController.groovy"));
+        assertThat(controller)
+            .contains("static final int DEFAULT_MAX = 50")
+            .contains("static final List<String> SORTABLE = ['id', 'street']")
+            .contains("gt 'id', afterId")
+            .contains("list(max: limit + 1, offset: offset)")
+            .contains("order sort, direction")
+            .doesNotContain("count()");
+
+        String list = Files.readString(tempDir.resolve("grails-app/views/address/list.gsp"));
+        assertThat(list)
+            .contains("<g:sortableColumn property=\"street\"")
+            .contains("<th>status</th>")
+            .contains("afterId: nextAfterId");
+    }
+
+    @Test
+    void wiresApproximateRowCountIntoListControllers() throws IOException {
+        GenerationConfig config = GenerationConfig.builder(tempDir, "com.example")
+            .schema("ortsplan")
+            .exactCountThreshold(50_000)
+            .build();
+
+        new GrailsCrudGenerator().generate(sampleMetadata(), config);
+
+        String service = Files.readString(
+            tempDir.resolve("grails-app/services/com/example/RowCountService.groovy"));
+        assertThat(service)
+            .contains("static final long EXACT_COUNT_THRESHOLD = 50000L")
+            .contains("FROM pg_class WHERE oid = to_regclass(?)");
+
+        String controller = Files.readString(
+            tempDir.resolve("grails-app/controllers/com/example/AddressController.groovy"));
+        assertThat(controller)
+            .contains("RowCountService rowCountService")
+            .contains("rowCountService.count(Address, 'ortsplan.address')")
+            .contains("addressCount: rowCount.total");
+        assertThat(Files.readString(tempDir.resolve("grails-app/views/address/list.gsp")))
+            .contains("${countApproximate ? '~' : ''}");
+    }
+
+    @Test
+    void projectsOnlyShortNonGeometryColumnsWithinBudget() throws IOException {
+        ModelMetadata metadata = sampleMetadata();
+        ClassMetadata address = metadata.getClass("TestModel.Address");
+        AttributeMetadata remarks = new AttributeMetadata("remarks");
+        remarks.setJavaType("String");
+        remarks.setMaxLength(4000);
+        address.addAttribute(remarks);
+        AttributeMetadata geometry = new AttributeMetadata("position");
+        geometry.setGeometry(true);
+        address.addAttribute(geometry);
+        GenerationConfig config = GenerationConfig.builder(tempDir, "com.example")
+            .listColumnBudget(2)
+            .build();
+
+        new GrailsCrudGenerator().generate(metadata, config);
+
+        String controller = Files.readString(
+            tempDir.resolve("grails-app/controllers/com/example/AddressController.groovy"));
+        assertThat(controller)
+            .contains("LIST_COLUMNS = [id: 'id', street: 'street', status: 'status']")
+            .contains("def lookup(String q, Integer max)")
+            .contains("ilike 'street', q.replace('\\\\', '\\\\\\\\').replace('%', '\\\\%').replace('_', '\\\\_') + '%'");
+        assertThat(Files.readString(tempDir.resolve("grails-app/views/address/list.gsp")))
+            .contains("${item.street}")
+            .doesNotContain("${item.person}")
+            .doesNotContain("remarks")
+            .doesNotContain("position");
+
+        GenerationConfig wide = GenerationConfig.builder(tempDir, "com.example").build();
+        new GrailsCrudGenerator().generate(metadata, wide);
+        assertThat(Files.readString(
+            tempDir.resolve("grails-app/controllers/com/example/AddressController.groovy")))
+            .contains("person: 'person.id']");
+    }
+
+    @Test
+    void writesIndexMigrationForUnindexedForeignKeysLookupsAndGeometries() throws IOException {
+        ModelMetadata metadata = sampleMetadata();
+        ClassMetadata address = metadata.getClass("TestModel.Address");
+        address.getAttribute("person").setColumnName("person");
+        AttributeMetadata geometry = new AttributeMetadata("lage");
+        geometry.setColumnName("lage");
+        geometry.setGeometry(true);
+        address.addAttribute(geometry);
+        address.addSystemColumn("t_basket");
+        address.addSystemColumn("t_ili_tid");
+        address.addIndexedColumn("t_ili_tid");
+        GenerationConfig config = GenerationConfig.builder(tempDir, "com.example")
+            .schema("demo")
+            .build();
+
+        new GrailsCrudGenerator().generate(metadata, config);
+
+        String sql = Files.readString(tempDir.resolve(GrailsIndexMigrationGenerator.MIGRATION_FILE));
+        assertThat(sql)
+            .contains("CREATE INDEX CONCURRENTLY IF NOT EXISTS address_person_idx ON demo.address (person);")
+            .contains("CREATE INDEX CONCURRENTLY IF NOT EXISTS address_lage_idx ON demo.address USING gist (lage);")
+            .contains("CREATE INDEX CONCURRENTLY IF NOT EXISTS address_t_basket_idx ON demo.address (t_basket);")
+            .doesNotContain("(t_ili_tid)")
+            .contains("ANALYZE demo.address;");
+        assertThat(GrailsIndexMigrationGenerator.indexName("a".repeat(60), "column")).hasSizeLessThanOrEqualTo(63);
+    }
+
+    @Test
+    void generatesBboxActionAndSpatialServiceForGeometryClasses() throws IOException {
+        ModelMetadata metadata = sampleMetadata();
+        metadata.getSettings().put(GrailsControllerGenerator.DEFAULT_SRS_CODE_SETTING, "21781");
+        ClassMetadata address = metadata.getClass("TestModel.Address");
+        address.getAttribute("street").setColumnName("street");
+        AttributeMetadata geometry = new AttributeMetadata("lage");
+        geometry.setColumnName("lage");
+        geometry.setGeometry(true);
+        address.addAttribute(geometry);
+        GenerationConfig config = GenerationConfig.builder(tempDir, "com.example")
+            .schema("demo")
+            .maxFeatures(1000)
+            .build();
+
+        new GrailsCrudGenerator().generate(metadata, config);
+
+        String controller = Files.readString(
+            tempDir.resolve("grails-app/controllers/com/example/AddressController.groovy"));
+        assertThat(controller)
+            .contains("static final String TABLE = 'demo.address'")
+            .contains("static final int SRID = 21781")
+            .contains("static final Map<String, String> GEOMETRY_COLUMNS = [lage: 'lage']")
+            .contains("static final Map<String, String> FEATURE_COLUMNS = [street: 'street']")
+            .contains("def bbox(String bbox, Integer zoom, String geometry, Integer max)");
+        assertThat(Files.readString(
+            tempDir.resolve("grails-app/controllers/com/example/PersonController.groovy")))
+            .doesNotContain("def bbox");
+
+        String service = Files.readString(tempDir.resolve("grails-app/services/com/example/SpatialQueryService.groovy"));
+        assertThat(service)
+            .contains("static final int MAX_FEATURES = 1000")
+            .contains("ST_MakeEnvelope(?, ?, ?, ?, ${srid})")
+            .contains("ST_SimplifyPreserveTopology")
+            .contains("statement.fetchSize = FETCH_SIZE");
+    }
+
+    @Test
+    void generatesStreamingRestControllerWithTypedFilters() throws IOException {
+        ModelMetadata metadata = sampleMetadata();
+        AttributeMetadata built = new AttributeMetadata("baujahr");
+        built.setJavaType("Integer");
+        metadata.getClass("TestModel.Address").addAttribute(built);
+        GenerationConfig config = GenerationConfig.builder(tempDir, "com.example")
+            .build();
+
+        new GrailsCrudGenerator().generate(metadata, config);
+
+        String controller = Files.readString(
+            tempDir.resolve("grails-app/controllers/com/example/AddressApiController.groovy"));
+        assertThat(controller)
+            .contains("import com.example.enums.Status")
+            .contains("static namespace = 'api'")
+            .contains("static final Map<String, String> COLUMNS = [id: 'id', street: 'street', "
+                + "status: 'status', person: 'person.id', baujahr: 'baujahr']")
+            .contains("static final List<String> FILTERS = ['street', 'street_like', 'status', 'person', "
+                + "'baujahr', 'baujahr_min', 'baujahr_max']")
+            .contains(".createCriteria().scroll {")
+            .contains("ilike 'street', likePrefix(p.street_like)")
+            .contains("value.replace('\\\\', '\\\\\\\\').replace('%', '\\\\%').replace('_', '\\\\_') + '%'")
+            .contains("eq 'status', Status.valueOf(p.status)")
+            .contains("eq 'person.id', Long.valueOf(p.person)")
+            .contains("ge 'baujahr', Integer.valueOf(p.baujahr_min)")
+            .contains("fetchSize FETCH_SIZE")
+            .doesNotContain(".list(");
+
+        GenerationConfig withoutApi = GenerationConfig.builder(tempDir.resolve("noapi"), "com.example")
+            .restApi(false)
+            .build();
+        new GrailsCrudGenerator().generate(metadata, withoutApi);
+        assertThat(tempDir.resolve("noapi/grails-app/controllers/com/example/AddressApiController.groovy"))
+            .doesNotExist();
+    }
+
+    @Test
+    void generatesBulkImportAndExportUsingDomainColumnMapping() throws IOException {
+        ModelMetadata metadata = sampleMetadata();
+        ClassMetadata address = metadata.getClass("TestModel.Address");
+        address.getAttribute("person").setColumnName("person_ref");
+        address.addSystemColumn("t_basket");
+        AttributeMetadata geometry = new AttributeMetadata("lage");
+        geometry.setColumnName("lage");
+        geometry.setGeometry(true);
+        address.addAttribute(geometry);
+        GenerationConfig config = GenerationConfig.builder(tempDir, "com.example")
+            .schema("demo")
+            .build();
+
+        new GrailsCrudGenerator().generate(metadata, config);
+
+        String controller = Files.readString(
+            tempDir.resolve("grails-app/controllers/com/example/AddressApiController.groovy"));
+        assertThat(controller)
+            .contains("static final String TABLE = 'demo.address'")
+            .contains("static final Map<String, String> TABLE_COLUMNS = [street: 'street', status: 'status', "
+                + "person: 'person_ref']")
+            .contains("static final List<String> CSV_COLUMNS = ['t_id', 't_basket', 'street', 'status', "
+                + "'person_ref', 'lage']")
+            .contains("bulkTransferService.importCsv(request.inputStream, TABLE, CSV_COLUMNS)")
+            .contains("def export(String format)");
+        assertThat(Files.readString(
+            tempDir.resolve("grails-app/controllers/com/example/PersonApiController.groovy")))
+            .contains("static final Map<String, String> TABLE_COLUMNS = [name: 'name']")
+            .doesNotContain("SRID");
+
+        String service = Files.readString(tempDir.resolve("grails-app/services/com/example/BulkTransferService.groovy"));
+        assertThat(service)
+            .contains("TO STDOUT WITH (FORMAT csv, HEADER true)")
+            .contains("FROM STDIN WITH (FORMAT csv)")
+            .contains("static final int BATCH_SIZE = 1000")
+            .contains("statement.addBatch()")
+            .doesNotContain("import org.postgresql");
+    }
+
+    @Test
+    void generatesXtfExportForTopicClasses() throws IOException {
+        ModelMetadata metadata = new ModelMetadata("Demo");
+        ClassMetadata parcel = new ClassMetadata("Demo.Kataster.Parzelle");
+        parcel.setTableName("parzelle");
+        parcel.setKind(ClassMetadata.ClassKind.CLASS);
+        parcel.addSystemColumn("t_basket");
+        parcel.addSystemColumn("t_ili_tid");
+        AttributeMetadata number = new AttributeMetadata("Nummer");
+        number.setColumnName("nummer");
+        number.setJavaType("String");
+        parcel.addAttribute(number);
+        AttributeMetadata geometry = new AttributeMetadata("Geometrie");
+        geometry.setColumnName("geometrie");
+        geometry.setGeometry(true);
+        parcel.addAttribute(geometry);
+        ClassMetadata owner = new ClassMetadata("Demo.Kataster.Eigentum");
+        owner.setTableName("eigentum");
+        owner.setKind(ClassMetadata.ClassKind.CLASS);
+        AttributeMetadata parcelRef = new AttributeMetadata("Parzelle");
+        parcelRef.setColumnName("parzelle");
+        parcelRef.setForeignKey(true);
+        parcelRef.setReferencedClass("Demo.Kataster.Parzelle");
+        owner.addAttribute(parcelRef);
+        metadata.addClass(parcel);
+        metadata.addClass(owner);
+        GenerationConfig config = GenerationConfig.builder(tempDir, "com.example")
+            .schema("demo")
+            .build();
+
+        new GrailsCrudGenerator().generate(metadata, config);
+
+        String service = Files.readString(tempDir.resolve("grails-app/services/com/example/XtfExportService.groovy"));
+        assertThat(service)
+            .contains("static final String MODEL_NAME = 'Demo'")
+            .contains("static final String SCHEMA_PREFIX = 'demo.'")
+            .contains("'Demo.Kataster.Parzelle': [topic: 'Demo.Kataster', basket: true,")
+            .contains("query: 'SELECT COALESCE(a.t_ili_tid, CAST(a.t_id AS text)), a.nummer, "
+                + "ST_AsGeoJSON(ST_CurveToLine(a.geometrie)) FROM demo.parzelle a'")
+            .contains("attributes: [[name: 'Nummer', kind: 'text'], "
+                + "[name: 'Geometrie', kind: 'geometry', table: 'parzelle', column: 'geometrie']]")
+            .contains("(SELECT COALESCE(r.t_ili_tid, CAST(r.t_id AS text)) FROM demo.parzelle r "
+                + "WHERE r.t_id = a.parzelle)")
+            .contains("td.lastModel?.iliVersion == '2.4' ? new Xtf24Writer(out, td) : new XtfWriter(out, td)")
+            .contains("DateTimeFormatter.ofPattern(\"yyyy-MM-dd'T'HH:mm:ss.SSS\")")
+            .contains("ResultSet.TYPE_FORWARD_ONLY")
+            .contains("            checkGeometryTypes(connection, classNames)\n"
+                + "            IoxWriter writer = writer(out, transferDescription(connection))\n")
+            .contains("case 'MultiPoint':")
+            .contains("case 'MultiLineString':")
+            .contains("Files.walk(dir).withCloseable {");
+        assertThat(Files.readString(tempDir.resolve("grails-app/controllers/com/example/XtfExportController.groovy")))
+            .contains("render status: 500, contentType: 'text/plain', text: e.message");
+    }
+
+    @Test
+    void exportsJoinedSubclassesOnceWithInheritedAttributes() throws IOException {
+        ModelMetadata metadata = new ModelMetadata("Demo");
+        ClassMetadata building = xtfClass("Demo.Gebaeude.Gebaeude", "gebaeude", null, "Name");
+        building.addSystemColumn("t_basket");
+        building.addSystemColumn("t_ili_tid");
+        building.addSystemColumn("t_type");
+        ClassMetadata school = xtfClass("Demo.Gebaeude.Schule", "schule", building.getName(), "Klassen");
+        ClassMetadata college = xtfClass("Demo.Gebaeude.Hochschule", "hochschule", school.getName(), "Fakultaet");
+        metadata.addClass(building);
+        metadata.addClass(school);
+        metadata.addClass(college);
+        GenerationConfig config = GenerationConfig.builder(tempDir, "com.example")
+            .schema("demo")
+            .build();
+
+        new GrailsCrudGenerator().generate(metadata, config);
+
+        String service = Files.readString(tempDir.resolve("grails-app/services/com/example/XtfExportService.groovy"));
+        assertThat(service)
+            .contains("'Demo.Gebaeude.Gebaeude': [topic: 'Demo.Gebaeude', basket: true,\n"
+                + "            query: 'SELECT COALESCE(a.t_ili_tid, CAST(a.t_id AS text)), a.name FROM demo.gebaeude a',\n"
+                + "            type: 'gebaeude',\n")
+            .contains("'Demo.Gebaeude.Schule': [topic: 'Demo.Gebaeude', basket: true,\n"
+                + "            query: 'SELECT COALESCE(a.t_ili_tid, CAST(a.t_id AS text)), a.name, j1.klassen "
+                + "FROM demo.gebaeude a JOIN demo.schule j1 ON j1.t_id = a.t_id',\n"
+                + "            type: 'schule',\n")
+            .contains("'Demo.Gebaeude.Hochschule': [topic: 'Demo.Gebaeude', basket: true,\n"
+                + "            query: 'SELECT COALESCE(a.t_ili_tid, CAST(a.t_id AS text)), a.name, j1.klassen, "
+                + "j2.fakultaet FROM demo.gebaeude a JOIN demo.schule j1 ON j1.t_id = a.t_id "
+                + "JOIN demo.hochschule j2 ON j2.t_id = a.t_id',\n"
+                + "            attributes: [[name: 'Name', kind: 'text'], [name: 'Klassen', kind: 'text'], "
+                + "[name: 'Fakultaet', kind: 'text']]]")
+            .contains("conditions << 'a.t_type = ?'");
+    }
+
+    @Test
+    void omitsBulkTransferForJoinedInheritance() throws IOException {
+        ModelMetadata metadata = new ModelMetadata("Demo");
+        ClassMetadata building = xtfClass("Demo.Gebaeude.Gebaeude", "gebaeude", null, "Name");
+        ClassMetadata school = xtfClass("Demo.Gebaeude.Schule", "schule", building.getName(), "Klassen");
+        ClassMetadata parcel = xtfClass("Demo.Gebaeude.Parzelle", "parzelle", null, "Nummer");
+        metadata.addClass(building);
+        metadata.addClass(school);
+        metadata.addClass(parcel);
+        GenerationConfig config = GenerationConfig.builder(tempDir, "com.example").build();
+
+        new GrailsCrudGenerator().generate(metadata, config);
+
+        Path controllers = tempDir.resolve("grails-app/controllers/com/example");
+        for (String controller : List.of("GebaeudeApiController.groovy", "SchuleApiController.groovy")) {
+            assertThat(Files.readString(controllers.resolve(controller)))
+                .contains("static allowedMethods = [index: 'GET', show: 'GET']")
+                .doesNotContain("CSV_COLUMNS")
+                .doesNotContain("bulkTransferService");
+        }
+        assertThat(Files.readString(controllers.resolve("ParzelleApiController.groovy")))
+            .contains("static final List<String> CSV_COLUMNS = ['t_id', 'nummer']")
+            .contains("def upload(String format)");
+    }
+
+    private static ClassMetadata xtfClass(String name, String table, String baseClass, String attributeName) {
+        ClassMetadata classMetadata = new ClassMetadata(name);
+        classMetadata.setTableName(table);
+        classMetadata.setKind(ClassMetadata.ClassKind.CLASS);
+        classMetadata.setBaseClass(baseClass);
+        classMetadata.setInheritanceStrategy("newClass");
+        AttributeMetadata attr = new AttributeMetadata(attributeName);
+        attr.setColumnName(attributeName.toLowerCase());
+        attr.setJavaType("String");
+        classMetadata.addAttribute(attr);
+        return classMetadata;
+    }
+
+    @Test
+    void answersConditionalRequestsFromTableVersions() throws IOException {
+        ModelMetadata metadata = sampleMetadata();
+        metadata.getClass("TestModel.Address").addSystemColumn("t_lastchange");
+        GenerationConfig config = GenerationConfig.builder(tempDir, "com.example")
+            .schema("demo")
+            .build();
+
+        new GrailsCrudGenerator().generate(metadata, config);
+
+        String sql = Files.readString(tempDir.resolve(GrailsTableVersionGenerator.MIGRATION_FILE));
+        assertThat(sql)
+            .contains("CREATE TABLE IF NOT EXISTS demo.ili2grails_table_version (")
+            .contains("CREATE TRIGGER ili2grails_table_version AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON demo.address")
+            .contains("FOR EACH STATEMENT EXECUTE FUNCTION demo.ili2grails_bump_table_version('demo.person');");
+        String controller = Files.readString(
+            tempDir.resolve("grails-app/controllers/com/example/AddressController.groovy"));
+        assertThat(controller)
+            .contains("static final List<String> VERSION_TABLES = ['demo.address']")
+            .contains("if (tableVersionService.notModified(request, response, VERSION_TABLES, request.queryString)) {")
+            .contains("if (tableVersionService.notModified(request, response, VERSION_TABLES, 'show:' + id)) {")
+            .contains("render status: 304");
+        assertThat(Files.readString(
+            tempDir.resolve("grails-app/controllers/com/example/AddressApiController.groovy")))
+            .contains("TableVersionService tableVersionService");
+        assertThat(Files.readString(tempDir.resolve("grails-app/services/com/example/TableVersionService.groovy")))
+            .contains("static final String VERSION_TABLE = 'demo.ili2grails_table_version'")
+            .contains("            if (!hasVersionTable(sql)) {\n"
+                + "                return null\n"
+                + "            }\n")
+            .doesNotContain("FROM ${table}");
+        // t_lastchange ist keine Änderungsmarke mehr und braucht keinen Index
+        assertThat(tempDir.resolve(GrailsIndexMigrationGenerator.MIGRATION_FILE)).doesNotExist();
+
+        Path withoutConditional = tempDir.resolve("plain");
+        new GrailsCrudGenerator().generate(metadata,
+            GenerationConfig.builder(withoutConditional, "com.example").conditionalRequests(false).build());
+        assertThat(withoutConditional.resolve(GrailsTableVersionGenerator.MIGRATION_FILE)).doesNotExist();
+        assertThat(Files.readString(
+            withoutConditional.resolve("grails-app/controllers/com/example/AddressController.groovy")))
+            .doesNotContain("tableVersionService");
+    }
+
+    @Test
+    void generatesFullTextSearchForTextAttributes() throws IOException {
+        ModelMetadata metadata = sampleMetadata();
+        ClassMetadata address = metadata.getClass("TestModel.Address");
+        address.getAttribute("street").setColumnName("street");
+        address.getAttribute("street").setIliType("TEXT");
+        AttributeMetadata remark = new AttributeMetadata("remark");
+        remark.setColumnName("remark");
+        remark.setIliType("MTEXT");
+        remark.setJavaType("String");
+        address.addAttribute(remark);
+        AttributeMetadata code = new AttributeMetadata("code");
+        code.setIliType("TEXT");
+        code.setJavaType("String");
+        code.setMaxLength(4);
+        address.addAttribute(code);
+        GenerationConfig config = GenerationConfig.builder(tempDir, "com.example")
+            .schema("demo")
+            .build();
+
+        new GrailsCrudGenerator().generate(metadata, config);
+
+        String document = "setweight(to_tsvector('simple'::regconfig, coalesce(street, '')), 'A') || "
+            + "setweight(to_tsvector('simple'::regconfig, coalesce(remark, '')), 'B')";
+        assertThat(Files.readString(tempDir.resolve(GrailsIndexMigrationGenerator.MIGRATION_FILE)))
+            .contains("CREATE INDEX CONCURRENTLY IF NOT EXISTS address_fulltext_idx ON demo.address USING gin (("
+                + document + "));");
+        String controller = Files.readString(
+            tempDir.resolve("grails-app/controllers/com/example/AddressController.groovy"));
+        assertThat(controller)
+            .contains("static final String SEARCH_DOCUMENT = \"" + document + "\"")
+            .contains("static final List<String> SEARCH_COLUMNS = ['street', 'remark']")
+            .contains("def search(String q, Integer max)")
+            .contains("fullTextSearchService.search(TABLE, SEARCH_DOCUMENT, SEARCH_COLUMNS, q.trim(), limit)");
+        assertThat(Files.readString(tempDir.resolve("grails-app/services/com/example/FullTextSearchService.groovy")))
+            .contains("websearch_to_tsquery('simple'::regconfig, ?)")
+            .contains(".replace('%', '\\\\%').replace('_', '\\\\_') + '%'")
+            .contains("\"lower(${it}) LIKE ? ESCAPE '\\\\'\"");
+        assertThat(Files.readString(tempDir.resolve("grails-app/views/address/list.gsp")))
+            .contains("<g:form action=\"search\" method=\"GET\" class=\"search\">");
+        assertThat(Files.readString(
+            tempDir.resolve("grails-app/controllers/com/example/PersonController.groovy")))
+            .doesNotContain("def search(");
+    }
+
+    @Test
+    void wiresMicrometerIntoGeneratedApp() throws IOException {
+        ModelMetadata metadata = sampleMetadata();
+        Files.writeString(tempDir.resolve("build.gradle"), "dependencies {\n}\n");
+        new GrailsCrudGenerator().generate(metadata, GenerationConfig.builder(tempDir, "com.example").build());
+        assertThat(tempDir.resolve("grails-app/controllers/com/example/MetricsInterceptor.groovy")).doesNotExist();
+        assertThat(Files.readString(tempDir.resolve("build.gradle"))).doesNotContain("micrometer");
+        GenerationConfig config = GenerationConfig.builder(tempDir, "com.example")
+            .metrics(true)
+            .prometheusEndpoint(true)
+            .build();
+
+        new GrailsCrudGenerator().generate(metadata, config);
+
+        assertThat(Files.readString(tempDir.resolve("grails-app/services/com/example/RowCountService.groovy")))
+            .contains("import io.micrometer.core.annotation.Timed")
+            .contains("    @Timed('ili2grails.service')\n    @ReadOnly\n    Map count(");
+        assertThat(Files.readString(tempDir.resolve("grails-app/controllers/com/example/MetricsInterceptor.groovy")))
+            .contains("matchAll()")
+            .contains("Timer.builder('ili2grails.controller')");
+        assertThat(Files.readString(tempDir.resolve("src/main/groovy/com/example/HibernateStatisticsMetrics.groovy")))
+            .contains("static final List<String> ENTITIES = ['com.example.Person', 'com.example.Address']");
+        assertThat(Files.readString(tempDir.resolve(GrailsMetricsGenerator.AUTO_CONFIGURATION_IMPORTS)))
+            .containsOnlyOnce("com.example.MetricsConfiguration");
+        assertThat(Files.readString(tempDir.resolve("build.gradle")))
+            .contains("spring-boot-starter-aop")
+            .contains("runtimeOnly \"io.micrometer:micrometer-registry-prometheus\"");
+
+        new GrailsCrudGenerator().generate(metadata, config);
+        assertThat(Files.readString(tempDir.resolve(GrailsMetricsGenerator.AUTO_CONFIGURATION_IMPORTS)))
+            .containsOnlyOnce("com.example.MetricsConfiguration");
+    }
+
+    @Test
+    void generatesLoadTestWithFixturesFromMetadata() throws IOException {
+        ModelMetadata metadata = sampleMetadata();
+        AttributeMetadata number = new AttributeMetadata("number");
+        number.setJavaType("Integer");
+        number.setMinValue("1");
+        number.setMaxValue("999");
+        number.setMandatory(true);
+        metadata.getClass("TestModel.Address").addAttribute(number);
+        GenerationConfig config = GenerationConfig.builder(tempDir, "com.example").build();
+
+        new GrailsCrudGenerator().generate(metadata, config);
+
+        assertThat(Files.readString(tempDir.resolve(GrailsLoadTestGenerator.LOAD_TEST_FILE)))
+            .contains("new Target(\"person\", false, LoadTest::personFixture),\n"
+                + "        new Target(\"address\", false, LoadTest::addressFixture)\n")
+            .contains("values.put(\"street\", text(n, 100));")
+            .contains("values.put(\"status\", \"ACTIVE\");")
+            .contains("values.put(\"number\", number(n, 1L, 999L));")
+            .contains("if (!fixtures.reference(values, \"person.id\", \"person\", false)) {")
+            .contains("static double percentile(long[] sorted, double percentile)")
+            .contains("Runtime.getRuntime().addShutdownHook(new Thread(test::cleanup));")
+            .contains("post(\"/\" + entry.controller() + \"/delete/\" + entry.id(), values)")
+            .contains("Long id = fixtures.randomCreated(controller);")
+            .contains("return saved(post(\"/\" + controller + \"/update/\" + id, values));")
+            .contains("return response.statusCode() == 201 || response.statusCode() / 100 == 3;")
+            .contains("if (!saved(response) || !matcher.find()) {");
+    }
+
+    @Test
+    void generatesEnumLookupsAndHibernateTypeForIliCodes() throws IOException {
+        ModelMetadata metadata = sampleMetadata();
+        EnumMetadata color = new EnumMetadata("TestModel.Color");
+        EnumMetadata.EnumValue light = new EnumMetadata.EnumValue("red.light", 0);
+        light.setDispName("Light red");
+        light.addLabel("de", "Hellrot");
+        color.setValues(List.of(light, new EnumMetadata.EnumValue("red.dark", 1)));
+        metadata.addEnum(color);
+        AttributeMetadata colorAttr = new AttributeMetadata("color");
+        colorAttr.setEnumType("TestModel.Color");
+        colorAttr.setJavaType("String");
+        colorAttr.setDbType("int4");
+        metadata.getClass("TestModel.Address").addAttribute(colorAttr);
+        GenerationConfig config = GenerationConfig.builder(tempDir, "com.example").build();
+
+        new GrailsCrudGenerator().generate(metadata, config);
+
+        Path enumDir = tempDir.resolve("src/main/groovy/com/example/enums");
+        assertThat(Files.readString(enumDir.resolve("Color.groovy")))
+            .contains("enum Color implements IliEnum {")
+            .contains("red_light('red.light', 0, 'Light red', ['de': 'Hellrot']),\n    red_dark('red.dark', 1, 'red.dark', [:])\n")
+            .contains("BY_ILI_CODE.put(value.iliCode, value)")
+            .contains("static Color fromDispName(String dispName, String language = null) {");
+        assertThat(Files.readString(enumDir.resolve("StatusType.groovy")))
+            .contains("class StatusType extends IliEnumType<Status> {")
+            .contains("Status.fromIliCode(iliCode)");
+        assertThat(enumDir.resolve("StatusCodeType.groovy")).doesNotExist();
+        assertThat(Files.readString(enumDir.resolve("ColorCodeType.groovy")))
+            .contains("class ColorCodeType extends ColorType {");
+        assertThat(Files.readString(enumDir.resolve("IliEnumType.groovy")))
+            .contains("abstract class IliEnumType<E extends Enum<E>> implements UserType {")
+            .contains("st.setString(index, ((IliEnum) value).iliCode)");
+        assertThat(Files.readString(tempDir.resolve("grails-app/domain/com/example/Address.groovy")))
+            .contains("import com.example.enums.StatusType")
+            .contains("status type: StatusType\n")
+            .contains("color type: ColorCodeType\n");
+    }
+
+    @Test
+    void countsChildrenFromMaterializedViews() throws IOException {
+        ModelMetadata metadata = sampleMetadata();
+        metadata.getClass("TestModel.Address").getAttribute("person").setColumnName("person");
+        GenerationConfig config = GenerationConfig.builder(tempDir, "com.example")
+            .schema("demo")
+            .childCounts(true)
+            .childCountRefreshSeconds(60)
+            .build();
+
+        new GrailsCrudGenerator().generate(metadata, config);
+
+        assertThat(Files.readString(tempDir.resolve(GrailsChildCountGenerator.MIGRATION_FILE)))
+            .contains("CREATE MATERIALIZED VIEW IF NOT EXISTS demo.ili2grails_cc_address_person AS\n"
+                + "    SELECT person AS parent_id, count(*) AS child_count\n"
+                + "    FROM demo.address\n")
+            .contains("CREATE UNIQUE INDEX IF NOT EXISTS ili2grails_cc_address_person_parent_id_idx "
+                + "ON demo.ili2grails_cc_address_person (parent_id);");
+        assertThat(Files.readString(tempDir.resolve("grails-app/services/com/example/ChildCountService.groovy")))
+            .contains("static final List<String> VIEWS = ['demo.ili2grails_cc_address_person']")
+            .contains("@Scheduled(fixedDelayString = '${ili2grails.child-counts.refresh-millis:60000}'")
+            .contains("REFRESH MATERIALIZED VIEW CONCURRENTLY ${view}");
+        String controller = Files.readString(tempDir.resolve("grails-app/controllers/com/example/PersonController.groovy"));
+        assertThat(controller)
+            .contains("[property: 'addresses', view: 'demo.ili2grails_cc_address_person', table: 'demo.address', "
+                + "column: 'person']")
+            .contains("static final List<String> SHOW_VERSION_TABLES = VERSION_TABLES + ['demo.address']")
+            .contains("notModified(request, response, SHOW_VERSION_TABLES, 'show:' + id + ':' + childCountService.generation)")
+            .contains("respond Person.get(id), model: [childCounts: childCountService.counts(CHILD_COUNTS, id)]");
+        assertThat(Files.readString(tempDir.resolve("grails-app/controllers/com/example/AddressController.groovy")))
+            .doesNotContain("CHILD_COUNTS");
+        assertThat(Files.readString(tempDir.resolve("grails-app/views/person/show.gsp")))
+            .contains("<g:formatNumber number=\"${childCounts?.addresses}\" type=\"number\"/>");
+        assertThat(Files.readString(tempDir.resolve(GrailsMetricsGenerator.AUTO_CONFIGURATION_IMPORTS)))
+            .contains("com.example.SchedulingConfiguration");
+    }
+
+    @Test
+    void cachesFormOptionsAndFallsBackToTypeahead() throws IOException {
+        ModelMetadata metadata = sampleMetadata();
+        GenerationConfig config = GenerationConfig.builder(tempDir, "com.example")
+            .schema("demo")
+            .typeaheadThreshold(200)
+            .build();
+
+        new GrailsCrudGenerator().generate(metadata, config);
+
+        assertThat(Files.readString(tempDir.resolve("grails-app/views/address/create.gsp")))
+            .contains("<ili:enumSelect name=\"status\" enumClass=\"${com.example.enums.Status}\"/>")
+            .contains("<ili:referenceSelect name=\"person.id\" id=\"person\" domain=\"${com.example.Person}\" "
+                + "table=\"demo.person\" controller=\"person\" label=\"name\"/>")
+            .doesNotContain("<g:select");
+        assertThat(Files.readString(tempDir.resolve("grails-app/services/com/example/FormOptionsService.groovy")))
+            .contains("class FormOptionsService implements ApplicationListener<AbstractPersistenceEvent>")
+            .contains("static final long TYPEAHEAD_THRESHOLD = 200L")
+            .contains("String key = type.name + '|' + variant + '|' + locale")
+            .contains("(count.total as long) > TYPEAHEAD_THRESHOLD ? null : loadReferenceOptions(domainClass, label)");
+        assertThat(Files.readString(tempDir.resolve("grails-app/taglib/com/example/FormOptionsTagLib.groovy")))
+            .contains("static namespace = 'ili'")
+            .contains("data-lookup=\"' << createLink(controller: attrs.controller, action: 'lookup')")
+            .doesNotContain("import com.example.FormOptionsService");
+    }
+
+    @Test
+    void keepsAggregateArtifactsCompleteWhenRegeneratingChangedClasses() throws IOException {
+        ModelMetadata metadata = sampleMetadata();
+        GenerationConfig config = GenerationConfig.builder(tempDir, "com.example")
+            .schema("demo")
+            .metrics(true)
+            .regeneratedClasses(ClassSelection.ofNames(List.of("TestModel.Address")))
+            .build();
+
+        new GrailsCrudGenerator().generate(metadata, config);
+
+        assertThat(tempDir.resolve("grails-app/domain/com/example/Address.groovy")).exists();
+        assertThat(tempDir.resolve("grails-app/domain/com/example/Person.groovy")).doesNotExist();
+        assertThat(tempDir.resolve("grails-app/controllers/com/example/PersonController.groovy")).doesNotExist();
+        assertThat(tempDir.resolve("grails-app/views/person")).doesNotExist();
+        assertThat(Files.readString(tempDir.resolve(GrailsTableVersionGenerator.MIGRATION_FILE)))
+            .contains("ON demo.person")
+            .contains("ON demo.address");
+        assertThat(Files.readString(tempDir.resolve(GrailsLoadTestGenerator.LOAD_TEST_FILE)))
+            .contains("new Target(\"person\"")
+            .contains("new Target(\"address\"");
+        assertThat(Files.readString(
+            tempDir.resolve("src/main/groovy/com/example/HibernateStatisticsMetrics.groovy")))
+            .contains("static final List<String> ENTITIES = ['com.example.Person', 'com.example.Address']");
+    }
+
+    @Test
+    void removesArtifactsOfDeletedClasses() throws IOException {
+        ModelMetadata metadata = sampleMetadata();
+        GenerationConfig config = GenerationConfig.builder(tempDir, "com.example").build();
+        GrailsCrudGenerator generator = new GrailsCrudGenerator();
+        generator.generate(metadata, config);
+        metadata.getClasses().remove("TestModel.Address");
+
+        List<Path> removed = generator.removeArtifacts(List.of("TestModel.Address", "Other.T.Person"),
+            metadata, config);
+
+        assertThat(removed).hasSize(7);
+        assertThat(tempDir.resolve("grails-app/domain/com/example/Address.groovy")).doesNotExist();
+        assertThat(tempDir.resolve("grails-app/controllers/com/example/AddressController.groovy")).doesNotExist();
+        assertThat(tempDir.resolve("grails-app/controllers/com/example/AddressApiController.groovy")).doesNotExist();
+        assertThat(tempDir.resolve("grails-app/views/address")).doesNotExist();
+        // gleicher einfacher Name wie eine bestehende Klasse
+        assertThat(tempDir.resolve("grails-app/domain/com/example/Person.groovy")).exists();
     }
 
     private ModelMetadata sampleMetadata() {
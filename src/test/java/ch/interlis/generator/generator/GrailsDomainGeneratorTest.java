@@ -2,6 +2,7 @@ package ch.interlis.generator.generator;
 
 import ch.interlis.generator.model.AttributeMetadata;
 import ch.interlis.generator.model.ClassMetadata;
+import ch.interlis.generator.model.ClassSelection;
 import ch.interlis.generator.model.ModelMetadata;
 import ch.interlis.generator.model.RelationshipMetadata;
 import org.junit.jupiter.api.Test;
@@ -51,6 +52,214 @@ class GrailsDomainGeneratorTest {
         assertThat(content).doesNotContain("address_id");
     }
 
+    @Test
+    void generatesOnlySelectedClasses(@TempDir Path tempDir) throws Exception {
+        ModelMetadata metadata = new ModelMetadata("TestModel");
+        ClassMetadata address = new ClassMetadata("TestModel.Addresses.Address");
+        address.setTableName("address");
+        address.addAttribute(primaryKeyAttribute());
+        metadata.addClass(address);
+        ClassMetadata building = new ClassMetadata("TestModel.Buildings.Building");
+        building.setTableName("building");
+        building.addAttribute(primaryKeyAttribute());
+        metadata.addClass(building);
+
+        GenerationConfig config = GenerationConfig.builder(tempDir, "com.example")
+            .classSelection(ClassSelection.parse("TestModel.Addresses", null))
+            .build();
+        new GrailsDomainGenerator().generate(metadata, config);
+
+        Path domainDir = tempDir.resolve("grails-app/domain/com/example");
+        assertThat(domainDir.resolve("Address.groovy")).exists();
+        assertThat(domainDir.resolve("Building.groovy")).doesNotExist();
+    }
+
+    @Test
+    void generatesReferencedClassesAndSuperclassesOfPartialSelection(@TempDir Path tempDir) throws Exception {
+        ModelMetadata metadata = new ModelMetadata("TestModel");
+        ClassMetadata party = new ClassMetadata("TestModel.Parties.Party");
+        party.setTableName("party");
+        party.setInheritanceStrategy("newClass");
+        party.addAttribute(primaryKeyAttribute());
+        AttributeMetadata name = new AttributeMetadata("name");
+        name.setColumnName("name");
+        name.setJavaType("String");
+        party.addAttribute(name);
+        metadata.addClass(party);
+        ClassMetadata address = new ClassMetadata("TestModel.Places.Address");
+        address.setTableName("address");
+        address.addAttribute(primaryKeyAttribute());
+        metadata.addClass(address);
+        ClassMetadata person = new ClassMetadata("TestModel.Parties.Person");
+        person.setTableName("person");
+        person.setBaseClass(party.getName());
+        person.setInheritanceStrategy("newClass");
+        person.addAttribute(primaryKeyAttribute());
+        person.addAttribute(reference("address", address));
+        person.addRelationship(manyToOne("person_address", person, address));
+        metadata.addClass(person);
+        ClassMetadata note = new ClassMetadata("TestModel.Notes.Note");
+        note.setTableName("note");
+        note.addAttribute(primaryKeyAttribute());
+        note.addAttribute(reference("person", person));
+        note.addRelationship(manyToOne("note_person", note, person));
+        metadata.addClass(note);
+
+        GenerationConfig config = GenerationConfig.builder(tempDir, "com.example")
+            .classSelection(ClassSelection.parse("TestModel.Parties.Person", null))
+            .build();
+        new GrailsDomainGenerator().generate(metadata, config);
+
+        Path domainDir = tempDir.resolve("grails-app/domain/com/example");
+        assertThat(Files.readString(domainDir.resolve("Person.groovy")))
+            .contains("class Person extends Party {")
+            .contains("Address address")
+            .contains("static belongsTo = [address: Address]")
+            .doesNotContain("hasMany");
+        assertThat(Files.readString(domainDir.resolve("Party.groovy")))
+            .contains("String name")
+            .contains("tablePerHierarchy false");
+        assertThat(Files.readString(domainDir.resolve("Address.groovy")))
+            .contains("static hasMany = [persons: Person]");
+        assertThat(domainDir.resolve("Note.groovy")).doesNotExist();
+    }
+
+    @Test
+    void mapsJoinedSubclassesUnlessSmart2(@TempDir Path tempDir) throws Exception {
+        ModelMetadata metadata = new ModelMetadata("TestModel");
+        ClassMetadata building = new ClassMetadata("TestModel.Buildings.Building");
+        building.setTableName("building");
+        building.setInheritanceStrategy("newClass");
+        building.addAttribute(primaryKeyAttribute());
+        metadata.addClass(building);
+        ClassMetadata school = new ClassMetadata("TestModel.Buildings.School");
+        school.setTableName("school");
+        school.setBaseClass(building.getName());
+        school.setInheritanceStrategy("newClass");
+        school.addAttribute(primaryKeyAttribute());
+        metadata.addClass(school);
+        ClassMetadata shed = new ClassMetadata("TestModel.Buildings.Shed");
+        shed.setBaseClass(building.getName());
+        shed.setInheritanceStrategy("superClass");
+        metadata.addClass(shed);
+
+        GenerationConfig config = GenerationConfig.builder(tempDir, "com.example").build();
+        new GrailsDomainGenerator().generate(metadata, config);
+
+        Path domainDir = tempDir.resolve("grails-app/domain/com/example");
+        assertThat(Files.readString(domainDir.resolve("Building.groovy")))
+            .contains("tablePerHierarchy false")
+            .contains("id column: 't_id'");
+        assertThat(Files.readString(domainDir.resolve("School.groovy")))
+            .contains("class School extends Building {")
+            .doesNotContain("id column");
+        assertThat(domainDir.resolve("Shed.groovy")).doesNotExist();
+
+        metadata.getSettings().put("ch.ehi.ili2db.inheritanceTrafo", "smart2");
+        new GrailsDomainGenerator().generate(metadata, config);
+
+        assertThat(Files.readString(domainDir.resolve("School.groovy")))
+            .contains("class School {")
+            .contains("id column: 't_id'");
+        assertThat(Files.readString(domainDir.resolve("Building.groovy")))
+            .doesNotContain("tablePerHierarchy");
+    }
+
+    @Test
+    void rendersFetchStrategyFromCardinality(@TempDir Path tempDir) throws Exception {
+        ModelMetadata metadata = new ModelMetadata("TestModel");
+        ClassMetadata parcel = new ClassMetadata("TestModel.Parcel");
+        parcel.setTableName("parcel");
+        parcel.addAttribute(primaryKeyAttribute());
+        metadata.addClass(parcel);
+
+        ClassMetadata building = new ClassMetadata("TestModel.Building");
+        building.setTableName("building");
+        building.addAttribute(primaryKeyAttribute());
+        AttributeMetadata parcelAttribute = new AttributeMetadata("parcel");
+        parcelAttribute.setSqlName("parcel");
+        parcelAttribute.setColumnName("parcel");
+        parcelAttribute.setForeignKey(true);
+        parcelAttribute.setReferencedClass(parcel.getName());
+        building.addAttribute(parcelAttribute);
+        metadata.addClass(building);
+
+        RelationshipMetadata relationship = new RelationshipMetadata("building_parcel");
+        relationship.setSourceClass(building.getName());
+        relationship.setTargetClass(parcel.getName());
+        relationship.setSourceAttribute("parcel");
+        relationship.setType(RelationshipMetadata.RelationType.MANY_TO_ONE);
+        relationship.setCardinality(new RelationshipMetadata.Cardinality(0, -1, 1, 1));
+        building.addRelationship(relationship);
+
+        GenerationConfig config = GenerationConfig.builder(tempDir, "com.example").build();
+        new GrailsDomainGenerator().generate(metadata, config);
+
+        Path domainDir = tempDir.resolve("grails-app/domain/com/example");
+        assertThat(Files.readString(domainDir.resolve("Building.groovy")))
+            .contains("parcel column: 'parcel', fetch: 'join'")
+            .contains("batchSize 25");
+        assertThat(Files.readString(domainDir.resolve("Parcel.groovy")))
+            .contains("static hasMany = [buildings: Building]")
+            .contains("buildings lazy: true, batchSize: 25");
+
+        GenerationConfig plain = GenerationConfig.builder(tempDir, "com.example")
+            .associationBatchSize(0)
+            .joinFetchMandatoryReferences(false)
+            .build();
+        new GrailsDomainGenerator().generate(metadata, plain);
+
+        assertThat(Files.readString(domainDir.resolve("Building.groovy")))
+            .contains("parcel column: 'parcel'\n")
+            .doesNotContain("fetch:")
+            .doesNotContain("batchSize");
+        assertThat(Files.readString(domainDir.resolve("Parcel.groovy")))
+            .contains("buildings lazy: true\n");
+    }
+
+    @Test
+    void cachesCatalogueItemsAndDoesNotJoinThem(@TempDir Path tempDir) throws Exception {
+        ModelMetadata metadata = new ModelMetadata("TestModel");
+        ClassMetadata material = new ClassMetadata("TestModel.Catalogues.Material");
+        material.setTableName("material");
+        material.setBaseClass("CatalogueObjects_V1.Catalogues.Item");
+        material.addAttribute(primaryKeyAttribute());
+        metadata.addClass(material);
+
+        ClassMetadata pipe = new ClassMetadata("TestModel.Network.Pipe");
+        pipe.setTableName("pipe");
+        pipe.addAttribute(primaryKeyAttribute());
+        AttributeMetadata materialAttribute = new AttributeMetadata("material");
+        materialAttribute.setSqlName("material");
+        materialAttribute.setColumnName("material");
+        materialAttribute.setForeignKey(true);
+        materialAttribute.setMandatory(true);
+        materialAttribute.setReferencedClass(material.getName());
+        pipe.addAttribute(materialAttribute);
+        metadata.addClass(pipe);
+
+        GenerationConfig config = GenerationConfig.builder(tempDir, "com.example").build();
+        new GrailsDomainGenerator().generate(metadata, config);
+
+        Path domainDir = tempDir.resolve("grails-app/domain/com/example");
+        assertThat(Files.readString(domainDir.resolve("Material.groovy")))
+            .contains("cache usage: 'nonstrict-read-write'");
+        assertThat(Files.readString(domainDir.resolve("Pipe.groovy")))
+            .doesNotContain("cache usage")
+            .doesNotContain("fetch: 'join'");
+
+        GenerationConfig readOnly = GenerationConfig.builder(tempDir, "com.example")
+            .readOnlyCache(true)
+            .cachedClasses(ClassSelection.parse("TestModel.Network.Pipe", null))
+            .build();
+        new GrailsDomainGenerator().generate(metadata, readOnly);
+
+        assertThat(Files.readString(domainDir.resolve("Material.groovy")))
+            .contains("cache usage: 'read-only'");
+        assertThat(Files.readString(domainDir.resolve("Pipe.groovy")))
+            .contains("cache usage: 'read-only'");
+    }
+
     private AttributeMetadata primaryKeyAttribute() {
         AttributeMetadata attribute = new AttributeMetadata("t_id");
         attribute.setSqlName("t_id");
@@ -58,4 +267,20 @@ class GrailsDomainGeneratorTest {
         attribute.setPrimaryKey(true);
         return attribute;
     }
+
+    private AttributeMetadata reference(String name, ClassMetadata target) {
+        AttributeMetadata attr = new AttributeMetadata(name);
+        attr.setColumnName(name);
+        attr.setForeignKey(true);
+        attr.setReferencedClass(target.getName());
+        return attr;
+    }
+
+    private RelationshipMetadata manyToOne(String name, ClassMetadata source, ClassMetadata target) {
+        RelationshipMetadata relationship = new RelationshipMetadata(name);
+        relationship.setSourceClass(source.getName());
+        relationship.setTargetClass(target.getName());
+        relationship.setType(RelationshipMetadata.RelationType.MANY_TO_ONE);
+        return relationship;
+    }
 }
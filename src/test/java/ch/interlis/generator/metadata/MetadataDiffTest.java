@@ -0,0 +1,145 @@
+package ch.interlis.generator.metadata;
+
+import ch.interlis.generator.model.AttributeMetadata;
+import ch.interlis.generator.model.ClassMetadata;
+import ch.interlis.generator.model.EnumMetadata;
+import ch.interlis.generator.model.ModelMetadata;
+import ch.interlis.generator.model.RelationshipMetadata;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+class MetadataDiffTest {
+
+    @Test
+    void identicalModelsHaveSameHashAndNoChanges() {
+        ChangeSet changeSet = MetadataDiff.compare(sampleModel(50), sampleModel(50));
+
+        assertThat(changeSet.isEmpty()).isTrue();
+        assertThat(changeSet.getOldHash()).isEqualTo(changeSet.getNewHash());
+        assertThat(changeSet.getAffectedClasses()).isEmpty();
+    }
+
+    @Test
+    void reportsChangedAttributesClassesAndEnumUsers() {
+        ModelMetadata oldModel = sampleModel(50);
+        ModelMetadata newModel = sampleModel(100);
+        newModel.getClass("M.T.Person").getAttributes().remove("street");
+        newModel.addClass(new ClassMetadata("M.T.Building"));
+        newModel.getClasses().remove("M.T.Parcel");
+        newModel.getEnums().get("M.Status").addValue(new EnumMetadata.EnumValue("archiviert", 2));
+
+        ChangeSet changeSet = MetadataDiff.compare(oldModel, newModel);
+
+        assertThat(changeSet.getOldHash()).isNotEqualTo(changeSet.getNewHash());
+        assertThat(changeSet.getChanges()).extracting(ChangeSet.Change::toString).containsExactlyInAnyOrder(
+            "MODIFIED ENUM M.Status [values: [aktiv, inaktiv] -> [aktiv, inaktiv, archiviert]]",
+            "REMOVED CLASS M.T.Parcel",
+            "REMOVED ATTRIBUTE M.T.Person.street",
+            "MODIFIED ATTRIBUTE M.T.Person.name [maxLength: 50 -> 100]",
+            "ADDED CLASS M.T.Building"
+        );
+        assertThat(changeSet.getAffectedClasses())
+            .containsExactlyInAnyOrder("M.T.Person", "M.T.Building", "M.T.Task");
+        assertThat(changeSet.toClassSelection().matches("M.T.Task")).isTrue();
+        assertThat(changeSet.toJson())
+            .contains("\"element\" : \"ATTRIBUTE\"")
+            .contains("\"modified\" : 2");
+    }
+
+    @Test
+    void marksOldAndNewTargetsOfChangedReferencesAsAffected() {
+        ModelMetadata oldModel = sampleModel(50);
+        AttributeMetadata owner = new AttributeMetadata("owner");
+        owner.setForeignKey(true);
+        owner.setReferencedClass("M.T.Person");
+        oldModel.getClass("M.T.Task").addAttribute(owner);
+        RelationshipMetadata parcelOf = new RelationshipMetadata("ParcelOf");
+        parcelOf.setSourceClass("M.T.Task");
+        parcelOf.setTargetClass("M.T.Parcel");
+        oldModel.getClass("M.T.Task").addRelationship(parcelOf);
+        ModelMetadata newModel = sampleModel(50);
+        AttributeMetadata retargeted = new AttributeMetadata("owner");
+        retargeted.setForeignKey(true);
+        retargeted.setReferencedClass("M.T.Parcel");
+        newModel.getClass("M.T.Task").addAttribute(retargeted);
+
+        ChangeSet changeSet = MetadataDiff.compare(oldModel, newModel);
+
+        assertThat(changeSet.getAffectedClasses())
+            .containsExactlyInAnyOrder("M.T.Task", "M.T.Person", "M.T.Parcel");
+
+        ModelMetadata withNewClass = sampleModel(50);
+        ClassMetadata building = new ClassMetadata("M.T.Building");
+        AttributeMetadata parcel = new AttributeMetadata("parcel");
+        parcel.setForeignKey(true);
+        parcel.setReferencedClass("M.T.Parcel");
+        building.addAttribute(parcel);
+        withNewClass.addClass(building);
+
+        assertThat(MetadataDiff.compare(sampleModel(50), withNewClass).getAffectedClasses())
+            .containsExactlyInAnyOrder("M.T.Building", "M.T.Parcel");
+    }
+
+    @Test
+    void keysRelationshipsBySourceAttribute() {
+        ModelMetadata oldModel = sampleModel(50);
+        oldModel.getClass("M.T.Task").addRelationship(relationship("owner", "M.T.Person"));
+        oldModel.getClass("M.T.Task").addRelationship(relationship("parcel", "M.T.Parcel"));
+        ModelMetadata newModel = sampleModel(50);
+        newModel.getClass("M.T.Task").addRelationship(relationship("owner", "M.T.Person"));
+        newModel.getClass("M.T.Task").addRelationship(relationship("parcel", "M.T.Person"));
+
+        ChangeSet changeSet = MetadataDiff.compare(oldModel, newModel);
+
+        assertThat(changeSet.getChanges()).extracting(ChangeSet.Change::toString).containsExactly(
+            "MODIFIED RELATIONSHIP M.T.Task.parcel [targetClass: M.T.Parcel -> M.T.Person]");
+        assertThat(changeSet.getAffectedClasses())
+            .containsExactlyInAnyOrder("M.T.Task", "M.T.Person", "M.T.Parcel");
+    }
+
+    @Test
+    void reportsRemovedClasses() {
+        ModelMetadata newModel = sampleModel(50);
+        newModel.getClasses().remove("M.T.Parcel");
+
+        assertThat(MetadataDiff.compare(sampleModel(50), newModel).getRemovedClasses())
+            .containsExactly("M.T.Parcel");
+    }
+
+    private static RelationshipMetadata relationship(String sourceAttribute, String targetClass) {
+        // ohne Namen: die Beziehung wird über das Quellattribut zugeordnet
+        RelationshipMetadata relationship = new RelationshipMetadata(null);
+        relationship.setSourceClass("M.T.Task");
+        relationship.setSourceAttribute(sourceAttribute);
+        relationship.setTargetClass(targetClass);
+        return relationship;
+    }
+
+    private static ModelMetadata sampleModel(int nameLength) {
+        ModelMetadata metadata = new ModelMetadata("M");
+        ClassMetadata person = new ClassMetadata("M.T.Person");
+        person.setTableName("person");
+        AttributeMetadata name = new AttributeMetadata("name");
+        name.setColumnName("aname");
+        name.setMaxLength(nameLength);
+        person.addAttribute(name);
+        AttributeMetadata street = new AttributeMetadata("street");
+        street.setColumnName("street");
+        person.addAttribute(street);
+        metadata.addClass(person);
+
+        ClassMetadata task = new ClassMetadata("M.T.Task");
+        AttributeMetadata status = new AttributeMetadata("status");
+        status.setEnumType("M.Status");
+        task.addAttribute(status);
+        metadata.addClass(task);
+        metadata.addClass(new ClassMetadata("M.T.Parcel"));
+
+        EnumMetadata statusEnum = new EnumMetadata("M.Status");
+        statusEnum.addValue(new EnumMetadata.EnumValue("aktiv", 0));
+        statusEnum.addValue(new EnumMetadata.EnumValue("inaktiv", 1));
+        metadata.addEnum(statusEnum);
+        return metadata;
+    }
+}
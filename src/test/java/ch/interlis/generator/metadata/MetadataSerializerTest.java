@@ -0,0 +1,114 @@
+package ch.interlis.generator.metadata;
+
+import ch.interlis.generator.model.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.*;
+
+class MetadataSerializerTest {
+
+    @Test
+    void roundTripsBinaryAndJson(@TempDir Path tempDir) throws Exception {
+        ModelMetadata metadata = sampleModel();
+        String hash = MetadataDiff.hash(metadata);
+
+        Path binary = tempDir.resolve("model.ilim");
+        MetadataSerializer.write(metadata, binary);
+        assertThat(Files.readAllBytes(binary)).startsWith('I', 'L', 'I', 'M');
+        ModelMetadata fromBinary = MetadataSerializer.read(binary);
+
+        Path json = tempDir.resolve("model.json");
+        MetadataSerializer.write(metadata, json);
+        ModelMetadata fromJson = MetadataSerializer.read(json);
+
+        for (ModelMetadata loaded : new ModelMetadata[] {fromBinary, fromJson}) {
+            assertThat(loaded.isFrozen()).isTrue();
+            assertThat(MetadataDiff.hash(loaded)).isEqualTo(hash);
+            assertThat(loaded.getSettings()).containsEntry("ch.ehi.ili2db.inheritanceTrafo", "smart2")
+                .containsEntry("ch.ehi.ili2db.baskets", null);
+            ClassMetadata person = loaded.getClass("M.T.Person");
+            assertThat(person.getLabels()).containsEntry("de", "Person");
+            assertThat(person.getAttribute("name").getMaxLength()).isEqualTo(60);
+            assertThat(person.getAttribute("status").getEnumValues())
+                .extracting(EnumMetadata.EnumValue::getIliCode).containsExactly("aktiv");
+            assertThat(person.getRelationships().get(0).getCardinality().getMaxTarget()).isEqualTo(-1);
+            assertThat(loaded.getEnums().get("M.Status").getValues().get(0).getLabels())
+                .containsEntry("fr", "actif");
+        }
+    }
+
+    @Test
+    void rejectsUnknownVersion() {
+        byte[] bytes = MetadataSerializer.toBytes(sampleModel());
+        bytes[5] = (byte) (MetadataSerializer.FORMAT_VERSION + 1);
+
+        assertThatThrownBy(() -> MetadataSerializer.fromBytes(ByteBuffer.wrap(bytes)))
+            .isInstanceOf(IOException.class)
+            .hasMessageContaining("version");
+    }
+
+    @Test
+    void rejectsCorruptLengths() {
+        byte[] bytes = MetadataSerializer.toBytes(sampleModel());
+        // Erster String der Stringtabelle: Länge als Varint direkt nach Header und Anzahl
+        byte[] corrupt = Arrays.copyOf(bytes, bytes.length);
+        corrupt[7] = (byte) 0xff;
+        corrupt[8] = (byte) 0xff;
+        corrupt[9] = (byte) 0xff;
+        corrupt[10] = (byte) 0x7f;
+
+        assertThatThrownBy(() -> MetadataSerializer.fromBytes(ByteBuffer.wrap(corrupt)))
+            .isInstanceOf(IOException.class)
+            .hasMessageContaining("invalid length");
+        assertThatThrownBy(() -> MetadataSerializer.fromBytes(ByteBuffer.wrap(Arrays.copyOf(bytes, 12))))
+            .isInstanceOf(IOException.class);
+    }
+
+    private static ModelMetadata sampleModel() {
+        ModelMetadata metadata = new ModelMetadata("M");
+        metadata.setSchemaName("s");
+        metadata.getSettings().put("ch.ehi.ili2db.inheritanceTrafo", "smart2");
+        metadata.getSettings().put("ch.ehi.ili2db.baskets", null);
+
+        EnumMetadata status = new EnumMetadata("M.Status");
+        EnumMetadata.EnumValue active = new EnumMetadata.EnumValue("aktiv", 0);
+        active.setDispName("Aktiv");
+        active.addLabel("fr", "actif");
+        status.addValue(active);
+        metadata.addEnum(status);
+
+        ClassMetadata person = new ClassMetadata("M.T.Person");
+        person.setTableName("person");
+        person.setKind(ClassMetadata.ClassKind.CLASS);
+        person.addLabel("de", "Person");
+        AttributeMetadata name = new AttributeMetadata("name");
+        name.setColumnName("aname");
+        name.setMandatory(true);
+        name.setMaxLength(60);
+        person.addAttribute(name);
+        AttributeMetadata statusAttr = new AttributeMetadata("status");
+        statusAttr.setEnumType(status.getName());
+        statusAttr.addEnumValue(active);
+        person.addAttribute(statusAttr);
+        AttributeMetadata address = new AttributeMetadata("address");
+        address.setForeignKey(true);
+        address.setReferencedClass("M.T.Address");
+        person.addAttribute(address);
+        RelationshipMetadata relationship = new RelationshipMetadata("person_address");
+        relationship.setSourceClass(person.getName());
+        relationship.setTargetClass("M.T.Address");
+        relationship.setType(RelationshipMetadata.RelationType.MANY_TO_ONE);
+        relationship.setCardinality(new RelationshipMetadata.Cardinality(0, -1, 1, -1));
+        person.addRelationship(relationship);
+        metadata.addClass(person);
+        metadata.addClass(new ClassMetadata("M.T.Address"));
+        return metadata;
+    }
+}
@@ -0,0 +1,72 @@
+package ch.interlis.generator.metadata;
+
+import ch.interlis.generator.model.ClassSelection;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Test für den Batch-Modus über mehrere Schemas (H2 im Memory-Modus).
+ */
+class SchemaBatchReaderTest {
+
+    private static final String JDBC_URL = "jdbc:h2:mem:batch;DB_CLOSE_DELAY=-1";
+
+    private Connection connection;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        connection = DriverManager.getConnection(JDBC_URL);
+        for (String schema : List.of("GEM_A", "GEM_B", "OTHER")) {
+            createSchema(schema);
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("DROP ALL OBJECTS");
+        }
+        connection.close();
+    }
+
+    @Test
+    void resolvesPatternsAndReadsEachSchema() throws Exception {
+        List<String> schemas = SchemaBatchReader.resolveSchemas(connection, List.of("GEM_*", "MISSING"));
+        assertThat(schemas).containsExactly("GEM_A", "GEM_B", "MISSING");
+
+        List<SchemaBatchReader.SchemaResult> results =
+            new SchemaBatchReader(JDBC_URL, null, ClassSelection.all(), 2).readAll("M", schemas);
+
+        assertThat(results).extracting(SchemaBatchReader.SchemaResult::getSchema)
+            .containsExactly("GEM_A", "GEM_B", "MISSING");
+        assertThat(results.get(0).isSuccess()).isTrue();
+        assertThat(results.get(0).getMetadata().getSchemaName()).isEqualTo("GEM_A");
+        assertThat(results.get(1).getMetadata().getClasses()).containsKey("M.T.Person");
+        assertThat(results.get(2).isSuccess()).isFalse();
+        assertThat(results.get(2).getError()).isNotNull();
+    }
+
+    private void createSchema(String schema) throws Exception {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("CREATE SCHEMA " + schema);
+            stmt.execute("CREATE TABLE " + schema + ".t_ili2db_classname (iliname VARCHAR(1024) PRIMARY KEY, sqlname VARCHAR(1024))");
+            stmt.execute("CREATE TABLE " + schema + ".t_ili2db_attrname (iliname VARCHAR(1024), sqlname VARCHAR(1024), colowner VARCHAR(1024), target VARCHAR(1024))");
+            stmt.execute("CREATE TABLE " + schema + ".t_ili2db_settings (tag VARCHAR(1024), setting VARCHAR(1024))");
+            stmt.execute("CREATE TABLE " + schema + ".t_ili2db_inheritance (thisclass VARCHAR(1024), baseclass VARCHAR(1024))");
+            stmt.execute("CREATE TABLE " + schema + ".t_ili2db_column_prop (tablename VARCHAR(255), columnname VARCHAR(255), tag VARCHAR(1024), setting VARCHAR(1024))");
+            stmt.execute("CREATE TABLE " + schema + ".t_ili2db_table_prop (tablename VARCHAR(255), setting VARCHAR(255))");
+            stmt.execute("INSERT INTO " + schema + ".t_ili2db_classname VALUES ('M.T.Person', 'person')");
+            stmt.execute("INSERT INTO " + schema + ".t_ili2db_table_prop VALUES ('person', 'CLASS')");
+            stmt.execute("INSERT INTO " + schema + ".t_ili2db_attrname VALUES ('firstName', 'firstname', 'person', NULL)");
+            stmt.execute("CREATE TABLE " + schema + ".person (t_id BIGINT PRIMARY KEY, firstname VARCHAR(50))");
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package ch.interlis.generator.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClassSelectionTest {
+
+    @Test
+    void matchesTopicsWildcardsAndExcludes() {
+        ClassSelection selection = ClassSelection.parse(
+            "SimpleAddressModel.Addresses;Other.*.Building",
+            "SimpleAddressModel.Addresses.PersonAddress"
+        );
+
+        assertThat(selection.matches("SimpleAddressModel.Addresses.Person")).isTrue();
+        assertThat(selection.matches("SimpleAddressModel.Addresses.PersonAddress")).isFalse();
+        assertThat(selection.matches("SimpleAddressModel.Other.Person")).isFalse();
+        assertThat(selection.matches("Other.Topic.Building")).isTrue();
+        assertThat(selection.mayMatchWithin("SimpleAddressModel.Addresses")).isTrue();
+        assertThat(selection.mayMatchWithin("SimpleAddressModel.Other")).isFalse();
+        assertThat(selection.includeLikePatterns())
+            .contains("SimpleAddressModel.Addresses", "SimpleAddressModel.Addresses.%", "Other.%.Building");
+    }
+
+    @Test
+    void emptySelectionMatchesEverything() {
+        ClassSelection selection = ClassSelection.parse(" ", null);
+
+        assertThat(selection.isAll()).isTrue();
+        assertThat(selection.matches("Any.Topic.Class")).isTrue();
+        assertThat(selection.mayMatchWithin("Any.Topic")).isTrue();
+    }
+
+    @Test
+    void escapesLikeWildcardsInNames() {
+        ClassSelection selection = ClassSelection.parse(null, "Model.Topic.A_B, Model.Topic.C*");
+
+        assertThat(selection.excludeLikePatterns())
+            .containsExactly("Model.Topic.A\\_B", "Model.Topic.A\\_B.%", "Model.Topic.C%");
+        assertThat(selection.matches("Model.Topic.AxB")).isTrue();
+        assertThat(selection.matches("Model.Topic.A_B")).isFalse();
+    }
+}
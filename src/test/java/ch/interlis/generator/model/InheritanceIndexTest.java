@@ -0,0 +1,84 @@
+package ch.interlis.generator.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+class InheritanceIndexTest {
+
+    @Test
+    void computesClosureDepthAndOrder() {
+        ModelMetadata metadata = new ModelMetadata("M");
+        ClassMetadata school = subclass("M.T.School", "M.T.Building");
+        ClassMetadata building = subclass("M.T.Building", "M.T.Object");
+        ClassMetadata object = subclass("M.T.Object", null);
+        ClassMetadata other = subclass("M.T.Other", "M.Unknown.Base");
+        metadata.addClass(school);
+        metadata.addClass(building);
+        metadata.addClass(object);
+        metadata.addClass(other);
+        metadata.freeze();
+
+        InheritanceIndex index = metadata.getInheritanceIndex();
+
+        assertThat(metadata.getInheritanceIndex()).isSameAs(index);
+        assertThat(index.getTopologicalOrder()).containsExactly(object, other, building, school);
+        assertThat(index.getAncestors(school)).containsExactly(building, object);
+        assertThat(index.getDescendants(object)).containsExactly(school, building);
+        assertThat(index.getDepth(school)).isEqualTo(2);
+        assertThat(index.getDepth(other)).isZero();
+        assertThat(index.getParent(other)).isNull();
+        assertThat(index.isSubclassOf(school, object)).isTrue();
+        assertThat(index.isSubclassOf(object, school)).isFalse();
+        assertThat(index.isSubclassOf(building, "M.T.Object")).isTrue();
+    }
+
+    @Test
+    void cachesIndexUntilClassIsAdded() {
+        ModelMetadata metadata = new ModelMetadata("M");
+        ClassMetadata object = subclass("M.T.Object", null);
+        metadata.addClass(object);
+
+        InheritanceIndex index = metadata.getInheritanceIndex();
+        assertThat(metadata.getInheritanceIndex()).isSameAs(index);
+
+        ClassMetadata building = subclass("M.T.Building", "M.T.Object");
+        metadata.addClass(building);
+
+        InheritanceIndex rebuilt = metadata.getInheritanceIndex();
+        assertThat(rebuilt).isNotSameAs(index);
+        assertThat(rebuilt.getDescendants(object)).containsExactly(building);
+    }
+
+    @Test
+    void resolvesStrategiesAndJoinedSubclasses() {
+        ModelMetadata metadata = new ModelMetadata("M");
+        ClassMetadata base = subclass("M.T.Base", null);
+        base.setInheritanceStrategy("newClass");
+        ClassMetadata joined = subclass("M.T.Joined", "M.T.Base");
+        joined.setInheritanceStrategy("newClass");
+        ClassMetadata merged = subclass("M.T.Merged", "M.T.Base");
+        merged.setInheritanceStrategy("superClass");
+        metadata.addClass(base);
+        metadata.addClass(joined);
+        metadata.addClass(merged);
+
+        InheritanceIndex index = InheritanceIndex.build(metadata);
+        assertThat(index.getStrategy(merged)).isEqualTo(InheritanceIndex.Strategy.SUPER_CLASS);
+        assertThat(index.hasOwnTable(merged)).isFalse();
+        assertThat(index.getJoinedSuperclass(joined)).isSameAs(base);
+        assertThat(index.hasJoinedSubclasses(base)).isTrue();
+
+        metadata.getSettings().put(InheritanceIndex.SETTING_INHERITANCE_TRAFO, "smart2");
+        InheritanceIndex smart2 = InheritanceIndex.build(metadata);
+        assertThat(smart2.isSmart2()).isTrue();
+        assertThat(smart2.getJoinedSuperclass(joined)).isNull();
+        assertThat(smart2.hasJoinedSubclasses(base)).isFalse();
+    }
+
+    private static ClassMetadata subclass(String name, String baseClass) {
+        ClassMetadata classMetadata = new ClassMetadata(name);
+        classMetadata.setBaseClass(baseClass);
+        return classMetadata;
+    }
+}
@@ -0,0 +1,109 @@
+package ch.interlis.generator.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ModelMetadataFreezeTest {
+
+    @Test
+    void freezeAssignsIdsAndSharesStrings() {
+        ModelMetadata metadata = new ModelMetadata("M");
+        ClassMetadata person = classWithText("M.T.Person", "name");
+        ClassMetadata address = classWithText("M.T.Address", "street");
+        address.getAttribute("street").setMaxLength(null);
+        metadata.addClass(person);
+        metadata.addClass(address);
+        EnumMetadata status = new EnumMetadata("M.Status");
+        status.addValue(new EnumMetadata.EnumValue("aktiv", 0));
+        metadata.addEnum(status);
+
+        metadata.freeze();
+
+        assertThat(metadata.isFrozen()).isTrue();
+        assertThat(person.getId()).isZero();
+        assertThat(metadata.getClassById(1)).isSameAs(address);
+        assertThat(metadata.getAttributeCount()).isEqualTo(2);
+        assertThat(metadata.getAttributeById(1)).isSameAs(address.getAttribute("street"));
+        assertThat(metadata.getEnumById(status.getId())).isSameAs(status);
+
+        AttributeMetadata name = person.getAttribute("name");
+        assertThat(name.getMaxLength()).isEqualTo(60);
+        assertThat(address.getAttribute("street").getMaxLength()).isNull();
+        assertThat(name.getIliType()).isSameAs(address.getAttribute("street").getIliType());
+        assertThat(name.getJavaType()).isEqualTo("String");
+        assertThat(person.getLabels()).isEmpty();
+    }
+
+    @Test
+    void frozenMetadataRejectsModifications() {
+        ModelMetadata metadata = new ModelMetadata("M");
+        ClassMetadata person = classWithText("M.T.Person", "name");
+        metadata.addClass(person);
+        metadata.freeze();
+
+        assertThatThrownBy(() -> metadata.addClass(new ClassMetadata("M.T.Other")))
+            .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> person.setTableName("other"))
+            .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> person.getAttribute("name").setMandatory(true))
+            .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> person.getAttributes().clear())
+            .isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(() -> metadata.getSettings().put("a", "b"))
+            .isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    void frozenMapsAreViewsOnIdArrays() {
+        ModelMetadata metadata = new ModelMetadata("M");
+        for (int i = 0; i < 20; i++) {
+            metadata.addClass(classWithText("M.T.C" + i, "name"));
+        }
+        EnumMetadata status = new EnumMetadata("M.Status");
+        metadata.addEnum(status);
+
+        metadata.freeze();
+
+        assertThat(metadata.getClasses()).hasSize(20);
+        assertThat(metadata.getClasses().keySet()).first().isEqualTo("M.T.C0");
+        for (int i = 0; i < 20; i++) {
+            assertThat(metadata.getClass("M.T.C" + i)).isSameAs(metadata.getClassById(i));
+        }
+        assertThat(metadata.getClass("M.T.Missing")).isNull();
+        assertThat(metadata.getAllClasses()).containsExactly(
+            IntStream.range(0, 20).mapToObj(metadata::getClassById).toArray(ClassMetadata[]::new));
+        assertThat(metadata.getEnums()).containsEntry("M.Status", status);
+        assertThatThrownBy(() -> metadata.getClasses().remove("M.T.C0"))
+            .isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(() -> metadata.getAllClasses().clear())
+            .isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    void freezeKeepsSettingsWithoutValue() {
+        ModelMetadata metadata = new ModelMetadata("M");
+        metadata.getSettings().put("ch.ehi.ili2db.defaultSrsCode", "2056");
+        metadata.getSettings().put("ch.ehi.ili2db.inheritanceTrafo", null);
+
+        metadata.freeze();
+
+        assertThat(metadata.getSettings())
+            .containsEntry("ch.ehi.ili2db.defaultSrsCode", "2056")
+            .containsEntry("ch.ehi.ili2db.inheritanceTrafo", null);
+    }
+
+    private static ClassMetadata classWithText(String className, String attributeName) {
+        ClassMetadata classMetadata = new ClassMetadata(className);
+        classMetadata.setTableName(classMetadata.getSimpleName().toLowerCase());
+        AttributeMetadata attr = new AttributeMetadata(attributeName);
+        attr.setColumnName(attributeName);
+        // eigene String-Instanzen, damit die Deduplizierung sichtbar wird
+        attr.setIliType(new String("TEXT"));
+        attr.setMaxLength(60);
+        classMetadata.addAttribute(attr);
+        return classMetadata;
+    }
+}
@@ -0,0 +1,67 @@
+package ch.interlis.generator.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+class RelationshipGraphTest {
+
+    @Test
+    void indexesOutgoingAndIncomingEdges() {
+        ModelMetadata metadata = new ModelMetadata("M");
+        ClassMetadata person = new ClassMetadata("M.T.Person");
+        ClassMetadata address = new ClassMetadata("M.T.Address");
+        ClassMetadata link = new ClassMetadata("M.T.PersonAddress");
+        link.setKind(ClassMetadata.ClassKind.ASSOCIATION);
+        link.addAttribute(foreignKey("person", person.getName(), true));
+        link.addAttribute(foreignKey("address", address.getName(), false));
+        link.addRelationship(relationship(link, "person", person.getName()));
+        ClassMetadata phone = new ClassMetadata("M.T.Phone");
+        phone.setKind(ClassMetadata.ClassKind.STRUCTURE);
+        phone.addAttribute(foreignKey("person_phones", person.getName(), false));
+        metadata.addClass(person);
+        metadata.addClass(address);
+        metadata.addClass(link);
+        metadata.addClass(phone);
+        metadata.freeze();
+
+        RelationshipGraph graph = metadata.getRelationshipGraph();
+
+        assertThat(metadata.getRelationshipGraph()).isSameAs(graph);
+        assertThat(graph.getEdges()).hasSize(3);
+        assertThat(graph.getOutgoing(link))
+            .extracting(edge -> edge.getTarget().getName())
+            .containsExactly("M.T.Person", "M.T.Address");
+        RelationshipGraph.Edge personEdge = graph.getOutgoing(link).get(0);
+        assertThat(personEdge.getRelationship()).isNotNull();
+        assertThat(personEdge.isMandatory()).isTrue();
+        assertThat(personEdge.isAssociationClassLink()).isTrue();
+        assertThat(graph.getOutgoing(link).get(1).getRelationship()).isNull();
+
+        assertThat(graph.getIncoming(person))
+            .extracting(RelationshipGraph.Edge::getSource)
+            .containsExactly(link, phone);
+        assertThat(graph.getIncoming(person).get(1).isComposition()).isTrue();
+        assertThat(graph.getAssociationClasses(person)).containsExactly(link);
+        assertThat(graph.getIncoming(phone)).isEmpty();
+    }
+
+    private static AttributeMetadata foreignKey(String name, String target, boolean mandatory) {
+        AttributeMetadata attr = new AttributeMetadata(name);
+        attr.setSqlName(name);
+        attr.setColumnName(name);
+        attr.setForeignKey(true);
+        attr.setReferencedClass(target);
+        attr.setMandatory(mandatory);
+        return attr;
+    }
+
+    private static RelationshipMetadata relationship(ClassMetadata source, String attribute, String target) {
+        RelationshipMetadata relationship = new RelationshipMetadata(source.getName() + "_" + attribute);
+        relationship.setSourceClass(source.getName());
+        relationship.setTargetClass(target);
+        relationship.setSourceAttribute(attribute);
+        relationship.setType(RelationshipMetadata.RelationType.MANY_TO_ONE);
+        return relationship;
+    }
+}